@@ -0,0 +1,82 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zetool.algorithm.shortestpath.MooreBellmanFord;
+import org.zetool.algorithm.shortestpath.QueueBellmanFord;
+
+/**
+ * Measures the Moore-Bellman-Ford algorithm and its queue based variant. As its runtime is the product of the number of nodes and edges, it uses
+ * smaller graphs than the other benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BellmanFordBenchmark {
+
+    /**
+     * A graph of the sizes suitable for quadratic algorithms.
+     */
+    @State(Scope.Benchmark)
+    public static class SmallGraph {
+
+        @Param({"GRID", "RANDOM_GEOMETRIC", "SCALE_FREE", "COMPLETE"})
+        public GraphType type;
+
+        @Param({"1000", "5000"})
+        public int edges;
+
+        GraphState graph;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            graph = new GraphState();
+            graph.type = type;
+            graph.edges = edges;
+            graph.generate();
+        }
+    }
+
+    @Benchmark
+    public MooreBellmanFord mooreBellmanFord(SmallGraph state) {
+        MooreBellmanFord bellmanFord = new MooreBellmanFord(state.graph.directed, state.graph.directedWeights,
+                state.graph.directedSource);
+        bellmanFord.run();
+        return bellmanFord;
+    }
+
+    @Benchmark
+    public int queueBellmanFord(SmallGraph state) {
+        QueueBellmanFord bellmanFord = new QueueBellmanFord(state.graph.directed, state.graph.directedWeights);
+        bellmanFord.run(state.graph.directedSource.id());
+        return bellmanFord.getScanCount();
+    }
+}
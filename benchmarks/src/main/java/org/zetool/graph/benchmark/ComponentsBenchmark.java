@@ -0,0 +1,55 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zetool.algorithm.components.ForwardBackwardStronglyConnectedComponents;
+import org.zetool.algorithm.components.StronglyConnectedComponents;
+import org.zetool.algorithm.components.TarjanStronglyConnectedComponents;
+
+/**
+ * Measures the computation of the strongly connected components of the directed graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComponentsBenchmark {
+
+    @Benchmark
+    public StronglyConnectedComponents tarjan(GraphState state) {
+        TarjanStronglyConnectedComponents algorithm = new TarjanStronglyConnectedComponents();
+        algorithm.setProblem(state.directed);
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+
+    @Benchmark
+    public StronglyConnectedComponents forwardBackward(GraphState state) {
+        ForwardBackwardStronglyConnectedComponents algorithm = new ForwardBackwardStronglyConnectedComponents();
+        algorithm.setProblem(state.directed);
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+}
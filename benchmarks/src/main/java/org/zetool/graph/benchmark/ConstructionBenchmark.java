@@ -0,0 +1,83 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zetool.graph.CompactDirectedGraph;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.GraphBuilder;
+import org.zetool.graph.StaticGraph;
+
+/**
+ * Measures the construction of the graph implementations from an edge array.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConstructionBenchmark {
+
+    @Benchmark
+    public DefaultDirectedGraph defaultDirectedGraph(GraphState state) {
+        return GraphState.buildDirected(state.nodeCount, state.directedEdges);
+    }
+
+    @Benchmark
+    public DefaultGraph defaultGraph(GraphState state) {
+        return GraphState.buildUndirected(state.nodeCount, state.undirectedEdges);
+    }
+
+    @Benchmark
+    public StaticGraph staticGraph(GraphState state) {
+        return GraphState.buildStatic(state.nodeCount, state.directedEdges);
+    }
+
+    @Benchmark
+    public CompactDirectedGraph compactDirectedGraph(GraphState state) {
+        return CompactDirectedGraph.of(state.directed);
+    }
+
+    @Benchmark
+    public DefaultDirectedGraph builderDefaultDirectedGraph(GraphState state) {
+        return builder(state.nodeCount, state.directedEdges).buildDirected();
+    }
+
+    @Benchmark
+    public CompactDirectedGraph builderCompactDirectedGraph(GraphState state) {
+        return builder(state.nodeCount, state.directedEdges).buildCompact();
+    }
+
+    private static GraphBuilder builder(int nodes, int[][] edges) {
+        int[] starts = new int[edges.length];
+        int[] ends = new int[edges.length];
+        for (int i = 0; i < edges.length; ++i) {
+            starts[i] = edges[i][0];
+            ends[i] = edges[i][1];
+        }
+        GraphBuilder builder = new GraphBuilder(nodes, edges.length);
+        builder.addEdges(starts, ends);
+        return builder;
+    }
+}
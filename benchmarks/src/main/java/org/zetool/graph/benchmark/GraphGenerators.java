@@ -0,0 +1,215 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generators for synthetic graphs. As in {@link org.zetool.graph.util.GraphUtil#generateDirected(int, int[][])}, a
+ * graph is described by its number of nodes and an array of edges, each given by the ids of its start and end node.
+ * All generators with randomness take a seed, so that the same graph is generated on each run.
+ */
+public final class GraphGenerators {
+
+    private GraphGenerators() {
+    }
+
+    /**
+     * Generates a grid graph. Each node is connected to its right and lower neighbor.
+     *
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @return the edges of the grid with {@code rows * columns} nodes
+     */
+    public static int[][] grid(int rows, int columns) {
+        int[][] edges = new int[2 * rows * columns - rows - columns][];
+        int i = 0;
+        for (int row = 0; row < rows; ++row) {
+            for (int column = 0; column < columns; ++column) {
+                int node = row * columns + column;
+                if (column + 1 < columns) {
+                    edges[i++] = new int[]{node, node + 1};
+                }
+                if (row + 1 < rows) {
+                    edges[i++] = new int[]{node, node + columns};
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Generates a random geometric graph. The nodes are placed uniformly at random in the unit square, two nodes are
+     * connected if their distance is at most the radius. Nodes are bucketed in cells of the size of the radius, so
+     * only neighboring cells have to be compared.
+     *
+     * @param nodes the number of nodes
+     * @param radius the connection radius
+     * @param seed the random seed
+     * @return the edges of the graph
+     */
+    public static int[][] randomGeometric(int nodes, double radius, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[nodes];
+        double[] y = new double[nodes];
+        int cellsPerSide = Math.max(1, (int) (1 / radius));
+        int[] cellStart = new int[cellsPerSide * cellsPerSide + 1];
+        int[] cells = new int[nodes];
+        for (int v = 0; v < nodes; ++v) {
+            x[v] = random.nextDouble();
+            y[v] = random.nextDouble();
+            cells[v] = cell(x[v], cellsPerSide) * cellsPerSide + cell(y[v], cellsPerSide);
+            cellStart[cells[v] + 1]++;
+        }
+        for (int c = 0; c < cellsPerSide * cellsPerSide; ++c) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] byCell = new int[nodes];
+        int[] next = Arrays.copyOf(cellStart, cellStart.length);
+        for (int v = 0; v < nodes; ++v) {
+            byCell[next[cells[v]]++] = v;
+        }
+
+        EdgeList edges = new EdgeList();
+        for (int v = 0; v < nodes; ++v) {
+            int cx = cells[v] / cellsPerSide;
+            int cy = cells[v] % cellsPerSide;
+            for (int dx = -1; dx <= 1; ++dx) {
+                for (int dy = -1; dy <= 1; ++dy) {
+                    if (cx + dx < 0 || cx + dx >= cellsPerSide || cy + dy < 0 || cy + dy >= cellsPerSide) {
+                        continue;
+                    }
+                    int c = (cx + dx) * cellsPerSide + cy + dy;
+                    for (int i = cellStart[c]; i < cellStart[c + 1]; ++i) {
+                        int w = byCell[i];
+                        double distanceX = x[v] - x[w];
+                        double distanceY = y[v] - y[w];
+                        if (v < w && distanceX * distanceX + distanceY * distanceY <= radius * radius) {
+                            edges.add(v, w);
+                        }
+                    }
+                }
+            }
+        }
+        return edges.toArray();
+    }
+
+    private static int cell(double coordinate, int cellsPerSide) {
+        return Math.min(cellsPerSide - 1, (int) (coordinate * cellsPerSide));
+    }
+
+    /**
+     * Generates a scale-free graph by preferential attachment (Barabási-Albert model). Starting with a clique, each new
+     * node is connected to {@code degree} existing nodes chosen with probability proportional to their degree.
+     * Multiple edges between the same nodes may occur.
+     *
+     * @param nodes the number of nodes, larger than {@code degree}
+     * @param degree the number of edges of each new node
+     * @param seed the random seed
+     * @return the edges of the graph
+     */
+    public static int[][] scaleFree(int nodes, int degree, long seed) {
+        Random random = new Random(seed);
+        int initial = degree + 1;
+        int[][] edges = new int[initial * degree / 2 + (nodes - initial) * degree][];
+        // each edge contributes both end nodes, so sampling from this array is proportional to the degree
+        int[] endpoints = new int[2 * edges.length];
+        int count = 0;
+        for (int v = 0; v < initial; ++v) {
+            for (int w = v + 1; w < initial; ++w) {
+                endpoints[2 * count] = v;
+                endpoints[2 * count + 1] = w;
+                edges[count++] = new int[]{v, w};
+            }
+        }
+        for (int v = initial; v < nodes; ++v) {
+            int existing = 2 * count;
+            for (int i = 0; i < degree; ++i) {
+                int w = endpoints[random.nextInt(existing)];
+                endpoints[2 * count] = v;
+                endpoints[2 * count + 1] = w;
+                edges[count++] = new int[]{v, w};
+            }
+        }
+        return Arrays.copyOf(edges, count);
+    }
+
+    /**
+     * Generates a complete graph.
+     *
+     * @param nodes the number of nodes
+     * @return the {@code nodes * (nodes - 1) / 2} edges of the graph
+     */
+    public static int[][] complete(int nodes) {
+        int[][] edges = new int[nodes * (nodes - 1) / 2][];
+        int i = 0;
+        for (int v = 0; v < nodes; ++v) {
+            for (int w = v + 1; w < nodes; ++w) {
+                edges[i++] = new int[]{v, w};
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Adds the reverse of each edge, so that a directed graph has the same connectivity as the undirected graph.
+     *
+     * @param edges the edges
+     * @return the edges followed by their reverse edges
+     */
+    public static int[][] bidirected(int[][] edges) {
+        int[][] result = Arrays.copyOf(edges, 2 * edges.length);
+        for (int i = 0; i < edges.length; ++i) {
+            result[edges.length + i] = new int[]{edges[i][1], edges[i][0]};
+        }
+        return result;
+    }
+
+    /**
+     * Generates uniformly distributed random weights.
+     *
+     * @param count the number of weights
+     * @param maxWeight the maximal weight
+     * @param seed the random seed
+     * @return weights between 1 and {@code maxWeight}
+     */
+    public static int[] weights(int count, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        int[] weights = new int[count];
+        for (int i = 0; i < count; ++i) {
+            weights[i] = 1 + random.nextInt(maxWeight);
+        }
+        return weights;
+    }
+
+    private static class EdgeList {
+
+        private int[][] edges = new int[16][];
+        private int size;
+
+        void add(int start, int end) {
+            if (size == edges.length) {
+                edges = Arrays.copyOf(edges, 2 * size);
+            }
+            edges[size++] = new int[]{start, end};
+        }
+
+        int[][] toArray() {
+            return Arrays.copyOf(edges, size);
+        }
+    }
+}
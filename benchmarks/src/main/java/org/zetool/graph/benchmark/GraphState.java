@@ -0,0 +1,117 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.MutableGraph;
+import org.zetool.graph.Node;
+import org.zetool.graph.StaticGraph;
+
+/**
+ * A generated graph shared by all iterations of a benchmark. The undirected graph contains the generated edges, the
+ * directed graph contains each edge in both directions. Edge ids are the positions in the edge arrays, so the same
+ * weights can be used for both graphs.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    /** The seed of all random generators, fixed to get reproducible graphs. */
+    public static final long SEED = 42;
+    public static final int MAX_WEIGHT = 1000;
+
+    @Param({"GRID", "RANDOM_GEOMETRIC", "SCALE_FREE", "COMPLETE"})
+    public GraphType type;
+
+    @Param({"10000", "100000"})
+    public int edges;
+
+    public int nodeCount;
+    public int[][] undirectedEdges;
+    public int[][] directedEdges;
+    public DefaultGraph undirected;
+    public DefaultDirectedGraph directed;
+    public IdentifiableIntegerMapping<Edge> undirectedWeights;
+    public IdentifiableIntegerMapping<Edge> directedWeights;
+    /** The node used as source of searches. */
+    public Node undirectedSource;
+    public Node directedSource;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        undirectedEdges = type.generate(edges, SEED);
+        directedEdges = GraphGenerators.bidirected(undirectedEdges);
+        nodeCount = GraphType.nodeCount(undirectedEdges);
+        undirected = buildUndirected(nodeCount, undirectedEdges);
+        directed = buildDirected(nodeCount, directedEdges);
+        int[] weights = GraphGenerators.weights(undirectedEdges.length, MAX_WEIGHT, SEED);
+        undirectedWeights = weights(undirected, weights);
+        // both directions of an edge have the same weight
+        int[] bidirectedWeights = new int[directedEdges.length];
+        for (int i = 0; i < directedEdges.length; ++i) {
+            bidirectedWeights[i] = weights[i % weights.length];
+        }
+        directedWeights = weights(directed, bidirectedWeights);
+        undirectedSource = undirected.getNode(0);
+        directedSource = directed.getNode(0);
+    }
+
+    static DefaultDirectedGraph buildDirected(int nodes, int[][] edges) {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(nodes, edges.length);
+        addEdges(graph, edges);
+        return graph;
+    }
+
+    static DefaultGraph buildUndirected(int nodes, int[][] edges) {
+        DefaultGraph graph = new DefaultGraph(nodes, edges.length);
+        addEdges(graph, edges);
+        return graph;
+    }
+
+    static StaticGraph buildStatic(int nodes, int[][] edges) {
+        StaticGraph graph = new StaticGraph(true, nodes, edges.length);
+        Node[] nodeArray = new Node[nodes];
+        for (int v = 0; v < nodes; ++v) {
+            nodeArray[v] = new Node(v);
+            graph.setNode(nodeArray[v]);
+        }
+        for (int i = 0; i < edges.length; ++i) {
+            graph.createEdge(nodeArray[edges[i][0]], nodeArray[edges[i][1]], i);
+        }
+        return graph;
+    }
+
+    private static void addEdges(MutableGraph graph, int[][] edges) {
+        for (int[] edge : edges) {
+            graph.createAndSetEdge(graph.getNode(edge[0]), graph.getNode(edge[1]));
+        }
+    }
+
+    private static IdentifiableIntegerMapping<Edge> weights(MutableGraph graph, int[] weights) {
+        IdentifiableIntegerMapping<Edge> mapping = new IdentifiableIntegerMapping<>(weights.length);
+        for (Edge edge : graph.edges()) {
+            mapping.set(edge, weights[edge.id()]);
+        }
+        return mapping;
+    }
+}
@@ -0,0 +1,80 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+/**
+ * The families of synthetic graphs used in the benchmarks. Each family generates a graph with roughly the requested
+ * number of edges, so that results of different families are comparable.
+ */
+public enum GraphType {
+
+    /** A square grid, all nodes have degree at most 4. */
+    GRID {
+        @Override
+        int[][] generate(int edges, long seed) {
+            int side = Math.max(2, (int) Math.sqrt(edges / 2.0));
+            return GraphGenerators.grid(side, side);
+        }
+    },
+    /** A random geometric graph with average degree about 8. */
+    RANDOM_GEOMETRIC {
+        @Override
+        int[][] generate(int edges, long seed) {
+            int nodes = Math.max(2, edges / 4);
+            return GraphGenerators.randomGeometric(nodes, Math.sqrt(AVERAGE_DEGREE / (Math.PI * nodes)), seed);
+        }
+    },
+    /** A scale-free graph with average degree about 8. */
+    SCALE_FREE {
+        @Override
+        int[][] generate(int edges, long seed) {
+            int degree = AVERAGE_DEGREE / 2;
+            return GraphGenerators.scaleFree(Math.max(degree + 2, edges / degree), degree, seed);
+        }
+    },
+    /** A complete graph. */
+    COMPLETE {
+        @Override
+        int[][] generate(int edges, long seed) {
+            return GraphGenerators.complete(Math.max(2, (int) Math.sqrt(2.0 * edges)));
+        }
+    };
+
+    private static final int AVERAGE_DEGREE = 8;
+
+    /**
+     * Generates a graph of this family.
+     *
+     * @param edges the approximate number of edges
+     * @param seed the random seed
+     * @return the edges of the graph
+     */
+    abstract int[][] generate(int edges, long seed);
+
+    /**
+     * Returns the number of nodes of a graph given by its edges, i.e. the maximal node id plus one.
+     *
+     * @param edges the edges
+     * @return the number of nodes
+     */
+    static int nodeCount(int[][] edges) {
+        int nodes = 0;
+        for (int[] edge : edges) {
+            nodes = Math.max(nodes, Math.max(edge[0], edge[1]) + 1);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,94 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zetool.algorithm.shortestpath.DeltaStepping;
+import org.zetool.algorithm.shortestpath.Dijkstra;
+import org.zetool.algorithm.shortestpath.IntegralShortestPathSolution;
+import org.zetool.algorithm.shortestpath.IntegralSingleSourceShortestPathProblem;
+import org.zetool.algorithm.shortestpath.PrimitiveDijkstra;
+
+/**
+ * Measures single source shortest path computations to all nodes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ShortestPathBenchmark {
+
+    /**
+     * The primitive engine, which is created once and queried in each invocation.
+     */
+    @State(Scope.Benchmark)
+    public static class Engine {
+
+        PrimitiveDijkstra dijkstra;
+
+        @Setup(Level.Trial)
+        public void create(GraphState state) {
+            dijkstra = new PrimitiveDijkstra(state.directed, state.directedWeights);
+        }
+    }
+
+    @Benchmark
+    public IntegralShortestPathSolution dijkstraDirected(GraphState state) {
+        return dijkstra(new IntegralSingleSourceShortestPathProblem(state.directed, state.directedWeights,
+                state.directedSource));
+    }
+
+    @Benchmark
+    public IntegralShortestPathSolution dijkstraUndirected(GraphState state) {
+        return dijkstra(new IntegralSingleSourceShortestPathProblem(state.undirected, state.undirectedWeights,
+                state.undirectedSource));
+    }
+
+    @Benchmark
+    public int primitiveDijkstraDirected(GraphState state, Engine engine) {
+        PrimitiveDijkstra.Workspace workspace = engine.dijkstra.getWorkspace();
+        engine.dijkstra.run(workspace, state.directedSource.id(), -1);
+        return workspace.getSettledCount();
+    }
+
+    @Benchmark
+    public IntegralShortestPathSolution deltaSteppingDirected(GraphState state) {
+        DeltaStepping deltaStepping = new DeltaStepping();
+        deltaStepping.setProblem(new IntegralSingleSourceShortestPathProblem(state.directed, state.directedWeights,
+                state.directedSource));
+        deltaStepping.run();
+        return deltaStepping.getSolution();
+    }
+
+    private static IntegralShortestPathSolution dijkstra(IntegralSingleSourceShortestPathProblem problem) {
+        Dijkstra dijkstra = new Dijkstra();
+        dijkstra.setProblem(problem);
+        dijkstra.run();
+        return dijkstra.getSolution();
+    }
+}
@@ -0,0 +1,70 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zetool.algorithm.spanningtree.FilterKruskalAlgorithm;
+import org.zetool.algorithm.spanningtree.KruskalAlgorithm;
+import org.zetool.algorithm.spanningtree.MinSpanningTreeProblem;
+import org.zetool.algorithm.spanningtree.PrimAlgorithm;
+import org.zetool.algorithm.spanningtree.RadixKruskalAlgorithm;
+import org.zetool.algorithm.spanningtree.UndirectedForest;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+
+/**
+ * Measures the minimum spanning tree algorithms on the undirected graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpanningTreeBenchmark {
+
+    @Benchmark
+    public UndirectedForest kruskal(GraphState state) {
+        return solve(new KruskalAlgorithm(), state);
+    }
+
+    @Benchmark
+    public UndirectedForest prim(GraphState state) {
+        return solve(new PrimAlgorithm(), state);
+    }
+
+    @Benchmark
+    public UndirectedForest radixKruskal(GraphState state) {
+        return solve(new RadixKruskalAlgorithm(), state);
+    }
+
+    @Benchmark
+    public UndirectedForest filterKruskal(GraphState state) {
+        return solve(new FilterKruskalAlgorithm(), state);
+    }
+
+    private static UndirectedForest solve(AbstractAlgorithm<MinSpanningTreeProblem, UndirectedForest> algorithm,
+            GraphState state) {
+        algorithm.setProblem(new MinSpanningTreeProblem(state.undirected, state.undirectedWeights));
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+}
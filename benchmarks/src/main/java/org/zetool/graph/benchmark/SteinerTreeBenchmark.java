@@ -0,0 +1,87 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.zetool.algorithm.steinertree.MinSteinerTreeProblem;
+import org.zetool.algorithm.steinertree.SteinerTree;
+import org.zetool.algorithm.steinertree.SteinerTreeMehlhornAlgorithm;
+import org.zetool.algorithm.steinertree.SteinerTreeSpanningTreeApproximationAlgorithm;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.graph.Node;
+
+/**
+ * Measures the Steiner tree approximations on the undirected graph with evenly spread terminals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SteinerTreeBenchmark {
+
+    /**
+     * The Steiner tree instance on the generated graph.
+     */
+    @State(Scope.Benchmark)
+    public static class Terminals {
+
+        @Param({"10", "100"})
+        public int terminals;
+
+        MinSteinerTreeProblem problem;
+
+        @Setup(Level.Trial)
+        public void select(GraphState state) {
+            ListSequence<Node> nodes = new ListSequence<>();
+            int count = Math.min(terminals, state.nodeCount);
+            for (int i = 0; i < count; ++i) {
+                nodes.add(state.undirected.getNode((int) ((long) i * state.nodeCount / count)));
+            }
+            problem = new MinSteinerTreeProblem(state.undirected, state.undirectedWeights, nodes);
+        }
+    }
+
+    @Benchmark
+    public SteinerTree spanningTreeApproximation(Terminals instance) {
+        return solve(new SteinerTreeSpanningTreeApproximationAlgorithm(), instance.problem);
+    }
+
+    @Benchmark
+    public SteinerTree mehlhorn(Terminals instance) {
+        return solve(new SteinerTreeMehlhornAlgorithm(), instance.problem);
+    }
+
+    private static SteinerTree solve(AbstractAlgorithm<MinSteinerTreeProblem, SteinerTree> algorithm,
+            MinSteinerTreeProblem problem) {
+        algorithm.setProblem(problem);
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+}
@@ -0,0 +1,66 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zetool.graph.traversal.BreadthFirstSearch;
+import org.zetool.graph.traversal.DepthFirstSearch;
+import org.zetool.graph.traversal.DirectionOptimizingBreadthFirstSearch;
+
+/**
+ * Measures complete traversals of the directed graph from a single source.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraversalBenchmark {
+
+    @Benchmark
+    public BreadthFirstSearch breadthFirstSearch(GraphState state) {
+        BreadthFirstSearch bfs = new BreadthFirstSearch();
+        bfs.setStart(state.directedSource);
+        bfs.setProblem(state.directed);
+        bfs.run();
+        return bfs;
+    }
+
+    @Benchmark
+    public DirectionOptimizingBreadthFirstSearch directionOptimizingBreadthFirstSearch(GraphState state) {
+        DirectionOptimizingBreadthFirstSearch bfs = new DirectionOptimizingBreadthFirstSearch();
+        bfs.setStart(state.directedSource);
+        bfs.setProblem(state.directed);
+        bfs.run();
+        return bfs;
+    }
+
+    @Benchmark
+    public DepthFirstSearch depthFirstSearch(GraphState state) {
+        DepthFirstSearch dfs = new DepthFirstSearch();
+        dfs.setStart(state.directedSource);
+        dfs.setProblem(state.directed);
+        dfs.run();
+        return dfs;
+    }
+}
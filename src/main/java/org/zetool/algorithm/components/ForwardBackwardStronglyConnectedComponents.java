@@ -0,0 +1,358 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.components;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Parallel forward-backward algorithm for the strongly connected components of a directed graph. The nodes that are
+ * reachable from a pivot node and from which the pivot can be reached form the component of the pivot. Every other
+ * component lies completely in either the forward reachable set, the backward reachable set or the remaining nodes,
+ * so the three sets are processed recursively and in parallel. The forward and backward searches of a set run in
+ * parallel, too.
+ *
+ * Before the recursion, nodes without incoming or outgoing edges are removed repeatedly, as each of them is a
+ * component of its own. Sets not larger than the {@link #setSequentialThreshold(int) sequential threshold} and sets
+ * deep in the recursion are solved by Tarjan's algorithm, which keeps the recursion depth bounded. The expected
+ * runtime is O((n + m) log n), but it is linear for typical graphs with one giant component.
+ */
+public class ForwardBackwardStronglyConnectedComponents
+        extends AbstractAlgorithm<DirectedGraph, StronglyConnectedComponents> {
+
+    /** The default size up to which sets are solved sequentially. */
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 4096;
+    /** The recursion depth after which sets are solved sequentially. */
+    private static final int MAX_DEPTH = 64;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int sequentialThreshold = DEFAULT_SEQUENTIAL_THRESHOLD;
+
+    private CompressedSparseRow outgoing;
+    private CompressedSparseRow incoming;
+    private TarjanSearch tarjan;
+    /** The set each node belongs to, 0 for nodes whose component is known. */
+    private int[] colors;
+    /** The color of the last set whose forward search reached a node. */
+    private int[] forward;
+    /** The color of the last set whose backward search reached a node. */
+    private int[] backward;
+    private int[] labels;
+    private AtomicInteger nextColor;
+    private AtomicInteger nextLabel;
+
+    /**
+     * Sets the pool that runs the searches. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the number of nodes up to which a set is solved sequentially by Tarjan's algorithm.
+     *
+     * @param sequentialThreshold the threshold, at least 1
+     */
+    public void setSequentialThreshold(int sequentialThreshold) {
+        if (sequentialThreshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + sequentialThreshold);
+        }
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    protected StronglyConnectedComponents runAlgorithm(DirectedGraph problem) {
+        if (!problem.isDirected()) {
+            throw new IllegalArgumentException("Graph is not directed.");
+        }
+        outgoing = CompressedSparseRow.of(problem);
+        incoming = CompressedSparseRow.of(problem, true);
+        int nodeCapacity = outgoing.nodeCapacity();
+        tarjan = new TarjanSearch(outgoing);
+        colors = new int[nodeCapacity];
+        forward = new int[nodeCapacity];
+        backward = new int[nodeCapacity];
+        labels = new int[nodeCapacity];
+        Arrays.fill(labels, -1);
+        nextColor = new AtomicInteger(1);
+        nextLabel = new AtomicInteger();
+
+        int[] nodes = new int[problem.nodeCount()];
+        int i = 0;
+        for (Node node : problem.nodes()) {
+            nodes[i++] = node.id();
+        }
+        int[] remaining = trim(nodes);
+        if (remaining.length > 0) {
+            pool.invoke(new Partition(remaining, 0));
+        }
+        StronglyConnectedComponents result = new StronglyConnectedComponents(problem,
+                sortTopologically(nodes, labels, nextLabel.get()), nextLabel.get());
+        outgoing = null;
+        incoming = null;
+        tarjan = null;
+        colors = null;
+        forward = null;
+        backward = null;
+        labels = null;
+        return result;
+    }
+
+    /**
+     * Repeatedly removes nodes without incoming or outgoing arcs to other remaining nodes and assigns each of them a
+     * component of its own. The remaining nodes get the color of the first set. Runtime O(n + m).
+     *
+     * @return the remaining nodes
+     */
+    private int[] trim(int[] nodes) {
+        int color = nextColor.getAndIncrement();
+        int[] inDegree = new int[colors.length];
+        int[] outDegree = new int[colors.length];
+        int[] queue = new int[nodes.length];
+        int tail = 0;
+        for (int v : nodes) {
+            colors[v] = color;
+            for (int arc = outgoing.begin(v); arc < outgoing.end(v); ++arc) {
+                int w = outgoing.head(arc);
+                if (w != v) {
+                    outDegree[v]++;
+                    inDegree[w]++;
+                }
+            }
+        }
+        for (int v : nodes) {
+            if (inDegree[v] == 0 || outDegree[v] == 0) {
+                colors[v] = 0;
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; ++head) {
+            int v = queue[head];
+            labels[v] = nextLabel.getAndIncrement();
+            tail = trimNeighbours(v, outgoing, inDegree, queue, tail);
+            tail = trimNeighbours(v, incoming, outDegree, queue, tail);
+        }
+        int[] remaining = new int[nodes.length - tail];
+        int count = 0;
+        for (int v : nodes) {
+            if (colors[v] == color) {
+                remaining[count++] = v;
+            }
+        }
+        return remaining;
+    }
+
+    private int trimNeighbours(int v, CompressedSparseRow arcs, int[] degree, int[] queue, int tail) {
+        for (int arc = arcs.begin(v); arc < arcs.end(v); ++arc) {
+            int w = arcs.head(arc);
+            if (colors[w] != 0 && w != v && --degree[w] == 0) {
+                colors[w] = 0;
+                queue[tail++] = w;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Relabels the components such that each arc between different components leads from a smaller to a larger
+     * label. Uses Kahn's algorithm on the arcs of the condensation. Runtime O(n + m).
+     *
+     * @return the new labels indexed by node id
+     */
+    private int[] sortTopologically(int[] nodes, int[] labels, int componentCount) {
+        int[] inDegree = new int[componentCount];
+        int[] members = new int[componentCount + 1];
+        for (int v : nodes) {
+            members[labels[v] + 1]++;
+            for (int arc = outgoing.begin(v); arc < outgoing.end(v); ++arc) {
+                if (labels[outgoing.head(arc)] != labels[v]) {
+                    inDegree[labels[outgoing.head(arc)]]++;
+                }
+            }
+        }
+        for (int c = 0; c < componentCount; ++c) {
+            members[c + 1] += members[c];
+        }
+        int[] sorted = new int[nodes.length];
+        int[] position = Arrays.copyOf(members, componentCount);
+        for (int v : nodes) {
+            sorted[position[labels[v]]++] = v;
+        }
+
+        int[] order = new int[componentCount];
+        int tail = 0;
+        for (int c = 0; c < componentCount; ++c) {
+            if (inDegree[c] == 0) {
+                order[tail++] = c;
+            }
+        }
+        int[] newLabels = new int[componentCount];
+        for (int head = 0; head < tail; ++head) {
+            int c = order[head];
+            newLabels[c] = head;
+            for (int i = members[c]; i < members[c + 1]; ++i) {
+                int v = sorted[i];
+                for (int arc = outgoing.begin(v); arc < outgoing.end(v); ++arc) {
+                    int d = labels[outgoing.head(arc)];
+                    if (d != c && --inDegree[d] == 0) {
+                        order[tail++] = d;
+                    }
+                }
+            }
+        }
+        int[] result = new int[labels.length];
+        Arrays.fill(result, -1);
+        for (int v : nodes) {
+            result[v] = newLabels[labels[v]];
+        }
+        return result;
+    }
+
+    /**
+     * Computes the components of a set of nodes having the same color.
+     */
+    private class Partition extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient int[] nodes;
+        private final int depth;
+
+        Partition(int[] nodes, int depth) {
+            this.nodes = nodes;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            int color = colors[nodes[0]];
+            if (nodes.length <= sequentialThreshold || depth >= MAX_DEPTH) {
+                tarjan.run(nodes, colors, color, labels, nextLabel::getAndIncrement);
+                return;
+            }
+            int pivot = nodes[0];
+            invokeAll(new Reach(outgoing, forward, pivot, color, nodes.length),
+                    new Reach(incoming, backward, pivot, color, nodes.length));
+
+            int label = nextLabel.getAndIncrement();
+            int forwardCount = 0;
+            int backwardCount = 0;
+            int restCount = 0;
+            for (int v : nodes) {
+                boolean reachable = forward[v] == color;
+                boolean reaching = backward[v] == color;
+                if (reachable && reaching) {
+                    labels[v] = label;
+                } else if (reachable) {
+                    forwardCount++;
+                } else if (reaching) {
+                    backwardCount++;
+                } else {
+                    restCount++;
+                }
+            }
+            int[] forwardSet = new int[forwardCount];
+            int[] backwardSet = new int[backwardCount];
+            int[] restSet = new int[restCount];
+            int forwardColor = nextColor.getAndIncrement();
+            int backwardColor = nextColor.getAndIncrement();
+            int restColor = nextColor.getAndIncrement();
+            forwardCount = backwardCount = restCount = 0;
+            for (int v : nodes) {
+                boolean reachable = forward[v] == color;
+                boolean reaching = backward[v] == color;
+                if (reachable && reaching) {
+                    colors[v] = 0;
+                } else if (reachable) {
+                    colors[v] = forwardColor;
+                    forwardSet[forwardCount++] = v;
+                } else if (reaching) {
+                    colors[v] = backwardColor;
+                    backwardSet[backwardCount++] = v;
+                } else {
+                    colors[v] = restColor;
+                    restSet[restCount++] = v;
+                }
+            }
+            invokeAll(subset(forwardSet), subset(backwardSet), subset(restSet));
+        }
+
+        private RecursiveAction subset(int[] set) {
+            return set.length == 0 ? new Done() : new Partition(set, depth + 1);
+        }
+    }
+
+    /**
+     * Marks the nodes of a set that are reachable from the pivot with the color of the set by breadth first search.
+     */
+    private class Reach extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final transient CompressedSparseRow arcs;
+        private final transient int[] marks;
+        private final int pivot;
+        private final int color;
+        private final int size;
+
+        Reach(CompressedSparseRow arcs, int[] marks, int pivot, int color, int size) {
+            this.arcs = arcs;
+            this.marks = marks;
+            this.pivot = pivot;
+            this.color = color;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            int[] queue = new int[size];
+            int tail = 0;
+            marks[pivot] = color;
+            queue[tail++] = pivot;
+            for (int head = 0; head < tail; ++head) {
+                int v = queue[head];
+                for (int arc = arcs.begin(v); arc < arcs.end(v); ++arc) {
+                    int w = arcs.head(arc);
+                    if (colors[w] == color && marks[w] != color) {
+                        marks[w] = color;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+        }
+    }
+
+    /** An empty set. */
+    private static class Done extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+        }
+    }
+}
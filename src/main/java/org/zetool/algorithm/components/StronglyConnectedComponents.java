@@ -0,0 +1,141 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.components;
+
+import java.util.Arrays;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Node;
+
+/**
+ * The strongly connected components of a directed graph. Each node is labelled with the number of its component. The
+ * components are numbered in a topological order of the condensation, i.e. each edge between nodes of different
+ * components leads from a smaller to a larger label.
+ */
+public class StronglyConnectedComponents {
+
+    /** The graph whose components are stored. */
+    private final DirectedGraph graph;
+    /** The component label of each node, indexed by node id. */
+    private final int[] labels;
+    private final int componentCount;
+    /** The number of nodes in each component, computed on demand. */
+    private int[] sizes;
+
+    StronglyConnectedComponents(DirectedGraph graph, int[] labels, int componentCount) {
+        this.graph = graph;
+        this.labels = labels;
+        this.componentCount = componentCount;
+    }
+
+    /**
+     * Returns the number of strongly connected components.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Returns the label of the component containing a node.
+     *
+     * @param node the node
+     * @return the component label between 0 and {@link #getComponentCount()} (exclusive)
+     */
+    public int getComponent(Node node) {
+        return labels[node.id()];
+    }
+
+    /**
+     * Returns the label of the component containing a node.
+     *
+     * @param node the node id
+     * @return the component label between 0 and {@link #getComponentCount()} (exclusive)
+     */
+    public int getComponent(int node) {
+        return labels[node];
+    }
+
+    /**
+     * Returns the component labels of all nodes, indexed by node id. Entries for ids not used by the graph are -1.
+     *
+     * @return a copy of the labels
+     */
+    public int[] getComponents() {
+        return labels.clone();
+    }
+
+    /**
+     * Checks whether two nodes are mutually reachable.
+     *
+     * @param first the first node
+     * @param second the second node
+     * @return {@code true} if the nodes are in the same component
+     */
+    public boolean isStronglyConnected(Node first, Node second) {
+        return labels[first.id()] == labels[second.id()];
+    }
+
+    /**
+     * Returns the number of nodes of a component. The sizes of all components are computed with the first call in
+     * time O(n).
+     *
+     * @param component the component label
+     * @return the number of nodes in the component
+     */
+    public int getSize(int component) {
+        if (sizes == null) {
+            int[] counts = new int[componentCount];
+            for (int label : labels) {
+                if (label >= 0) {
+                    counts[label]++;
+                }
+            }
+            sizes = counts;
+        }
+        return sizes[component];
+    }
+
+    /**
+     * Builds the condensation of the graph. The node with id {@code i} represents the component with label {@code i},
+     * for each pair of components connected by at least one edge there is exactly one edge in the condensation. The
+     * condensation is acyclic and its edges lead from smaller to larger node ids. Runtime O(n + m log m).
+     *
+     * @return the condensation as a new graph
+     */
+    public DirectedGraph getCondensation() {
+        long[] arcs = new long[graph.edgeCount()];
+        int count = 0;
+        for (Edge edge : graph.edges()) {
+            int start = labels[edge.start().id()];
+            int end = labels[edge.end().id()];
+            if (start != end) {
+                arcs[count++] = (long) start << 32 | end;
+            }
+        }
+        Arrays.sort(arcs, 0, count);
+        DefaultDirectedGraph condensation = new DefaultDirectedGraph(componentCount, count);
+        for (int i = 0; i < count; ++i) {
+            if (i == 0 || arcs[i] != arcs[i - 1]) {
+                condensation.createAndSetEdge(condensation.getNode((int) (arcs[i] >>> 32)),
+                        condensation.getNode((int) arcs[i]));
+            }
+        }
+        return condensation;
+    }
+}
@@ -0,0 +1,110 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.components;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Iterative version of Tarjan's algorithm on adjacency arrays. The recursion is replaced by an explicit stack storing
+ * the position of the next arc for each node, thus arbitrarily deep graphs can be processed. The search can be
+ * restricted to the nodes of one partition, in which case several searches on disjoint partitions may share the
+ * arrays and run concurrently.
+ */
+final class TarjanSearch {
+
+    private final CompressedSparseRow adjacency;
+    /** The discovery index of each node, -1 if not discovered. */
+    private final int[] index;
+    /** The smallest index reachable via the subtree and one non-tree arc. */
+    private final int[] low;
+    private final int[] nextArc;
+    private final boolean[] onStack;
+
+    TarjanSearch(CompressedSparseRow adjacency) {
+        this.adjacency = adjacency;
+        int nodeCapacity = adjacency.nodeCapacity();
+        index = new int[nodeCapacity];
+        low = new int[nodeCapacity];
+        nextArc = new int[nodeCapacity];
+        onStack = new boolean[nodeCapacity];
+        Arrays.fill(index, -1);
+    }
+
+    /**
+     * Computes the strongly connected components of the subgraph induced by some nodes. If {@code colors} is not
+     * {@code null}, only arcs to nodes with the given color are used and all given nodes must have that color. Each
+     * component gets the next label of the supplier when it is completed, i.e. components are labelled in reverse
+     * topological order. Runtime O(n' + m') for the n' nodes and their m' arcs.
+     *
+     * @param nodes the nodes of the subgraph
+     * @param colors the colors of all nodes, may be {@code null}
+     * @param color the color of the subgraph
+     * @param labels receives the component label of each node
+     * @param nextLabel supplies the labels of the components
+     */
+    void run(int[] nodes, int[] colors, int color, int[] labels, IntSupplier nextLabel) {
+        int[] callStack = new int[nodes.length];
+        int[] componentStack = new int[nodes.length];
+        int counter = 0;
+        for (int root : nodes) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int calls = 0;
+            int components = 0;
+            index[root] = low[root] = counter++;
+            nextArc[root] = adjacency.begin(root);
+            onStack[root] = true;
+            componentStack[components++] = root;
+            callStack[calls++] = root;
+            while (calls > 0) {
+                int v = callStack[calls - 1];
+                if (nextArc[v] < adjacency.end(v)) {
+                    int w = adjacency.head(nextArc[v]++);
+                    if (colors != null && colors[w] != color) {
+                        continue;
+                    }
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        nextArc[w] = adjacency.begin(w);
+                        onStack[w] = true;
+                        componentStack[components++] = w;
+                        callStack[calls++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                calls--;
+                if (calls > 0) {
+                    int parent = callStack[calls - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    int label = nextLabel.getAsInt();
+                    int w;
+                    do {
+                        w = componentStack[--components];
+                        onStack[w] = false;
+                        labels[w] = label;
+                    } while (w != v);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.components;
+
+import java.util.Arrays;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Tarjan's algorithm for the strongly connected components of a directed graph. A single depth first search finds
+ * the components in reverse topological order. The search is iterative, so the depth of the graph is not limited by
+ * the size of the call stack. Runtime O(n + m).
+ */
+public class TarjanStronglyConnectedComponents
+        extends AbstractAlgorithm<DirectedGraph, StronglyConnectedComponents> {
+
+    @Override
+    protected StronglyConnectedComponents runAlgorithm(DirectedGraph problem) {
+        if (!problem.isDirected()) {
+            throw new IllegalArgumentException("Graph is not directed.");
+        }
+        CompressedSparseRow adjacency = CompressedSparseRow.of(problem);
+        int[] nodes = new int[problem.nodeCount()];
+        int i = 0;
+        for (Node node : problem.nodes()) {
+            nodes[i++] = node.id();
+        }
+        int[] labels = new int[adjacency.nodeCapacity()];
+        Arrays.fill(labels, -1);
+        int[] count = new int[1];
+        new TarjanSearch(adjacency).run(nodes, null, 0, labels, () -> count[0]++);
+        for (int node : nodes) {
+            labels[node] = count[0] - 1 - labels[node];
+        }
+        return new StronglyConnectedComponents(problem, labels, count[0]);
+    }
+}
@@ -1,750 +1,345 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
 package org.zetool.algorithm.shortestpath;
 
-//import de.tu_berlin.math.coga.zet.converter.graph.NetworkFlowModel;
-//import de.tu_berlin.coga.graph.Edge;
-//import de.tu_berlin.math.coga.zet.converter.graph.ZToGraphRasterContainer;
-//import de.tu_berlin.coga.graph.Node;
-//import java.util.Arrays;
-//
-///**
-// * Most likely an implementation of the WUSP-algorithm in "All Pairs Shortest Paths in Undirected Graphs with Integer
-// * Weights" by Shoshan and Zwick.
-// * @author schwengf
-// */
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.ParallelFor;
+
+/**
+ * All pairs shortest paths for graphs with arbitrary edge costs. Two algorithms are available:
+ * <ul>
+ * <li>{@link #floydWarshall(Graph, IdentifiableIntegerMapping) Floyd-Warshall} for dense graphs, working on a flat
+ * distance matrix that is divided into square blocks. For each diagonal block, first the block itself, then the
+ * blocks in its row and column and finally all other blocks are updated, the blocks of the last two steps in
+ * parallel. A block update only accesses three blocks, which fit into the cache. Runtime O(n^3).</li>
+ * <li>{@link #johnson(Graph, IdentifiableIntegerMapping) Johnson's algorithm} for sparse graphs. Potentials are
+ * computed by a single {@link QueueBellmanFord} run from all nodes, which make the reduced costs non-negative.
+ * Afterwards a {@link PrimitiveDijkstra} query is run from each node in parallel. Runtime O(n m log n).</li>
+ * </ul>
+ * Both algorithms compute an optional successor matrix that allows to reconstruct the paths. Directed graphs are
+ * searched along outgoing edges, undirected graphs along all incident edges. Distances must fit into an
+ * {@code int}. If the graph contains a negative cycle, an {@link IllegalArgumentException} is thrown.
+ */
 public class APSPAlgo {
 
-  //NetworkFlowModel model;
-//  int numNodes;
-//  int maxdist = Integer.MIN_VALUE;
-//  int[][] weight;
-//  int[][] used;
-//  int[][][] A_k;
-//  int l;
-//  int m;
-//  int numEdges = 0;
-//  int[][] Q_l;
-//  int[][] P_k;
-//  int[][][] C;
-//  int[][] Delta;
-//  int[][] dist;
-//  int[][] A_new;
-//  int[][] B_new;
-//  boolean firstrun;
-//
-  //public APSPAlgo( NetworkFlowModel model ) {
-  public APSPAlgo( ) {
-//    this.model = model;
-//    this.numNodes = model.numberOfNodes() - 1;
-//    System.out.println( "NumNodes: " + numNodes );
-//    used = new int[numNodes][numNodes];
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        used[i][j] = 0;
-//      }
-//    }
-//    for( int i = 0; i < model.numberOfEdges(); ++i ) //for (Edge edge: model.getGraph().edges())
-//    {
-//      Edge edge = model.getEdge( i );
-//      //System.out.println("Kante: " + edge + "Transitzeit: " + model.getTransitTime(edge));
-//      if( model.getTransitTime( edge ) > this.maxdist ) {
-//        this.maxdist = model.getTransitTime( edge );
-//      }
-//    }
-//
-  }
-//
-//  public void Step_one() {
-//    l = (int)Math.ceil( Math.log( numNodes ) / Math.log( 2 ) );
-//    System.out.println( "l: " + l );
-//    for( int k = 1; k < Integer.MAX_VALUE; k++ ) {
-//      if( Math.pow( 2, k ) == maxdist ) {
-//        break;
-//      } else if( Math.pow( 2, k ) > maxdist ) {
-//        maxdist = (int)Math.pow( 2, k );
-//        break;
-//      }
-//    }
-//
-//    m = (int)(Math.log( maxdist ) / Math.log( 2 ));
-//    System.out.println( "m: " + m );
-//    System.out.println( "Maxdist: " + maxdist );
-//    weight = new int[numNodes][numNodes]; // matrix D
-//    dist = new int[numNodes][numNodes];
-//    for( int i = 0; i < model.numberOfEdges(); ++i ) //for (Edge edge: model.getGraph().edges())
-//    {
-//      Edge edge = model.getEdge( i );
-//      if( !edge.isIncidentTo( model.getSupersink() ) ) {
-//        weight[edge.start().id() - 1][edge.end().id() - 1] = model.getTransitTime( edge );
-//        used[edge.start().id() - 1][edge.end().id() - 1] = 1;
-//        //System.out.println("Distance " + weight[edge.start().id()][edge.end().id()] + " " + edge.start() + "---" + edge.end());
-//        weight[edge.end().id() - 1][edge.start().id() - 1] = model.getTransitTime( edge );
-//        used[edge.end().id() - 1][edge.start().id() - 1] = 1;
-//      }
-//
-//    }
-//
-//    for( int i = 0; i < numNodes; i++ ) {
-//      weight[i][i] = 0;
-//      dist[i][i] = Integer.MAX_VALUE;
-//
-//      for( int j = 0; j < numNodes; j++ ) {
-//        if( used[i][j] != 1 && i != j ) {
-//          weight[i][j] = Integer.MAX_VALUE;
-//          dist[i][j] = Integer.MAX_VALUE;
-//        } else if( i != j ) {
-//          dist[i][j] = weight[i][j];
-//        }
-//        System.out.println( "original weight " + weight[i][j] + " " + i + " " + j );
-//      }
-//    }
-//    for( int k = 1; k < m + 2; k++ ) {
-//      int[][] res = distance_product( weight, weight );
-//      if( k == 1 ) {
-//        for( int i = 0; i < numNodes; i++ ) {
-//          for( int j = 0; j < numNodes; j++ ) {
-//            System.out.println( "i:" + i + " j:" + j + " res:" + res[i][j] );
-//          }
-//        }
-//      }
-//      weight = clip( res, 0, 2 * maxdist );
-//    }
-//
-//    System.out.println( "Step 1 done" );
-//  }
-//
-//  public void Step_two() {
-//    A_k = new int[l + 1][numNodes][numNodes];
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        A_k[0][i][j] = weight[i][j] - maxdist;
-//        //System.out.println("i:" + i + " j:" + j + "A_0: " + A_k[0][i][j]);
-//      }
-//    }
-//
-//    for( int k = 1; k < l + 1; k++ ) {
-//      //System.out.println("k-te Iteration:" + k);
-//      A_k[k] = clip( distance_product( A_k[k - 1], A_k[k - 1] ), -maxdist, maxdist );
-//    }
-//
-//    System.out.println( "Step 2 done" );
-//  }
-//
-//  public void Step_three() {
-//    C = new int[l + 1][numNodes][numNodes];
-//    int[][] Q_k = new int[numNodes][numNodes];
-//    Q_l = new int[numNodes][numNodes];
-//    P_k = new int[numNodes][numNodes];
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        C[l][i][j] = -maxdist;
-//        Q_l[i][j] = Integer.MAX_VALUE;
-//      }
-//    }
-//    int[][] P_l = new int[numNodes][numNodes];
-//    P_l = clip( weight, 0, maxdist );
-//
-//    for( int k = l - 1; k > -1; k-- ) {
-//      System.out.println( "k-te Iteration: " + k );
-//      int[][] first = intersect( clip( distance_product( P_l, A_k[k] ), -maxdist, maxdist ), C[k + 1] );
-//      int[][] second = intersect_neg( clip( distance_product( Q_l, A_k[k] ), -maxdist, maxdist ), C[k + 1] );
-//
-//      C[k] = union( first, second );
-//      P_k = union( P_l, Q_l );
-//      Q_k = chop( C[k], 1 - maxdist, maxdist );
-//      Q_l = Q_k;
-//      P_l = P_k;
-//    }
-//
-//    System.out.println( "Step 3 done" );
-//  }
-//
-//  public void Step_four() {
-//    int[][][] B_k = new int[l + 1][numNodes][numNodes];
-//
-//    int[][] R = new int[numNodes][numNodes];
-//    Delta = new int[numNodes][numNodes];
-//    for( int k = 1; k < l + 1; k++ ) {
-//      B_k[k] = BiggerZero( C[k] );
-//    }
-//
-//    B_k[0] = BiggerLessThan( P_k, maxdist );
-//
-//    for( int i = 0; i < numNodes; i++ ) {
-//
-//      for( int j = 0; j < numNodes; j++ ) {
-//        if( P_k[i][j] < 0 ) {
-//          R[i][j] = ((P_k[i][j] % maxdist) + maxdist) % maxdist;
-//        } else {
-//          R[i][j] = P_k[i][j] % maxdist;
-//        }
-//        //System.out.println("i:" + i + " j:" + j + "R: " + R[i][j]);
-//        int sum = 0;
-//        for( int k = 0; k < l + 1; k++ ) {
-//          sum += B_k[k][i][j] * (int)Math.pow( 2.0, (double)k );
-//        }
-//        Delta[i][j] = sum * maxdist + R[i][j];
-//
-//      }
-//    }
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        System.out.println( "i:" + i + " j:" + j + "Delta: " + Delta[i][j] );
-//      }
-//    }
-//    System.out.println( "Step 4 done" );
-//  }
-//
-//  public int[][] Compute_Matrix_of_Witnesses() {
-//    int[][] Delta_new = new int[numNodes][numNodes];
-//    int[][] witnesses = new int[numNodes][numNodes];
-//    int[][] successors = new int[numNodes][numNodes];
-//
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        if( Delta[i][j] % (3 * maxdist) >= 0 ) {
-//          Delta_new[i][j] = Delta[i][j] % (3 * maxdist);
-//        } else {
-//          Delta_new[i][j] = Integer.MAX_VALUE;
-//        }
-//               //System.out.println("i:" + i + " j:" + j + "Delta_neu_1: " + Delta_new[i][j]);
-//
-//      }
-//    }
-//
-//    int[][] a_prime = new int[numNodes][numNodes];
-//    int[][] b_prime = new int[numNodes][numNodes];
-//
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        if( dist[i][j] != Integer.MAX_VALUE ) {
-//          a_prime[i][j] = numNodes * dist[i][j] + j;
-//        } else {
-//          a_prime[i][j] = Integer.MAX_VALUE;
-//        }
-//        //System.out.println("i:" + i + " j:" + j + " a_crime: " + a_prime[i][j]);
-//        if( Delta_new[i][j] != Integer.MAX_VALUE ) {
-//          b_prime[i][j] = numNodes * Delta_new[i][j];
-//        } else {
-//          b_prime[i][j] = Integer.MAX_VALUE;
-//        }
-//
-//        //System.out.println("i:" + i + " j:" + j + " b_crime: " + b_prime[i][j]);
-//        if( Delta_new[i][j] != Integer.MAX_VALUE ) {
-//          b_prime[i][j] = numNodes * Delta_new[i][j];
-//        } else {
-//          b_prime[i][j] = Integer.MAX_VALUE;
-//        }
-//        //System.out.println("i:" + i + " j:" + j + " b_crime: " + b_prime[i][j]);
-//        if( Delta_new[i][j] != Integer.MAX_VALUE ) {
-//          b_prime[i][j] = numNodes * Delta_new[i][j];
-//        } else {
-//          b_prime[i][j] = Integer.MAX_VALUE;
-//        }
-//
-//      }
-//    }
-//    int[][] C_prime = distance_product( a_prime, b_prime );
-//
-//    for( int i = 0; i < numNodes; i++ ) {
-//      for( int j = 0; j < numNodes; j++ ) {
-//        successors[i][j] = Integer.MAX_VALUE;
-//        witnesses[i][j] = (C_prime[i][j] % numNodes);
-//
-//        if( Delta_new[i][j] != Integer.MAX_VALUE && (i != j) ) {
-//          successors[i][j] = witnesses[i][j];
-//        } else {
-//          successors[i][j] = Integer.MAX_VALUE;
-//        }
-//               //System.out.println("i:" + i + " j:" + j + "witness 1: " + successors[i][j] );
-//
-//      }
-//    }
-//    System.out.println( "Step 5 done" );
-//    return successors;
-//  }
-//
-//  public int[][] distance_product_naive( int[][] a, int[][] b ) {
-//    int[][] result = new int[a.length][a.length];
-//    int sum = 0;
-//    for( int i = 0; i < a.length; i++ ) {
-//      for( int j = 0; j < a.length; j++ ) {
-//        int Min = Integer.MAX_VALUE;
-//        for( int k = 0; k < a.length; k++ ) {
-//
-//          if( a[i][k] == Integer.MAX_VALUE || b[k][j] == Integer.MAX_VALUE ) {
-//            sum = Integer.MAX_VALUE;
-//          } else {
-//            sum = a[i][k] + b[k][j];
-//          }
-//          if( sum < Min ) {
-//            Min = sum;
-//          }
-//
-//        }
-//        result[i][j] = Min;
-//      }
-//    }
-//    return result;
-//  }
-//
-//  //ToDo: mittels Strassen Algorithmus Matrix Multiplikation schneller machen
-//  public int[][] distance_product( int[][] a, int[][] b ) {
-//    int[][] result = new int[a.length][a.length];
-//    double[][] a_prime = new double[a.length][a.length];
-//    double[][] b_prime = new double[a.length][a.length];
-//    double[][] c_prime = new double[a.length][a.length];
-//    double omega = 2.376;
-//
-//    if( maxdist * Math.pow( numNodes, omega ) > Math.pow( numNodes, 3 )  && false) {
-//      System.out.println( "Use Strassen" );
-//      for( int i = 0; i < a.length; i++ ) {
-//        for( int j = 0; j < a.length; j++ ) {
-//          if( Math.abs( a[i][j] ) <= maxdist ) {
-//            a_prime[i][j] = Math.pow( (double)(a.length + 1), (double)(maxdist - a[i][j]) );
-//          } else {
-//            a_prime[i][j] = 0.0;
-//          }
-//          if( Math.abs( b[i][j] ) <= maxdist ) {
-//            b_prime[i][j] = Math.pow( (double)(a.length + 1), (double)(maxdist - b[i][j]) );
-//          } else {
-//            b_prime[i][j] = 0.0;
-//          }
-//
-//          //System.out.println("i:" + i + " j:" + j + "B_prime: " + b_prime[i][j]);
-//        }
-//      }
-//
-//      firstrun = true;
-//      c_prime = Strassen_product_cut( a_prime, b_prime, 100 );
-//
-//      for( int i = 0; i < a.length; i++ ) {
-//        for( int j = 0; j < a.length; j++ ) {
-//          if( c_prime[i][j] > 0 ) {
-//            result[i][j] = 2 * maxdist - (int)Math.floor( (Math.log( c_prime[i][j] )) / (Math.log( a.length + 1 )) );
-//          }
-//        }
-//      }
-//    } else {
-//      result = distance_product_naive( a, b );
-//    }
-//
-//    return result;
-//  }
-//
-//  public double[][] find_dimension( double[][] A ) {
-//    double[][] A_changed = new double[1][1];
-//    int dimension = 0;
-//    for( int k = 0; k < Integer.MAX_VALUE; k++ ) {
-//      if( A.length == Math.pow( 2, k ) ) {
-//        dimension = A.length;
-//        A_changed = new double[dimension][dimension];
-//        A_changed = A;
-//        break;
-//      } else if( Math.pow( 2, k ) > A.length ) {
-//        dimension = (int)Math.pow( 2, k );
-//        A_changed = new double[dimension][dimension];
-//        setMatrix( A_changed, A, 0, 0 );
-//
-//        //fülle Rest mit 0 auf, falls vorhanden
-//        for( int i = A.length; i < dimension; i++ ) {
-//          for( int j = A.length; j < dimension; j++ ) {
-//            A_changed[i][j] = Integer.MAX_VALUE;
-//          }
-//        }
-//        break;
-//      }
-//    }
-//    return A_changed;
-//  }
-//
-//  public double[][] Strassen_product( double[][] A, double[][] B ) {
-//    return Strassen_product_cut( A, B, 1 );
-//  }
-//
-//  public double[][] Strassen_product_cut( double[][] A, double[][] B, int cut ) {
-//    int dimension = 0;
-//    //define matrix of size n = 2^k
-//    if( firstrun ) {
-//      A = find_dimension( A );
-//      B = find_dimension( B );
-//      firstrun = false;
-//    }
-//
-//    dimension = A.length;
-//    System.out.println( "Dimension: " + dimension );
-//
-//    if( dimension <= cut ) {
-//      // normal multiplizieren
-//      System.out.println( "Mathmult" );
-//      double[][] mult = matmult( A, B );
-//      return mult;
-//    }
-//    System.out.println( "Nicht Mathmult" );
-//    int dim = dimension / 2;     // sollte ohne Rest aufgehen, da m Zweierpotenz
-//    //System.out.println("Dimension neu: " + dim);
-//    double[][] a11 = getMatrix( A, 0, dim - 1, 0, dim - 1 );
-//    double[][] a12 = getMatrix( A, 0, dim - 1, dim, dimension - 1 );
-//    double[][] a21 = getMatrix( A, dim, dimension - 1, 0, dim - 1 );
-//    double[][] a22 = getMatrix( A, dim, dimension - 1, dim, dimension - 1 );
-//    double[][] b11 = getMatrix( B, 0, dim - 1, 0, dim - 1 );
-//    double[][] b12 = getMatrix( B, 0, dim - 1, dim, dimension - 1 );
-//    double[][] b21 = getMatrix( B, dim, dimension - 1, 0, dim - 1 );
-//    double[][] b22 = getMatrix( B, dim, dimension - 1, dim, dimension - 1 );
-//
-//    // Matrizen m1 .. m7 berechnen
-//    // dazu zwei Hilfsmatrizen d1, d2 für Zwischenwerte
-//    double[][] d1 = minusMatrix( a12, a22 );
-//    double[][] d2 = plusMatrix( b21, b22 );
-//    double[][] m1 = Strassen_product( d1, d2 );
-//
-//    d1 = plusMatrix( a11, a22 );
-//    d2 = plusMatrix( b11, b22 );
-//    double[][] m2 = Strassen_product( d1, d2 );
-//
-//    d1 = minusMatrix( a11, a21 );
-//    d2 = plusMatrix( b11, b12 );
-//    double[][] m3 = Strassen_product( d1, d2 );
-//
-//    d1 = plusMatrix( a11, a12 );
-//    double[][] m4 = Strassen_product( d1, b22 );
-//
-//    d1 = minusMatrix( b12, b22 );
-//    double[][] m5 = Strassen_product( a11, d1 );
-//
-//    d1 = minusMatrix( b21, b11 );
-//    double[][] m6 = Strassen_product( a22, d1 );
-//
-//    d1 = plusMatrix( a21, a22 );
-//    double[][] m7 = Strassen_product( d1, b11 );
-//
-//    double[][] C11 = plusMatrix( m1, m2 );
-//    C11 = minusMatrix( C11, m4 );
-//    C11 = plusMatrix( C11, m6 );
-//
-//    double[][] C12 = plusMatrix( m4, m5 );
-//
-//    double[][] C21 = plusMatrix( m6, m7 );
-//
-//    double[][] C22 = minusMatrix( m2, m3 );
-//    C22 = plusMatrix( C22, m5 );
-//    C22 = minusMatrix( C22, m7 );
-//
-//    // Gesamtmatrix zusammensetzen
-//    double[][] C = new double[A.length][A.length];
-//    setMatrix( C, C11, 0, 0 );
-//    setMatrix( C, C12, 0, dim );
-//    setMatrix( C, C21, dim, 0 );
-//    setMatrix( C, C22, dim, dim );
-//
-//    return C;
-//  }
-//
-//  public double[][] getMatrix( double[][] A, int i0, int i1, int j0, int j1 ) {
-//    // erzeugt eine Teilmatrix A(i0..i1, j0..j1)
-//
-//    int m = i1 - i0 + 1;
-//    int n = j1 - j0 + 1;
-//
-//    double[][] part = new double[m][n];
-//
-//    for( int i = 0; i < m; i++ ) {
-//      for( int j = 0; j < n; j++ ) {
-//        part[i][j] = A[i + i0][j + j0];
-//        //System.out.println("i:" + i + " j:" + j + "Part:" + part[i][j]);
-//      }
-//    }
-//    return part;
-//  }
-//
-//  void setMatrix( double[][] A, double[][] part, int i0, int j0 ) {
-//    // belegt die Matrix mit einer Teilmatrix
-//
-//    int p = part.length;
-//    for( int i = 0; i < p; i++ ) {
-//      for( int j = 0; j < p; j++ ) {
-//        A[i + i0][j + j0] = part[i][j];
-//      }
-//    }
-//  }
-//
-//  public double[][] minusMatrix( double[][] A, double[][] B ) {
-//    double[][] diff = new double[A.length][A.length];
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        diff[i][j] = A[i][j] - B[i][j];
-//      }
-//    }
-//    return diff;
-//  }
-//
-//  public double[][] plusMatrix( double[][] A, double[][] B ) {
-//    double[][] diff = new double[A.length][A.length];
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        diff[i][j] = A[i][j] + B[i][j];
-//      }
-//    }
-//    return diff;
-//  }
-//
-//  public double[][] matmult( double[][] A, double[][] B ) {
-//    // einfache Matrix-Multiplikation
-//    double[][] C = new double[A.length][A.length];
-//
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        C[i][j] = 0;
-//        for( int k = 0; k < A.length; k++ ) {
-//          C[i][j] += (A[i][k] * B[k][j]);
-//          System.out.println( "i:" + i + " j:" + j + "A_ik:" + A[i][k] + "B_kj:" + B[k][j] + "C_ij:" + C[i][j] );
-//        }
-//      }
-//    }
-//    return C;
-//  }
-//
-//  public int[][] clip( int[][] A, int a, int b ) {
-//    int[][] result = new int[A.length][A.length];
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        if( A[i][j] < a ) {
-//          result[i][j] = a;
-//        } else if( A[i][j] > b ) {
-//          result[i][j] = Integer.MAX_VALUE;
-//        } else {
-//          result[i][j] = A[i][j];
-//        }
-//      }
-//    }
-//
-//    return result;
-//  }
-//
-//  public int[][] chop( int[][] A, int a, int b ) {
-//    int[][] result = new int[A.length][A.length];
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        if( A[i][j] >= a && A[i][j] <= b ) {
-//          result[i][j] = A[i][j];
-//        } else {
-//          result[i][j] = Integer.MAX_VALUE;
-//        }
-//      }
-//    }
-//    return result;
-//  }
-//
-//  public int[][] intersect( int[][] A, int[][] B ) {
-//    int[][] result = new int[A.length][A.length];
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        if( B[i][j] < 0 ) {
-//
-//          result[i][j] = A[i][j];
-//        } else {
-//          result[i][j] = Integer.MAX_VALUE;
-//        }
-//      }
-//    }
-//
-//    return result;
-//  }
-//
-//  public int[][] intersect_neg( int[][] A, int[][] B ) {
-//    int[][] result = new int[A.length][A.length];
-//
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        if( B[i][j] >= 0 ) {
-//          result[i][j] = A[i][j];
-//        } else {
-//          result[i][j] = Integer.MAX_VALUE;
-//        }
-//      }
-//    }
-//    return result;
-//  }
-//
-//  public int[][] union( int[][] A, int[][] B ) {
-//    int[][] result = new int[A.length][A.length];
-//    for( int i = 0; i < A.length; i++ ) {
-//      for( int j = 0; j < A.length; j++ ) {
-//        if( A[i][j] != Integer.MAX_VALUE ) {
-//          result[i][j] = A[i][j];
-//        } else if( A[i][j] == Integer.MAX_VALUE && B[i][j] == Integer.MAX_VALUE ) {
-//          result[i][j] = Integer.MAX_VALUE;
-//        } else if( A[i][j] == Integer.MAX_VALUE && B[i][j] != Integer.MAX_VALUE ) {
-//          result[i][j] = B[i][j];
-//        }
-//      }
-//    }
-//
-//    return result;
-//  }
-//
-//  public int[][] BiggerZero( int[][] C ) {
-//    int[][] result = new int[C.length][C.length];
-//    for( int i = 0; i < C.length; i++ ) {
-//      for( int j = 0; j < C.length; j++ ) {
-//        if( C[i][j] >= 0 ) {
-//          result[i][j] = 1;
-//        } else {
-//          result[i][j] = 0;
-//        }
-//      }
-//    }
-//
-//    return result;
-//  }
-//
-//  public int[][] BiggerLessThan( int[][] C, int M ) {
-//    int[][] result = new int[C.length][C.length];
-//    for( int i = 0; i < C.length; i++ ) {
-//      for( int j = 0; j < C.length; j++ ) {
-//        if( C[i][j] >= 0 && C[i][j] < M ) {
-//          result[i][j] = 0;
-//        } else {
-//          result[i][j] = 1;
-//        }
-//      }
-//    }
-//    return result;
-//  }
-//
-  public int[][] run() {
-//
-//    Step_one();
-//    Step_two();
-//    Step_three();
-//    Step_four();
-//    int[][] succ = Compute_Matrix_of_Witnesses();
-    int[][] succ = null;
-    return succ;
-//
-  }
-//
-//    public static void main( String... args ) {
-//
-////    int nodeCount = 0;
-////    Node a = new Node( nodeCount++ );
-////    Node b = new Node( nodeCount++ );
-////    Node c = new Node( nodeCount++ );
-////    Node d = new Node( nodeCount++ );
-////    Node e = new Node( nodeCount++ );
-////    Node f = new Node( nodeCount++ );
-////
-////
-////    int edgeCount = 0;
-////    Edge ab = new Edge( edgeCount++, a, b );
-////    Edge ad = new Edge( edgeCount++, a, d );
-////
-////    Edge bc = new Edge( edgeCount++, b, c );
-////
-////    Edge cd = new Edge( edgeCount++, c, d );
-////    Edge cf = new Edge( edgeCount++, c, f );
-////
-////    Edge db = new Edge( edgeCount++, d, b );
-////    Edge dc = new Edge( edgeCount++, d, c );
-////    Edge de = new Edge( edgeCount++, d, e );
-////
-////    Edge ec = new Edge( edgeCount++, e, c );
-////    Edge ef = new Edge( edgeCount++, e, f );
-////
-////    StaticGraph g = new StaticGraph( true, nodeCount, edgeCount );
-////    g.setNode( a );
-////    g.setNode( b );
-////    g.setNode( c );
-////    g.setNode( d );
-////    g.setNode( e );
-////    g.setNode( f );
-////
-////    g.setEdge( ab ); // 0
-////    g.setEdge( ad ); // 1
-////
-////    g.setEdge( bc ); // 2
-////
-////    g.setEdge( cd ); // 3
-////    g.setEdge( cf ); // 4
-////
-////    g.setEdge( db ); // 5
-////    g.setEdge( dc ); // 6
-////    g.setEdge( de ); // 7
-////
-////    g.setEdge( ec ); // 8
-////    g.setEdge( ef ); // 9
-////
-////
-////    g.changeVisibility( ab, true );
-////    g.changeVisibility( ad, true );
-////
-////    g.changeVisibility( bc, true );
-////
-////    g.changeVisibility( cd, true );
-////    g.changeVisibility( cf, true );
-////
-////    g.changeVisibility( db, true );
-////    g.changeVisibility( dc, true );
-////    g.changeVisibility( de, true );
-////
-////    g.changeVisibility( ec, true );
-////    g.changeVisibility( ef, true );
-////
-////
-////    IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>( edgeCount );
-////    costs.set( ab, 2);
-////    costs.set( ad, 5 );
-////
-////    costs.set( bc, 4 );
-////
-////    costs.set( cd, 1 );
-////    costs.set( cf, 7 );
-////
-////    costs.set( db, 0 );
-////    costs.set( dc, 6 );
-////    costs.set( de, 5 );
-////
-////    costs.set( ec, 8 );
-////    costs.set( ef, 0 );
-//    NetworkFlowModel model = new NetworkFlowModel( (ZToGraphRasterContainer)null );
-//
-//    int nodeCount = 0;
-//    Node a = model.newNode();
-//    Node b = model.newNode(  );
-//    Node c = model.newNode(  );
-//
-//    Node d = model.newNode(  );
-//
-//    int edgeCount = 0;
-//    Edge ab = model.newEdge( a, b );
-//    Edge ac = model.newEdge( a, c );
-//
-//    Edge bc = model.newEdge( b, c );
-//
-//    Edge bd = model.newEdge( b, d );
-//    Edge cd = model.newEdge( c, d );
-//
-//
-//
-//
-//    model.setTransitTime( ab, 4 );
-//    model.setTransitTime( ab, 4);
-//    model.setTransitTime( ac, 10 );
-//
-//    model.setTransitTime( bc, 4 );
-//
-//    model.setTransitTime( bd, 10 );
-//    model.setTransitTime( cd, 2 );
-//
-//
-//    APSPAlgo apsp = new APSPAlgo( model );
-//
-//
-//    int[][] succ = apsp.run();
-//    System.out.println( Arrays.deepToString( succ ) );
-//
-//    int[][] dist = apsp.dist;
-//    System.out.println( Arrays.deepToString( dist ) );
-//
-//  }
-//
+    /** The default number of rows and columns of a block for Floyd-Warshall. */
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final int UNREACHABLE = AllPairsShortestPaths.UNREACHABLE;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private boolean computeSuccessors;
+
+    /**
+     * Sets the pool that runs the parallel steps. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the number of rows and columns of the blocks used by Floyd-Warshall.
+     *
+     * @param blockSize the block size, at least 1
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets whether the successor matrix is computed. This is disabled by default.
+     *
+     * @param computeSuccessors {@code true} to allow path reconstruction
+     */
+    public void setComputeSuccessors(boolean computeSuccessors) {
+        this.computeSuccessors = computeSuccessors;
+    }
+
+    public boolean isComputeSuccessors() {
+        return computeSuccessors;
+    }
+
+    /**
+     * Computes all distances using the blocked Floyd-Warshall algorithm.
+     *
+     * @param graph the graph
+     * @param costs the edge costs
+     * @return the distances between all pairs of node ids
+     * @throws IllegalArgumentException if the graph contains a negative cycle
+     */
+    public AllPairsShortestPaths floydWarshall(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        CompressedSparseRow adjacency = CompressedSparseRow.of(graph);
+        int n = adjacency.nodeCapacity();
+        int[] distances = new int[Math.multiplyExact(n, n)];
+        int[] successors = computeSuccessors ? new int[distances.length] : null;
+        int[] hops = computeSuccessors ? new int[distances.length] : null;
+        Arrays.fill(distances, UNREACHABLE);
+        if (successors != null) {
+            Arrays.fill(successors, -1);
+        }
+        for (int v = 0; v < n; ++v) {
+            distances[v * n + v] = 0;
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int edge = adjacency.edgeId(arc);
+                int entry = v * n + adjacency.head(arc);
+                int cost = costs.get(graph.getEdge(edge));
+                if (cost < distances[entry]) {
+                    distances[entry] = cost;
+                    if (successors != null) {
+                        successors[entry] = edge;
+                        hops[entry] = 1;
+                    }
+                }
+            }
+        }
+
+        int blocks = (n + blockSize - 1) / blockSize;
+        for (int kb = 0; kb < blocks; ++kb) {
+            int k = kb;
+            update(distances, successors, hops, n, k, k, k);
+            ParallelFor.forEach(pool, 0, 2 * blocks, 1, t -> {
+                int b = t % blocks;
+                if (b != k) {
+                    if (t < blocks) {
+                        update(distances, successors, hops, n, k, k, b);
+                    } else {
+                        update(distances, successors, hops, n, k, b, k);
+                    }
+                }
+            });
+            ParallelFor.forEach(pool, 0, blocks * blocks, 1, t -> {
+                int ib = t / blocks;
+                int jb = t % blocks;
+                if (ib != k && jb != k) {
+                    update(distances, successors, hops, n, k, ib, jb);
+                }
+            });
+        }
+        for (int v = 0; v < n; ++v) {
+            if (distances[v * n + v] < 0) {
+                throw new IllegalArgumentException("The graph contains a negative cycle.");
+            }
+        }
+        int[][] endpoints = endpoints(graph);
+        return new AllPairsShortestPaths(n, distances, successors, endpoints[0], endpoints[1]);
+    }
+
+    /**
+     * Updates the block in block row {@code ib} and block column {@code jb} with the paths via the nodes of block
+     * {@code kb}. If successors are computed, paths of equal length are compared by their number of edges. The blocks
+     * of row and column {@code kb} already contain values of later iterations, so without this tie-breaking the
+     * successors of nodes on a cycle of cost 0 could point to each other. Sums are computed in {@code long}, as paths
+     * via {@code k} may be longer than any shortest path.
+     */
+    private void update(int[] distances, int[] successors, int[] hops, int n, int kb, int ib, int jb) {
+        int kEnd = Math.min(n, (kb + 1) * blockSize);
+        int iEnd = Math.min(n, (ib + 1) * blockSize);
+        int jStart = jb * blockSize;
+        int jEnd = Math.min(n, jStart + blockSize);
+        for (int k = kb * blockSize; k < kEnd; ++k) {
+            int rowK = k * n;
+            for (int i = ib * blockSize; i < iEnd; ++i) {
+                int rowI = i * n;
+                int viaK = distances[rowI + k];
+                if (viaK == UNREACHABLE) {
+                    continue;
+                }
+                if (successors == null) {
+                    for (int j = jStart; j < jEnd; ++j) {
+                        int fromK = distances[rowK + j];
+                        long distance = (long) viaK + fromK;
+                        if (fromK != UNREACHABLE && distance < distances[rowI + j]) {
+                            distances[rowI + j] = (int) distance;
+                        }
+                    }
+                    continue;
+                }
+                for (int j = jStart; j < jEnd; ++j) {
+                    int fromK = distances[rowK + j];
+                    if (fromK == UNREACHABLE) {
+                        continue;
+                    }
+                    long distance = (long) viaK + fromK;
+                    if (distance >= UNREACHABLE) {
+                        continue;
+                    }
+                    int length = hops[rowI + k] + hops[rowK + j];
+                    if (distance < distances[rowI + j] || distance == distances[rowI + j] && length < hops[rowI + j]) {
+                        distances[rowI + j] = (int) distance;
+                        hops[rowI + j] = length;
+                        successors[rowI + j] = successors[rowI + k];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes all distances using Johnson's algorithm.
+     *
+     * @param graph the graph
+     * @param costs the edge costs
+     * @return the distances between all pairs of node ids
+     * @throws IllegalArgumentException if the graph contains a negative cycle
+     */
+    public AllPairsShortestPaths johnson(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        // Phase 1:
+        // Compute potentials with a virtual source connected to all nodes
+        QueueBellmanFord bellmanFord = new QueueBellmanFord(graph, costs);
+        int[] nodes = new int[graph.nodeCount()];
+        int i = 0;
+        for (Node node : graph.nodes()) {
+            nodes[i++] = node.id();
+        }
+        if (!bellmanFord.run(nodes)) {
+            throw new IllegalArgumentException("The graph contains a negative cycle.");
+        }
+
+        // Phase 2:
+        // Run Dijkstra on the reduced costs from all nodes
+        IdentifiableIntegerMapping<Edge> reducedCosts = costs;
+        if (graph.isDirected()) {
+            reducedCosts = new IdentifiableIntegerMapping<>(graph.edgeCount());
+            for (Edge edge : graph.edges()) {
+                reducedCosts.set(edge, Math.toIntExact(costs.get(edge) + bellmanFord.getDistance(edge.start().id())
+                        - bellmanFord.getDistance(edge.end().id())));
+            }
+        }
+        PrimitiveDijkstra dijkstra = new PrimitiveDijkstra(graph, reducedCosts);
+        int n = dijkstra.getNodeCapacity();
+        int[] distances = new int[Math.multiplyExact(n, n)];
+        int[] successors = computeSuccessors ? new int[distances.length] : null;
+        Arrays.fill(distances, UNREACHABLE);
+        if (successors != null) {
+            Arrays.fill(successors, -1);
+        }
+        int[][] endpoints = endpoints(graph);
+        int[] tails = endpoints[0];
+        int[] heads = endpoints[1];
+        ConcurrentLinkedQueue<Search> searches = new ConcurrentLinkedQueue<>();
+        ParallelFor.forEach(pool, 0, nodes.length, 1, index -> {
+            Search search = searches.poll();
+            if (search == null) {
+                search = new Search(dijkstra);
+            }
+            int source = nodes[index];
+            search.run(source);
+            long potential = bellmanFord.getDistance(source);
+            for (int target : nodes) {
+                if (search.workspace.isSettled(target)) {
+                    distances[source * n + target] = Math.toIntExact(search.workspace.getDistance(target)
+                            - potential + bellmanFord.getDistance(target));
+                    if (successors != null) {
+                        successors[source * n + target] = search.firstEdge(target, tails, heads);
+                    }
+                }
+            }
+            searches.add(search);
+        });
+        return new AllPairsShortestPaths(n, distances, successors, tails, heads);
+    }
+
+    /**
+     * Returns the ids of the start and end nodes of all edges, indexed by edge id.
+     */
+    private static int[][] endpoints(Graph graph) {
+        int edgeCapacity = 0;
+        for (Edge edge : graph.edges()) {
+            edgeCapacity = Math.max(edgeCapacity, edge.id() + 1);
+        }
+        int[][] endpoints = new int[2][edgeCapacity];
+        for (Edge edge : graph.edges()) {
+            endpoints[0][edge.id()] = edge.start().id();
+            endpoints[1][edge.id()] = edge.end().id();
+        }
+        return endpoints;
+    }
+
+    /**
+     * A Dijkstra workspace together with the first edges of the paths of the current query.
+     */
+    private static class Search {
+
+        private final PrimitiveDijkstra dijkstra;
+        private final PrimitiveDijkstra.Workspace workspace;
+        /** The first edge of the path to a node, valid if the stamp is current. */
+        private final int[] firstEdges;
+        private final int[] stamps;
+        private final int[] stack;
+        private int source;
+        private int version;
+
+        Search(PrimitiveDijkstra dijkstra) {
+            this.dijkstra = dijkstra;
+            this.workspace = dijkstra.createWorkspace();
+            firstEdges = new int[dijkstra.getNodeCapacity()];
+            stamps = new int[dijkstra.getNodeCapacity()];
+            stack = new int[dijkstra.getNodeCapacity()];
+        }
+
+        void run(int source) {
+            this.source = source;
+            dijkstra.run(workspace, source, -1);
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                version = 1;
+            }
+            stamps[source] = version;
+            firstEdges[source] = -1;
+        }
+
+        /**
+         * Returns the first edge of the path to a settled node. The first edges of the nodes on the path are stored,
+         * so the total runtime of a query is linear.
+         */
+        int firstEdge(int target, int[] tails, int[] heads) {
+            int size = 0;
+            int v = target;
+            while (stamps[v] != version) {
+                stack[size++] = v;
+                int edge = workspace.getPredecessorEdge(v);
+                v = heads[edge] == v ? tails[edge] : heads[edge];
+            }
+            while (size > 0) {
+                int w = stack[--size];
+                firstEdges[w] = v == source ? workspace.getPredecessorEdge(w) : firstEdges[v];
+                stamps[w] = version;
+                v = w;
+            }
+            return firstEdges[target];
+        }
+    }
 }
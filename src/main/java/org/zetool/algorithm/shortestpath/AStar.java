@@ -0,0 +1,143 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.Objects;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.container.mapping.IdentifiableObjectMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * The A* algorithm for point-to-point shortest paths. Nodes are settled in the order of their distance from the source
+ * plus the estimated distance to the target given by a {@link DistanceHeuristic}. The search stops as soon as the
+ * target is settled.
+ *
+ * For admissible heuristics the distance of the target is optimal. Nodes whose distance improves after they have been
+ * settled are settled again, which never happens for consistent heuristics. The returned solution contains the
+ * distances and predecessors of all settled nodes, these distances are exact for consistent heuristics. All other nodes
+ * have distance {@link Integer#MAX_VALUE}. The costs must not be negative.
+ */
+public class AStar extends AbstractAlgorithm<IntegralSingleSourceShortestPathProblem, IntegralShortestPathSolution> {
+
+    private static final long UNKNOWN = -1;
+    private final DistanceHeuristic heuristic;
+    /** The number of nodes settled in the last run. */
+    private int settledNodes;
+
+    /**
+     * Initializes the algorithm with a heuristic.
+     *
+     * @param heuristic the admissible heuristic
+     */
+    public AStar(DistanceHeuristic heuristic) {
+        super("A*");
+        this.heuristic = Objects.requireNonNull(heuristic);
+    }
+
+    /**
+     * Runs the search from the source to the target. Runtime O(m + n log n) for consistent heuristics.
+     *
+     * @param problem the shortest path problem with a target
+     * @return the shortest path solution
+     * @throws IllegalArgumentException if the problem has no target
+     */
+    @Override
+    protected IntegralShortestPathSolution runAlgorithm(IntegralSingleSourceShortestPathProblem problem) {
+        Node target = problem.getTarget().orElseThrow(()
+                -> new IllegalArgumentException("A* requires a target node."));
+        Graph graph = problem.getGraph();
+        CompressedSparseRow adjacency = CompressedSparseRow.of(graph);
+        long[] costs = new long[adjacency.edgeCapacity()];
+        for (Edge edge : graph.edges()) {
+            costs[edge.id()] = problem.getCosts().get(edge);
+        }
+        int nodeCapacity = adjacency.nodeCapacity();
+        long[] distances = new long[nodeCapacity];
+        long[] estimates = new long[nodeCapacity];
+        int[] predecessors = new int[nodeCapacity];
+        boolean[] settled = new boolean[nodeCapacity];
+        Arrays.fill(distances, PrimitiveDijkstra.UNREACHABLE);
+        Arrays.fill(estimates, UNKNOWN);
+        Arrays.fill(predecessors, -1);
+        IndexedDaryHeap queue = new IndexedDaryHeap(nodeCapacity);
+
+        int source = problem.getSource().id();
+        distances[source] = 0;
+        queue.insert(source, estimate(graph, source, target, estimates));
+        settledNodes = 0;
+        while (!queue.isEmpty()) {
+            int v = queue.extractMin();
+            settled[v] = true;
+            settledNodes++;
+            if (v == target.id()) {
+                break;
+            }
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                long distance = distances[v] + costs[adjacency.edgeId(arc)];
+                if (distance < distances[w]) {
+                    distances[w] = distance;
+                    predecessors[w] = adjacency.edgeId(arc);
+                    settled[w] = false;
+                    queue.insertOrDecrease(w, distance + estimate(graph, w, target, estimates));
+                }
+            }
+        }
+        return createSolution(graph, distances, predecessors, settled);
+    }
+
+    private long estimate(Graph graph, int node, Node target, long[] estimates) {
+        if (estimates[node] == UNKNOWN) {
+            estimates[node] = heuristic.estimate(graph.getNode(node), target);
+        }
+        return estimates[node];
+    }
+
+    private static IntegralShortestPathSolution createSolution(Graph graph, long[] distances, int[] predecessors,
+            boolean[] settled) {
+        IdentifiableIntegerMapping<Node> distanceMapping = new IdentifiableIntegerMapping<>(distances.length);
+        IdentifiableObjectMapping<Node, Edge> predecessorEdges = new IdentifiableObjectMapping<>(distances.length);
+        IdentifiableObjectMapping<Node, Node> predecessorNodes = new IdentifiableObjectMapping<>(distances.length);
+        for (Node node : graph.nodes()) {
+            if (settled[node.id()]) {
+                distanceMapping.set(node, (int) distances[node.id()]);
+                Edge edge = predecessors[node.id()] >= 0 ? graph.getEdge(predecessors[node.id()]) : null;
+                predecessorEdges.set(node, edge);
+                predecessorNodes.set(node, edge == null ? null : edge.opposite(node));
+            } else {
+                distanceMapping.set(node, Integer.MAX_VALUE);
+                predecessorEdges.set(node, null);
+                predecessorNodes.set(node, null);
+            }
+        }
+        return new IntegralShortestPathSolution(graph.nodes(), distanceMapping, predecessorEdges, predecessorNodes);
+    }
+
+    /**
+     * Returns the number of nodes settled during the last run, including nodes that were settled more than once.
+     *
+     * @return the number of settled nodes
+     */
+    public int getSettledNodeCount() {
+        return settledNodes;
+    }
+}
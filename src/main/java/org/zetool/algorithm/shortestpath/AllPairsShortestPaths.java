@@ -0,0 +1,130 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+/**
+ * Distances between all pairs of node ids computed by {@link APSPAlgo}. The distances are stored in a single array
+ * with one row per source node id. If successors are available, the first edge of a shortest path is stored for each
+ * pair, which allows to reconstruct the paths.
+ */
+public final class AllPairsShortestPaths {
+
+    /** Value of the distance for pairs that are not connected. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int nodeCapacity;
+    /** The distances in row major order. */
+    private final int[] distances;
+    /** The first edge of a shortest path in row major order, or {@code null}. */
+    private final int[] successors;
+    /** The node ids reached by the edges in forward direction, indexed by edge id. */
+    private final int[] heads;
+    /** The node ids reached by the edges in backward direction, indexed by edge id. */
+    private final int[] tails;
+
+    AllPairsShortestPaths(int nodeCapacity, int[] distances, int[] successors, int[] tails, int[] heads) {
+        this.nodeCapacity = nodeCapacity;
+        this.distances = distances;
+        this.successors = successors;
+        this.tails = tails;
+        this.heads = heads;
+    }
+
+    /**
+     * Returns the number of node ids, i.e. the number of rows and columns.
+     *
+     * @return the number of node ids
+     */
+    public int getNodeCapacity() {
+        return nodeCapacity;
+    }
+
+    /**
+     * Returns the distance between two nodes.
+     *
+     * @param from the id of the start node
+     * @param to the id of the end node
+     * @return the distance or {@link #UNREACHABLE}
+     */
+    public int getDistance(int from, int to) {
+        return distances[from * nodeCapacity + to];
+    }
+
+    /**
+     * Returns whether the successors have been computed.
+     *
+     * @return {@code true} if paths can be reconstructed
+     */
+    public boolean hasSuccessors() {
+        return successors != null;
+    }
+
+    /**
+     * Returns the id of the first edge of a shortest path between two nodes.
+     *
+     * @param from the id of the start node
+     * @param to the id of the end node
+     * @return the edge id, or -1 if the nodes are equal or not connected
+     */
+    public int getSuccessorEdge(int from, int to) {
+        checkSuccessors();
+        return successors[from * nodeCapacity + to];
+    }
+
+    /**
+     * Returns the ids of the edges on a shortest path between two nodes. Runtime O(length of the path).
+     *
+     * @param from the id of the start node
+     * @param to the id of the end node
+     * @return the edge ids in path order, or {@code null} if the nodes are not connected
+     */
+    public int[] getPathEdges(int from, int to) {
+        checkSuccessors();
+        if (getDistance(from, to) == UNREACHABLE) {
+            return null;
+        }
+        int length = 0;
+        for (int v = from; v != to; v = next(v, successors[v * nodeCapacity + to])) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = from; v != to; v = next(v, path[i - 1])) {
+            path[i++] = successors[v * nodeCapacity + to];
+        }
+        return path;
+    }
+
+    private int next(int node, int edge) {
+        return heads[edge] == node ? tails[edge] : heads[edge];
+    }
+
+    /**
+     * Returns a copy of all distances in row major order, i.e. the distance from {@code i} to {@code j} is at
+     * position {@code i * getNodeCapacity() + j}.
+     *
+     * @return the distances
+     */
+    public int[] toArray() {
+        return distances.clone();
+    }
+
+    private void checkSuccessors() {
+        if (successors == null) {
+            throw new IllegalStateException("Successors have not been computed.");
+        }
+    }
+}
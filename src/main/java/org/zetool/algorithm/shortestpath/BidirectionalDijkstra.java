@@ -0,0 +1,185 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.container.mapping.IdentifiableObjectMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * Bidirectional variant of Dijkstra's algorithm for point-to-point queries. A forward search from the source and a
+ * backward search from the target are run alternately. Whenever an edge connects nodes reached by both searches, the
+ * length of the corresponding path is a candidate for the shortest path length. The algorithm stops as soon as the sum
+ * of the minimal keys of both queues is not smaller than the best candidate.
+ *
+ * The returned solution contains the distances and predecessors of all nodes settled by the forward search and of all
+ * nodes on the shortest path. All other nodes have distance {@link Integer#MAX_VALUE}. The shortest path can be
+ * obtained from the solution's forest. The costs must not be negative.
+ */
+public class BidirectionalDijkstra extends AbstractAlgorithm<IntegralSingleSourceShortestPathProblem, IntegralShortestPathSolution> {
+
+    /** The number of nodes settled by both searches in the last run. */
+    private int settledNodes;
+
+    public BidirectionalDijkstra() {
+        super("Bidirectional Dijkstra");
+    }
+
+    /**
+     * Runs the bidirectional search. Runtime O(m + n log n) in the worst case.
+     *
+     * @param problem the shortest path problem with a target
+     * @return the shortest path solution
+     * @throws IllegalArgumentException if the problem has no target
+     */
+    @Override
+    protected IntegralShortestPathSolution runAlgorithm(IntegralSingleSourceShortestPathProblem problem) {
+        Node target = problem.getTarget().orElseThrow(()
+                -> new IllegalArgumentException("Bidirectional search requires a target node."));
+        Graph graph = problem.getGraph();
+        CompressedSparseRow outgoing = CompressedSparseRow.of(graph, false);
+        long[] costs = new long[outgoing.edgeCapacity()];
+        for (Edge edge : graph.edges()) {
+            costs[edge.id()] = problem.getCosts().get(edge);
+        }
+        Search forward = new Search(outgoing, problem.getSource().id());
+        Search backward = new Search(graph.isDirected() ? CompressedSparseRow.of(graph, true) : outgoing, target.id());
+
+        long best = forward.source == backward.source ? 0 : PrimitiveDijkstra.UNREACHABLE;
+        int meeting = forward.source == backward.source ? forward.source : -1;
+        boolean forwardTurn = true;
+        while (!forward.queue.isEmpty() && !backward.queue.isEmpty()
+                && forward.queue.minKey() + backward.queue.minKey() < best) {
+            Search current = forwardTurn ? forward : backward;
+            Search other = forwardTurn ? backward : forward;
+            int v = current.settleNext();
+            CompressedSparseRow adjacency = current.adjacency;
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                int edge = adjacency.edgeId(arc);
+                current.relax(w, current.distances[v] + costs[edge], edge);
+                if (other.distances[w] != PrimitiveDijkstra.UNREACHABLE
+                        && current.distances[w] + other.distances[w] < best) {
+                    best = current.distances[w] + other.distances[w];
+                    meeting = w;
+                }
+            }
+            forwardTurn = !forwardTurn;
+        }
+        settledNodes = forward.settled + backward.settled;
+        return createSolution(graph, forward, backward, meeting, best);
+    }
+
+    private IntegralShortestPathSolution createSolution(Graph graph, Search forward, Search backward, int meeting,
+            long best) {
+        int nodeCapacity = forward.distances.length;
+        IdentifiableIntegerMapping<Node> distances = new IdentifiableIntegerMapping<>(nodeCapacity);
+        IdentifiableObjectMapping<Node, Edge> predecessorEdges = new IdentifiableObjectMapping<>(nodeCapacity);
+        IdentifiableObjectMapping<Node, Node> predecessorNodes = new IdentifiableObjectMapping<>(nodeCapacity);
+        for (Node node : graph.nodes()) {
+            boolean settled = forward.distances[node.id()] != PrimitiveDijkstra.UNREACHABLE
+                    && !forward.queue.contains(node.id());
+            distances.set(node, settled ? (int) forward.distances[node.id()] : Integer.MAX_VALUE);
+            Edge edge = settled && forward.predecessors[node.id()] >= 0
+                    ? graph.getEdge(forward.predecessors[node.id()]) : null;
+            predecessorEdges.set(node, edge);
+            predecessorNodes.set(node, edge == null ? null : edge.opposite(node));
+        }
+        if (meeting >= 0) {
+            // forward part of the shortest path
+            Node node = graph.getNode(meeting);
+            int edgeId;
+            while ((edgeId = forward.predecessors[node.id()]) >= 0) {
+                Edge edge = graph.getEdge(edgeId);
+                distances.set(node, (int) forward.distances[node.id()]);
+                predecessorEdges.set(node, edge);
+                predecessorNodes.set(node, edge.opposite(node));
+                node = edge.opposite(node);
+            }
+            // backward part of the shortest path
+            node = graph.getNode(meeting);
+            distances.set(node, (int) (best - backward.distances[meeting]));
+            while ((edgeId = backward.predecessors[node.id()]) >= 0) {
+                Edge edge = graph.getEdge(edgeId);
+                Node next = edge.opposite(node);
+                distances.set(next, (int) (best - backward.distances[next.id()]));
+                predecessorEdges.set(next, edge);
+                predecessorNodes.set(next, node);
+                node = next;
+            }
+        }
+        return new IntegralShortestPathSolution(graph.nodes(), distances, predecessorEdges, predecessorNodes);
+    }
+
+    /**
+     * Returns the total number of nodes settled by the forward and the backward search during the last run.
+     *
+     * @return the number of settled nodes
+     */
+    public int getSettledNodeCount() {
+        return settledNodes;
+    }
+
+    /**
+     * The data of the search in one direction.
+     */
+    private static class Search {
+
+        private final CompressedSparseRow adjacency;
+        private final long[] distances;
+        private final int[] predecessors;
+        private final IndexedDaryHeap queue;
+        private final int source;
+        private int settled;
+
+        Search(CompressedSparseRow adjacency, int source) {
+            this.adjacency = adjacency;
+            this.source = source;
+            distances = new long[adjacency.nodeCapacity()];
+            predecessors = new int[adjacency.nodeCapacity()];
+            Arrays.fill(distances, PrimitiveDijkstra.UNREACHABLE);
+            Arrays.fill(predecessors, -1);
+            queue = new IndexedDaryHeap(adjacency.nodeCapacity());
+            distances[source] = 0;
+            queue.insert(source, 0);
+        }
+
+        int settleNext() {
+            settled++;
+            return queue.extractMin();
+        }
+
+        void relax(int node, long distance, int edge) {
+            if (distance < distances[node]) {
+                if (distances[node] == PrimitiveDijkstra.UNREACHABLE) {
+                    queue.insert(node, distance);
+                } else if (queue.contains(node)) {
+                    queue.decreaseKey(node, distance);
+                } else {
+                    return;
+                }
+                distances[node] = distance;
+                predecessors[node] = edge;
+            }
+        }
+    }
+}
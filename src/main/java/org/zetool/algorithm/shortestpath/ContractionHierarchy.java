@@ -0,0 +1,239 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.IntConsumer;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * The result of the contraction hierarchies preprocessing. Each node has a rank given by the contraction order. The
+ * arcs of the hierarchy are the arcs of the original graph and the shortcuts created during contraction. A shortcut
+ * replaces the two arcs it was created from, an original arc belongs to an edge of the graph.
+ *
+ * The arcs are stored in two search graphs: the <i>upward</i> graph contains the arcs leading to nodes of higher rank
+ * at their tail, the <i>downward</i> graph contains the arcs coming from nodes of higher rank at their head. A query
+ * runs a forward search in the upward graph and a backward search in the downward graph, both only visit nodes of
+ * increasing rank.
+ *
+ * A hierarchy can be written to a stream and read again, so preprocessing has to be done only once for a static graph.
+ * Hierarchies are created by {@link ContractionHierarchyBuilder} and queried by {@link ContractionHierarchyQuery}.
+ */
+public final class ContractionHierarchy {
+
+    /** Identifies the binary format. */
+    private static final int MAGIC = 0x5A434831;
+    private static final int FORMAT_VERSION = 1;
+
+    /** The rank of each node id, or -1 for unused ids. */
+    private final int[] ranks;
+    /** The weight of each arc. */
+    private final long[] weights;
+    /** The original edge id of each arc, or -1 for shortcuts. */
+    private final int[] edges;
+    /** The first replaced arc of each shortcut. */
+    private final int[] firstArcs;
+    /** The second replaced arc of each shortcut. */
+    private final int[] secondArcs;
+    /** The arcs to higher ranked nodes, stored at the tail. */
+    private final CompressedSparseRow upward;
+    /** The arcs from higher ranked nodes, stored at the head. */
+    private final CompressedSparseRow downward;
+
+    ContractionHierarchy(int[] ranks, long[] weights, int[] edges, int[] firstArcs, int[] secondArcs,
+            CompressedSparseRow upward, CompressedSparseRow downward) {
+        this.ranks = ranks;
+        this.weights = weights;
+        this.edges = edges;
+        this.firstArcs = firstArcs;
+        this.secondArcs = secondArcs;
+        this.upward = upward;
+        this.downward = downward;
+    }
+
+    /**
+     * Returns the number of node ids of the graph.
+     *
+     * @return the number of node ids
+     */
+    public int getNodeCapacity() {
+        return ranks.length;
+    }
+
+    /**
+     * Returns the position of a node in the contraction order.
+     *
+     * @param node the node id
+     * @return the rank of the node
+     */
+    public int getRank(int node) {
+        return ranks[node];
+    }
+
+    /**
+     * Returns the total number of arcs, including shortcuts.
+     *
+     * @return the number of arcs
+     */
+    public int getArcCount() {
+        return weights.length;
+    }
+
+    /**
+     * Returns the number of shortcuts created during the contraction.
+     *
+     * @return the number of shortcuts
+     */
+    public int getShortcutCount() {
+        int count = 0;
+        for (int edge : edges) {
+            if (edge < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    CompressedSparseRow getUpward() {
+        return upward;
+    }
+
+    CompressedSparseRow getDownward() {
+        return downward;
+    }
+
+    long getWeight(int arc) {
+        return weights[arc];
+    }
+
+    /**
+     * Passes the original edge ids of an arc in path order to a consumer, replacing shortcuts recursively. The middle
+     * node of a shortcut has lower rank than the nodes of the shortcut, so the recursion depth is bounded by the
+     * number of nodes.
+     *
+     * @param arc the arc
+     * @param consumer the consumer of the edge ids
+     * @param stack an array used as stack, with at least one more entry than there are nodes
+     */
+    void unpack(int arc, IntConsumer consumer, int[] stack) {
+        int top = 0;
+        stack[top++] = arc;
+        while (top > 0) {
+            int current = stack[--top];
+            if (edges[current] >= 0) {
+                consumer.accept(edges[current]);
+            } else {
+                stack[top++] = secondArcs[current];
+                stack[top++] = firstArcs[current];
+            }
+        }
+    }
+
+    /**
+     * Writes the hierarchy in a binary format to a stream. The stream is not closed.
+     *
+     * @param out the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeArray(data, ranks);
+        data.writeInt(weights.length);
+        for (long weight : weights) {
+            data.writeLong(weight);
+        }
+        writeArray(data, edges);
+        writeArray(data, firstArcs);
+        writeArray(data, secondArcs);
+        writeAdjacency(data, upward);
+        writeAdjacency(data, downward);
+        data.flush();
+    }
+
+    /**
+     * Reads a hierarchy that has been written by {@link #write(OutputStream)}. The stream is not closed.
+     *
+     * @param in the input stream
+     * @return the hierarchy
+     * @throws IOException if an I/O error occurs or the stream does not contain a hierarchy
+     */
+    public static ContractionHierarchy read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a contraction hierarchy.");
+        }
+        int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported contraction hierarchy format version " + version);
+        }
+        int[] ranks = readArray(data);
+        long[] weights = new long[data.readInt()];
+        for (int i = 0; i < weights.length; ++i) {
+            weights[i] = data.readLong();
+        }
+        int[] edges = readArray(data);
+        int[] firstArcs = readArray(data);
+        int[] secondArcs = readArray(data);
+        CompressedSparseRow upward = readAdjacency(data, ranks.length);
+        CompressedSparseRow downward = readAdjacency(data, ranks.length);
+        return new ContractionHierarchy(ranks, weights, edges, firstArcs, secondArcs, upward, downward);
+    }
+
+    private static void writeArray(DataOutputStream data, int[] array) throws IOException {
+        data.writeInt(array.length);
+        for (int value : array) {
+            data.writeInt(value);
+        }
+    }
+
+    private static int[] readArray(DataInputStream data) throws IOException {
+        int[] array = new int[data.readInt()];
+        for (int i = 0; i < array.length; ++i) {
+            array[i] = data.readInt();
+        }
+        return array;
+    }
+
+    private static void writeAdjacency(DataOutputStream data, CompressedSparseRow adjacency) throws IOException {
+        data.writeInt(adjacency.arcCount());
+        for (int v = 0; v < adjacency.nodeCapacity(); ++v) {
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                data.writeInt(v);
+                data.writeInt(adjacency.head(arc));
+                data.writeInt(adjacency.edgeId(arc));
+            }
+        }
+    }
+
+    private static CompressedSparseRow readAdjacency(DataInputStream data, int nodeCapacity) throws IOException {
+        int arcCount = data.readInt();
+        int[] tails = new int[arcCount];
+        int[] heads = new int[arcCount];
+        int[] arcs = new int[arcCount];
+        for (int i = 0; i < arcCount; ++i) {
+            tails[i] = data.readInt();
+            heads[i] = data.readInt();
+            arcs[i] = data.readInt();
+        }
+        return CompressedSparseRow.fromArcs(nodeCapacity, tails, heads, arcs, arcCount);
+    }
+}
@@ -0,0 +1,379 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * Computes a {@link ContractionHierarchy} for a graph with non-negative integral costs. The nodes are contracted one
+ * after another. Contracting a node {@code v} removes it from the remaining graph and inserts a shortcut {@code (u,w)}
+ * for each pair of arcs {@code (u,v)} and {@code (v,w)}, unless a <i>witness search</i> finds a path from {@code u} to
+ * {@code w} avoiding {@code v} that is not longer.
+ *
+ * The contraction order is determined lazily by the priority <i>edge difference + deleted neighbors</i>, i.e. the
+ * number of shortcuts a contraction would create minus the number of arcs it removes, plus the number of already
+ * contracted neighbors. When a node is taken from the queue, its priority is recomputed and it is contracted only if
+ * it is still minimal.
+ *
+ * Witness searches are limited to a number of settled nodes. If a search is aborted, a shortcut is created that may
+ * be unnecessary, so the limit trades preprocessing time for the size of the hierarchy, but not its correctness.
+ * Directed graphs are contracted along their edges, each edge of an undirected graph yields an arc in both directions.
+ */
+public class ContractionHierarchyBuilder {
+
+    /** The default maximal number of nodes settled by a witness search. */
+    public static final int DEFAULT_WITNESS_SETTLE_LIMIT = 500;
+    private int witnessSettleLimit = DEFAULT_WITNESS_SETTLE_LIMIT;
+
+    public int getWitnessSettleLimit() {
+        return witnessSettleLimit;
+    }
+
+    /**
+     * Sets the maximal number of nodes settled by a witness search.
+     *
+     * @param witnessSettleLimit the maximal number of settled nodes, at least 1
+     */
+    public void setWitnessSettleLimit(int witnessSettleLimit) {
+        if (witnessSettleLimit < 1) {
+            throw new IllegalArgumentException("Settle limit must be positive: " + witnessSettleLimit);
+        }
+        this.witnessSettleLimit = witnessSettleLimit;
+    }
+
+    /**
+     * Contracts all nodes of the graph.
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @return the contraction hierarchy of the graph
+     */
+    public ContractionHierarchy build(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        return new Contraction(graph, costs, witnessSettleLimit).contractAll(graph);
+    }
+
+    /**
+     * The state of a single preprocessing run.
+     */
+    private static class Contraction {
+
+        private static final int INITIAL_CAPACITY = 4;
+        private final int witnessSettleLimit;
+
+        private int arcCount;
+        private int[] tails;
+        private int[] heads;
+        private long[] weights;
+        private int[] edges;
+        private int[] firstArcs;
+        private int[] secondArcs;
+
+        /** The ids of the arcs leaving each node. Arcs to contracted nodes are ignored. */
+        private final int[][] outgoing;
+        private final int[] outgoingSize;
+        /** The ids of the arcs entering each node. Arcs from contracted nodes are ignored. */
+        private final int[][] incoming;
+        private final int[] incomingSize;
+
+        private final int[] ranks;
+        private final int[] deletedNeighbors;
+
+        /** The cheapest arc from each neighbor of the node under consideration. */
+        private int[] inArcs;
+        private int inCount;
+        /** The cheapest arc to each neighbor of the node under consideration. */
+        private int[] outArcs;
+        private int outCount;
+        /** Stamp marking the neighbors collected for the node under consideration. */
+        private final int[] neighborStamps;
+        /** Position of a collected neighbor in {@link #inArcs} or {@link #outArcs}. */
+        private final int[] neighborPositions;
+        private int neighborVersion;
+
+        private final long[] witnessDistances;
+        private final int[] witnessStamps;
+        private final IndexedDaryHeap witnessQueue;
+        private int witnessVersion;
+
+        Contraction(Graph graph, IdentifiableIntegerMapping<Edge> costs, int witnessSettleLimit) {
+            this.witnessSettleLimit = witnessSettleLimit;
+            CompressedSparseRow adjacency = CompressedSparseRow.of(graph);
+            int nodeCapacity = adjacency.nodeCapacity();
+            int capacity = Math.max(INITIAL_CAPACITY, adjacency.arcCount());
+            tails = new int[capacity];
+            heads = new int[capacity];
+            weights = new long[capacity];
+            edges = new int[capacity];
+            firstArcs = new int[capacity];
+            secondArcs = new int[capacity];
+            outgoing = new int[nodeCapacity][];
+            outgoingSize = new int[nodeCapacity];
+            incoming = new int[nodeCapacity][];
+            incomingSize = new int[nodeCapacity];
+            for (int v = 0; v < nodeCapacity; ++v) {
+                outgoing[v] = new int[Math.max(INITIAL_CAPACITY, adjacency.degree(v))];
+                incoming[v] = new int[INITIAL_CAPACITY];
+            }
+            ranks = new int[nodeCapacity];
+            Arrays.fill(ranks, -1);
+            deletedNeighbors = new int[nodeCapacity];
+            inArcs = new int[INITIAL_CAPACITY];
+            outArcs = new int[INITIAL_CAPACITY];
+            neighborStamps = new int[nodeCapacity];
+            neighborPositions = new int[nodeCapacity];
+            witnessDistances = new long[nodeCapacity];
+            witnessStamps = new int[nodeCapacity];
+            witnessQueue = new IndexedDaryHeap(nodeCapacity);
+
+            Edge[] edgesById = new Edge[adjacency.edgeCapacity()];
+            for (Edge edge : graph.edges()) {
+                edgesById[edge.id()] = edge;
+            }
+            for (int v = 0; v < nodeCapacity; ++v) {
+                for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                    int w = adjacency.head(arc);
+                    if (v != w) {
+                        int edge = adjacency.edgeId(arc);
+                        addArc(v, w, costs.get(edgesById[edge]), edge, -1, -1);
+                    }
+                }
+            }
+        }
+
+        ContractionHierarchy contractAll(Graph graph) {
+            IndexedDaryHeap queue = new IndexedDaryHeap(ranks.length);
+            for (Node node : graph.nodes()) {
+                queue.insert(node.id(), priority(node.id()));
+            }
+            int rank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.extractMin();
+                long priority = priority(v);
+                if (!queue.isEmpty() && priority > queue.minKey()) {
+                    queue.insert(v, priority);
+                    continue;
+                }
+                contract(v, false);
+                ranks[v] = rank++;
+                // simulating the contraction of a neighbor overwrites the collected arcs
+                int[] neighbors = new int[inCount + outCount];
+                for (int i = 0; i < inCount; ++i) {
+                    neighbors[i] = tails[inArcs[i]];
+                }
+                for (int i = 0; i < outCount; ++i) {
+                    neighbors[inCount + i] = heads[outArcs[i]];
+                }
+                for (int u : neighbors) {
+                    updateNeighbor(queue, u);
+                }
+            }
+            return createHierarchy();
+        }
+
+        private void updateNeighbor(IndexedDaryHeap queue, int u) {
+            if (queue.contains(u)) {
+                deletedNeighbors[u]++;
+                queue.changeKey(u, priority(u));
+            }
+        }
+
+        private long priority(int v) {
+            int shortcuts = contract(v, true);
+            return (long) shortcuts - inCount - outCount + deletedNeighbors[v];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract a node and creates them, unless the contraction is only simulated.
+         * The cheapest arcs from and to the remaining neighbors are stored in {@link #inArcs} and {@link #outArcs}.
+         *
+         * @param v the node
+         * @param simulate whether the shortcuts are only counted
+         * @return the number of shortcuts
+         */
+        private int contract(int v, boolean simulate) {
+            collectNeighbors(v);
+            long maxOut = 0;
+            for (int i = 0; i < outCount; ++i) {
+                maxOut = Math.max(maxOut, weights[outArcs[i]]);
+            }
+            int shortcuts = 0;
+            for (int i = 0; i < inCount; ++i) {
+                int inArc = inArcs[i];
+                int u = tails[inArc];
+                witnessSearch(u, v, weights[inArc] + maxOut);
+                for (int j = 0; j < outCount; ++j) {
+                    int outArc = outArcs[j];
+                    int w = heads[outArc];
+                    long via = weights[inArc] + weights[outArc];
+                    if (u != w && witnessDistance(w) > via) {
+                        shortcuts++;
+                        if (!simulate) {
+                            addArc(u, w, via, -1, inArc, outArc);
+                        }
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        private void collectNeighbors(int v) {
+            inCount = 0;
+            nextNeighborVersion();
+            for (int i = 0; i < incomingSize[v]; ++i) {
+                int arc = incoming[v][i];
+                int u = tails[arc];
+                if (ranks[u] >= 0) {
+                    continue;
+                }
+                if (neighborStamps[u] != neighborVersion) {
+                    neighborStamps[u] = neighborVersion;
+                    neighborPositions[u] = inCount;
+                    inArcs = ensureCapacity(inArcs, inCount + 1);
+                    inArcs[inCount++] = arc;
+                } else if (weights[arc] < weights[inArcs[neighborPositions[u]]]) {
+                    inArcs[neighborPositions[u]] = arc;
+                }
+            }
+            outCount = 0;
+            nextNeighborVersion();
+            for (int i = 0; i < outgoingSize[v]; ++i) {
+                int arc = outgoing[v][i];
+                int w = heads[arc];
+                if (ranks[w] >= 0) {
+                    continue;
+                }
+                if (neighborStamps[w] != neighborVersion) {
+                    neighborStamps[w] = neighborVersion;
+                    neighborPositions[w] = outCount;
+                    outArcs = ensureCapacity(outArcs, outCount + 1);
+                    outArcs[outCount++] = arc;
+                } else if (weights[arc] < weights[outArcs[neighborPositions[w]]]) {
+                    outArcs[neighborPositions[w]] = arc;
+                }
+            }
+        }
+
+        private void nextNeighborVersion() {
+            if (++neighborVersion == Integer.MAX_VALUE) {
+                Arrays.fill(neighborStamps, 0);
+                neighborVersion = 1;
+            }
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from {@code source} in the remaining graph without {@code excluded}. The search
+         * stops if all nodes up to distance {@code limit} or {@link #witnessSettleLimit} nodes are settled.
+         */
+        private void witnessSearch(int source, int excluded, long limit) {
+            witnessQueue.clear();
+            if (++witnessVersion == Integer.MAX_VALUE) {
+                Arrays.fill(witnessStamps, 0);
+                witnessVersion = 1;
+            }
+            witnessStamps[source] = witnessVersion;
+            witnessDistances[source] = 0;
+            witnessQueue.insert(source, 0);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && witnessQueue.minKey() <= limit && settled++ < witnessSettleLimit) {
+                long distance = witnessQueue.minKey();
+                int x = witnessQueue.extractMin();
+                for (int i = 0; i < outgoingSize[x]; ++i) {
+                    int arc = outgoing[x][i];
+                    int y = heads[arc];
+                    if (y == excluded || ranks[y] >= 0) {
+                        continue;
+                    }
+                    long candidate = distance + weights[arc];
+                    if (witnessStamps[y] != witnessVersion) {
+                        witnessStamps[y] = witnessVersion;
+                        witnessDistances[y] = candidate;
+                        witnessQueue.insert(y, candidate);
+                    } else if (candidate < witnessDistances[y] && witnessQueue.contains(y)) {
+                        witnessDistances[y] = candidate;
+                        witnessQueue.decreaseKey(y, candidate);
+                    }
+                }
+            }
+        }
+
+        private long witnessDistance(int node) {
+            return witnessStamps[node] == witnessVersion ? witnessDistances[node] : PrimitiveDijkstra.UNREACHABLE;
+        }
+
+        private void addArc(int tail, int head, long weight, int edge, int first, int second) {
+            if (arcCount == tails.length) {
+                int capacity = 2 * arcCount;
+                tails = Arrays.copyOf(tails, capacity);
+                heads = Arrays.copyOf(heads, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                edges = Arrays.copyOf(edges, capacity);
+                firstArcs = Arrays.copyOf(firstArcs, capacity);
+                secondArcs = Arrays.copyOf(secondArcs, capacity);
+            }
+            int arc = arcCount++;
+            tails[arc] = tail;
+            heads[arc] = head;
+            weights[arc] = weight;
+            edges[arc] = edge;
+            firstArcs[arc] = first;
+            secondArcs[arc] = second;
+            outgoing[tail] = ensureCapacity(outgoing[tail], outgoingSize[tail] + 1);
+            outgoing[tail][outgoingSize[tail]++] = arc;
+            incoming[head] = ensureCapacity(incoming[head], incomingSize[head] + 1);
+            incoming[head][incomingSize[head]++] = arc;
+        }
+
+        private static int[] ensureCapacity(int[] array, int size) {
+            return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+        }
+
+        /**
+         * Splits the arcs into the upward and downward search graphs.
+         */
+        private ContractionHierarchy createHierarchy() {
+            int[] upTails = new int[arcCount];
+            int[] upHeads = new int[arcCount];
+            int[] upArcs = new int[arcCount];
+            int upCount = 0;
+            int[] downTails = new int[arcCount];
+            int[] downHeads = new int[arcCount];
+            int[] downArcs = new int[arcCount];
+            int downCount = 0;
+            for (int arc = 0; arc < arcCount; ++arc) {
+                if (ranks[tails[arc]] < ranks[heads[arc]]) {
+                    upTails[upCount] = tails[arc];
+                    upHeads[upCount] = heads[arc];
+                    upArcs[upCount++] = arc;
+                } else {
+                    downTails[downCount] = heads[arc];
+                    downHeads[downCount] = tails[arc];
+                    downArcs[downCount++] = arc;
+                }
+            }
+            int nodeCapacity = ranks.length;
+            return new ContractionHierarchy(ranks, Arrays.copyOf(weights, arcCount), Arrays.copyOf(edges, arcCount),
+                    Arrays.copyOf(firstArcs, arcCount), Arrays.copyOf(secondArcs, arcCount),
+                    CompressedSparseRow.fromArcs(nodeCapacity, upTails, upHeads, upArcs, upCount),
+                    CompressedSparseRow.fromArcs(nodeCapacity, downTails, downHeads, downArcs, downCount));
+        }
+    }
+}
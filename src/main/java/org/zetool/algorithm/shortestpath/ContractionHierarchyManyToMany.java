@@ -0,0 +1,192 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+import org.zetool.graph.util.ParallelFor;
+
+/**
+ * Computes distance tables on a {@link ContractionHierarchy} using buckets. First, a complete backward search in the
+ * downward graph is run from each target, and each settled node stores the target and its distance in its bucket.
+ * Then, a complete forward search in the upward graph is run from each source. A shortest path meets at its node of
+ * highest rank, so scanning the buckets of the nodes settled by the forward search yields all distances.
+ *
+ * The searches only visit the small upward search spaces, so a table costs s + t searches instead of s * t queries.
+ * The searches of both phases run in parallel on a {@link ForkJoinPool}. An instance must not be used by several
+ * threads at the same time.
+ *
+ * Knopp, Sebastian, et al. Computing many-to-many shortest paths using highway hierarchies. Proceedings of the Ninth
+ * Workshop on Algorithm Engineering and Experiments (ALENEX), 2007, 36-45.
+ */
+public class ContractionHierarchyManyToMany {
+
+    private final ContractionHierarchy hierarchy;
+    /** Searches in the upward graph that are currently not used by a task. */
+    private final ConcurrentLinkedQueue<Search> forwardSearches = new ConcurrentLinkedQueue<>();
+    /** Searches in the downward graph that are currently not used by a task. */
+    private final ConcurrentLinkedQueue<Search> backwardSearches = new ConcurrentLinkedQueue<>();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Initializes the engine.
+     *
+     * @param hierarchy the contraction hierarchy
+     */
+    public ContractionHierarchyManyToMany(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Sets the pool that runs the searches. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Computes the distances from all sources to all targets.
+     *
+     * @param sources the source node ids
+     * @param targets the target node ids
+     * @return the distance table
+     */
+    public DistanceTable compute(int[] sources, int[] targets) {
+        // Phase 1:
+        // Search backwards from all targets
+        int[][] spaceNodes = new int[targets.length][];
+        long[][] spaceDistances = new long[targets.length][];
+        ParallelFor.forEach(pool, 0, targets.length, 1, j -> {
+            Search search = acquire(backwardSearches, hierarchy.getDownward());
+            search.run(targets[j]);
+            spaceNodes[j] = Arrays.copyOf(search.settledNodes, search.settledCount);
+            spaceDistances[j] = new long[search.settledCount];
+            for (int k = 0; k < search.settledCount; ++k) {
+                spaceDistances[j][k] = search.distances[search.settledNodes[k]];
+            }
+            backwardSearches.add(search);
+        });
+
+        // Phase 2:
+        // Fill the buckets, stored as compressed rows indexed by node
+        int[] begin = new int[hierarchy.getNodeCapacity() + 1];
+        for (int[] nodes : spaceNodes) {
+            for (int v : nodes) {
+                begin[v + 1]++;
+            }
+        }
+        for (int v = 0; v < hierarchy.getNodeCapacity(); ++v) {
+            begin[v + 1] += begin[v];
+        }
+        int[] position = Arrays.copyOf(begin, begin.length - 1);
+        int[] bucketTargets = new int[begin[begin.length - 1]];
+        long[] bucketDistances = new long[bucketTargets.length];
+        for (int j = 0; j < targets.length; ++j) {
+            for (int k = 0; k < spaceNodes[j].length; ++k) {
+                int entry = position[spaceNodes[j][k]]++;
+                bucketTargets[entry] = j;
+                bucketDistances[entry] = spaceDistances[j][k];
+            }
+        }
+
+        // Phase 3:
+        // Search forwards from all sources and scan the buckets
+        DistanceTable table = new DistanceTable(sources, targets);
+        ParallelFor.forEach(pool, 0, sources.length, 1, i -> {
+            Search search = acquire(forwardSearches, hierarchy.getUpward());
+            search.run(sources[i]);
+            for (int k = 0; k < search.settledCount; ++k) {
+                int v = search.settledNodes[k];
+                for (int entry = begin[v]; entry < begin[v + 1]; ++entry) {
+                    long distance = search.distances[v] + bucketDistances[entry];
+                    if (distance < table.get(i, bucketTargets[entry])) {
+                        table.set(i, bucketTargets[entry], distance);
+                    }
+                }
+            }
+            forwardSearches.add(search);
+        });
+        return table;
+    }
+
+    private Search acquire(ConcurrentLinkedQueue<Search> searches, CompressedSparseRow graph) {
+        Search search = searches.poll();
+        return search == null ? new Search(graph) : search;
+    }
+
+    /**
+     * A complete Dijkstra search in one of the search graphs. The data is reset lazily using a version stamp.
+     */
+    private class Search {
+
+        private final CompressedSparseRow graph;
+        private final long[] distances;
+        private final int[] stamps;
+        private final IndexedDaryHeap queue;
+        /** The settled nodes in the order of their distance. */
+        private final int[] settledNodes;
+        private int settledCount;
+        private int version;
+
+        Search(CompressedSparseRow graph) {
+            this.graph = graph;
+            int nodeCapacity = graph.nodeCapacity();
+            distances = new long[nodeCapacity];
+            stamps = new int[nodeCapacity];
+            queue = new IndexedDaryHeap(nodeCapacity);
+            settledNodes = new int[nodeCapacity];
+        }
+
+        void run(int source) {
+            queue.clear();
+            settledCount = 0;
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                version = 1;
+            }
+            stamps[source] = version;
+            distances[source] = 0;
+            queue.insert(source, 0);
+            while (!queue.isEmpty()) {
+                long distance = queue.minKey();
+                int v = queue.extractMin();
+                settledNodes[settledCount++] = v;
+                for (int i = graph.begin(v); i < graph.end(v); ++i) {
+                    int w = graph.head(i);
+                    long candidate = distance + hierarchy.getWeight(graph.edgeId(i));
+                    if (stamps[w] != version) {
+                        stamps[w] = version;
+                        distances[w] = candidate;
+                        queue.insert(w, candidate);
+                    } else if (candidate < distances[w] && queue.contains(w)) {
+                        distances[w] = candidate;
+                        queue.decreaseKey(w, candidate);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+import org.zetool.graph.structure.StaticPath;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * Answers point-to-point queries on a {@link ContractionHierarchy}. A forward search from the source in the upward
+ * graph and a backward search from the target in the downward graph are run alternately. Both only visit nodes of
+ * increasing rank, and a shortest path consists of an upward part and a downward part meeting at its node of highest
+ * rank. A search direction stops as soon as its minimal key is not smaller than the best distance found so far.
+ *
+ * Paths are unpacked into the edges of the original graph by replacing shortcuts recursively. The data of a query is
+ * reset lazily, so a query only costs time for the nodes it actually visits. A query object must not be used by
+ * several threads at the same time, but any number of query objects can share the same hierarchy.
+ */
+public class ContractionHierarchyQuery {
+
+    private final ContractionHierarchy hierarchy;
+    /** The edges of the original graph indexed by id, or {@code null} if only edge ids are returned. */
+    private final Edge[] edges;
+    private final Search forward;
+    private final Search backward;
+    private final int[] stack;
+    private int[] pathEdges = new int[16];
+    private int pathLength;
+    private int meetingNode;
+
+    /**
+     * Initializes queries that return distances and edge ids.
+     *
+     * @param hierarchy the contraction hierarchy
+     */
+    public ContractionHierarchyQuery(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.edges = null;
+        forward = new Search(hierarchy.getUpward());
+        backward = new Search(hierarchy.getDownward());
+        stack = new int[hierarchy.getNodeCapacity() + 1];
+    }
+
+    /**
+     * Initializes queries that also return paths in the graph the hierarchy was built for.
+     *
+     * @param hierarchy the contraction hierarchy
+     * @param graph the graph the hierarchy was built for
+     */
+    public ContractionHierarchyQuery(ContractionHierarchy hierarchy, Graph graph) {
+        this.hierarchy = hierarchy;
+        int edgeCapacity = 0;
+        for (Edge edge : graph.edges()) {
+            edgeCapacity = Math.max(edgeCapacity, edge.id() + 1);
+        }
+        this.edges = new Edge[edgeCapacity];
+        for (Edge edge : graph.edges()) {
+            edges[edge.id()] = edge;
+        }
+        forward = new Search(hierarchy.getUpward());
+        backward = new Search(hierarchy.getDownward());
+        stack = new int[hierarchy.getNodeCapacity() + 1];
+    }
+
+    /**
+     * Computes the distance from {@code source} to {@code target}.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @return the distance or {@link PrimitiveDijkstra#UNREACHABLE}
+     */
+    public long distance(int source, int target) {
+        forward.reset(source);
+        backward.reset(target);
+        long best = source == target ? 0 : PrimitiveDijkstra.UNREACHABLE;
+        meetingNode = source == target ? source : -1;
+        boolean forwardDone = false;
+        boolean backwardDone = false;
+        while (!forwardDone || !backwardDone) {
+            if (!forwardDone) {
+                forwardDone = forward.isDone(best);
+                if (!forwardDone) {
+                    best = settle(forward, backward, best);
+                }
+            }
+            if (!backwardDone) {
+                backwardDone = backward.isDone(best);
+                if (!backwardDone) {
+                    best = settle(backward, forward, best);
+                }
+            }
+        }
+        return best;
+    }
+
+    private long settle(Search search, Search other, long best) {
+        int v = search.settleNext();
+        if (other.isReached(v)) {
+            long candidate = search.distances[v] + other.distances[v];
+            if (candidate < best) {
+                meetingNode = v;
+                return candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Computes the ids of the edges on a shortest path from {@code source} to {@code target}.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @return the edge ids in path order, or {@code null} if the target is not reachable
+     */
+    public int[] shortestPathEdges(int source, int target) {
+        if (distance(source, target) == PrimitiveDijkstra.UNREACHABLE) {
+            return null;
+        }
+        unpackPath();
+        return Arrays.copyOf(pathEdges, pathLength);
+    }
+
+    /**
+     * Computes a shortest path from {@code source} to {@code target}. The query must have been created with the
+     * graph. As paths are sequences of consistently oriented edges, this is only meaningful for directed graphs, use
+     * {@link #shortestPathEdges(int, int)} for undirected graphs.
+     *
+     * @param source the source node
+     * @param target the target node
+     * @return a shortest path or {@code null} if the target is not reachable
+     */
+    public Path shortestPath(Node source, Node target) {
+        if (edges == null) {
+            throw new IllegalStateException("Paths are only available for queries created with the graph.");
+        }
+        if (distance(source.id(), target.id()) == PrimitiveDijkstra.UNREACHABLE) {
+            return null;
+        }
+        unpackPath();
+        Path path = new StaticPath();
+        for (int i = 0; i < pathLength; ++i) {
+            path.addLastEdge(edges[pathEdges[i]]);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of nodes settled by both searches of the last query.
+     *
+     * @return the number of settled nodes
+     */
+    public int getSettledNodeCount() {
+        return forward.settled + backward.settled;
+    }
+
+    /**
+     * Collects the edges of the path found by the last query in {@link #pathEdges}.
+     */
+    private void unpackPath() {
+        pathLength = 0;
+        // the upward part is collected backwards from the meeting node
+        int upwardArcs = 0;
+        for (int v = meetingNode; forward.getPredecessorArc(v) >= 0; v = forward.predecessorNodes[v]) {
+            upwardArcs++;
+        }
+        int[] arcs = new int[upwardArcs];
+        int i = upwardArcs;
+        for (int v = meetingNode; forward.getPredecessorArc(v) >= 0; v = forward.predecessorNodes[v]) {
+            arcs[--i] = forward.predecessorArcs[v];
+        }
+        for (int arc : arcs) {
+            hierarchy.unpack(arc, this::addPathEdge, stack);
+        }
+        for (int v = meetingNode; backward.getPredecessorArc(v) >= 0; v = backward.predecessorNodes[v]) {
+            hierarchy.unpack(backward.predecessorArcs[v], this::addPathEdge, stack);
+        }
+    }
+
+    private void addPathEdge(int edge) {
+        if (pathLength == pathEdges.length) {
+            pathEdges = Arrays.copyOf(pathEdges, 2 * pathLength);
+        }
+        pathEdges[pathLength++] = edge;
+    }
+
+    /**
+     * One direction of the query. The data is reset lazily using a version stamp.
+     */
+    private class Search {
+
+        private final CompressedSparseRow graph;
+        private final long[] distances;
+        private final int[] predecessorArcs;
+        private final int[] predecessorNodes;
+        private final int[] stamps;
+        private final IndexedDaryHeap queue;
+        private int version;
+        private int settled;
+
+        Search(CompressedSparseRow graph) {
+            this.graph = graph;
+            int nodeCapacity = graph.nodeCapacity();
+            distances = new long[nodeCapacity];
+            predecessorArcs = new int[nodeCapacity];
+            predecessorNodes = new int[nodeCapacity];
+            stamps = new int[nodeCapacity];
+            queue = new IndexedDaryHeap(nodeCapacity);
+        }
+
+        void reset(int source) {
+            queue.clear();
+            settled = 0;
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                version = 1;
+            }
+            reach(source, 0, -1, -1);
+            queue.insert(source, 0);
+        }
+
+        boolean isDone(long best) {
+            return queue.isEmpty() || queue.minKey() >= best;
+        }
+
+        boolean isReached(int node) {
+            return stamps[node] == version;
+        }
+
+        int getPredecessorArc(int node) {
+            return isReached(node) ? predecessorArcs[node] : -1;
+        }
+
+        int settleNext() {
+            long distance = queue.minKey();
+            int v = queue.extractMin();
+            settled++;
+            for (int i = graph.begin(v); i < graph.end(v); ++i) {
+                int w = graph.head(i);
+                int arc = graph.edgeId(i);
+                long candidate = distance + hierarchy.getWeight(arc);
+                if (!isReached(w)) {
+                    reach(w, candidate, arc, v);
+                    queue.insert(w, candidate);
+                } else if (candidate < distances[w] && queue.contains(w)) {
+                    reach(w, candidate, arc, v);
+                    queue.decreaseKey(w, candidate);
+                }
+            }
+            return v;
+        }
+
+        private void reach(int node, long distance, int arc, int predecessor) {
+            stamps[node] = version;
+            distances[node] = distance;
+            predecessorArcs[node] = arc;
+            predecessorNodes[node] = predecessor;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.container.mapping.IdentifiableObjectMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.traversal.TopologicalSort;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Single source shortest or longest paths in a directed acyclic graph. The nodes are processed in topological order
+ * and each edge is relaxed exactly once, so no priority queue is needed and the costs may be negative. Runtime
+ * O(n + m).
+ *
+ * If the problem has a target, the algorithm stops as soon as the target is processed; distances of nodes behind the
+ * target in the topological order are not final in that case. Unreachable nodes have the distance
+ * {@code Integer.MAX_VALUE} for shortest paths and {@code Integer.MIN_VALUE} for longest paths.
+ */
+public class DagShortestPath extends AbstractAlgorithm<IntegralSingleSourceShortestPathProblem,
+        IntegralShortestPathSolution> {
+
+    /** Whether longest paths are computed instead of shortest paths. */
+    private boolean longest;
+
+    /**
+     * Selects whether longest paths are computed instead of shortest paths. Default is {@code false}.
+     *
+     * @param longest whether longest paths are computed
+     */
+    public void setLongest(boolean longest) {
+        this.longest = longest;
+    }
+
+    public boolean isLongest() {
+        return longest;
+    }
+
+    /**
+     * Computes the paths.
+     *
+     * @param problem the problem instance
+     * @return the shortest or longest path tree
+     * @throws IllegalArgumentException if the graph is undirected or contains a cycle
+     * @throws ArithmeticException if a distance does not fit into an {@code int}
+     */
+    @Override
+    protected IntegralShortestPathSolution runAlgorithm(IntegralSingleSourceShortestPathProblem problem) {
+        Graph graph = problem.getGraph();
+        if (!graph.isDirected()) {
+            throw new IllegalArgumentException("Graph is not directed.");
+        }
+        CompressedSparseRow adjacency = CompressedSparseRow.of(graph);
+        int[] nodes = new int[graph.nodeCount()];
+        int i = 0;
+        for (Node node : graph.nodes()) {
+            nodes[i++] = node.id();
+        }
+        int[] order = TopologicalSort.sort(adjacency, nodes);
+        if (order.length < nodes.length) {
+            throw new IllegalArgumentException("Graph contains a cycle.");
+        }
+        int[] costs = new int[adjacency.edgeCapacity()];
+        Edge[] edges = new Edge[adjacency.edgeCapacity()];
+        for (Edge edge : graph.edges()) {
+            costs[edge.id()] = problem.getCosts().get(edge);
+            edges[edge.id()] = edge;
+        }
+
+        long unreachable = longest ? Long.MIN_VALUE : Long.MAX_VALUE;
+        long[] distances = new long[adjacency.nodeCapacity()];
+        int[] predecessorEdges = new int[adjacency.nodeCapacity()];
+        Arrays.fill(distances, unreachable);
+        Arrays.fill(predecessorEdges, -1);
+        int source = problem.getSource().id();
+        int target = problem.getTarget().map(Node::id).orElse(-1);
+        distances[source] = 0;
+        int position = 0;
+        while (order[position] != source) {
+            position++;
+        }
+        for (; position < order.length && order[position] != target; ++position) {
+            int v = order[position];
+            if (distances[v] == unreachable) {
+                continue;
+            }
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                long distance = distances[v] + costs[adjacency.edgeId(arc)];
+                if (distances[w] == unreachable || (longest ? distance > distances[w] : distance < distances[w])) {
+                    distances[w] = distance;
+                    predecessorEdges[w] = adjacency.edgeId(arc);
+                }
+            }
+        }
+
+        IdentifiableIntegerMapping<Node> distanceMapping = new IdentifiableIntegerMapping<>(adjacency.nodeCapacity());
+        IdentifiableObjectMapping<Node, Edge> edgeMapping = new IdentifiableObjectMapping<>(adjacency.nodeCapacity());
+        IdentifiableObjectMapping<Node, Node> nodeMapping = new IdentifiableObjectMapping<>(adjacency.nodeCapacity());
+        for (Node node : graph.nodes()) {
+            int v = node.id();
+            distanceMapping.set(node, distances[v] != unreachable ? Math.toIntExact(distances[v])
+                    : longest ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+            if (predecessorEdges[v] >= 0) {
+                edgeMapping.set(node, edges[predecessorEdges[v]]);
+                nodeMapping.set(node, edges[predecessorEdges[v]].start());
+            }
+        }
+        return new IntegralShortestPathSolution(graph.nodes(), distanceMapping, edgeMapping, nodeMapping);
+    }
+}
@@ -0,0 +1,310 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.container.mapping.IdentifiableObjectMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.ParallelFor;
+
+/**
+ * Parallel single source shortest paths using the delta-stepping algorithm. Tentative distances are kept in buckets
+ * of width delta. The nodes of the first non-empty bucket are processed in phases: all light edges, i.e. edges with
+ * cost at most delta, of the current nodes are relaxed in parallel, which may insert nodes into the same bucket again.
+ * Once the bucket stays empty, its distances are final and the heavy edges of all its nodes are relaxed in parallel.
+ * <p>
+ * Tentative distances are updated with compare-and-set of a single value containing the distance together with the
+ * predecessor edge, so the final predecessor edges form a shortest path tree. The solution is the same as computed by
+ * {@link Dijkstra}, up to the choice among several shortest paths. If the problem has a target, the algorithm stops
+ * after the bucket containing the target and nodes in later buckets are reported as unreachable. Distances must be
+ * smaller than {@link Integer#MAX_VALUE}, as for the integral solution.
+ * <p>
+ * Meyer, Ulrich, and Peter Sanders. Delta-stepping: a parallelizable shortest path algorithm. Journal of Algorithms 49
+ * (2003), 114-152.
+ */
+public class DeltaStepping extends AbstractAlgorithm<IntegralSingleSourceShortestPathProblem, IntegralShortestPathSolution> {
+
+    /** The number of nodes relaxed sequentially by one task. */
+    private static final int BLOCK_SIZE = 1 << 10;
+    /** Label of nodes that are not reached, its distance part is {@link Integer#MAX_VALUE}. */
+    private static final long UNREACHED = Long.MAX_VALUE;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int delta;
+
+    public DeltaStepping() {
+        super("Delta Stepping");
+    }
+
+    /**
+     * Sets the pool that relaxes the edges. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the width of the buckets. Small values reduce the number of repeated relaxations, large values increase the
+     * parallelism of a phase. The value 0 selects the maximal edge cost divided by the average degree, which is the
+     * default.
+     *
+     * @param delta the bucket width, or 0
+     */
+    public void setDelta(int delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("Delta must not be negative: " + delta);
+        }
+        this.delta = delta;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    @Override
+    protected IntegralShortestPathSolution runAlgorithm(IntegralSingleSourceShortestPathProblem problem) {
+        Run run = new Run(problem);
+        run.execute();
+        return run.createSolution();
+    }
+
+    private static long pack(long distance, int edge) {
+        return distance << 32 | (edge + 1);
+    }
+
+    private static long distance(long label) {
+        return label >>> 32;
+    }
+
+    private static int edge(long label) {
+        return (int) label - 1;
+    }
+
+    /**
+     * The state of a single execution.
+     */
+    private class Run {
+
+        private final Graph graph;
+        private final CompressedSparseRow adjacency;
+        /** The costs indexed by edge id. */
+        private final int[] costs;
+        /** The edges indexed by id. */
+        private final Edge[] edges;
+        private final int source;
+        private final int target;
+        private final long width;
+        /** Distance and predecessor edge of each node, see {@link #pack(long, int)}. */
+        private final AtomicLongArray labels;
+        private final boolean[] settled;
+        /** The non-empty buckets by index. A bucket may contain stale entries of nodes that moved to a smaller one. */
+        private final TreeMap<Long, IntList> buckets = new TreeMap<>();
+        /** The round in which a node has been added to a frontier, used to remove duplicates. */
+        private final int[] stamps;
+        private int round;
+        private final IntList frontier = new IntList();
+        private final IntList settledNodes = new IntList();
+
+        Run(IntegralSingleSourceShortestPathProblem problem) {
+            graph = problem.getGraph();
+            adjacency = CompressedSparseRow.of(graph);
+            costs = new int[adjacency.edgeCapacity()];
+            edges = new Edge[adjacency.edgeCapacity()];
+            long maxCost = 0;
+            for (Edge edge : graph.edges()) {
+                int cost = problem.getCosts().get(edge);
+                if (cost < 0) {
+                    throw new IllegalArgumentException("Edge costs must not be negative: " + edge);
+                }
+                costs[edge.id()] = cost;
+                edges[edge.id()] = edge;
+                maxCost = Math.max(maxCost, cost);
+            }
+            source = problem.getSource().id();
+            target = problem.getTarget().map(Node::id).orElse(-1);
+            width = delta > 0 ? delta : defaultWidth(maxCost);
+            int nodeCapacity = adjacency.nodeCapacity();
+            labels = new AtomicLongArray(nodeCapacity);
+            for (int v = 0; v < nodeCapacity; ++v) {
+                labels.set(v, UNREACHED);
+            }
+            settled = new boolean[nodeCapacity];
+            stamps = new int[nodeCapacity];
+        }
+
+        private long defaultWidth(long maxCost) {
+            long degree = Math.max(1, adjacency.arcCount() / Math.max(1, graph.nodeCount()));
+            return Math.max(1, maxCost / degree);
+        }
+
+        void execute() {
+            labels.set(source, pack(0, -1));
+            insert(source);
+            while (!buckets.isEmpty()) {
+                long current = buckets.firstKey();
+                settledNodes.clear();
+                IntList bucket;
+                while ((bucket = buckets.remove(current)) != null) {
+                    takeFrontier(bucket, current);
+                    for (int i = 0; i < frontier.size; ++i) {
+                        int v = frontier.values[i];
+                        if (!settled[v]) {
+                            settled[v] = true;
+                            settledNodes.add(v);
+                        }
+                    }
+                    relax(frontier, true);
+                }
+                relax(settledNodes, false);
+                if (target >= 0 && settled[target]) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Moves the nodes of a bucket that still have a distance in the bucket to the frontier.
+         */
+        private void takeFrontier(IntList bucket, long current) {
+            round++;
+            frontier.clear();
+            for (int i = 0; i < bucket.size; ++i) {
+                int v = bucket.values[i];
+                if (stamps[v] != round && distance(labels.get(v)) / width == current) {
+                    stamps[v] = round;
+                    frontier.add(v);
+                }
+            }
+        }
+
+        /**
+         * Relaxes the light or heavy edges of the given nodes in parallel and inserts the improved nodes into their
+         * buckets.
+         */
+        private void relax(IntList nodes, boolean light) {
+            int blocks = (nodes.size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            IntList[] improved = new IntList[blocks];
+            ParallelFor.forEach(pool, 0, blocks, 1, block -> {
+                IntList local = new IntList();
+                int end = Math.min(nodes.size, (block + 1) * BLOCK_SIZE);
+                for (int i = block * BLOCK_SIZE; i < end; ++i) {
+                    relax(nodes.values[i], light, local);
+                }
+                improved[block] = local;
+            });
+            for (IntList local : improved) {
+                for (int i = 0; i < local.size; ++i) {
+                    insert(local.values[i]);
+                }
+            }
+        }
+
+        private void relax(int v, boolean light, IntList improved) {
+            long distance = distance(labels.get(v));
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int edge = adjacency.edgeId(arc);
+                if ((costs[edge] <= width) == light) {
+                    int w = adjacency.head(arc);
+                    if (decrease(w, distance + costs[edge], edge)) {
+                        improved.add(w);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Sets the distance of a node if it is smaller than the current distance.
+         *
+         * @return {@code true} if the distance has been decreased
+         */
+        private boolean decrease(int node, long distance, int edge) {
+            if (distance >= Integer.MAX_VALUE) {
+                return false;
+            }
+            long label = pack(distance, edge);
+            while (true) {
+                long current = labels.get(node);
+                if (distance(current) <= distance) {
+                    return false;
+                }
+                if (labels.compareAndSet(node, current, label)) {
+                    return true;
+                }
+            }
+        }
+
+        private void insert(int node) {
+            buckets.computeIfAbsent(distance(labels.get(node)) / width, index -> new IntList()).add(node);
+        }
+
+        IntegralShortestPathSolution createSolution() {
+            int nodeCapacity = settled.length;
+            IdentifiableIntegerMapping<Node> distances = new IdentifiableIntegerMapping<>(nodeCapacity);
+            IdentifiableObjectMapping<Node, Edge> predecessorEdges = new IdentifiableObjectMapping<>(nodeCapacity);
+            IdentifiableObjectMapping<Node, Node> predecessorNodes = new IdentifiableObjectMapping<>(nodeCapacity);
+            for (Node node : graph.nodes()) {
+                int v = node.id();
+                if (!settled[v]) {
+                    distances.set(node, Integer.MAX_VALUE);
+                    continue;
+                }
+                long label = labels.get(v);
+                distances.set(node, (int) distance(label));
+                int edge = edge(label);
+                if (edge >= 0) {
+                    predecessorEdges.set(node, edges[edge]);
+                    predecessorNodes.set(node, edges[edge].opposite(node));
+                }
+            }
+            return new IntegralShortestPathSolution(graph.nodes(), distances, predecessorEdges, predecessorNodes);
+        }
+    }
+
+    /**
+     * A growable list of node ids.
+     */
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
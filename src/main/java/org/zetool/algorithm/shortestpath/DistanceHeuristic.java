@@ -0,0 +1,42 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import org.zetool.graph.Node;
+
+/**
+ * A lower bound for shortest path distances used to direct the {@link AStar} search towards the target. A heuristic
+ * is <i>admissible</i> if it never overestimates the distance to the target. It is <i>consistent</i> if additionally
+ * {@code estimate(v, t) <= cost(v, w) + estimate(w, t)} holds for all edges {@code (v, w)}. A* returns shortest paths
+ * for admissible heuristics and never settles a node twice for consistent heuristics.
+ */
+@FunctionalInterface
+public interface DistanceHeuristic {
+
+    /**
+     * The heuristic that does not give any information. A* with this heuristic behaves like Dijkstra's algorithm.
+     */
+    public static final DistanceHeuristic NONE = (node, target) -> 0;
+
+    /**
+     * Returns a lower bound for the shortest path distance from {@code node} to {@code target}.
+     *
+     * @param node the node
+     * @param target the target node
+     * @return a non-negative lower bound for the distance
+     */
+    long estimate(Node node, Node target);
+}
@@ -0,0 +1,100 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+
+/**
+ * Shortest path distances between a list of source nodes and a list of target nodes. The distances are stored in a
+ * single array with one row per source. Sources and targets are referred to by their index in the lists, which may
+ * contain the same node several times.
+ */
+public final class DistanceTable {
+
+    /** Value of the distance for targets that are not reachable. */
+    public static final long UNREACHABLE = PrimitiveDijkstra.UNREACHABLE;
+
+    private final int[] sources;
+    private final int[] targets;
+    /** The distances in row major order. */
+    private final long[] distances;
+
+    /**
+     * Initializes a table with all distances unreachable.
+     *
+     * @param sources the source node ids
+     * @param targets the target node ids
+     */
+    DistanceTable(int[] sources, int[] targets) {
+        this.sources = sources.clone();
+        this.targets = targets.clone();
+        this.distances = new long[Math.multiplyExact(sources.length, targets.length)];
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    public int getSourceCount() {
+        return sources.length;
+    }
+
+    public int getTargetCount() {
+        return targets.length;
+    }
+
+    /**
+     * Returns the node id of a source.
+     *
+     * @param sourceIndex the index of the source
+     * @return the node id
+     */
+    public int getSource(int sourceIndex) {
+        return sources[sourceIndex];
+    }
+
+    /**
+     * Returns the node id of a target.
+     *
+     * @param targetIndex the index of the target
+     * @return the node id
+     */
+    public int getTarget(int targetIndex) {
+        return targets[targetIndex];
+    }
+
+    /**
+     * Returns the distance from a source to a target.
+     *
+     * @param sourceIndex the index of the source
+     * @param targetIndex the index of the target
+     * @return the distance or {@link #UNREACHABLE}
+     */
+    public long get(int sourceIndex, int targetIndex) {
+        return distances[sourceIndex * targets.length + targetIndex];
+    }
+
+    void set(int sourceIndex, int targetIndex, long distance) {
+        distances[sourceIndex * targets.length + targetIndex] = distance;
+    }
+
+    /**
+     * Returns a copy of all distances in row major order, i.e. the distance from source {@code i} to target {@code j}
+     * is at position {@code i * getTargetCount() + j}.
+     *
+     * @return the distances
+     */
+    public long[] toArray() {
+        return distances.clone();
+    }
+}
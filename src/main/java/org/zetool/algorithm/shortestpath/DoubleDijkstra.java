@@ -0,0 +1,308 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+import org.zetool.graph.structure.StaticPath;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * Dijkstra's algorithm for {@code double} costs working directly on node and edge ids. This is the counterpart of
+ * {@link PrimitiveDijkstra} for fractional costs, e.g. travel times. The costs are read once into an array and
+ * distances are stored in reusable {@link Workspace workspaces}, so no values are boxed during a query.
+ *
+ * The queue is an {@link IndexedDaryHeap} keyed by the bit pattern of the distances: for non-negative doubles, the
+ * order of the bit patterns as {@code long} values is the numerical order. The costs must be non-negative and must
+ * not be NaN.
+ */
+public class DoubleDijkstra {
+
+    /** Value of the distance for nodes that are not reached. */
+    public static final double UNREACHABLE = Double.POSITIVE_INFINITY;
+
+    private final CompressedSparseRow adjacency;
+    /** The costs indexed by edge id. */
+    private final double[] costs;
+    /** The nodes indexed by id. */
+    private final Node[] nodes;
+    /** The edges indexed by id. */
+    private final Edge[] edges;
+    /** The workspace used by the convenience query methods. */
+    private final Workspace workspace;
+
+    /**
+     * Initializes the engine for forward searches. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     */
+    public DoubleDijkstra(Graph graph, ToDoubleFunction<Edge> costs) {
+        this(graph, costs, false);
+    }
+
+    /**
+     * Initializes the engine. The cost function is evaluated once per edge. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @param reverse whether directed graphs are searched along incoming edges
+     */
+    public DoubleDijkstra(Graph graph, ToDoubleFunction<Edge> costs, boolean reverse) {
+        this.adjacency = CompressedSparseRow.of(graph, reverse);
+        this.costs = new double[adjacency.edgeCapacity()];
+        this.nodes = new Node[adjacency.nodeCapacity()];
+        this.edges = new Edge[adjacency.edgeCapacity()];
+        for (Node node : graph.nodes()) {
+            nodes[node.id()] = node;
+        }
+        for (Edge edge : graph.edges()) {
+            double cost = costs.applyAsDouble(edge);
+            if (!(cost >= 0)) {
+                throw new IllegalArgumentException("Edge costs must be non-negative numbers: " + edge + " " + cost);
+            }
+            edges[edge.id()] = edge;
+            // adding 0 turns -0.0 into 0.0, whose bit pattern is the smallest key
+            this.costs[edge.id()] = cost + 0.0;
+        }
+        workspace = createWorkspace();
+    }
+
+    /**
+     * Creates a new workspace that can be used for queries on this engine. Runtime O(n).
+     *
+     * @return a new workspace
+     */
+    public final Workspace createWorkspace() {
+        return new Workspace(adjacency.nodeCapacity());
+    }
+
+    /**
+     * Returns the number of node ids, i.e. the size of the arrays in a workspace.
+     *
+     * @return the number of node ids
+     */
+    public int getNodeCapacity() {
+        return adjacency.nodeCapacity();
+    }
+
+    /**
+     * Returns the workspace used by the convenience query methods. It contains the result of the last query that was
+     * run by one of these methods.
+     *
+     * @return the default workspace
+     */
+    public Workspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Computes the distance from {@code source} to {@code target} using the default workspace. The search stops as soon
+     * as the target is settled.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @return the distance or {@link #UNREACHABLE}
+     */
+    public double distance(int source, int target) {
+        run(workspace, source, target);
+        return workspace.getDistance(target);
+    }
+
+    /**
+     * Runs a query from {@code source} in the given workspace. If {@code target} is a valid node id, the search stops
+     * as soon as the target is settled, otherwise all reachable nodes are settled.
+     *
+     * @param workspace the workspace storing the result
+     * @param source the source node id
+     * @param target the target node id, or -1
+     */
+    public void run(Workspace workspace, int source, int target) {
+        run(workspace, new int[]{source}, target);
+    }
+
+    /**
+     * Runs a query from several sources at the same time in the given workspace. Each node is reached from the
+     * nearest source. If {@code target} is a valid node id, the search stops as soon as the target is settled.
+     *
+     * @param workspace the workspace storing the result
+     * @param sources the source node ids
+     * @param target the target node id, or -1
+     */
+    public void run(Workspace workspace, int[] sources, int target) {
+        workspace.reset();
+        IndexedDaryHeap queue = workspace.queue;
+        for (int source : sources) {
+            if (!workspace.isReached(source)) {
+                workspace.reach(source, 0.0, -1);
+                queue.insert(source, key(0.0));
+            }
+        }
+        while (!queue.isEmpty()) {
+            int v = queue.extractMin();
+            double distance = workspace.distances[v];
+            workspace.settled++;
+            if (v == target) {
+                return;
+            }
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                double candidate = distance + costs[adjacency.edgeId(arc)];
+                if (!workspace.isReached(w)) {
+                    workspace.reach(w, candidate, adjacency.edgeId(arc));
+                    queue.insert(w, key(candidate));
+                } else if (candidate < workspace.distances[w] && queue.contains(w)) {
+                    workspace.reach(w, candidate, adjacency.edgeId(arc));
+                    queue.decreaseKey(w, key(candidate));
+                }
+            }
+        }
+    }
+
+    private static long key(double distance) {
+        return Double.doubleToLongBits(distance);
+    }
+
+    /**
+     * Returns the path to a reached node that consists of the predecessor edges stored in the workspace. As paths
+     * are sequences of consistently oriented edges, this is only meaningful for directed graphs.
+     *
+     * @param workspace the workspace containing the result of a query
+     * @param target the node id
+     * @return the path from the source to the node
+     */
+    public Path getPath(Workspace workspace, int target) {
+        Path path = new StaticPath();
+        for (int edge : getPathEdges(workspace, target)) {
+            path.addLastEdge(edges[edge]);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the ids of the predecessor edges on the path from the source to a reached node.
+     *
+     * @param workspace the workspace containing the result of a query
+     * @param target the node id
+     * @return the edge ids in path order
+     */
+    public int[] getPathEdges(Workspace workspace, int target) {
+        int length = 0;
+        for (int v = target, edge; (edge = workspace.getPredecessorEdge(v)) >= 0; v = opposite(edge, v)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target, edge; (edge = workspace.getPredecessorEdge(v)) >= 0; v = opposite(edge, v)) {
+            path[--length] = edge;
+        }
+        return path;
+    }
+
+    private int opposite(int edge, int node) {
+        return edges[edge].opposite(nodes[node]).id();
+    }
+
+    /**
+     * The data of a single query. A workspace can be reused for any number of queries on the engine that created it,
+     * but must not be used by several threads at the same time.
+     */
+    public static final class Workspace {
+
+        private final double[] distances;
+        private final int[] predecessorEdges;
+        /** The version in which the data of a node was set. Data of older versions is invalid. */
+        private final int[] stamps;
+        private final IndexedDaryHeap queue;
+        private int version;
+        private int settled;
+
+        private Workspace(int nodeCapacity) {
+            distances = new double[nodeCapacity];
+            predecessorEdges = new int[nodeCapacity];
+            stamps = new int[nodeCapacity];
+            queue = new IndexedDaryHeap(nodeCapacity);
+        }
+
+        void reset() {
+            queue.clear();
+            settled = 0;
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                version = 1;
+            }
+        }
+
+        void reach(int node, double distance, int predecessorEdge) {
+            stamps[node] = version;
+            distances[node] = distance;
+            predecessorEdges[node] = predecessorEdge;
+        }
+
+        /**
+         * Checks whether a node has been reached by the last query.
+         *
+         * @param node the node id
+         * @return {@code true} if the node has a (tentative) distance
+         */
+        public boolean isReached(int node) {
+            return stamps[node] == version;
+        }
+
+        /**
+         * Checks whether the shortest path distance of a node is known after the last query.
+         *
+         * @param node the node id
+         * @return {@code true} if the node has been settled
+         */
+        public boolean isSettled(int node) {
+            return isReached(node) && !queue.contains(node);
+        }
+
+        /**
+         * Returns the (tentative) distance of a node, which is final if the node is settled.
+         *
+         * @param node the node id
+         * @return the distance of the node or {@link #UNREACHABLE}
+         */
+        public double getDistance(int node) {
+            return isReached(node) ? distances[node] : UNREACHABLE;
+        }
+
+        /**
+         * Returns the id of the edge via which a node has been reached.
+         *
+         * @param node the node id
+         * @return the id of the predecessor edge, or -1 for the source and nodes that are not reached
+         */
+        public int getPredecessorEdge(int node) {
+            return isReached(node) ? predecessorEdges[node] : -1;
+        }
+
+        /**
+         * Returns the number of nodes settled by the last query.
+         *
+         * @return the number of settled nodes
+         */
+        public int getSettledCount() {
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DynamicNetwork;
+import org.zetool.graph.Edge;
+import org.zetool.graph.GraphChangeListener;
+import org.zetool.graph.GraphChangeSet;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+import org.zetool.graph.structure.StaticPath;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * A shortest path tree from a single source in a {@link DynamicNetwork} that is repaired after changes of the network
+ * instead of being recomputed, following Ramalingam and Reps. The network and the costs are changed by the caller,
+ * afterwards the change is reported to the tree by {@link #edgeAdded(Edge)}, {@link #edgeRemoved(Edge)} or
+ * {@link #costChanged(Edge)}. Each change has to be reported before the next one is made. Alternatively, the tree can
+ * be registered as listener by {@link DynamicNetwork#addGraphChangeListener(GraphChangeListener)}, then changes of the
+ * network are reported automatically, and a batch of changes is repaired at once. Changes of the costs still have to be
+ * reported by {@link #costChanged(Edge)}.
+ *
+ * A new or cheaper edge can only decrease distances. Starting at its end node, a Dijkstra search propagates the
+ * improvements and stops at nodes whose distance does not change. A removed or more expensive tree edge can only
+ * increase the distances of the nodes in the subtree below it. These nodes get the best distance via an edge from
+ * outside the subtree, then a Dijkstra search computes their final distances. Changes of edges that are not in the
+ * tree and do not improve a distance cost O(1). In all cases the work is proportional to the number of affected nodes
+ * and their incident edges, times a logarithmic factor for the heap.
+ *
+ * Edges that are removed only temporarily by {@link DynamicNetwork#remove_edge_temp(Edge)} are still contained in the
+ * network. They are ignored by the tree once they are reported as removed, until they are reported as added again.
+ * Removing a node has to be reported as removal of its edges. The costs must not be negative.
+ */
+public class DynamicShortestPathTree implements GraphChangeListener {
+
+    /** Value of the distance for nodes that are not reached. */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final DynamicNetwork network;
+    private final IdentifiableIntegerMapping<Edge> costs;
+    private final Node source;
+    /** Edges that have been reported as removed but are still contained in the network. */
+    private final Set<Edge> disabled = new HashSet<>();
+    /** The distances indexed by node id. */
+    private long[] distances;
+    /** The tree edges indexed by node id, {@code null} for the source and unreachable nodes. */
+    private Edge[] predecessors;
+    /** The reached nodes indexed by id. */
+    private Node[] nodes;
+    private IndexedDaryHeap queue;
+    /** The number of nodes scanned by the last update. */
+    private int updateSize;
+
+    /**
+     * Computes the initial shortest path tree. Runtime O(m log n).
+     *
+     * @param network the network
+     * @param costs the non-negative edge costs
+     * @param source the source node
+     * @throws IllegalArgumentException if a reachable edge has negative cost
+     */
+    public DynamicShortestPathTree(DynamicNetwork network, IdentifiableIntegerMapping<Edge> costs, Node source) {
+        this.network = network;
+        this.costs = costs;
+        this.source = source;
+        int capacity = source.id() + 1;
+        for (Node node : network.nodes()) {
+            capacity = Math.max(capacity, node.id() + 1);
+        }
+        distances = new long[0];
+        predecessors = new Edge[0];
+        nodes = new Node[0];
+        ensureCapacity(capacity);
+        distances[source.id()] = 0;
+        nodes[source.id()] = source;
+        queue.insert(source.id(), 0);
+        propagate();
+    }
+
+    /**
+     * Updates the tree after an edge has been added to the network, or a temporarily removed edge has been recovered.
+     *
+     * @param edge the new edge
+     * @throws IllegalArgumentException if the cost of the edge is negative
+     */
+    public void edgeAdded(Edge edge) {
+        updateSize = 0;
+        disabled.remove(edge);
+        decreased(edge);
+    }
+
+    /**
+     * Updates the tree after an edge has been removed from the network, permanently or temporarily.
+     *
+     * @param edge the removed edge
+     */
+    public void edgeRemoved(Edge edge) {
+        disable(edge);
+        updateSize = 0;
+        if (isTreeEdge(edge)) {
+            increased(new Node[]{edge.end()}, 1);
+        }
+    }
+
+    /**
+     * Updates the tree after a batch of changes of the network. The subtrees below all removed tree edges are
+     * recomputed together, afterwards the added edges are inserted.
+     *
+     * @param changes the changes of the network
+     * @throws IllegalArgumentException if the cost of an edge is negative
+     */
+    @Override
+    public void graphChanged(GraphChangeSet changes) {
+        updateSize = 0;
+        for (Edge edge : changes.getAddedEdges()) {
+            ensureCapacity(Math.max(edge.start().id(), edge.end().id()) + 1);
+        }
+        Node[] roots = new Node[changes.getRemovedEdges().size()];
+        int count = 0;
+        for (Edge edge : changes.getRemovedEdges()) {
+            disable(edge);
+            if (isTreeEdge(edge)) {
+                roots[count++] = edge.end();
+            }
+        }
+        if (count > 0) {
+            increased(roots, count);
+        }
+        for (Edge edge : changes.getAddedEdges()) {
+            disabled.remove(edge);
+            decreased(edge);
+        }
+    }
+
+    /**
+     * Updates the tree after the cost of an edge has been changed in the cost mapping.
+     *
+     * @param edge the edge whose cost has been changed, it has to be contained in the network
+     * @throws IllegalArgumentException if the new cost is negative
+     */
+    public void costChanged(Edge edge) {
+        if (isTreeEdge(edge) && distances[edge.start().id()] + cost(edge) > distances[edge.end().id()]) {
+            updateSize = 0;
+            increased(new Node[]{edge.end()}, 1);
+        } else {
+            updateSize = 0;
+            decreased(edge);
+        }
+    }
+
+    /**
+     * Ignores an edge that is removed only temporarily and thus still contained in the network.
+     */
+    private void disable(Edge edge) {
+        ListSequence<Edge> outgoing = network.outgoingEdges(edge.start());
+        if (outgoing != null && outgoing.contains(edge)) {
+            disabled.add(edge);
+        }
+    }
+
+    private boolean isTreeEdge(Edge edge) {
+        int end = edge.end().id();
+        return end < predecessors.length && predecessors[end] == edge;
+    }
+
+    private void decreased(Edge edge) {
+        ensureCapacity(Math.max(edge.start().id(), edge.end().id()) + 1);
+        if (relax(edge)) {
+            propagate();
+        }
+    }
+
+    /**
+     * Recomputes the distances in the subtrees of nodes whose tree edges have been removed or have become more
+     * expensive. The distances outside the subtrees remain valid, so relaxing edges to them does not change anything.
+     * The subtrees are reset together, otherwise the outdated distances of one subtree could be used for another one.
+     */
+    private void increased(Node[] roots, int count) {
+        Node[] subtree = Arrays.copyOf(roots, count);
+        int size = count;
+        for (int i = 0; i < size; ++i) {
+            predecessors[subtree[i].id()] = null;
+        }
+        for (int i = 0; i < size; ++i) {
+            for (Edge edge : edges(network.outgoingEdges(subtree[i]))) {
+                if (predecessors[edge.end().id()] == edge) {
+                    predecessors[edge.end().id()] = null;
+                    if (size == subtree.length) {
+                        subtree = Arrays.copyOf(subtree, 2 * size);
+                    }
+                    subtree[size++] = edge.end();
+                }
+            }
+        }
+        for (int i = 0; i < size; ++i) {
+            distances[subtree[i].id()] = UNREACHABLE;
+        }
+        for (int i = 0; i < size; ++i) {
+            for (Edge edge : edges(network.incomingEdges(subtree[i]))) {
+                relax(edge);
+            }
+        }
+        propagate();
+    }
+
+    /**
+     * Improves the distance of the end node of an edge, if possible.
+     *
+     * @return whether the distance has been improved
+     */
+    private boolean relax(Edge edge) {
+        long start = distances[edge.start().id()];
+        if (start == UNREACHABLE || !disabled.isEmpty() && disabled.contains(edge)) {
+            return false;
+        }
+        long distance = start + cost(edge);
+        int end = edge.end().id();
+        if (distance < distances[end]) {
+            distances[end] = distance;
+            predecessors[end] = edge;
+            nodes[end] = edge.end();
+            queue.insertOrDecrease(end, distance);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the nodes in the queue.
+     */
+    private void propagate() {
+        while (!queue.isEmpty()) {
+            int v = queue.extractMin();
+            updateSize++;
+            for (Edge edge : edges(network.outgoingEdges(nodes[v]))) {
+                relax(edge);
+            }
+        }
+    }
+
+    /**
+     * Returns the edges of a node, which are not available any more if all nodes have been removed from the network.
+     */
+    private static Iterable<Edge> edges(ListSequence<Edge> edges) {
+        return edges == null ? Collections.<Edge>emptyList() : edges;
+    }
+
+    private int cost(Edge edge) {
+        int cost = costs.get(edge);
+        if (cost < 0) {
+            throw new IllegalArgumentException("Negative cost " + cost + " of edge " + edge);
+        }
+        return cost;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= distances.length) {
+            return;
+        }
+        int oldCapacity = distances.length;
+        capacity = Math.max(capacity, 2 * oldCapacity);
+        distances = Arrays.copyOf(distances, capacity);
+        Arrays.fill(distances, oldCapacity, capacity, UNREACHABLE);
+        predecessors = Arrays.copyOf(predecessors, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+        queue = new IndexedDaryHeap(capacity);
+    }
+
+    public Node getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the current distance of a node from the source.
+     *
+     * @param node the node
+     * @return the distance, or {@link #UNREACHABLE}
+     */
+    public long getDistance(Node node) {
+        return node.id() < distances.length ? distances[node.id()] : UNREACHABLE;
+    }
+
+    /**
+     * Returns the edge via which a node is reached in the current shortest path tree.
+     *
+     * @param node the node
+     * @return the tree edge, or {@code null} for the source and unreachable nodes
+     */
+    public Edge getPredecessorEdge(Node node) {
+        return node.id() < predecessors.length ? predecessors[node.id()] : null;
+    }
+
+    /**
+     * Returns a current shortest path from the source to a node.
+     *
+     * @param target the node
+     * @return the path, or {@code null} if the node is not reachable
+     */
+    public Path getPath(Node target) {
+        if (getDistance(target) == UNREACHABLE) {
+            return null;
+        }
+        Path path = new StaticPath();
+        for (Edge edge = getPredecessorEdge(target); edge != null; edge = getPredecessorEdge(edge.start())) {
+            path.addFirstEdge(edge);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of nodes scanned by the last update, which is a measure of the size of the affected part of
+     * the tree.
+     *
+     * @return the number of scanned nodes
+     */
+    public int getUpdateSize() {
+        return updateSize;
+    }
+}
@@ -0,0 +1,92 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Objects;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.visualization.NodePositionMapping;
+import org.zetool.math.geom.NDimensional;
+
+/**
+ * Estimates distances by the Euclidean distance of the node positions multiplied with a scale factor. The heuristic is
+ * consistent if the cost of each edge is at least the scaled Euclidean distance of its end nodes. The largest such
+ * scale factor can be computed using {@link #of(Graph, IdentifiableIntegerMapping, NodePositionMapping)}.
+ */
+public class EuclideanHeuristic implements DistanceHeuristic {
+
+    private static final double ROUNDING_TOLERANCE = 1e-9;
+    private final NodePositionMapping<? extends NDimensional<? extends Number>> positions;
+    private final double scale;
+
+    /**
+     * Initializes the heuristic with the positions of the nodes and a scale factor.
+     *
+     * @param positions the positions of all nodes
+     * @param scale the factor converting Euclidean distances to costs
+     */
+    public EuclideanHeuristic(NodePositionMapping<? extends NDimensional<? extends Number>> positions, double scale) {
+        if (!(scale >= 0)) {
+            throw new IllegalArgumentException("Scale must be non-negative: " + scale);
+        }
+        this.positions = Objects.requireNonNull(positions);
+        this.scale = scale;
+    }
+
+    /**
+     * Creates a consistent heuristic for the given costs. The scale factor is the minimal ratio of edge cost and
+     * Euclidean edge length, slightly decreased to compensate rounding errors. Runtime O(m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @param positions the positions of all nodes
+     * @return the Euclidean heuristic with the largest consistent scale factor
+     */
+    public static EuclideanHeuristic of(Graph graph, IdentifiableIntegerMapping<Edge> costs,
+            NodePositionMapping<? extends NDimensional<? extends Number>> positions) {
+        double scale = Double.POSITIVE_INFINITY;
+        for (Edge edge : graph.edges()) {
+            double length = distance(positions, edge.start(), edge.end());
+            if (length > 0) {
+                scale = Math.min(scale, costs.get(edge) / length);
+            }
+        }
+        return new EuclideanHeuristic(positions, Double.isInfinite(scale) ? 0 : scale * (1 - ROUNDING_TOLERANCE));
+    }
+
+    @Override
+    public long estimate(Node node, Node target) {
+        return (long) Math.floor(scale * distance(positions, node, target));
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    private static double distance(NodePositionMapping<? extends NDimensional<? extends Number>> positions, Node v,
+            Node w) {
+        NDimensional<? extends Number> p = positions.get(v);
+        NDimensional<? extends Number> q = positions.get(w);
+        double sum = 0;
+        for (int i = 0; i < positions.getDimension(); ++i) {
+            double difference = p.get(i).doubleValue() - q.get(i).doubleValue();
+            sum += difference * difference;
+        }
+        return Math.sqrt(sum);
+    }
+}
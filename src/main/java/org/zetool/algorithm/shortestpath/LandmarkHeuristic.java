@@ -0,0 +1,152 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+
+/**
+ * The ALT heuristic (A*, landmarks and triangle inequality). The distances from and to a small set of landmarks are
+ * computed in advance. By the triangle inequality, {@code d(L, t) - d(L, v)} and {@code d(v, L) - d(t, L)} are lower
+ * bounds for the distance from {@code v} to {@code t} for every landmark {@code L}. The heuristic is consistent.
+ *
+ * Landmarks can be given explicitly or are selected by the farthest landmark strategy: each new landmark is the node
+ * that maximizes the minimal distance from the landmarks selected so far.
+ */
+public class LandmarkHeuristic implements DistanceHeuristic {
+
+    private final int[] landmarks;
+    /** The distances from each landmark to all nodes. */
+    private final long[][] fromLandmark;
+    /** The distances from all nodes to each landmark. */
+    private final long[][] toLandmark;
+
+    /**
+     * Selects landmarks using the farthest landmark strategy and computes their distances. Runtime
+     * O(k (m + n log n)) for {@code k} landmarks.
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @param landmarkCount the number of landmarks, at most the number of nodes
+     */
+    public LandmarkHeuristic(Graph graph, IdentifiableIntegerMapping<Edge> costs, int landmarkCount) {
+        if (landmarkCount < 1 || landmarkCount > graph.nodeCount()) {
+            throw new IllegalArgumentException("Invalid number of landmarks: " + landmarkCount);
+        }
+        PrimitiveDijkstra forward = new PrimitiveDijkstra(graph, costs);
+        PrimitiveDijkstra backward = new PrimitiveDijkstra(graph, costs, true);
+        landmarks = new int[landmarkCount];
+        fromLandmark = new long[landmarkCount][];
+        toLandmark = new long[landmarkCount][];
+
+        // the first landmark is the node farthest away from an arbitrary node
+        long[] start = distances(forward, graph.nodes().first().id());
+        int next = farthest(graph, start, 0);
+        long[] minimal = new long[start.length];
+        Arrays.fill(minimal, PrimitiveDijkstra.UNREACHABLE);
+        for (int i = 0; i < landmarkCount; ++i) {
+            landmarks[i] = next;
+            fromLandmark[i] = distances(forward, next);
+            toLandmark[i] = distances(backward, next);
+            for (int v = 0; v < minimal.length; ++v) {
+                minimal[v] = Math.min(minimal[v], fromLandmark[i][v]);
+            }
+            next = farthest(graph, minimal, i + 1);
+        }
+    }
+
+    /**
+     * Computes the distances for the given landmarks. Runtime O(k (m + n log n)) for {@code k} landmarks.
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @param landmarks the landmark nodes
+     */
+    public LandmarkHeuristic(Graph graph, IdentifiableIntegerMapping<Edge> costs, Node... landmarks) {
+        PrimitiveDijkstra forward = new PrimitiveDijkstra(graph, costs);
+        PrimitiveDijkstra backward = new PrimitiveDijkstra(graph, costs, true);
+        this.landmarks = new int[landmarks.length];
+        fromLandmark = new long[landmarks.length][];
+        toLandmark = new long[landmarks.length][];
+        for (int i = 0; i < landmarks.length; ++i) {
+            this.landmarks[i] = landmarks[i].id();
+            fromLandmark[i] = distances(forward, landmarks[i].id());
+            toLandmark[i] = distances(backward, landmarks[i].id());
+        }
+    }
+
+    private static long[] distances(PrimitiveDijkstra dijkstra, int source) {
+        PrimitiveDijkstra.Workspace workspace = dijkstra.getWorkspace();
+        dijkstra.run(workspace, source, -1);
+        long[] distances = new long[dijkstra.getNodeCapacity()];
+        for (int v = 0; v < distances.length; ++v) {
+            distances[v] = workspace.getDistance(v);
+        }
+        return distances;
+    }
+
+    /**
+     * Returns the node with maximal value that is not one of the first landmarks. Unreachable nodes are preferred, so
+     * that each component gets a landmark.
+     */
+    private int farthest(Graph graph, long[] values, int landmarkCount) {
+        int best = -1;
+        for (Node node : graph.nodes()) {
+            if (!isLandmark(node.id(), landmarkCount) && (best < 0 || values[node.id()] > values[best])) {
+                best = node.id();
+            }
+        }
+        return best;
+    }
+
+    private boolean isLandmark(int node, int landmarkCount) {
+        for (int i = 0; i < landmarkCount; ++i) {
+            if (landmarks[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long estimate(Node node, Node target) {
+        int v = node.id();
+        int t = target.id();
+        long bound = 0;
+        for (int i = 0; i < landmarks.length; ++i) {
+            if (fromLandmark[i][v] != PrimitiveDijkstra.UNREACHABLE
+                    && fromLandmark[i][t] != PrimitiveDijkstra.UNREACHABLE) {
+                bound = Math.max(bound, fromLandmark[i][t] - fromLandmark[i][v]);
+            }
+            if (toLandmark[i][v] != PrimitiveDijkstra.UNREACHABLE && toLandmark[i][t] != PrimitiveDijkstra.UNREACHABLE) {
+                bound = Math.max(bound, toLandmark[i][v] - toLandmark[i][t]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Returns the ids of the landmark nodes.
+     *
+     * @return the ids of the landmark nodes
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+}
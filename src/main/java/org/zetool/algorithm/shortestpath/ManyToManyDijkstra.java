@@ -0,0 +1,94 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.util.ParallelFor;
+
+/**
+ * Computes distance tables by running a {@link PrimitiveDijkstra} query from each source in parallel. The graph data
+ * is converted once and shared by all queries, each thread uses its own workspace. A query stops as soon as all
+ * targets are settled. Runtime O(s m log n) for s sources, divided among the threads of the pool.
+ */
+public class ManyToManyDijkstra {
+
+    private final PrimitiveDijkstra dijkstra;
+    /** Workspaces that are currently not used by a task. */
+    private final ConcurrentLinkedQueue<PrimitiveDijkstra.Workspace> workspaces = new ConcurrentLinkedQueue<>();
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Initializes the engine. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     */
+    public ManyToManyDijkstra(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        this.dijkstra = new PrimitiveDijkstra(graph, costs);
+    }
+
+    /**
+     * Sets the pool that runs the queries. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Computes the distances from all sources to all targets.
+     *
+     * @param sources the source node ids
+     * @param targets the target node ids
+     * @return the distance table
+     */
+    public DistanceTable compute(int[] sources, int[] targets) {
+        DistanceTable table = new DistanceTable(sources, targets);
+        boolean[] marks = new boolean[dijkstra.getNodeCapacity()];
+        int targetCount = 0;
+        for (int target : targets) {
+            if (!marks[target]) {
+                marks[target] = true;
+                targetCount++;
+            }
+        }
+        int distinctTargets = targetCount;
+        ParallelFor.forEach(pool, 0, sources.length, 1, i -> {
+            PrimitiveDijkstra.Workspace workspace = workspaces.poll();
+            if (workspace == null) {
+                workspace = dijkstra.createWorkspace();
+            }
+            dijkstra.run(workspace, sources[i], marks, distinctTargets);
+            for (int j = 0; j < targets.length; ++j) {
+                if (workspace.isSettled(targets[j])) {
+                    table.set(i, j, workspace.getDistance(targets[j]));
+                }
+            }
+            workspaces.add(workspace);
+        });
+        return table;
+    }
+}
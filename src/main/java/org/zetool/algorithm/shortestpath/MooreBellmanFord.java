@@ -25,6 +25,8 @@ import org.zetool.graph.structure.Path;
 import org.zetool.graph.structure.StaticPath;
 
 /**
+ * The Moore-Bellman-Ford algorithm scanning all edges in each pass. It stops early if a pass does not change any
+ * distance. Negative cycles are not detected, use {@link QueueBellmanFord} for graphs that may contain them.
  *
  * @author Martin Groß
  */
@@ -120,16 +122,19 @@ public class MooreBellmanFord {
             distances.set(node, Integer.MAX_VALUE);
         }
         distances.set(source, 0);
-        for (int i = 0; i < graph.nodeCount(); i++) {
+        boolean changed = true;
+        for (int i = 0; i < graph.nodeCount() && changed; i++) {
+            changed = false;
             for (Edge e : graph.edges()) {
                 Node v = e.start();
                 Node w = e.end();
                 long dw = distances.get(w);
                 long dv = distances.get(v);
-                if (dw > dv + costs.get(e)) {
+                if (dv != Integer.MAX_VALUE && dw > dv + costs.get(e)) {
                     distances.set(w, distances.get(v) + costs.get(e));
                     edges.set(w, e);
                     nodes.set(w, v);
+                    changed = true;
                 }
             }
         }
@@ -0,0 +1,407 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.container.mapping.IdentifiableObjectMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+import org.zetool.graph.structure.StaticPath;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * Dijkstra's algorithm working directly on node and edge ids. The graph and costs are converted to primitive arrays
+ * once, afterwards an arbitrary number of queries can be run. All data of a query is stored in a {@link Workspace}
+ * that is reused for the next query. Resetting a workspace is done lazily by increasing a version stamp, thus a query
+ * only costs time for the nodes it actually reaches.
+ *
+ * As for {@link Dijkstra}, directed graphs are searched along outgoing edges (or along incoming edges, if the search
+ * is reversed) and undirected graphs are searched along all incident edges. The costs must not be negative.
+ *
+ * The engine itself is immutable, so it can be shared by several threads that use their own workspace each. Costs
+ * are stored as {@code long}, see {@link DoubleDijkstra} for fractional costs.
+ */
+public class PrimitiveDijkstra {
+
+    /** Value of the distance for nodes that are not reached. */
+    public static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final CompressedSparseRow adjacency;
+    /** The costs indexed by edge id. */
+    private final long[] costs;
+    /** The nodes indexed by id. */
+    private final Node[] nodes;
+    /** The edges indexed by id. */
+    private final Edge[] edges;
+    /** The workspace used by the convenience query methods. */
+    private final Workspace workspace;
+
+    /**
+     * Initializes the engine for forward searches. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     */
+    public PrimitiveDijkstra(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        this(graph, costs, false);
+    }
+
+    /**
+     * Initializes the engine. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @param reverse whether directed graphs are searched along incoming edges
+     */
+    public PrimitiveDijkstra(Graph graph, IdentifiableIntegerMapping<Edge> costs, boolean reverse) {
+        this(graph, (ToLongFunction<Edge>) costs::get, reverse);
+    }
+
+    /**
+     * Initializes the engine for forward searches with costs given by a function. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     */
+    public PrimitiveDijkstra(Graph graph, ToLongFunction<Edge> costs) {
+        this(graph, costs, false);
+    }
+
+    /**
+     * Initializes the engine with costs given by a function. The function is evaluated once per edge. Runtime
+     * O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the non-negative edge costs
+     * @param reverse whether directed graphs are searched along incoming edges
+     */
+    public PrimitiveDijkstra(Graph graph, ToLongFunction<Edge> costs, boolean reverse) {
+        this.adjacency = CompressedSparseRow.of(graph, reverse);
+        this.costs = new long[adjacency.edgeCapacity()];
+        this.nodes = new Node[adjacency.nodeCapacity()];
+        this.edges = new Edge[adjacency.edgeCapacity()];
+        for (Node node : graph.nodes()) {
+            nodes[node.id()] = node;
+        }
+        for (Edge edge : graph.edges()) {
+            edges[edge.id()] = edge;
+            this.costs[edge.id()] = costs.applyAsLong(edge);
+        }
+        workspace = createWorkspace();
+    }
+
+    /**
+     * Creates a new workspace that can be used for queries on this engine. Runtime O(n).
+     *
+     * @return a new workspace
+     */
+    public final Workspace createWorkspace() {
+        return new Workspace(adjacency.nodeCapacity());
+    }
+
+    /**
+     * Returns the number of node ids, i.e. the size of the arrays in a workspace.
+     *
+     * @return the number of node ids
+     */
+    public int getNodeCapacity() {
+        return adjacency.nodeCapacity();
+    }
+
+    /**
+     * Returns the workspace used by the convenience query methods. It contains the result of the last query that was
+     * run by one of these methods.
+     *
+     * @return the default workspace
+     */
+    public Workspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Computes the distance from {@code source} to {@code target} using the default workspace. The search stops as soon
+     * as the target is settled.
+     *
+     * @param source the source node id
+     * @param target the target node id
+     * @return the distance or {@link #UNREACHABLE}
+     */
+    public long distance(int source, int target) {
+        run(workspace, source, target);
+        return workspace.getDistance(target);
+    }
+
+    /**
+     * Computes a shortest path from {@code source} to {@code target} using the default workspace. See
+     * {@link #getPath(Workspace, int)} for undirected graphs.
+     *
+     * @param source the source node
+     * @param target the target node
+     * @return a shortest path or {@code null} if the target is not reachable
+     */
+    public Path shortestPath(Node source, Node target) {
+        run(workspace, source.id(), target.id());
+        return workspace.isSettled(target.id()) ? getPath(workspace, target.id()) : null;
+    }
+
+    /**
+     * Runs a query from {@code source} in the given workspace. If {@code target} is a valid node id, the search stops
+     * as soon as the target is settled, otherwise all reachable nodes are settled.
+     *
+     * @param workspace the workspace storing the result
+     * @param source the source node id
+     * @param target the target node id, or -1
+     */
+    public void run(Workspace workspace, int source, int target) {
+        workspace.reset();
+        workspace.reach(source, 0, -1);
+        workspace.queue.insert(source, 0);
+        search(workspace, target);
+    }
+
+    /**
+     * Runs a query from several sources at the same time in the given workspace. Each node is reached from the
+     * nearest source, following the predecessor edges of a node leads to that source. If {@code target} is a valid
+     * node id, the search stops as soon as the target is settled.
+     *
+     * @param workspace the workspace storing the result
+     * @param sources the source node ids
+     * @param target the target node id, or -1
+     */
+    public void run(Workspace workspace, int[] sources, int target) {
+        workspace.reset();
+        for (int source : sources) {
+            if (!workspace.isReached(source)) {
+                workspace.reach(source, 0, -1);
+                workspace.queue.insert(source, 0);
+            }
+        }
+        search(workspace, target);
+    }
+
+    /**
+     * Runs a query from {@code source} in the given workspace that stops as soon as all marked targets are settled.
+     * The marks are only read, so they can be shared by several threads.
+     *
+     * @param workspace the workspace storing the result
+     * @param source the source node id
+     * @param targets marks the target node ids
+     * @param targetCount the number of marked node ids
+     */
+    public void run(Workspace workspace, int source, boolean[] targets, int targetCount) {
+        workspace.reset();
+        if (targetCount == 0) {
+            return;
+        }
+        workspace.reach(source, 0, -1);
+        workspace.queue.insert(source, 0);
+        search(workspace, -1, targets, targetCount);
+    }
+
+    private void search(Workspace workspace, int target) {
+        search(workspace, target, null, 0);
+    }
+
+    private void search(Workspace workspace, int target, boolean[] targets, int targetCount) {
+        IndexedDaryHeap queue = workspace.queue;
+        int remaining = targetCount;
+        while (!queue.isEmpty()) {
+            long distance = queue.minKey();
+            int v = queue.extractMin();
+            workspace.settled++;
+            if (v == target || targets != null && targets[v] && --remaining == 0) {
+                return;
+            }
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                long candidate = distance + costs[adjacency.edgeId(arc)];
+                if (!workspace.isReached(w)) {
+                    workspace.reach(w, candidate, adjacency.edgeId(arc));
+                    queue.insert(w, candidate);
+                } else if (candidate < workspace.distances[w] && queue.contains(w)) {
+                    workspace.reach(w, candidate, adjacency.edgeId(arc));
+                    queue.decreaseKey(w, candidate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the path to a reached node that consists of the predecessor edges stored in the workspace. As paths
+     * are sequences of consistently oriented edges, this is only meaningful for directed graphs.
+     *
+     * @param workspace the workspace containing the result of a query
+     * @param target the node id
+     * @return the path from the source to the node
+     */
+    public Path getPath(Workspace workspace, int target) {
+        Path path = new StaticPath();
+        int v = target;
+        int edge;
+        while ((edge = workspace.getPredecessorEdge(v)) >= 0) {
+            path.addFirstEdge(edges[edge]);
+            v = edges[edge].opposite(nodes[v]).id();
+        }
+        return path;
+    }
+
+    /**
+     * Returns the ids of the predecessor edges on the path from the source to a reached node. Unlike
+     * {@link #getPath(Workspace, int)}, this also works for undirected graphs.
+     *
+     * @param workspace the workspace containing the result of a query
+     * @param target the node id
+     * @return the edge ids in path order
+     */
+    public int[] getPathEdges(Workspace workspace, int target) {
+        int length = 0;
+        for (int v = target, edge; (edge = workspace.getPredecessorEdge(v)) >= 0; v = opposite(edge, v)) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target, edge; (edge = workspace.getPredecessorEdge(v)) >= 0; v = opposite(edge, v)) {
+            path[--length] = edge;
+        }
+        return path;
+    }
+
+    private int opposite(int edge, int node) {
+        return edges[edge].opposite(nodes[node]).id();
+    }
+
+    /**
+     * Converts the result of a query to a shortest path solution. Nodes that are not settled have distance
+     * {@link Integer#MAX_VALUE} and no predecessor, even if they have been reached by a query stopped at its target.
+     *
+     * @param graph the graph the engine was created for
+     * @param workspace the workspace containing the result of a query
+     * @return the shortest path solution
+     */
+    public IntegralShortestPathSolution getSolution(Graph graph, Workspace workspace) {
+        IdentifiableIntegerMapping<Node> distances = new IdentifiableIntegerMapping<>(nodes.length);
+        IdentifiableObjectMapping<Node, Edge> predecessorEdges = new IdentifiableObjectMapping<>(nodes.length);
+        IdentifiableObjectMapping<Node, Node> predecessorNodes = new IdentifiableObjectMapping<>(nodes.length);
+        for (Node node : graph.nodes()) {
+            int v = node.id();
+            if (!workspace.isSettled(v)) {
+                distances.set(node, Integer.MAX_VALUE);
+                continue;
+            }
+            distances.set(node, (int) Math.min(workspace.getDistance(v), Integer.MAX_VALUE));
+            int edge = workspace.getPredecessorEdge(v);
+            if (edge >= 0) {
+                predecessorEdges.set(node, edges[edge]);
+                predecessorNodes.set(node, edges[edge].opposite(node));
+            }
+        }
+        return new IntegralShortestPathSolution(graph.nodes(), distances, predecessorEdges, predecessorNodes);
+    }
+
+    /**
+     * The data of a single query. A workspace can be reused for any number of queries on the engine that created it,
+     * but must not be used by several threads at the same time.
+     */
+    public static final class Workspace {
+
+        private final long[] distances;
+        private final int[] predecessorEdges;
+        /** The version in which the data of a node was set. Data of older versions is invalid. */
+        private final int[] stamps;
+        private final IndexedDaryHeap queue;
+        private int version;
+        private int settled;
+
+        private Workspace(int nodeCapacity) {
+            distances = new long[nodeCapacity];
+            predecessorEdges = new int[nodeCapacity];
+            stamps = new int[nodeCapacity];
+            queue = new IndexedDaryHeap(nodeCapacity);
+        }
+
+        /**
+         * Invalidates the data of the previous query. Runtime O(1), except for the remaining queue items and when the
+         * version counter overflows.
+         */
+        void reset() {
+            queue.clear();
+            settled = 0;
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                version = 1;
+            }
+        }
+
+        void reach(int node, long distance, int predecessorEdge) {
+            stamps[node] = version;
+            distances[node] = distance;
+            predecessorEdges[node] = predecessorEdge;
+        }
+
+        /**
+         * Checks whether a node has been reached by the last query.
+         *
+         * @param node the node id
+         * @return {@code true} if the node has a (tentative) distance
+         */
+        public boolean isReached(int node) {
+            return stamps[node] == version;
+        }
+
+        /**
+         * Checks whether the shortest path distance of a node is known after the last query.
+         *
+         * @param node the node id
+         * @return {@code true} if the node has been settled
+         */
+        public boolean isSettled(int node) {
+            return isReached(node) && !queue.contains(node);
+        }
+
+        /**
+         * Returns the (tentative) distance of a node, which is final if the node is settled.
+         *
+         * @param node the node id
+         * @return the distance of the node or {@link #UNREACHABLE}
+         */
+        public long getDistance(int node) {
+            return isReached(node) ? distances[node] : UNREACHABLE;
+        }
+
+        /**
+         * Returns the id of the edge via which a node has been reached.
+         *
+         * @param node the node id
+         * @return the id of the predecessor edge, or -1 for the source and nodes that are not reached
+         */
+        public int getPredecessorEdge(int node) {
+            return isReached(node) ? predecessorEdges[node] : -1;
+        }
+
+        /**
+         * Returns the number of nodes settled by the last query.
+         *
+         * @return the number of settled nodes
+         */
+        public int getSettledCount() {
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Arrays;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.container.mapping.IdentifiableObjectMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+import org.zetool.graph.structure.StaticPath;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Label correcting shortest path algorithm for arbitrary edge costs, also known as the queue based Bellman-Ford
+ * algorithm or SPFA. Only nodes whose distance has decreased are kept in a FIFO queue and scanned again, so the search
+ * stops as soon as the distances have converged. The worst case runtime is O(n m) as for {@link MooreBellmanFord}, but
+ * graphs with few negative costs usually need only a small number of scans per node.
+ *
+ * A negative cycle that is reachable from the source is detected and can be retrieved after the run. Two strategies
+ * are supported:
+ * <ul>
+ * <li>Subtree disassembly (the default): the shortest path tree is maintained explicitly. If the distance of a node
+ * decreases, its subtree is removed from the tree and the nodes of the subtree are not scanned until their distance
+ * decreases again. A negative cycle exists if and only if a node is found in its own subtree.</li>
+ * <li>Parent checking: a node is not scanned if its parent in the tree is still in the queue. The predecessor graph
+ * is checked for a cycle after each n relaxations, which costs O(n) amortized over the relaxations.</li>
+ * </ul>
+ *
+ * As for {@link Dijkstra}, directed graphs are searched along outgoing edges and undirected graphs along all incident
+ * edges. Thus in an undirected graph each negative edge forms a negative cycle. An instance must not be used by
+ * several threads at the same time.
+ */
+public class QueueBellmanFord {
+
+    /** Value of the distance for nodes that are not reached. */
+    public static final long UNREACHABLE = PrimitiveDijkstra.UNREACHABLE;
+
+    private final CompressedSparseRow adjacency;
+    /** The costs indexed by edge id. */
+    private final long[] costs;
+    /** The edges indexed by id. */
+    private final Edge[] edges;
+    private final int nodeCount;
+    private boolean subtreeDisassembly = true;
+
+    private final long[] distances;
+    private final int[] predecessorEdges;
+    private final int[] parents;
+    private final boolean[] reached;
+    /** FIFO queue of nodes stored in a ring buffer. A node is contained at most once. */
+    private final int[] queue;
+    private int queueHead;
+    private int queueSize;
+    private final boolean[] queued;
+    /** Whether a node in the queue still has to be scanned. */
+    private final boolean[] active;
+    /** Successor of a node in the preorder of the shortest path tree, which is stored as cyclic list. */
+    private final int[] next;
+    private final int[] previous;
+    /** Depth of a node in the shortest path tree, or -1 if it is not part of the tree. */
+    private final int[] depth;
+    /** The edges of the negative cycle found by the last run, or {@code null}. */
+    private int[] cycle;
+    private int scans;
+    private boolean hasRun;
+
+    /**
+     * Initializes the algorithm for a graph. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param costs the edge costs, which may be negative
+     */
+    public QueueBellmanFord(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        this.adjacency = CompressedSparseRow.of(graph);
+        this.costs = new long[adjacency.edgeCapacity()];
+        this.edges = new Edge[adjacency.edgeCapacity()];
+        for (Edge edge : graph.edges()) {
+            edges[edge.id()] = edge;
+            this.costs[edge.id()] = costs.get(edge);
+        }
+        this.nodeCount = graph.nodeCount();
+        int nodeCapacity = adjacency.nodeCapacity();
+        distances = new long[nodeCapacity];
+        predecessorEdges = new int[nodeCapacity];
+        parents = new int[nodeCapacity];
+        reached = new boolean[nodeCapacity];
+        queue = new int[nodeCapacity];
+        queued = new boolean[nodeCapacity];
+        active = new boolean[nodeCapacity];
+        next = new int[nodeCapacity];
+        previous = new int[nodeCapacity];
+        depth = new int[nodeCapacity];
+    }
+
+    /**
+     * Returns whether subtree disassembly or parent checking is used.
+     *
+     * @return {@code true} if subtrees are disassembled
+     */
+    public boolean isSubtreeDisassembly() {
+        return subtreeDisassembly;
+    }
+
+    /**
+     * Sets whether subtree disassembly or parent checking is used by the next run.
+     *
+     * @param subtreeDisassembly {@code true} to disassemble subtrees, {@code false} for parent checking
+     */
+    public void setSubtreeDisassembly(boolean subtreeDisassembly) {
+        this.subtreeDisassembly = subtreeDisassembly;
+    }
+
+    /**
+     * Computes the shortest path distances from a source. Runtime O(n m).
+     *
+     * @param source the source node id
+     * @return {@code true} if the distances are computed, {@code false} if a negative cycle is reachable from the
+     * source
+     */
+    public boolean run(int source) {
+        return run(new int[]{source});
+    }
+
+    /**
+     * Computes the shortest path distances from several sources at the same time, i.e. the distance of a node is the
+     * minimal distance from any source. All sources have distance 0 and are roots of the shortest path tree. Running
+     * from all nodes computes potentials that make all reduced costs non-negative. Runtime O(n m).
+     *
+     * @param sources the source node ids
+     * @return {@code true} if the distances are computed, {@code false} if a negative cycle is reachable from the
+     * sources
+     */
+    public boolean run(int[] sources) {
+        reset();
+        int last = -1;
+        for (int source : sources) {
+            if (reached[source]) {
+                continue;
+            }
+            reached[source] = true;
+            distances[source] = 0;
+            predecessorEdges[source] = -1;
+            parents[source] = -1;
+            // the roots form the cyclic preorder list
+            depth[source] = 0;
+            if (last < 0) {
+                next[source] = source;
+                previous[source] = source;
+            } else {
+                next[source] = next[last];
+                previous[next[last]] = source;
+                next[last] = source;
+                previous[source] = last;
+            }
+            last = source;
+            enqueue(source);
+        }
+        int relaxations = 0;
+        while (queueSize > 0) {
+            int v = dequeue();
+            if (!active[v]) {
+                continue;
+            }
+            active[v] = false;
+            if (!subtreeDisassembly && parents[v] >= 0 && active[parents[v]]) {
+                // the parent will decrease the distance again
+                continue;
+            }
+            scans++;
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                int edge = adjacency.edgeId(arc);
+                long candidate = distances[v] + costs[edge];
+                if (reached[w] && candidate >= distances[w]) {
+                    continue;
+                }
+                if (subtreeDisassembly) {
+                    if (v == w || disassemble(w, v)) {
+                        cycle = treeCycle(w, v, edge);
+                        return false;
+                    }
+                    attach(w, v);
+                }
+                reached[w] = true;
+                distances[w] = candidate;
+                predecessorEdges[w] = edge;
+                parents[w] = v;
+                enqueue(w);
+                if (!subtreeDisassembly && ++relaxations >= nodeCount) {
+                    relaxations = 0;
+                    cycle = predecessorCycle();
+                    if (cycle != null) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void reset() {
+        hasRun = true;
+        Arrays.fill(reached, false);
+        Arrays.fill(queued, false);
+        Arrays.fill(active, false);
+        Arrays.fill(depth, -1);
+        queueHead = 0;
+        queueSize = 0;
+        cycle = null;
+        scans = 0;
+    }
+
+    private void enqueue(int node) {
+        active[node] = true;
+        if (!queued[node]) {
+            queued[node] = true;
+            queue[(queueHead + queueSize++) % queue.length] = node;
+        }
+    }
+
+    private int dequeue() {
+        int node = queue[queueHead];
+        queueHead = (queueHead + 1) % queue.length;
+        queueSize--;
+        queued[node] = false;
+        return node;
+    }
+
+    /**
+     * Removes the subtree of {@code node} from the shortest path tree and deactivates its nodes.
+     *
+     * @return {@code true} if {@code scanned} is contained in the subtree, i.e. there is a negative cycle
+     */
+    private boolean disassemble(int node, int scanned) {
+        int nodeDepth = depth[node];
+        if (nodeDepth < 0) {
+            return false;
+        }
+        int x = next[node];
+        while (depth[x] > nodeDepth) {
+            if (x == scanned) {
+                return true;
+            }
+            active[x] = false;
+            depth[x] = -1;
+            x = next[x];
+        }
+        next[previous[node]] = x;
+        previous[x] = previous[node];
+        depth[node] = -1;
+        return false;
+    }
+
+    /**
+     * Inserts a node that is not part of the tree as leaf below its new parent.
+     */
+    private void attach(int node, int parent) {
+        int after = next[parent];
+        next[parent] = node;
+        previous[node] = parent;
+        next[node] = after;
+        previous[after] = node;
+        depth[node] = depth[parent] + 1;
+    }
+
+    /**
+     * Returns the cycle consisting of the tree path from {@code ancestor} to {@code node} and the closing edge.
+     */
+    private int[] treeCycle(int ancestor, int node, int closingEdge) {
+        int length = 1;
+        for (int v = node; v != ancestor; v = parents[v]) {
+            length++;
+        }
+        int[] result = new int[length];
+        result[--length] = closingEdge;
+        for (int v = node; v != ancestor; v = parents[v]) {
+            result[--length] = predecessorEdges[v];
+        }
+        return result;
+    }
+
+    /**
+     * Searches a cycle in the predecessor graph by following the parents of each node. Each node is visited once, as
+     * walks stop at nodes visited by an earlier walk. Runtime O(n).
+     *
+     * @return the edges of a cycle or {@code null} if the predecessor graph is a tree
+     */
+    private int[] predecessorCycle() {
+        int[] walk = new int[reached.length];
+        Arrays.fill(walk, -1);
+        for (int start = 0; start < reached.length; ++start) {
+            if (!reached[start] || walk[start] >= 0) {
+                continue;
+            }
+            int v = start;
+            while (v >= 0 && walk[v] < 0) {
+                walk[v] = start;
+                v = parents[v];
+            }
+            if (v >= 0 && walk[v] == start) {
+                return treeCycle(v, parents[v], predecessorEdges[v]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of node scans of the last run.
+     *
+     * @return the number of scans
+     */
+    public int getScanCount() {
+        return scans;
+    }
+
+    /**
+     * Checks whether the last run found a negative cycle.
+     *
+     * @return {@code true} if a negative cycle is reachable from the source
+     */
+    public boolean hasNegativeCycle() {
+        checkRun();
+        return cycle != null;
+    }
+
+    /**
+     * Returns the ids of the edges of the negative cycle found by the last run in cycle order.
+     *
+     * @return the edge ids of the cycle or {@code null} if there is no negative cycle
+     */
+    public int[] getNegativeCycleEdges() {
+        checkRun();
+        return cycle == null ? null : cycle.clone();
+    }
+
+    /**
+     * Returns the negative cycle found by the last run. As paths are sequences of consistently oriented edges, this is
+     * only meaningful for directed graphs, use {@link #getNegativeCycleEdges()} for undirected graphs.
+     *
+     * @return the cycle or {@code null} if there is no negative cycle
+     */
+    public Path getNegativeCycle() {
+        checkRun();
+        if (cycle == null) {
+            return null;
+        }
+        Path path = new StaticPath();
+        for (int edge : cycle) {
+            path.addLastEdge(edges[edge]);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the distance of a node computed by the last run.
+     *
+     * @param node the node id
+     * @return the distance or {@link #UNREACHABLE}
+     */
+    public long getDistance(int node) {
+        checkDistances();
+        return reached[node] ? distances[node] : UNREACHABLE;
+    }
+
+    /**
+     * Returns the id of the edge via which a node is reached on a shortest path.
+     *
+     * @param node the node id
+     * @return the id of the predecessor edge, or -1 for the source and nodes that are not reached
+     */
+    public int getPredecessorEdge(int node) {
+        checkDistances();
+        return reached[node] ? predecessorEdges[node] : -1;
+    }
+
+    /**
+     * Returns the ids of the edges on the shortest path from the source to a reached node.
+     *
+     * @param target the node id
+     * @return the edge ids in path order
+     */
+    public int[] getPathEdges(int target) {
+        checkDistances();
+        int length = 0;
+        for (int v = target; reached[v] && predecessorEdges[v] >= 0; v = parents[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target; reached[v] && predecessorEdges[v] >= 0; v = parents[v]) {
+            path[--length] = predecessorEdges[v];
+        }
+        return path;
+    }
+
+    /**
+     * Converts the result of the last run to a shortest path solution. Nodes that are not reached have distance
+     * {@link Integer#MAX_VALUE}.
+     *
+     * @param graph the graph the algorithm was created for
+     * @return the shortest path solution
+     */
+    public IntegralShortestPathSolution getSolution(Graph graph) {
+        checkDistances();
+        IdentifiableIntegerMapping<Node> distanceMapping = new IdentifiableIntegerMapping<>(reached.length);
+        IdentifiableObjectMapping<Node, Edge> edgeMapping = new IdentifiableObjectMapping<>(reached.length);
+        IdentifiableObjectMapping<Node, Node> nodeMapping = new IdentifiableObjectMapping<>(reached.length);
+        for (Node node : graph.nodes()) {
+            int v = node.id();
+            distanceMapping.set(node, reached[v] ? (int) Math.max(Integer.MIN_VALUE,
+                    Math.min(distances[v], Integer.MAX_VALUE)) : Integer.MAX_VALUE);
+            if (reached[v] && predecessorEdges[v] >= 0) {
+                edgeMapping.set(node, edges[predecessorEdges[v]]);
+                nodeMapping.set(node, edges[predecessorEdges[v]].opposite(node));
+            }
+        }
+        return new IntegralShortestPathSolution(graph.nodes(), distanceMapping, edgeMapping, nodeMapping);
+    }
+
+    private void checkRun() {
+        if (!hasRun) {
+            throw new IllegalStateException("The algorithm has not been run.");
+        }
+    }
+
+    private void checkDistances() {
+        checkRun();
+        if (cycle != null) {
+            throw new IllegalStateException("Distances are undefined due to a negative cycle.");
+        }
+    }
+}
@@ -15,7 +15,6 @@
  */
 package org.zetool.algorithm.shortestpath;
 
-import org.zetool.container.priority.MinHeap;
 import org.zetool.graph.DynamicNetwork;
 import org.zetool.graph.Edge;
 import org.zetool.graph.Node;
@@ -25,6 +24,9 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * Computes the distances of all nodes to a source node in a {@link DynamicNetwork} with rational costs, i.e. the
+ * search follows incoming edges. The computation is done by {@link DoubleDijkstra} on primitive arrays, the results
+ * are provided as maps.
  *
  * @author Martin Groß
  */
@@ -135,30 +137,27 @@ public class RationalDijkstra {
         if (distances != null) {
             return;
         }
+        DoubleDijkstra dijkstra = new DoubleDijkstra(graph, costs::get, true);
+        DoubleDijkstra.Workspace workspace = dijkstra.getWorkspace();
+        dijkstra.run(workspace, source.id(), -1);
         distances = new HashMap<>(graph.nodeCount());
         edges = new HashMap<>(graph.nodeCount());
         nodes = new HashMap<>(graph.nodeCount());
-        MinHeap<Node, Double> queue = new MinHeap<>(graph.nodeCount());
-        for (int v = 0; v < graph.nodeCount(); v++) {
-            distances.put(graph.getNode(v), Double.POSITIVE_INFINITY);
-            queue.insert(graph.getNode(v), Double.POSITIVE_INFINITY);
-        }
-        distances.put(source, 0.0);
-        queue.decreasePriority(source, 0.0);
-        while (!queue.isEmpty()) {
-            MinHeap<Node, Double>.Element min = queue.extractMin();
-            Node v = min.getObject();
-            Double pv = min.getPriority();
-            distances.put(v, pv);
-            //List<Edge> incidentEdges = graph.outgoingEdges(v);
-            Iterable<Edge> incidentEdges = graph.incomingEdges(v);
-            for (Edge edge : incidentEdges) {
-                Node w = edge.opposite(v);
-                if (queue.contains(w) && queue.priority(w) > pv + costs.get(edge)) {
-                    queue.decreasePriority(w, pv + costs.get(edge));
-                    edges.put(w, edge);
-                    nodes.put(w, v);
-                }
+        int edgeCapacity = 0;
+        for (Edge edge : graph.edges()) {
+            edgeCapacity = Math.max(edgeCapacity, edge.id() + 1);
+        }
+        Edge[] edgesById = new Edge[edgeCapacity];
+        for (Edge edge : graph.edges()) {
+            edgesById[edge.id()] = edge;
+        }
+        for (Node v : graph.nodes()) {
+            distances.put(v, workspace.getDistance(v.id()));
+            int edge = workspace.getPredecessorEdge(v.id());
+            if (edge >= 0) {
+                Edge e = edgesById[edge];
+                edges.put(v, e);
+                nodes.put(v, e.opposite(v));
             }
         }
     }
@@ -0,0 +1,249 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.spanningtree;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.collection.IdentifiableCollection;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.ParallelFor;
+
+/**
+ * Computes a minimum spanning tree using the Filter-Kruskal algorithm with parallel partitioning and filtering. The
+ * edges are partitioned at a pivot weight into light and heavy edges. The light edges are processed recursively
+ * first, afterwards all heavy edges whose end nodes are already connected are filtered out before the remaining heavy
+ * edges are processed. Small ranges are sorted and processed as in Kruskal's algorithm.
+ * <p>
+ * Partitioning and filtering are the dominating steps on dense graphs, they are run in parallel on a
+ * {@link ForkJoinPool}. Filtering only reads the union-find structure, which is modified by the sequential Kruskal
+ * steps only.
+ * <p>
+ * Osipov, Vitaly, Peter Sanders, and Johannes Singler. The filter-kruskal minimum spanning tree algorithm. Proceedings
+ * of the Eleventh Workshop on Algorithm Engineering and Experiments (ALENEX), 2009, 52-61.
+ */
+public class FilterKruskalAlgorithm extends AbstractAlgorithm<MinSpanningTreeProblem, UndirectedForest>
+        implements MinimumSpanningTreeAlgorithm {
+
+    /** The default size of ranges that are processed by Kruskal's algorithm directly. */
+    public static final int DEFAULT_THRESHOLD = 1 << 12;
+    /** The number of edges processed sequentially by one task during partitioning and filtering. */
+    private static final int BLOCK_SIZE = 1 << 13;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * Sets the pool that runs partitioning and filtering. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the maximal number of edges that are sorted and processed directly instead of being partitioned.
+     *
+     * @param threshold the size of the base case, at least 1
+     */
+    public void setThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        }
+        this.threshold = threshold;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    protected UndirectedForest runAlgorithm(MinSpanningTreeProblem problem) {
+        Graph graph = problem.getGraph();
+        IdentifiableIntegerMapping<Edge> weights = problem.getDistances();
+
+        Edge[] edges = new Edge[graph.edgeCount()];
+        int[] starts = new int[edges.length];
+        int[] ends = new int[edges.length];
+        int[] keys = new int[edges.length];
+        int nodeCapacity = 0;
+        int i = 0;
+        for (Edge edge : graph.edges()) {
+            edges[i] = edge;
+            starts[i] = edge.start().id();
+            ends[i] = edge.end().id();
+            keys[i] = weights.get(edge);
+            nodeCapacity = Math.max(nodeCapacity, Math.max(starts[i], ends[i]) + 1);
+            i++;
+        }
+        for (Node node : graph.nodes()) {
+            nodeCapacity = Math.max(nodeCapacity, node.id() + 1);
+        }
+
+        Run run = new Run(starts, ends, keys, nodeCapacity, graph.nodeCount() - 1);
+        run.filterKruskal(0, edges.length);
+
+        IdentifiableCollection<Edge> treeEdges = new ListSequence<>();
+        for (i = 0; i < run.treeSize; ++i) {
+            treeEdges.add(edges[run.tree[i]]);
+        }
+        return new UndirectedForest(treeEdges);
+    }
+
+    /**
+     * The state of a single execution. Edges are referred to by their position in the edge arrays.
+     */
+    private class Run {
+
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] keys;
+        /** The edge positions in the order of processing. */
+        private final int[] positions;
+        private final int[] buffer;
+        private final UnionFind components;
+        private final int[] tree;
+        private int treeSize;
+        private final Random random = new Random(0);
+
+        Run(int[] starts, int[] ends, int[] keys, int nodeCapacity, int maxTreeSize) {
+            this.starts = starts;
+            this.ends = ends;
+            this.keys = keys;
+            positions = new int[keys.length];
+            for (int i = 0; i < positions.length; ++i) {
+                positions[i] = i;
+            }
+            buffer = new int[keys.length];
+            components = new UnionFind(nodeCapacity);
+            tree = new int[Math.max(0, maxTreeSize)];
+        }
+
+        private boolean isComplete() {
+            return treeSize == tree.length;
+        }
+
+        void filterKruskal(int from, int to) {
+            if (isComplete() || from == to) {
+                return;
+            }
+            if (to - from <= threshold) {
+                kruskal(from, to);
+                return;
+            }
+            int pivot = pivot(from, to);
+            int middle = partition(from, to, position -> keys[position] <= pivot);
+            if (middle == to) {
+                // no edge is heavier than the pivot
+                kruskal(from, to);
+                return;
+            }
+            filterKruskal(from, middle);
+            if (isComplete()) {
+                return;
+            }
+            // heavy edges inside a component are moved to the end and dropped
+            int end = partition(middle, to,
+                    position -> components.findReadOnly(starts[position]) != components.findReadOnly(ends[position]));
+            filterKruskal(middle, end);
+        }
+
+        /**
+         * Sorts the range and adds edges connecting different components to the tree.
+         */
+        private void kruskal(int from, int to) {
+            int size = to - from;
+            int[] sortedKeys = new int[size];
+            int[] sortedPositions = new int[size];
+            for (int i = 0; i < size; ++i) {
+                sortedPositions[i] = positions[from + i];
+                sortedKeys[i] = keys[sortedPositions[i]];
+            }
+            RadixKruskalAlgorithm.sort(sortedKeys, sortedPositions, size);
+            for (int i = 0; i < size && !isComplete(); ++i) {
+                int position = sortedPositions[i];
+                if (components.union(starts[position], ends[position])) {
+                    tree[treeSize++] = position;
+                }
+            }
+        }
+
+        /**
+         * Returns the median weight of three random edges of the range.
+         */
+        private int pivot(int from, int to) {
+            int a = keys[positions[from + random.nextInt(to - from)]];
+            int b = keys[positions[from + random.nextInt(to - from)]];
+            int c = keys[positions[from + random.nextInt(to - from)]];
+            return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+        }
+
+        /**
+         * Stably moves the edges of the range that satisfy the predicate to the front.
+         *
+         * @return the end of the edges satisfying the predicate
+         */
+        private int partition(int from, int to, IntPredicate predicate) {
+            int blocks = (to - from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int[] counts = new int[blocks + 1];
+            ParallelFor.forEach(pool, 0, blocks, 1, block -> {
+                int count = 0;
+                for (int i = blockStart(from, block); i < blockEnd(from, to, block); ++i) {
+                    if (predicate.test(positions[i])) {
+                        count++;
+                    }
+                }
+                counts[block + 1] = count;
+            });
+            for (int block = 0; block < blocks; ++block) {
+                counts[block + 1] += counts[block];
+            }
+            int middle = from + counts[blocks];
+            ParallelFor.forEach(pool, 0, blocks, 1, block -> {
+                int accepted = from + counts[block];
+                int rejected = middle + (blockStart(from, block) - from) - counts[block];
+                for (int i = blockStart(from, block); i < blockEnd(from, to, block); ++i) {
+                    if (predicate.test(positions[i])) {
+                        buffer[accepted++] = positions[i];
+                    } else {
+                        buffer[rejected++] = positions[i];
+                    }
+                }
+            });
+            System.arraycopy(buffer, from, positions, from, to - from);
+            return middle;
+        }
+
+        private int blockStart(int from, int block) {
+            return from + block * BLOCK_SIZE;
+        }
+
+        private int blockEnd(int from, int to, int block) {
+            return Math.min(to, blockStart(from, block) + BLOCK_SIZE);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.spanningtree;
+
+import java.util.Arrays;
+
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.container.collection.IdentifiableCollection;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+
+/**
+ * Computes a minimum spanning tree using Kruskal's algorithm on primitive arrays. The edges are sorted by weight with
+ * a least significant digit radix sort on the integral weights, connected components are maintained in an
+ * {@code int[]} based union-find structure. The algorithm stops as soon as {@code n - 1} edges are accepted.
+ * <p>
+ * As {@link KruskalAlgorithm}, it works with undirected graphs and bidirectional graphs. The result is the same forest
+ * up to the choice among edges of equal weight. Runtime O(m + n α(n)).
+ */
+public class RadixKruskalAlgorithm extends AbstractAlgorithm<MinSpanningTreeProblem, UndirectedForest>
+        implements MinimumSpanningTreeAlgorithm {
+
+    /** The number of bits sorted in one pass. */
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    @Override
+    protected UndirectedForest runAlgorithm(MinSpanningTreeProblem problem) {
+        Graph graph = problem.getGraph();
+        IdentifiableIntegerMapping<Edge> weights = problem.getDistances();
+
+        Edge[] edges = new Edge[graph.edgeCount()];
+        int[] keys = new int[edges.length];
+        int[] positions = new int[edges.length];
+        int nodeCapacity = 0;
+        int i = 0;
+        for (Edge edge : graph.edges()) {
+            edges[i] = edge;
+            keys[i] = weights.get(edge);
+            positions[i] = i;
+            nodeCapacity = Math.max(nodeCapacity, Math.max(edge.start().id(), edge.end().id()) + 1);
+            i++;
+        }
+        for (Node node : graph.nodes()) {
+            nodeCapacity = Math.max(nodeCapacity, node.id() + 1);
+        }
+        sort(keys, positions, edges.length);
+
+        IdentifiableCollection<Edge> treeEdges = new ListSequence<>();
+        UnionFind components = new UnionFind(nodeCapacity);
+        int treeSize = graph.nodeCount() - 1;
+        for (i = 0; i < edges.length && treeEdges.size() < treeSize; ++i) {
+            Edge edge = edges[positions[i]];
+            if (components.union(edge.start().id(), edge.end().id())) {
+                treeEdges.add(edge);
+            }
+        }
+        return new UndirectedForest(treeEdges);
+    }
+
+    /**
+     * Sorts the first {@code size} keys in non-decreasing order and permutes the values accordingly. The sort is
+     * stable. Passes in which all keys have the same digit are skipped. Runtime O(size).
+     *
+     * @param keys the keys, which may be negative
+     * @param values the values associated with the keys
+     * @param size the number of entries to sort
+     */
+    static void sort(int[] keys, int[] values, int size) {
+        if (size < 2) {
+            return;
+        }
+        int[] keyBuffer = new int[size];
+        int[] valueBuffer = new int[size];
+        int[] sourceKeys = keys;
+        int[] sourceValues = values;
+        int[] counts = new int[RADIX];
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; ++i) {
+                counts[digit(sourceKeys[i], shift)]++;
+            }
+            if (counts[digit(sourceKeys[0], shift)] == size) {
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < RADIX; ++d) {
+                int count = counts[d];
+                counts[d] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < size; ++i) {
+                int position = counts[digit(sourceKeys[i], shift)]++;
+                keyBuffer[position] = sourceKeys[i];
+                valueBuffer[position] = sourceValues[i];
+            }
+            int[] swap = sourceKeys;
+            sourceKeys = keyBuffer;
+            keyBuffer = swap;
+            swap = sourceValues;
+            sourceValues = valueBuffer;
+            valueBuffer = swap;
+        }
+        if (sourceKeys != keys) {
+            System.arraycopy(sourceKeys, 0, keys, 0, size);
+            System.arraycopy(sourceValues, 0, values, 0, size);
+        }
+    }
+
+    /**
+     * Returns a digit of a key. The sign bit is flipped, so that negative keys are sorted before positive keys.
+     */
+    private static int digit(int key, int shift) {
+        return ((key ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+}
@@ -0,0 +1,103 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.spanningtree;
+
+/**
+ * A disjoint set structure on the integers {@code 0, ..., n - 1} stored in primitive arrays. Finding uses path halving,
+ * unions are by rank, so that both operations run in amortized almost constant time.
+ */
+final class UnionFind {
+
+    private final int[] parents;
+    private final byte[] ranks;
+    private int components;
+
+    /**
+     * Creates {@code n} singleton sets.
+     *
+     * @param n the number of elements
+     */
+    UnionFind(int n) {
+        parents = new int[n];
+        ranks = new byte[n];
+        for (int i = 0; i < n; ++i) {
+            parents[i] = i;
+        }
+        components = n;
+    }
+
+    /**
+     * Returns the representative of the set containing an element. The path to the representative is halved.
+     *
+     * @param element the element
+     * @return the representative
+     */
+    int find(int element) {
+        while (parents[element] != element) {
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Returns the representative of the set containing an element without modifying the structure. Can be called
+     * concurrently as long as no union is performed.
+     *
+     * @param element the element
+     * @return the representative
+     */
+    int findReadOnly(int element) {
+        while (parents[element] != element) {
+            element = parents[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the sets containing two elements.
+     *
+     * @param a the first element
+     * @param b the second element
+     * @return {@code true} if the elements have been in different sets
+     */
+    boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (ranks[rootA] < ranks[rootB]) {
+            parents[rootA] = rootB;
+        } else {
+            parents[rootB] = rootA;
+            if (ranks[rootA] == ranks[rootB]) {
+                ranks[rootA]++;
+            }
+        }
+        components--;
+        return true;
+    }
+
+    /**
+     * Returns the number of disjoint sets.
+     *
+     * @return the number of sets
+     */
+    int components() {
+        return components;
+    }
+}
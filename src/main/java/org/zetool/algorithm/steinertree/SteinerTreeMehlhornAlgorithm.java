@@ -0,0 +1,172 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.steinertree;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.zetool.algorithm.shortestpath.PrimitiveDijkstra;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.common.debug.Debug;
+import org.zetool.container.collection.IdentifiableCollection;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.IndexedDaryHeap;
+
+/**
+ * Mehlhorn's variant of the minimum spanning tree 2-approximation for the Steiner tree problem. Instead of the complete
+ * metric closure of the terminals, a single Dijkstra search from all terminals at once partitions the nodes into the
+ * Voronoi regions of the terminals. An edge connecting two regions yields a path between their terminals consisting of
+ * the shortest paths to its end nodes and the edge itself. A minimum spanning tree over these boundary edges has the
+ * same cost as a minimum spanning tree of the metric closure, thus the 2-approximation guarantee is preserved.
+ *
+ * The paths of the selected boundary edges lie in the shortest path trees of the regions, their union is a tree that
+ * contains each edge once. Runtime O(m log n), the additional memory is linear in the size of the graph.
+ */
+public class SteinerTreeMehlhornAlgorithm extends AbstractAlgorithm<MinSteinerTreeProblem, SteinerTree> {
+
+    /**
+     * The logger object of this algorithm.
+     */
+    private static final Logger LOG = Debug.globalLogger;
+    /** Region of nodes that have not been assigned yet. */
+    private static final int UNKNOWN = -2;
+
+    @Override
+    protected SteinerTree runAlgorithm(MinSteinerTreeProblem problem) {
+        Graph graph = problem.getGraph();
+        IdentifiableCollection<Node> terminals = problem.getTerminals();
+        LOG.log(Level.INFO, "Number of terminal Nodes: {0}", terminals.size());
+
+        // Phase 1:
+        // Compute Voronoi regions
+        PrimitiveDijkstra dijkstra = new PrimitiveDijkstra(graph, problem.getWeights());
+        PrimitiveDijkstra.Workspace workspace = dijkstra.getWorkspace();
+        int[] sources = new int[terminals.size()];
+        for (int i = 0; i < sources.length; ++i) {
+            sources[i] = terminals.get(i).id();
+        }
+        dijkstra.run(workspace, sources, -1);
+        int[] regions = computeRegions(graph, dijkstra, workspace, sources);
+
+        // Phase 2:
+        // Collect the edges between regions with the length of their terminal paths
+        Edge[] edges = new Edge[edgeCapacity(graph)];
+        IndexedDaryHeap boundaryEdges = new IndexedDaryHeap(edges.length);
+        for (Edge edge : graph.edges()) {
+            edges[edge.id()] = edge;
+            int start = edge.start().id();
+            int end = edge.end().id();
+            if (regions[start] >= 0 && regions[end] >= 0 && regions[start] != regions[end]) {
+                boundaryEdges.insert(edge.id(), workspace.getDistance(start) + problem.getWeights().get(edge)
+                        + workspace.getDistance(end));
+            }
+        }
+        int[] components = new int[sources.length];
+        for (int i = 0; i < components.length; ++i) {
+            components[i] = i;
+        }
+
+        // Phase 3:
+        // Compute MST of the terminals over the boundary edges and build solution
+        boolean[] used = new boolean[edges.length];
+        ListSequence<Edge> treeEdges = new ListSequence<>();
+        long cost = 0;
+        int remaining = sources.length - 1;
+        while (remaining > 0 && !boundaryEdges.isEmpty()) {
+            Edge edge = edges[boundaryEdges.extractMin()];
+            int startRegion = find(components, regions[edge.start().id()]);
+            int endRegion = find(components, regions[edge.end().id()]);
+            if (startRegion == endRegion) {
+                continue;
+            }
+            components[startRegion] = endRegion;
+            remaining--;
+            for (int pathEdge : dijkstra.getPathEdges(workspace, edge.start().id())) {
+                cost += add(edges[pathEdge], used, treeEdges, problem);
+            }
+            cost += add(edge, used, treeEdges, problem);
+            int[] endPath = dijkstra.getPathEdges(workspace, edge.end().id());
+            for (int i = endPath.length - 1; i >= 0; --i) {
+                cost += add(edges[endPath[i]], used, treeEdges, problem);
+            }
+        }
+
+        return new SteinerTree(treeEdges, cost);
+    }
+
+    /**
+     * Assigns each reached node the index of its nearest terminal, i.e. the terminal at the end of its predecessor
+     * edges. Nodes that are not reachable get -1.
+     */
+    private static int[] computeRegions(Graph graph, PrimitiveDijkstra dijkstra, PrimitiveDijkstra.Workspace workspace,
+            int[] sources) {
+        int[] regions = new int[dijkstra.getNodeCapacity()];
+        Arrays.fill(regions, UNKNOWN);
+        for (int i = 0; i < sources.length; ++i) {
+            regions[sources[i]] = i;
+        }
+        int[] stack = new int[regions.length];
+        for (Node node : graph.nodes()) {
+            int size = 0;
+            int v = node.id();
+            while (regions[v] == UNKNOWN) {
+                int edge = workspace.getPredecessorEdge(v);
+                if (edge < 0) {
+                    regions[v] = -1;
+                    break;
+                }
+                stack[size++] = v;
+                v = graph.getEdge(edge).opposite(graph.getNode(v)).id();
+            }
+            while (size > 0) {
+                regions[stack[--size]] = regions[v];
+            }
+        }
+        return regions;
+    }
+
+    private static int edgeCapacity(Graph graph) {
+        int capacity = 0;
+        for (Edge edge : graph.edges()) {
+            capacity = Math.max(capacity, edge.id() + 1);
+        }
+        return capacity;
+    }
+
+    private static int add(Edge edge, boolean[] used, ListSequence<Edge> treeEdges, MinSteinerTreeProblem problem) {
+        if (used[edge.id()]) {
+            return 0;
+        }
+        used[edge.id()] = true;
+        treeEdges.add(edge);
+        return problem.getWeights().get(edge);
+    }
+
+    /**
+     * Finds the representative of a component with path halving.
+     */
+    private static int find(int[] components, int i) {
+        while (components[i] != i) {
+            components[i] = components[components[i]];
+            i = components[i];
+        }
+        return i;
+    }
+}
@@ -15,11 +15,13 @@
  */
 package org.zetool.algorithm.steinertree;
 
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.zetool.algorithm.shortestpath.Dijkstra;
-import org.zetool.algorithm.shortestpath.IntegralSingleSourceShortestPathProblem;
+import org.zetool.algorithm.shortestpath.PrimitiveDijkstra;
 import org.zetool.algorithm.spanningtree.KruskalAlgorithm;
 import org.zetool.algorithm.spanningtree.MinSpanningTreeProblem;
 import org.zetool.algorithm.spanningtree.UndirectedForest;
@@ -28,19 +30,22 @@ import org.zetool.common.debug.Debug;
 import org.zetool.container.collection.IdentifiableCollection;
 import org.zetool.container.collection.ListSequence;
 import org.zetool.container.mapping.IdentifiableIntegerMapping;
-import org.zetool.container.mapping.IdentifiableObjectMapping;
 import org.zetool.graph.DefaultGraph;
 import org.zetool.graph.Edge;
 import org.zetool.graph.Graph;
 import org.zetool.graph.MutableGraph;
 import org.zetool.graph.Node;
-import org.zetool.graph.structure.Forest;
-import org.zetool.graph.structure.Path;
+import org.zetool.graph.util.ParallelFor;
 
 /**
  * Approximates the general Steiner tree minimization problem using a minimum spanning tree of the terminal nodes and
  * metric completion. By reduction this yields a 2-approximation of the optimal solution.
  *
+ * The shortest path searches from the terminals are independent of each other and run in parallel on a
+ * {@link ForkJoinPool}. Only the distances between terminals are stored, the paths of the edges of the minimum
+ * spanning tree are recomputed afterwards by point-to-point searches. Thus the memory needed besides the graph is
+ * quadratic in the number of terminals plus one search workspace per thread.
+ *
  * @author Jan-Philipp Kappmeier
  */
 public class SteinerTreeSpanningTreeApproximationAlgorithm extends AbstractAlgorithm<MinSteinerTreeProblem, SteinerTree> {
@@ -49,12 +54,29 @@ public class SteinerTreeSpanningTreeApproximationAlgorithm extends AbstractAlgor
      * The logger object of this algorithm.
      */
     private static final Logger LOG = Debug.globalLogger;
+    /** The pool running the shortest path searches. */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Sets the pool that runs the shortest path searches. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
 
     @Override
     protected SteinerTree runAlgorithm(MinSteinerTreeProblem problem) {
+        ShortestPaths shortestPaths = new ShortestPaths(problem);
+
         // Phase 1:
         // Compute metric closure
-        MetricClosure metricClosure = computeMetricClosure(problem.getTerminals());
+        MetricClosure metricClosure = computeMetricClosure(problem.getTerminals(), shortestPaths);
 
         // Phase 2:
         // Compute MST
@@ -62,7 +84,7 @@ public class SteinerTreeSpanningTreeApproximationAlgorithm extends AbstractAlgor
 
         // Phase 3:
         // Build solution
-        IdentifiableCollection<Edge> edges = createSolutionTree(mst, metricClosure);
+        IdentifiableCollection<Edge> edges = createSolutionTree(mst, shortestPaths);
 
         long cost = 0;
         for (Edge edge : edges) {
@@ -72,36 +94,28 @@ public class SteinerTreeSpanningTreeApproximationAlgorithm extends AbstractAlgor
         return new SteinerTree(edges, cost);
     }
 
-    private MetricClosure computeMetricClosure(IdentifiableCollection<Node> terminals) {
+    private MetricClosure computeMetricClosure(IdentifiableCollection<Node> terminals, ShortestPaths shortestPaths) {
         int terminalCount = terminals.size();
         LOG.log(Level.INFO, "Number of terminal Nodes: {0}", terminalCount);
         LOG.log(Level.FINE, "Terminals: {0}", terminals);
 
+        int[][] distances = new int[terminalCount][];
+        ParallelFor.forEach(pool, 0, terminalCount, 1, i -> distances[i] = shortestPaths.distancesFrom(i));
+
         int subgraphEdgeCount = (terminalCount * (terminalCount - 1)) / 2;
         MutableGraph geometricClosure = new DefaultGraph(terminalCount, subgraphEdgeCount);
         IdentifiableIntegerMapping<Edge> shortestpathDist = new IdentifiableIntegerMapping<>(subgraphEdgeCount);
-
-        Dijkstra dijkstra = new Dijkstra();
-        IdentifiableObjectMapping<Node, Forest> rootedForests = new IdentifiableObjectMapping<>(terminals);
-        for (int i = 0; i < terminals.size(); ++i) {
-            Node node = terminals.get(i);
-            dijkstra.setProblem(new IntegralSingleSourceShortestPathProblem(getProblem().getGraph(), getProblem().getWeights(), node));
-            dijkstra.run();
-            rootedForests.set(node, dijkstra.getSolution().getForest());
-
-            for (int j = i + 1; j < terminals.size(); ++j) {
-                Node other = terminals.get(j);
-                int dist = dijkstra.getSolution().getDistance(other);
-
+        for (int i = 0; i < terminalCount; ++i) {
+            for (int j = i + 1; j < terminalCount; ++j) {
                 Edge edge = geometricClosure.createAndSetEdge(geometricClosure.getNode(i), geometricClosure.getNode(j));
-                shortestpathDist.add(edge, dist);
+                shortestpathDist.add(edge, distances[i][j - i - 1]);
             }
         }
 
         LOG.log(Level.FINE, "Created closure graph: {0}", geometricClosure);
         LOG.log(Level.FINE, "Costs: {0}", shortestpathDist);
 
-        return new MetricClosure(geometricClosure, shortestpathDist, rootedForests);
+        return new MetricClosure(geometricClosure, shortestpathDist);
     }
 
     private UndirectedForest computeMinimumSpanningTree(MetricClosure closure) {
@@ -112,17 +126,22 @@ public class SteinerTreeSpanningTreeApproximationAlgorithm extends AbstractAlgor
         return mstAlgorithm.getSolution();
     }
 
-    private IdentifiableCollection<Edge> createSolutionTree(UndirectedForest mst, MetricClosure closure) {
-        ListSequence<Edge> treeEdges = new ListSequence<>();
+    private IdentifiableCollection<Edge> createSolutionTree(UndirectedForest mst, ShortestPaths shortestPaths) {
+        Edge[] mstEdges = new Edge[mst.getEdges().size()];
+        int k = 0;
         for (Edge edge : mst.getEdges()) {
-            Node fromOriginal = getProblem().getTerminals().get(edge.start().id());
-            Node toOriginal = getProblem().getTerminals().get(edge.end().id());
-
-            Forest forest = closure.rootedForests.get(fromOriginal);
-            Path path = forest.getPathToRoot(toOriginal);
-            treeEdges.addAll(path.getEdges());
+            mstEdges[k++] = edge;
         }
+        int[][] paths = new int[mstEdges.length][];
+        ParallelFor.forEach(pool, 0, mstEdges.length, 1,
+                i -> paths[i] = shortestPaths.path(mstEdges[i].start().id(), mstEdges[i].end().id()));
 
+        ListSequence<Edge> treeEdges = new ListSequence<>();
+        for (int[] path : paths) {
+            for (int edge : path) {
+                treeEdges.add(shortestPaths.edges[edge]);
+            }
+        }
         return treeEdges;
     }
 
@@ -130,12 +149,75 @@ public class SteinerTreeSpanningTreeApproximationAlgorithm extends AbstractAlgor
 
         final Graph closureGraph;
         final IdentifiableIntegerMapping<Edge> shortestpathDist;
-        final IdentifiableObjectMapping<Node, Forest> rootedForests;
 
-        public MetricClosure(Graph closureGraph, IdentifiableIntegerMapping<Edge> shortestpathDist, IdentifiableObjectMapping<Node, Forest> rootedForests) {
+        public MetricClosure(Graph closureGraph, IdentifiableIntegerMapping<Edge> shortestpathDist) {
             this.closureGraph = closureGraph;
             this.shortestpathDist = shortestpathDist;
-            this.rootedForests = rootedForests;
+        }
+    }
+
+    /**
+     * Runs shortest path searches from the terminals. The searches share the immutable {@link PrimitiveDijkstra}
+     * engine, the workspaces are handed out to one task at a time, so at most one workspace per thread is created.
+     */
+    private static class ShortestPaths {
+
+        private final PrimitiveDijkstra dijkstra;
+        private final int[] terminals;
+        private final Edge[] edges;
+        private final ConcurrentLinkedQueue<PrimitiveDijkstra.Workspace> workspaces = new ConcurrentLinkedQueue<>();
+
+        ShortestPaths(MinSteinerTreeProblem problem) {
+            dijkstra = new PrimitiveDijkstra(problem.getGraph(), problem.getWeights());
+            terminals = new int[problem.getTerminals().size()];
+            for (int i = 0; i < terminals.length; ++i) {
+                terminals[i] = problem.getTerminals().get(i).id();
+            }
+            int edgeCapacity = 0;
+            for (Edge edge : problem.getGraph().edges()) {
+                edgeCapacity = Math.max(edgeCapacity, edge.id() + 1);
+            }
+            edges = new Edge[edgeCapacity];
+            for (Edge edge : problem.getGraph().edges()) {
+                edges[edge.id()] = edge;
+            }
+        }
+
+        /**
+         * Computes the distances from a terminal to the terminals with higher index.
+         *
+         * @param i the index of the terminal
+         * @return the distances to the terminals {@code i + 1, ..., k - 1}
+         */
+        int[] distancesFrom(int i) {
+            PrimitiveDijkstra.Workspace workspace = acquire();
+            dijkstra.run(workspace, terminals[i], -1);
+            int[] distances = new int[terminals.length - i - 1];
+            for (int j = i + 1; j < terminals.length; ++j) {
+                distances[j - i - 1] = (int) Math.min(workspace.getDistance(terminals[j]), Integer.MAX_VALUE);
+            }
+            workspaces.add(workspace);
+            return distances;
+        }
+
+        /**
+         * Computes the edge ids of a shortest path between two terminals.
+         *
+         * @param from the index of the start terminal
+         * @param to the index of the end terminal
+         * @return the edge ids of the path in path order
+         */
+        int[] path(int from, int to) {
+            PrimitiveDijkstra.Workspace workspace = acquire();
+            dijkstra.run(workspace, terminals[from], terminals[to]);
+            int[] path = dijkstra.getPathEdges(workspace, terminals[to]);
+            workspaces.add(workspace);
+            return path;
+        }
+
+        private PrimitiveDijkstra.Workspace acquire() {
+            PrimitiveDijkstra.Workspace workspace = workspaces.poll();
+            return workspace == null ? dijkstra.createWorkspace() : workspace;
         }
     }
 }
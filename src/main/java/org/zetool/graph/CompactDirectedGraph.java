@@ -0,0 +1,309 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import java.util.Iterator;
+import org.zetool.container.collection.IdentifiableCollection;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.OppositeNodeCollection;
+
+/**
+ * An immutable directed graph that stores its adjacency structure in compressed sparse row layout. The outgoing and
+ * incoming edges of all nodes are kept in two {@link CompressedSparseRow} arrays, which can be used directly by
+ * algorithms that work on node and edge ids. The node and edge objects of the original graph are kept, so mappings
+ * defined for the original graph can be used for the compact graph, too.
+ *
+ * Hidden nodes and edges of the original graph are not part of the compact graph. All collections returned by the
+ * graph are read-only views.
+ */
+public final class CompactDirectedGraph implements DirectedGraph {
+
+    /** The degree up to which the edges between two nodes are searched linearly. */
+    private static final int LINEAR_SEARCH_DEGREE = 16;
+
+    /** The nodes, indexed by their id. */
+    private final Node[] nodes;
+    /** The edges, indexed by their id. */
+    private final Edge[] edges;
+    /** The ids of the nodes contained in the graph. */
+    private final int[] nodeIds;
+    /** The ids of the edges contained in the graph. */
+    private final int[] edgeIds;
+    /** The outgoing edges of each node. */
+    private final CompressedSparseRow outgoing;
+    /** The incoming edges of each node. */
+    private final CompressedSparseRow incoming;
+    /** The outgoing edges sorted by their end nodes, created on demand for the lookup of edges at nodes. */
+    private volatile CompressedSparseRow sortedOutgoing;
+
+    private CompactDirectedGraph(Node[] nodes, Edge[] edges, int[] nodeIds, int[] edgeIds,
+            CompressedSparseRow outgoing, CompressedSparseRow incoming) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.nodeIds = nodeIds;
+        this.edgeIds = edgeIds;
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+    }
+
+    /**
+     * Creates a compact copy of the visible nodes and edges of a directed graph. The copy uses the same node and edge
+     * objects. Runtime O(n + m).
+     *
+     * @param graph the directed graph
+     * @return the compact copy of the graph
+     * @throws IllegalArgumentException if the graph is not directed
+     */
+    public static CompactDirectedGraph of(DirectedGraph graph) {
+        if (!graph.isDirected()) {
+            throw new IllegalArgumentException("Graph is not directed.");
+        }
+        CompressedSparseRow outgoing = CompressedSparseRow.of(graph, false);
+        CompressedSparseRow incoming = CompressedSparseRow.of(graph, true);
+        Node[] nodes = new Node[outgoing.nodeCapacity()];
+        int[] nodeIds = new int[graph.nodeCount()];
+        int i = 0;
+        for (Node node : graph.nodes()) {
+            nodes[node.id()] = node;
+            nodeIds[i++] = node.id();
+        }
+        Edge[] edges = new Edge[outgoing.edgeCapacity()];
+        int[] edgeIds = new int[graph.edgeCount()];
+        i = 0;
+        for (Edge edge : graph.edges()) {
+            edges[edge.id()] = edge;
+            edgeIds[i++] = edge.id();
+        }
+        return new CompactDirectedGraph(nodes, edges, nodeIds, edgeIds, outgoing, incoming);
+    }
+
+    /**
+     * Creates a graph from adjacency arrays whose node and edge ids are consecutive, starting at 0. The arrays are not
+     * copied. Runtime O(n + m).
+     *
+     * @param nodes the nodes indexed by id
+     * @param edges the edges indexed by id
+     * @param outgoing the outgoing edges of the nodes
+     * @param incoming the incoming edges of the nodes
+     * @return the graph
+     */
+    static CompactDirectedGraph of(Node[] nodes, Edge[] edges, CompressedSparseRow outgoing,
+            CompressedSparseRow incoming) {
+        int[] nodeIds = new int[nodes.length];
+        for (int i = 0; i < nodeIds.length; ++i) {
+            nodeIds[i] = i;
+        }
+        int[] edgeIds = new int[edges.length];
+        for (int i = 0; i < edgeIds.length; ++i) {
+            edgeIds[i] = i;
+        }
+        return new CompactDirectedGraph(nodes, edges, nodeIds, edgeIds, outgoing, incoming);
+    }
+
+    /**
+     * Returns the outgoing edges of all nodes as primitive arrays. Runtime O(1).
+     *
+     * @return the outgoing edges of all nodes
+     */
+    public CompressedSparseRow outgoingAdjacency() {
+        return outgoing;
+    }
+
+    /**
+     * Returns the incoming edges of all nodes as primitive arrays. Runtime O(1).
+     *
+     * @return the incoming edges of all nodes
+     */
+    public CompressedSparseRow incomingAdjacency() {
+        return incoming;
+    }
+
+    @Override
+    public IdentifiableCollection<Edge> edges() {
+        return new IdentifiableView<>(this::getEdge, i -> edgeIds[i], 0, edgeIds.length, true);
+    }
+
+    @Override
+    public IdentifiableCollection<Node> nodes() {
+        return new IdentifiableView<>(this::getNode, i -> nodeIds[i], 0, nodeIds.length, true);
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeIds.length;
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * Returns the incoming and outgoing edges of the specified node. Runtime O(degree(node)).
+     *
+     * @param node the node
+     * @return the incoming and outgoing edges of the node
+     */
+    @Override
+    public IdentifiableCollection<Edge> incidentEdges(Node node) {
+        ListSequence<Edge> incidentEdges = new ListSequence<>();
+        for (Edge edge : incomingEdges(node)) {
+            incidentEdges.add(edge);
+        }
+        for (Edge edge : outgoingEdges(node)) {
+            incidentEdges.add(edge);
+        }
+        return incidentEdges;
+    }
+
+    @Override
+    public IdentifiableCollection<Node> adjacentNodes(Node node) {
+        return new OppositeNodeCollection(node, incidentEdges(node));
+    }
+
+    @Override
+    public int degree(Node node) {
+        return inDegree(node) + outDegree(node);
+    }
+
+    @Override
+    public boolean contains(Edge edge) {
+        return edge.id() >= 0 && edge.id() < edges.length && edge.equals(edges[edge.id()]);
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return node.id() >= 0 && node.id() < nodes.length && node.equals(nodes[node.id()]);
+    }
+
+    @Override
+    public Edge getEdge(int id) {
+        return id >= 0 && id < edges.length ? edges[id] : null;
+    }
+
+    /**
+     * Returns an edge starting at {@code start} and ending at {@code end}. Runtime O(log(outDegree(start))), the first
+     * lookup at a node of high degree sorts the outgoing edges of all nodes once.
+     *
+     * @param start the start node of the edge to be returned.
+     * @param end the end node of the edge to be returned.
+     * @return an edge starting at {@code start} and ending at {@code end}.
+     */
+    @Override
+    public Edge getEdge(Node start, Node end) {
+        CompressedSparseRow adjacency = lookupAdjacency(start.id());
+        int arc = adjacency.findArc(start.id(), end.id());
+        return arc < 0 ? null : edges[adjacency.edgeId(arc)];
+    }
+
+    /**
+     * Returns all edges starting at {@code start} and ending at {@code end}. Runtime O(log(outDegree(start))) plus the
+     * number of returned edges, the first lookup at a node of high degree sorts the outgoing edges of all nodes once.
+     *
+     * @param start the start node of the edges to be returned.
+     * @param end the end node of the edges to be returned.
+     * @return all edges starting at {@code start} and ending at {@code end}.
+     */
+    @Override
+    public IdentifiableCollection<Edge> getEdges(Node start, Node end) {
+        ListSequence<Edge> result = new ListSequence<>();
+        CompressedSparseRow adjacency = lookupAdjacency(start.id());
+        if (adjacency.isSortedByHead()) {
+            int arc = adjacency.findArc(start.id(), end.id());
+            for (; arc >= 0 && arc < adjacency.end(start.id()) && adjacency.head(arc) == end.id(); ++arc) {
+                result.add(edges[adjacency.edgeId(arc)]);
+            }
+            return result;
+        }
+        for (int arc = adjacency.begin(start.id()); arc < adjacency.end(start.id()); ++arc) {
+            if (adjacency.head(arc) == end.id()) {
+                result.add(edges[adjacency.edgeId(arc)]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the adjacency arrays used to find edges leaving a node. Nodes of small degree are searched linearly.
+     */
+    private CompressedSparseRow lookupAdjacency(int node) {
+        if (outgoing.degree(node) <= LINEAR_SEARCH_DEGREE) {
+            return outgoing;
+        }
+        CompressedSparseRow sorted = sortedOutgoing;
+        if (sorted == null) {
+            sorted = outgoing.sortedByHead();
+            sortedOutgoing = sorted;
+        }
+        return sorted;
+    }
+
+    @Override
+    public Node getNode(int id) {
+        return id >= 0 && id < nodes.length ? nodes[id] : null;
+    }
+
+    @Override
+    public IdentifiableCollection<Edge> incomingEdges(Node node) {
+        return adjacentEdges(incoming, node);
+    }
+
+    @Override
+    public IdentifiableCollection<Edge> outgoingEdges(Node node) {
+        return adjacentEdges(outgoing, node);
+    }
+
+    @Override
+    public IdentifiableCollection<Node> predecessorNodes(Node node) {
+        return adjacentNodes(incoming, node);
+    }
+
+    @Override
+    public IdentifiableCollection<Node> successorNodes(Node node) {
+        return adjacentNodes(outgoing, node);
+    }
+
+    @Override
+    public int inDegree(Node node) {
+        return incoming.degree(node.id());
+    }
+
+    @Override
+    public int outDegree(Node node) {
+        return outgoing.degree(node.id());
+    }
+
+    private IdentifiableCollection<Edge> adjacentEdges(CompressedSparseRow adjacency, Node node) {
+        return new IdentifiableView<>(this::getEdge, adjacency::edgeId, adjacency.begin(node.id()),
+                adjacency.end(node.id()), false);
+    }
+
+    private IdentifiableCollection<Node> adjacentNodes(CompressedSparseRow adjacency, Node node) {
+        return new IdentifiableView<>(this::getNode, adjacency::head, adjacency.begin(node.id()),
+                adjacency.end(node.id()), false);
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return nodes().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return DirectedGraph.stringRepresentation(this);
+    }
+}
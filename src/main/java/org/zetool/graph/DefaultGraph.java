@@ -15,7 +15,6 @@
  */
 package org.zetool.graph;
 
-import org.zetool.graph.localization.GraphLocalization;
 import org.zetool.container.collection.DependingListSequence;
 import org.zetool.container.collection.HidingSet;
 import org.zetool.container.collection.IdentifiableCollection;
@@ -24,6 +23,8 @@ import org.zetool.container.mapping.IdentifiableIntegerMapping;
 import org.zetool.container.mapping.IdentifiableObjectMapping;
 import org.zetool.graph.structure.Path;
 import org.zetool.graph.util.GraphUtil;
+import org.zetool.graph.util.AdjacencyIndex;
+import org.zetool.graph.util.IdAllocator;
 import org.zetool.graph.util.OppositeNodeCollection;
 import java.util.Iterator;
 
@@ -50,6 +51,18 @@ public class DefaultGraph implements MutableUndirectedGraph {
      * Caches the number of edges incident to a node for all nodes in the graph. Must not be {@code null}.
      */
     protected IdentifiableIntegerMapping<Node> degree;
+    /**
+     * Notifies listeners about changes of the graph, created on demand.
+     */
+    private transient GraphChangeSupport changeSupport;
+    /**
+     * Finds edges by their end nodes, {@code null} if the index is disabled.
+     */
+    private transient AdjacencyIndex adjacencyIndex;
+    /**
+     * Keeps track of the used edge ids, created on demand.
+     */
+    private transient IdAllocator edgeIdAllocator;
 
     /**
      * Creates a new AbstractNetwork with the specified capacities for edges and nodes. Runtime
@@ -77,6 +90,9 @@ public class DefaultGraph implements MutableUndirectedGraph {
         this.nodes = network.nodes;
         incidentEdges = network.incidentEdges;
         degree = network.degree;
+        changeSupport = network.changeSupport();
+        adjacencyIndex = network.adjacencyIndex;
+        edgeIdAllocator = network.edgeIdAllocator();
     }
 
     /**
@@ -199,7 +215,8 @@ public class DefaultGraph implements MutableUndirectedGraph {
 
     /**
      * Returns an edge starting at {@code start} and ending at {@code end}. If no such edge exists, {@code null} is
-     * returned. Runtime O(outdegree(start)).
+     * returned. Runtime O(outdegree(start)), or O(1) expected if the
+     * {@link #setAdjacencyIndexed(boolean) adjacency index} is enabled.
      *
      * @param start the start node of the edge to be returned.
      * @param end the end node of the edge to be returned.
@@ -207,6 +224,9 @@ public class DefaultGraph implements MutableUndirectedGraph {
      */
     @Override
     public Edge getEdge(Node start, Node end) {
+        if (adjacencyIndex != null) {
+            return adjacencyIndex.get(start, end);
+        }
         for (Edge edge : incidentEdges(start)) {
             if (edge.end().equals(end)) {
                 return edge;
@@ -217,7 +237,8 @@ public class DefaultGraph implements MutableUndirectedGraph {
 
     /**
      * Returns an {@link ListSequence} containing all edges between {@code start} and at {@code end}. If no such edge
-     * exists, an empty list is returned. Runtime O(outdegree(start)).
+     * exists, an empty list is returned. Runtime O(outdegree(start)), or O(1) expected if the
+     * {@link #setAdjacencyIndexed(boolean) adjacency index} is enabled.
      *
      * @param start the start node of the edges to be returned.
      * @param end the end node of the edges to be returned.
@@ -225,6 +246,9 @@ public class DefaultGraph implements MutableUndirectedGraph {
      */
     @Override
     public IdentifiableCollection<Edge> getEdges(Node start, Node end) {
+        if (adjacencyIndex != null) {
+            return adjacencyIndex.getAll(start, end);
+        }
         ListSequence<Edge> result = new ListSequence<>();
         for (Edge edge : incidentEdges(start)) {
             if (edge.end().equals(end)) {
@@ -376,6 +400,9 @@ public class DefaultGraph implements MutableUndirectedGraph {
     @Override
     public void setEdgeCapacity(int newCapacity) {
         if (getEdgeCapacity() != newCapacity) {
+            for (int id = newCapacity; id < getEdgeCapacity(); ++id) {
+                edgeIdAllocator().release(id);
+            }
             edges.setCapacity(newCapacity);
         }
     }
@@ -403,8 +430,13 @@ public class DefaultGraph implements MutableUndirectedGraph {
             incidentEdges.setDomainSize(newCapacity);
             degree.setDomainSize(newCapacity);
 
-            for (int i = oldCapacity; i < newCapacity; i++) {
-                setNode(new Node(i));
+            beginBatch();
+            try {
+                for (int i = oldCapacity; i < newCapacity; i++) {
+                    setNode(new Node(i));
+                }
+            } finally {
+                endBatch();
             }
         }
     }
@@ -436,9 +468,11 @@ public class DefaultGraph implements MutableUndirectedGraph {
             if (value) {
                 degree.decrease(edge.start(), 1);
                 degree.decrease(edge.end(), 1);
+                changeSupport().edgeRemoved(edge);
             } else {
                 degree.increase(edge.start(), 1);
                 degree.increase(edge.end(), 1);
+                changeSupport().edgeAdded(edge);
             }
         }
     }
@@ -466,30 +500,181 @@ public class DefaultGraph implements MutableUndirectedGraph {
     //@Override
     public void setHidden(Node node, boolean value) {
         if (isHidden(node) != value) {
-            if (value) {
-                for (Edge edge : incidentEdges(node)) {
-                    setHidden(edge, value);
+            beginBatch();
+            try {
+                if (value) {
+                    for (Edge edge : incidentEdges(node)) {
+                        setHidden(edge, value);
+                    }
                 }
+                setHiddenOnlyNode(node, value);
+            } finally {
+                endBatch();
             }
-            nodes.setHidden(node, value);
         }
     }
 
     //@Override
     public void setHiddenOnlyNode(Node node, boolean value) {
-        nodes.setHidden(node, value);
+        if (isHidden(node) != value) {
+            nodes.setHidden(node, value);
+            if (value) {
+                changeSupport().nodeRemoved(node);
+            } else {
+                changeSupport().nodeAdded(node);
+            }
+        }
     }
 
     //@Override
     public void showAllEdges() {
+        if (!changeSupport().hasListeners()) {
+            edges.showAll();
+            return;
+        }
+        ListSequence<Edge> hidden = new ListSequence<>();
+        for (Iterator<Edge> iterator = edges.iteratorAll(); iterator.hasNext();) {
+            Edge edge = iterator.next();
+            if (edges.isHidden(edge)) {
+                hidden.add(edge);
+            }
+        }
         edges.showAll();
+        beginBatch();
+        try {
+            for (Edge edge : hidden) {
+                changeSupport().edgeAdded(edge);
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    @Override
+    public void addGraphChangeListener(GraphChangeListener listener) {
+        changeSupport().addListener(listener);
+    }
+
+    @Override
+    public void removeGraphChangeListener(GraphChangeListener listener) {
+        changeSupport().removeListener(listener);
+    }
+
+    @Override
+    public void beginBatch() {
+        changeSupport().beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        changeSupport().endBatch();
+    }
+
+    /**
+     * Enables or disables an index of the edges by their start and end nodes. If enabled,
+     * {@link #getEdge(Node, Node)} and {@link #getEdges(Node, Node)} run in expected constant time instead of
+     * O(degree(start)). The index is updated on each change of the graph and needs memory linear in the number of
+     * edges. Runtime O(m) for enabling, O(1) otherwise.
+     *
+     * @param indexed whether the index is used
+     */
+    public void setAdjacencyIndexed(boolean indexed) {
+        if (indexed && adjacencyIndex == null) {
+            adjacencyIndex = AdjacencyIndex.of(this);
+            addGraphChangeListener(adjacencyIndex);
+        } else if (!indexed && adjacencyIndex != null) {
+            removeGraphChangeListener(adjacencyIndex);
+            adjacencyIndex = null;
+        }
+    }
+
+    public boolean isAdjacencyIndexed() {
+        return adjacencyIndex != null;
+    }
+
+    /**
+     * Removes an edge from the graph. Unlike a hidden edge, the removed edge does not occupy its id any more, which can
+     * be used by new edges. Runtime O(degree(start) + degree(end)).
+     *
+     * @param edge the edge to be removed
+     */
+    public void removeEdge(Edge edge) {
+        Edge contained = edges.getEvenIfHidden(edge.id());
+        if (contained != null && contained.equals(edge)) {
+            detach(contained);
+            edgeIdAllocator().release(edge.id());
+        }
+    }
+
+    /**
+     * Renumbers the edges with consecutive ids starting at 0, keeping their order. The ids of edges are fixed, thus
+     * each edge is replaced by a new edge with the new id and the same nodes. Listeners are notified about the removal
+     * of the old and the addition of the new edges in a single batch. Hidden edges remain hidden. Runtime O(n + m +
+     * edge capacity).
+     *
+     * @return the new id for each old edge id, -1 for ids without an edge; the array can be used to translate data
+     * indexed by edge ids
+     */
+    public int[] compactEdgeIds() {
+        IdentifiableCollection<Edge> oldEdges = edges.getAll();
+        boolean[] hidden = new boolean[getEdgeCapacity()];
+        for (Edge edge : oldEdges) {
+            hidden[edge.id()] = edges.isHidden(edge);
+        }
+        int[] newIds = edgeIdAllocator().compact(getEdgeCapacity());
+        int count = 0;
+        beginBatch();
+        try {
+            for (Edge edge : oldEdges) {
+                detach(edge);
+            }
+            for (Edge edge : oldEdges) {
+                Edge renumbered = new Edge(newIds[edge.id()], edge.start(), edge.end());
+                setEdge(renumbered);
+                setHidden(renumbered, hidden[edge.id()]);
+                count++;
+            }
+        } finally {
+            endBatch();
+        }
+        idOfLastCreatedEdge = count - 1;
+        return newIds;
+    }
+
+    /**
+     * Removes an edge from the data structures without releasing its id.
+     */
+    private void detach(Edge edge) {
+        setHidden(edge, true);
+        incidentEdges.get(edge.start()).remove(edge);
+        incidentEdges.get(edge.end()).remove(edge);
+        edges.setHidden(edge, false);
+        edges.remove(edge);
+    }
+
+    private IdAllocator edgeIdAllocator() {
+        if (edgeIdAllocator == null) {
+            edgeIdAllocator = new IdAllocator(getEdgeCapacity());
+            for (Iterator<Edge> iterator = edges.iteratorAll(); iterator.hasNext();) {
+                edgeIdAllocator.use(iterator.next().id());
+            }
+        }
+        return edgeIdAllocator;
+    }
+
+    private GraphChangeSupport changeSupport() {
+        if (changeSupport == null) {
+            changeSupport = new GraphChangeSupport();
+        }
+        return changeSupport;
     }
 
     private int idOfLastCreatedEdge = -1;
 
     /**
-     * Creates a new directed edge between the specified start and end nodes and adds it to the graph (provided the
-     * graph has enough space allocated for an additional edge). Runtime O(1).
+     * Creates a new edge between the specified start and end nodes and adds it to the graph. The new edge gets the
+     * first free id after the last created edge, continuing at 0. If all ids are used, the edge capacity is doubled.
+     * Runtime O(1) amortized, see {@link IdAllocator}.
      *
      * @param start the start node of the new edge.
      * @param end the end node of the new edge.
@@ -497,19 +682,15 @@ public class DefaultGraph implements MutableUndirectedGraph {
      */
     @Override
     public Edge createAndSetEdge(Node start, Node end) {
-        int id = idOfLastCreatedEdge + 1;
         int capacity = getEdgeCapacity();
-        while (edges.getEvenIfHidden(id % capacity) != null || id == idOfLastCreatedEdge + 1 + capacity) {
-            id++;
-        }
-        if (edges.getEvenIfHidden(id % capacity) == null) {
-            Edge edge = new Edge(id % capacity, start, end);
-            setEdge(edge);
-            idOfLastCreatedEdge = id % capacity;
-            return edge;
-        } else {
-            throw new IllegalStateException(GraphLocalization.LOC.getString("ds.Graph.NoCapacityException"));
+        int id = edgeIdAllocator().allocate(idOfLastCreatedEdge + 1, capacity);
+        if (id >= capacity) {
+            setEdgeCapacity(Math.max(id + 1, 2 * capacity));
         }
+        Edge edge = new Edge(id, start, end);
+        setEdge(edge);
+        idOfLastCreatedEdge = id;
+        return edge;
     }
 
     /**
@@ -519,11 +700,16 @@ public class DefaultGraph implements MutableUndirectedGraph {
      */
     @Override
     public void setNodes(Iterable<Node> nodes) {
-        for (Node node : nodes) {
-            setNode(node);
-            if (nodes instanceof HidingSet) {
-                setHidden(node, ((HidingSet<Node>) nodes).isHidden(node));
+        beginBatch();
+        try {
+            for (Node node : nodes) {
+                setNode(node);
+                if (nodes instanceof HidingSet) {
+                    setHidden(node, ((HidingSet<Node>) nodes).isHidden(node));
+                }
             }
+        } finally {
+            endBatch();
         }
     }
 
@@ -597,10 +783,12 @@ public class DefaultGraph implements MutableUndirectedGraph {
     public void setEdge(Edge edge) {
         if (edges.get(edge.id()) == null) {
             edges.add(edge);
+            edgeIdAllocator().use(edge.id());
             incidentEdges(edge.start()).add(edge);
             incidentEdges(edge.end()).add(edge);
             degree.increase(edge.start(), 1);
             degree.increase(edge.end(), 1);
+            changeSupport().edgeAdded(edge);
         } else if (edges.get(edge.id()).equals(edge)) {
         } else {
             throw new IllegalArgumentException("Edge position is already occupied");
@@ -614,11 +802,16 @@ public class DefaultGraph implements MutableUndirectedGraph {
      */
     @Override
     public void setEdges(Iterable<Edge> edges) {
-        for (Edge edge : edges) {
-            setEdge(edge);
-            if (edges instanceof HidingSet) {
-                setHidden(edge, ((HidingSet<Edge>) edges).isHidden(edge));
+        beginBatch();
+        try {
+            for (Edge edge : edges) {
+                setEdge(edge);
+                if (edges instanceof HidingSet) {
+                    setHidden(edge, ((HidingSet<Edge>) edges).isHidden(edge));
+                }
             }
+        } finally {
+            endBatch();
         }
     }
 
@@ -633,8 +826,11 @@ public class DefaultGraph implements MutableUndirectedGraph {
         if (nodes.get(node.id()) == null) {
             incidentEdges.set(node, new DependingListSequence<>(edges));
             degree.set(node, 0);
+            nodes.add(node);
+            changeSupport().nodeAdded(node);
+        } else {
+            nodes.add(node);
         }
-        nodes.add(node);
     }
 
     public Iterator<Edge> allEdgesIterator() {
@@ -29,9 +29,11 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * The term {@code DynamicNetwork} refers to the fact, that the network structure can change over time.
+ * The term {@code DynamicNetwork} refers to the fact, that the network structure can change over time. Listeners
+ * registered with {@link #addGraphChangeListener(GraphChangeListener)} are notified about these changes, temporary
+ * removals and their recovery are reported as removals and additions of the affected elements.
  */
-public class DynamicNetwork implements DirectedGraph {
+public class DynamicNetwork implements DirectedGraph, ObservableGraph {
 
     protected ListSequence<Node> nodes;
     protected ListSequence<Edge> edges;
@@ -39,6 +41,8 @@ public class DynamicNetwork implements DirectedGraph {
     protected transient Map<Node, ListSequence<Edge>> outgoingEdges;
     protected ListSequence<Edge> temp_removed_edges = new ListSequence<>();
     protected ListSequence<Node> temp_removed_nodes = new ListSequence<>();
+    /** Notifies listeners about changes of the network, created on demand. */
+    private transient GraphChangeSupport changeSupport;
 
     public DynamicNetwork() {
         nodes = new ListSequence<>();
@@ -73,11 +77,17 @@ public class DynamicNetwork implements DirectedGraph {
         edges.add(edge);
         incomingEdges.get(edge.end()).add(edge);
         outgoingEdges.get(edge.start()).add(edge);
+        changeSupport().edgeAdded(edge);
     }
 
     public void addEdges(Iterable<Edge> edges) {
-        for (Edge edge : edges) {
-            addEdge(edge);
+        beginBatch();
+        try {
+            for (Edge edge : edges) {
+                addEdge(edge);
+            }
+        } finally {
+            endBatch();
         }
     }
 
@@ -85,11 +95,17 @@ public class DynamicNetwork implements DirectedGraph {
         nodes.add(node);
         incomingEdges.put(node, new ListSequence<>());
         outgoingEdges.put(node, new ListSequence<>());
+        changeSupport().nodeAdded(node);
     }
 
     public void addNodes(Iterable<Node> nodes) {
-        for (Node node : nodes) {
-            addNode(node);
+        beginBatch();
+        try {
+            for (Node node : nodes) {
+                addNode(node);
+            }
+        } finally {
+            endBatch();
         }
     }
 
@@ -108,7 +124,7 @@ public class DynamicNetwork implements DirectedGraph {
         for (Edge e : this.edges) {
             edgesCopy.add(e);
         }
-        setEdges(new ArrayList<>());
+        removeAllEdges();
         return edgesCopy;
     }
 
@@ -201,29 +217,46 @@ public class DynamicNetwork implements DirectedGraph {
     }
 
     public void removeAllEdges() {
+        List<Edge> removed = changeSupport().hasListeners() ? copy(edges) : null;
         for (Node node : nodes) {
             incomingEdges.get(node).clear();
             outgoingEdges.get(node).clear();
         }
         edges.clear();
+        if (removed != null) {
+            fireRemoved(removed, new ArrayList<>());
+        }
     }
 
     public void removeAllNodes() {
+        List<Edge> removedEdges = changeSupport().hasListeners() ? copy(edges) : null;
+        List<Node> removedNodes = changeSupport().hasListeners() ? copy(nodes) : null;
         edges.clear();
         nodes.clear();
         incomingEdges.clear();
         outgoingEdges.clear();
+        if (removedEdges != null) {
+            fireRemoved(removedEdges, removedNodes);
+        }
     }
 
     public void removeEdge(Edge edge) {
-        edges.remove(edge);
+        boolean removed = edges.remove(edge);
         incomingEdges.get(edge.end()).remove(edge);
         outgoingEdges.get(edge.start()).remove(edge);
+        if (removed) {
+            changeSupport().edgeRemoved(edge);
+        }
     }
 
     public void removeEdges(Iterable<Edge> edges) {
-        for (Edge edge : edges) {
-            removeEdge(edge);
+        beginBatch();
+        try {
+            for (Edge edge : edges) {
+                removeEdge(edge);
+            }
+        } finally {
+            endBatch();
         }
     }
 
@@ -238,13 +271,25 @@ public class DynamicNetwork implements DirectedGraph {
     }
 
     public void removeNode(Node node) {
-        removeEdges(incidentEdges(node));
-        nodes.remove(node);
+        beginBatch();
+        try {
+            removeEdges(incidentEdges(node));
+            if (nodes.remove(node)) {
+                changeSupport().nodeRemoved(node);
+            }
+        } finally {
+            endBatch();
+        }
     }
 
     public void removeNodes(Iterable<Node> nodes) {
-        for (Node node : nodes) {
-            removeNode(node);
+        beginBatch();
+        try {
+            for (Node node : nodes) {
+                removeNode(node);
+            }
+        } finally {
+            endBatch();
         }
     }
 
@@ -268,23 +313,87 @@ public class DynamicNetwork implements DirectedGraph {
         } catch (CloneNotSupportedException ex) {
             throw new IllegalStateException("Could not create copy", ex);
         }
-        removeAllNodes();
-        addNodes(nodes);
-        for (Edge edge : edgesCopy) {
-            if (contains(edge.start()) && contains(edge.end())) {
-                addEdge(edge);
+        beginBatch();
+        try {
+            removeAllNodes();
+            addNodes(nodes);
+            for (Edge edge : edgesCopy) {
+                if (contains(edge.start()) && contains(edge.end())) {
+                    addEdge(edge);
+                }
             }
+        } finally {
+            endBatch();
         }
     }
 
     public void setEdges(Iterable<Edge> edges) {
-        removeAllEdges();
-        addEdges(edges);
+        beginBatch();
+        try {
+            removeAllEdges();
+            addEdges(edges);
+        } finally {
+            endBatch();
+        }
     }
 
     public void setNodes(Iterable<Node> nodes) {
-        removeAllNodes();
-        addNodes(nodes);
+        beginBatch();
+        try {
+            removeAllNodes();
+            addNodes(nodes);
+        } finally {
+            endBatch();
+        }
+    }
+
+    @Override
+    public void addGraphChangeListener(GraphChangeListener listener) {
+        changeSupport().addListener(listener);
+    }
+
+    @Override
+    public void removeGraphChangeListener(GraphChangeListener listener) {
+        changeSupport().removeListener(listener);
+    }
+
+    @Override
+    public void beginBatch() {
+        changeSupport().beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        changeSupport().endBatch();
+    }
+
+    private GraphChangeSupport changeSupport() {
+        if (changeSupport == null) {
+            changeSupport = new GraphChangeSupport();
+        }
+        return changeSupport;
+    }
+
+    private static <E> List<E> copy(Iterable<E> elements) {
+        List<E> copy = new ArrayList<>();
+        for (E element : elements) {
+            copy.add(element);
+        }
+        return copy;
+    }
+
+    private void fireRemoved(Iterable<Edge> removedEdges, Iterable<Node> removedNodes) {
+        beginBatch();
+        try {
+            for (Edge edge : removedEdges) {
+                changeSupport().edgeRemoved(edge);
+            }
+            for (Node node : removedNodes) {
+                changeSupport().nodeRemoved(node);
+            }
+        } finally {
+            endBatch();
+        }
     }
 
     @Override
@@ -383,28 +492,96 @@ public class DynamicNetwork implements DirectedGraph {
         return network;
     }
 
+    /**
+     * Recovers a temporarily removed edge. Removals are counted, an edge removed multiple times is only recovered after
+     * the same number of recoveries. Listeners are notified only if the edge is not removed any more.
+     *
+     * @param e the edge
+     */
     public void add_edge_temp(Edge e) {
-        temp_removed_edges.remove(e);
+        if (!changeSupport().hasListeners()) {
+            temp_removed_edges.remove(e);
+        } else if (temp_removed_edges.contains(e)) {
+            temp_removed_edges.remove(e);
+            if (!temp_removed_edges.contains(e)) {
+                changeSupport().edgeAdded(e);
+            }
+        }
     }
 
+    /**
+     * Recovers a temporarily removed node. Removals are counted, a node removed multiple times is only recovered after
+     * the same number of recoveries. Listeners are notified only if the node is not removed any more.
+     *
+     * @param n the node
+     */
     public void add_node_temp(Node n) {
-        temp_removed_nodes.remove(n);
+        if (!changeSupport().hasListeners()) {
+            temp_removed_nodes.remove(n);
+        } else if (temp_removed_nodes.contains(n)) {
+            temp_removed_nodes.remove(n);
+            if (!temp_removed_nodes.contains(n)) {
+                changeSupport().nodeAdded(n);
+            }
+        }
     }
 
+    /**
+     * Removes an edge temporarily. Listeners are notified only if the edge has not been removed already, the check is
+     * skipped without listeners.
+     *
+     * @param e the edge
+     */
     public void remove_edge_temp(Edge e) {
+        boolean report = changeSupport().hasListeners() && !temp_removed_edges.contains(e);
         temp_removed_edges.add(e);
+        if (report) {
+            changeSupport().edgeRemoved(e);
+        }
     }
 
+    /**
+     * Removes a node temporarily. Listeners are notified only if the node has not been removed already, the check is
+     * skipped without listeners.
+     *
+     * @param n the node
+     */
     public void remove_node_temp(Node n) {
+        boolean report = changeSupport().hasListeners() && !temp_removed_nodes.contains(n);
         temp_removed_nodes.add(n);
+        if (report) {
+            changeSupport().nodeRemoved(n);
+        }
     }
 
     public void recover_temp_removed_edges() {
+        List<Edge> recovered = changeSupport().hasListeners() ? copy(temp_removed_edges) : null;
         temp_removed_edges.clear();
+        if (recovered != null) {
+            beginBatch();
+            try {
+                for (Edge edge : recovered) {
+                    changeSupport().edgeAdded(edge);
+                }
+            } finally {
+                endBatch();
+            }
+        }
     }
 
     public void recover_temp_removed_nodes() {
+        List<Node> recovered = changeSupport().hasListeners() ? copy(temp_removed_nodes) : null;
         temp_removed_nodes.clear();
+        if (recovered != null) {
+            beginBatch();
+            try {
+                for (Node node : recovered) {
+                    changeSupport().nodeAdded(node);
+                }
+            } finally {
+                endBatch();
+            }
+        }
     }
 
     public IdentifiableCollection<Node> temp_adjacentNodes(Node node) {
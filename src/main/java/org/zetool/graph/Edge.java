@@ -52,9 +52,6 @@ public class Edge implements IdentifiableCloneable {
         if (start == null || end == null) {
             throw new NullPointerException(GraphLocalization.LOC.getString("ds.graph.StartEndNodeIsNullException"));
         }
-        if (id == 11213) {
-            System.out.println();
-        }
         this.edgeID = id;
         this.start = start;
         this.end = end;
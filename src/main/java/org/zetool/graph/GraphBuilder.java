@@ -0,0 +1,249 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.ParallelFor;
+
+/**
+ * Builds graphs from edges given as primitive arrays of node ids. The nodes have the ids {@code 0} to
+ * {@code nodeCount - 1}, the edges get consecutive ids in the order in which they are added. The edges are collected in
+ * growing arrays, the graph objects are only created by one of the {@code build} methods, which may be called several
+ * times.
+ *
+ * The {@link CompactDirectedGraph} is built by counting the degrees, computing prefix sums and distributing the arcs
+ * in parallel. The mutable graphs store their incidence lists in collections that can only grow by single edges, for
+ * them the edges are created in parallel and inserted with exact capacities, without searching free edge ids and as a
+ * single batch of changes.
+ */
+public final class GraphBuilder {
+
+    /** The number of nodes or edges created sequentially by one task. */
+    private static final int GRAIN = 1 << 12;
+
+    private final int nodeCount;
+    private int[] starts;
+    private int[] ends;
+    private int edgeCount;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * Creates a builder for a graph with the given number of nodes.
+     *
+     * @param nodeCount the number of nodes
+     */
+    public GraphBuilder(int nodeCount) {
+        this(nodeCount, 16);
+    }
+
+    /**
+     * Creates a builder for a graph with the given number of nodes and room for the expected number of edges.
+     *
+     * @param nodeCount the number of nodes
+     * @param expectedEdgeCount the expected number of edges
+     */
+    public GraphBuilder(int nodeCount, int expectedEdgeCount) {
+        if (nodeCount < 0) {
+            throw new IllegalArgumentException("Negative node count: " + nodeCount);
+        }
+        this.nodeCount = nodeCount;
+        starts = new int[Math.max(expectedEdgeCount, 1)];
+        ends = new int[starts.length];
+    }
+
+    /**
+     * Adds an edge. Runtime amortized O(1).
+     *
+     * @param start the id of the start node
+     * @param end the id of the end node
+     * @return the id of the new edge
+     * @throws IllegalArgumentException if a node id is out of range
+     */
+    public int addEdge(int start, int end) {
+        checkNode(start);
+        checkNode(end);
+        ensureCapacity(edgeCount + 1);
+        starts[edgeCount] = start;
+        ends[edgeCount] = end;
+        return edgeCount++;
+    }
+
+    /**
+     * Adds a batch of edges, the edge with index {@code i} leads from {@code starts[i]} to {@code ends[i]}. Runtime
+     * O(length).
+     *
+     * @param starts the ids of the start nodes
+     * @param ends the ids of the end nodes
+     * @throws IllegalArgumentException if the arrays have different lengths or a node id is out of range
+     */
+    public void addEdges(int[] starts, int[] ends) {
+        if (starts.length != ends.length) {
+            throw new IllegalArgumentException("Different numbers of start and end nodes: " + starts.length + " and "
+                    + ends.length);
+        }
+        for (int i = 0; i < starts.length; ++i) {
+            checkNode(starts[i]);
+            checkNode(ends[i]);
+        }
+        ensureCapacity(edgeCount + starts.length);
+        System.arraycopy(starts, 0, this.starts, edgeCount, starts.length);
+        System.arraycopy(ends, 0, this.ends, edgeCount, ends.length);
+        edgeCount += starts.length;
+    }
+
+    /**
+     * Adds the edges of a stream in the order of the stream. Each element contains the id of the start and of the end
+     * node of an edge.
+     *
+     * @param edges the pairs of node ids
+     * @throws IllegalArgumentException if an element does not have length 2 or a node id is out of range
+     */
+    public void addEdges(Stream<int[]> edges) {
+        edges.forEachOrdered(edge -> {
+            if (edge.length != 2) {
+                throw new IllegalArgumentException("Edge must consist of two node ids: " + Arrays.toString(edge));
+            }
+            addEdge(edge[0], edge[1]);
+        });
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool that runs the parallel parts of the construction. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    /**
+     * Builds the adjacency arrays of the edges. Runtime O(n + m log d) for the maximum degree d, divided by the number
+     * of threads.
+     *
+     * @param reverse whether the incoming instead of the outgoing edges are stored
+     * @return the adjacency arrays
+     */
+    public CompressedSparseRow buildAdjacency(boolean reverse) {
+        int[] edgeIds = new int[edgeCount];
+        ParallelFor.forEach(pool, 0, edgeCount, GRAIN, i -> edgeIds[i] = i);
+        return reverse ? CompressedSparseRow.fromArcs(nodeCount, ends, starts, edgeIds, edgeCount, pool)
+                : CompressedSparseRow.fromArcs(nodeCount, starts, ends, edgeIds, edgeCount, pool);
+    }
+
+    /**
+     * Builds an immutable directed graph in compressed sparse row layout. Runtime O(n + m log d) for the maximum
+     * degree d, divided by the number of threads.
+     *
+     * @return the graph
+     */
+    public CompactDirectedGraph buildCompact() {
+        Node[] nodes = createNodes();
+        return CompactDirectedGraph.of(nodes, createEdges(nodes), buildAdjacency(false), buildAdjacency(true));
+    }
+
+    /**
+     * Builds a mutable directed graph whose capacities equal the numbers of nodes and edges. Runtime O(n + m).
+     *
+     * @return the graph
+     */
+    public DefaultDirectedGraph buildDirected() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(nodeCount, edgeCount);
+        graph.setEdges(Arrays.asList(createEdges(nodes(graph))));
+        return graph;
+    }
+
+    /**
+     * Builds a mutable undirected graph whose capacities equal the numbers of nodes and edges. Runtime O(n + m).
+     *
+     * @return the graph
+     */
+    public DefaultGraph buildUndirected() {
+        DefaultGraph graph = new DefaultGraph(nodeCount, edgeCount);
+        graph.setEdges(Arrays.asList(createEdges(nodes(graph))));
+        return graph;
+    }
+
+    /**
+     * Builds a static graph whose capacities equal the numbers of nodes and edges. All edges are visible. Runtime
+     * O(n + m).
+     *
+     * @param directed whether the graph is directed
+     * @return the graph
+     */
+    public StaticGraph buildStatic(boolean directed) {
+        StaticGraph graph = new StaticGraph(directed, nodeCount, edgeCount);
+        Node[] nodes = createNodes();
+        graph.setNodes(Arrays.asList(nodes));
+        for (Edge edge : createEdges(nodes)) {
+            graph.setEdge(edge);
+            graph.changeVisibility(edge, true);
+        }
+        return graph;
+    }
+
+    private Node[] createNodes() {
+        Node[] nodes = new Node[nodeCount];
+        ParallelFor.forEach(pool, 0, nodeCount, GRAIN, i -> nodes[i] = new Node(i));
+        return nodes;
+    }
+
+    /**
+     * Returns the nodes that have been created by the constructor of a graph.
+     */
+    private Node[] nodes(Graph graph) {
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; ++i) {
+            nodes[i] = graph.getNode(i);
+        }
+        return nodes;
+    }
+
+    private Edge[] createEdges(Node[] nodes) {
+        Edge[] edges = new Edge[edgeCount];
+        ParallelFor.forEach(pool, 0, edgeCount, GRAIN, i -> edges[i] = new Edge(i, nodes[starts[i]], nodes[ends[i]]));
+        return edges;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IllegalArgumentException("Node id " + node + " out of range [0," + nodeCount + ")");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int newCapacity = Math.max(capacity, 2 * starts.length);
+            starts = Arrays.copyOf(starts, newCapacity);
+            ends = Arrays.copyOf(ends, newCapacity);
+        }
+    }
+}
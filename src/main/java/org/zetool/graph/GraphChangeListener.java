@@ -0,0 +1,31 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+/**
+ * Receives the changes of an {@link ObservableGraph}. Changes made inside a batch are reported together once the
+ * batch ends, changes outside a batch are reported immediately.
+ */
+@FunctionalInterface
+public interface GraphChangeListener {
+
+    /**
+     * Called after the graph has been changed. The graph already is in the new state.
+     *
+     * @param changes the nodes and edges that have been added or removed
+     */
+    void graphChanged(GraphChangeSet changes);
+}
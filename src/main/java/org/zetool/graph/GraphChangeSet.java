@@ -0,0 +1,173 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The nodes and edges added to and removed from a graph by a batch of changes. Changes cancelling each other within
+ * the batch, such as adding and removing the same edge, are not contained. Only changes of the very same object cancel
+ * each other, an edge that is removed and replaced by a new edge with the same id is contained in both lists. Thus
+ * listeners have to process the removals before the additions. The elements are listed in the order of their first
+ * change.
+ */
+public final class GraphChangeSet {
+
+    private final List<Node> addedNodes;
+    private final List<Node> removedNodes;
+    private final List<Edge> addedEdges;
+    private final List<Edge> removedEdges;
+
+    private GraphChangeSet(Builder builder) {
+        addedNodes = unwrap(builder.addedNodes);
+        removedNodes = unwrap(builder.removedNodes);
+        addedEdges = unwrap(builder.addedEdges);
+        removedEdges = unwrap(builder.removedEdges);
+    }
+
+    private GraphChangeSet(List<Node> addedNodes, List<Node> removedNodes, List<Edge> addedEdges,
+            List<Edge> removedEdges) {
+        this.addedNodes = addedNodes;
+        this.removedNodes = removedNodes;
+        this.addedEdges = addedEdges;
+        this.removedEdges = removedEdges;
+    }
+
+    /**
+     * Creates the change set of a single node that has been added or removed, without the overhead of a batch.
+     */
+    static GraphChangeSet ofNode(Node node, boolean added) {
+        List<Node> nodes = Collections.singletonList(node);
+        return added ? new GraphChangeSet(nodes, Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList())
+                : new GraphChangeSet(Collections.emptyList(), nodes, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * Creates the change set of a single edge that has been added or removed, without the overhead of a batch.
+     */
+    static GraphChangeSet ofEdge(Edge edge, boolean added) {
+        List<Edge> edges = Collections.singletonList(edge);
+        return added ? new GraphChangeSet(Collections.emptyList(), Collections.emptyList(), edges,
+                Collections.emptyList())
+                : new GraphChangeSet(Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), edges);
+    }
+
+    private static <T> List<T> unwrap(Set<Identity<T>> elements) {
+        List<T> result = new ArrayList<>(elements.size());
+        for (Identity<T> identity : elements) {
+            result.add(identity.element);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public List<Node> getAddedNodes() {
+        return addedNodes;
+    }
+
+    public List<Node> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    public List<Edge> getAddedEdges() {
+        return addedEdges;
+    }
+
+    public List<Edge> getRemovedEdges() {
+        return removedEdges;
+    }
+
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "+V" + addedNodes + " -V" + removedNodes + " +E" + addedEdges + " -E" + removedEdges;
+    }
+
+    /**
+     * Collects the changes of a batch.
+     */
+    static final class Builder {
+
+        private final Set<Identity<Node>> addedNodes = new LinkedHashSet<>();
+        private final Set<Identity<Node>> removedNodes = new LinkedHashSet<>();
+        private final Set<Identity<Edge>> addedEdges = new LinkedHashSet<>();
+        private final Set<Identity<Edge>> removedEdges = new LinkedHashSet<>();
+
+        void nodeAdded(Node node) {
+            record(node, addedNodes, removedNodes);
+        }
+
+        void nodeRemoved(Node node) {
+            record(node, removedNodes, addedNodes);
+        }
+
+        void edgeAdded(Edge edge) {
+            record(edge, addedEdges, removedEdges);
+        }
+
+        void edgeRemoved(Edge edge) {
+            record(edge, removedEdges, addedEdges);
+        }
+
+        /**
+         * Records a change, or cancels the opposite change of the same object.
+         */
+        private static <T> void record(T element, Set<Identity<T>> changed, Set<Identity<T>> opposite) {
+            Identity<T> identity = new Identity<>(element);
+            if (!opposite.remove(identity)) {
+                changed.add(identity);
+            }
+        }
+
+        boolean isEmpty() {
+            return addedNodes.isEmpty() && removedNodes.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+        }
+
+        GraphChangeSet build() {
+            return new GraphChangeSet(this);
+        }
+    }
+
+    /**
+     * Wraps an element such that it is compared by identity. Nodes and edges are equal if their ids are equal, but a
+     * new element with the id of a removed element is a different change.
+     */
+    private static final class Identity<T> {
+
+        private final T element;
+
+        Identity(T element) {
+            this.element = element;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Identity && ((Identity<?>) obj).element == element;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(element);
+        }
+    }
+}
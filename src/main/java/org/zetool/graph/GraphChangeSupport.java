@@ -0,0 +1,126 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Manages the listeners and batches of an {@link ObservableGraph}. Graph implementations report each change to the
+ * support object, which collects them while a batch is open and notifies the listeners otherwise. If no listener is
+ * registered, reporting a change does nothing, so graphs without listeners do not pay for the mechanism.
+ */
+public final class GraphChangeSupport {
+
+    private final List<GraphChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /** The number of open batches. */
+    private int depth;
+    /** The changes of the open batch, {@code null} if no change has been reported yet. */
+    private GraphChangeSet.Builder pending;
+
+    public void addListener(GraphChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GraphChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Checks whether any listener is registered. Graphs may use this to skip collecting information needed only for
+     * the notification.
+     *
+     * @return {@code true} if at least one listener is registered
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    public void beginBatch() {
+        depth++;
+    }
+
+    /**
+     * Ends a batch and fires the collected changes if the outermost batch ends.
+     *
+     * @throws IllegalStateException if no batch has been started
+     */
+    public void endBatch() {
+        if (depth == 0) {
+            throw new IllegalStateException("No batch has been started.");
+        }
+        if (--depth == 0 && pending != null) {
+            GraphChangeSet.Builder changes = pending;
+            pending = null;
+            if (!changes.isEmpty()) {
+                fire(changes.build());
+            }
+        }
+    }
+
+    public void nodeAdded(Node node) {
+        if (hasListeners()) {
+            if (depth == 0) {
+                fire(GraphChangeSet.ofNode(node, true));
+            } else {
+                open().nodeAdded(node);
+            }
+        }
+    }
+
+    public void nodeRemoved(Node node) {
+        if (hasListeners()) {
+            if (depth == 0) {
+                fire(GraphChangeSet.ofNode(node, false));
+            } else {
+                open().nodeRemoved(node);
+            }
+        }
+    }
+
+    public void edgeAdded(Edge edge) {
+        if (hasListeners()) {
+            if (depth == 0) {
+                fire(GraphChangeSet.ofEdge(edge, true));
+            } else {
+                open().edgeAdded(edge);
+            }
+        }
+    }
+
+    public void edgeRemoved(Edge edge) {
+        if (hasListeners()) {
+            if (depth == 0) {
+                fire(GraphChangeSet.ofEdge(edge, false));
+            } else {
+                open().edgeRemoved(edge);
+            }
+        }
+    }
+
+    private GraphChangeSet.Builder open() {
+        if (pending == null) {
+            pending = new GraphChangeSet.Builder();
+        }
+        return pending;
+    }
+
+    private void fire(GraphChangeSet changes) {
+        for (GraphChangeListener listener : listeners) {
+            listener.graphChanged(changes);
+        }
+    }
+}
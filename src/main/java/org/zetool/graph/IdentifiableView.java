@@ -0,0 +1,147 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+import org.zetool.container.collection.IdentifiableCollection;
+import org.zetool.container.mapping.Identifiable;
+import org.zetool.graph.localization.GraphLocalization;
+
+/**
+ * A read-only view of a range of ids that are mapped to elements. For views of all nodes or edges the elements are
+ * accessed by their id, for views of adjacent edges or nodes the elements are accessed by their position. The elements
+ * are looked up by id when they are accessed, thus they may be stored in an array or created on demand.
+ *
+ * @param <E> the element type
+ */
+class IdentifiableView<E extends Identifiable> implements IdentifiableCollection<E> {
+
+    private final IntFunction<E> elements;
+    private final IntUnaryOperator idAt;
+    private final int begin;
+    private final int end;
+    private final boolean accessById;
+
+    IdentifiableView(IntFunction<E> elements, IntUnaryOperator idAt, int begin, int end, boolean accessById) {
+        this.elements = elements;
+        this.idAt = idAt;
+        this.begin = begin;
+        this.end = end;
+        this.accessById = accessById;
+    }
+
+    @Override
+    public boolean add(E element) {
+        throw new UnsupportedOperationException(GraphLocalization.NOT_SUPPORTED);
+    }
+
+    @Override
+    public boolean remove(E element) {
+        throw new UnsupportedOperationException(GraphLocalization.NOT_SUPPORTED);
+    }
+
+    @Override
+    public E removeLast() {
+        throw new UnsupportedOperationException(GraphLocalization.NOT_SUPPORTED);
+    }
+
+    @Override
+    public boolean contains(E element) {
+        return indexOf(element) >= 0;
+    }
+
+    private int indexOf(E element) {
+        for (int i = begin; i < end; ++i) {
+            if (elements.apply(idAt.applyAsInt(i)).equals(element)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return begin == end;
+    }
+
+    @Override
+    public int size() {
+        return end - begin;
+    }
+
+    /**
+     * Returns the element with the given id for views of all elements, and the element at the given position for
+     * views of adjacent elements.
+     *
+     * @param index the id or position
+     * @return the element
+     */
+    @Override
+    public E get(int index) {
+        if (accessById) {
+            return elements.apply(index);
+        }
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return elements.apply(idAt.applyAsInt(begin + index));
+    }
+
+    @Override
+    public E first() {
+        return isEmpty() ? null : elements.apply(idAt.applyAsInt(begin));
+    }
+
+    @Override
+    public E last() {
+        return isEmpty() ? null : elements.apply(idAt.applyAsInt(end - 1));
+    }
+
+    @Override
+    public E predecessor(E element) {
+        int index = indexOf(element);
+        return index > begin ? elements.apply(idAt.applyAsInt(index - 1)) : null;
+    }
+
+    @Override
+    public E successor(E element) {
+        int index = indexOf(element);
+        return index >= 0 && index < end - 1 ? elements.apply(idAt.applyAsInt(index + 1)) : null;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int position = begin;
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            public E next() {
+                if (position >= end) {
+                    throw new NoSuchElementException();
+                }
+                return elements.apply(idAt.applyAsInt(position++));
+            }
+        };
+    }
+}
@@ -0,0 +1,750 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import org.zetool.container.collection.IdentifiableCollection;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.OppositeNodeCollection;
+
+/**
+ * An immutable directed graph that is served directly from a memory mapped file. The file contains the adjacency
+ * structure in compressed sparse row layout and optional columns of edge values, e.g. costs or capacities. Opening a
+ * file only maps it, the arrays are not copied and no node and edge objects are created. Nodes and edges are created
+ * when they are accessed, they are equal to the nodes and edges of the original graph. Thus mappings defined for the
+ * original graph can be used for the mapped graph, too.
+ *
+ * The file starts with a header of eight little endian ints: a magic number, the format version, the node capacity,
+ * the edge capacity, the number of nodes, the number of edges, the number of arcs and the number of columns. It is
+ * followed by the sorted node ids, the edge ids, the start and end node of each edge id (-1 for unused ids), the
+ * offsets, heads and edge ids of the outgoing arcs sorted by their heads, and the same arrays for the incoming arcs.
+ * Each column consists of its type, the length and bytes of its UTF-8 encoded name and a value for each edge id, and
+ * starts at a multiple of eight bytes.
+ *
+ * The mapped file must not be changed while the graph is used. All collections returned by the graph are read-only
+ * views.
+ */
+public final class MappedDirectedGraph implements DirectedGraph {
+
+    /** Identifies the binary format. */
+    private static final int MAGIC = 0x5A474631;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int INT_COLUMN = 0;
+    private static final int LONG_COLUMN = 1;
+    private static final int DOUBLE_COLUMN = 2;
+
+    /** The number of node ids. */
+    private final int nodeCapacity;
+    /** The ids of the nodes contained in the graph, in ascending order. */
+    private final IntBuffer nodeIds;
+    /** The ids of the edges contained in the graph. */
+    private final IntBuffer edgeIds;
+    /** The start node of each edge id, or -1 for unused ids. */
+    private final IntBuffer tails;
+    /** The end node of each edge id, or -1 for unused ids. */
+    private final IntBuffer heads;
+    /** The outgoing arcs of each node, sorted by their end nodes. */
+    private final MappedAdjacency outgoing;
+    /** The incoming arcs of each node. */
+    private final MappedAdjacency incoming;
+    /** The read-only value columns by their names. */
+    private final Map<String, Buffer> columns;
+
+    private MappedDirectedGraph(int nodeCapacity, IntBuffer nodeIds, IntBuffer edgeIds, IntBuffer tails,
+            IntBuffer heads, MappedAdjacency outgoing, MappedAdjacency incoming, Map<String, Buffer> columns) {
+        this.nodeCapacity = nodeCapacity;
+        this.nodeIds = nodeIds;
+        this.edgeIds = edgeIds;
+        this.tails = tails;
+        this.heads = heads;
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.columns = columns;
+    }
+
+    /**
+     * Maps a graph file that has been written by a {@link Writer}. The arrays of the file are not read, thus opening is
+     * independent of the size of the graph. The file is not locked and can be closed by the operating system only after
+     * the graph has been garbage collected.
+     *
+     * @param file the graph file
+     * @return the graph served from the file
+     * @throws IOException if an I/O error occurs or the file does not contain a graph
+     */
+    public static MappedDirectedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a graph file.");
+            }
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a graph file.");
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported graph file format version " + version);
+            }
+            int nodeCapacity = header.getInt();
+            int edgeCapacity = header.getInt();
+            int nodeCount = header.getInt();
+            int edgeCount = header.getInt();
+            int arcCount = header.getInt();
+            int columnCount = header.getInt();
+            if (nodeCapacity < 0 || nodeCapacity == Integer.MAX_VALUE || edgeCapacity < 0 || nodeCount < 0
+                    || nodeCount > nodeCapacity || edgeCount < 0 || edgeCount > edgeCapacity || arcCount < 0
+                    || columnCount < 0) {
+                throw new IOException("Corrupt graph file header.");
+            }
+            Sections sections = new Sections(channel, HEADER_SIZE);
+            IntBuffer nodeIds = sections.ints(nodeCount);
+            IntBuffer edgeIds = sections.ints(edgeCount);
+            IntBuffer tails = sections.ints(edgeCapacity);
+            IntBuffer heads = sections.ints(edgeCapacity);
+            MappedAdjacency outgoing = new MappedAdjacency(offsets(sections, nodeCapacity, arcCount),
+                    sections.ints(arcCount), sections.ints(arcCount));
+            MappedAdjacency incoming = new MappedAdjacency(offsets(sections, nodeCapacity, arcCount),
+                    sections.ints(arcCount), sections.ints(arcCount));
+            Map<String, Buffer> columns = new LinkedHashMap<>();
+            for (int i = 0; i < columnCount; ++i) {
+                sections.align();
+                IntBuffer columnHeader = sections.ints(2);
+                int type = columnHeader.get(0);
+                int length = columnHeader.get(1);
+                if (length < 0 || length > channel.size()) {
+                    throw new IOException("Corrupt graph file column name length " + length);
+                }
+                byte[] name = new byte[length];
+                sections.bytes(name.length).get(name);
+                sections.align();
+                if (type == INT_COLUMN) {
+                    columns.put(new String(name, StandardCharsets.UTF_8), sections.ints(edgeCapacity));
+                } else if (type == LONG_COLUMN) {
+                    columns.put(new String(name, StandardCharsets.UTF_8), sections.longs(edgeCapacity));
+                } else if (type == DOUBLE_COLUMN) {
+                    columns.put(new String(name, StandardCharsets.UTF_8), sections.doubles(edgeCapacity));
+                } else {
+                    throw new IOException("Unknown graph file column type " + type);
+                }
+            }
+            return new MappedDirectedGraph(nodeCapacity, nodeIds, edgeIds, tails, heads, outgoing, incoming,
+                    columns);
+        }
+    }
+
+    /**
+     * Maps the offsets of an adjacency array. Only the first and the last offset are checked, so that the array does
+     * not have to be read.
+     */
+    private static IntBuffer offsets(Sections sections, int nodeCapacity, int arcCount) throws IOException {
+        IntBuffer offsets = sections.ints(nodeCapacity + 1);
+        if (offsets.get(0) != 0 || offsets.get(nodeCapacity) != arcCount) {
+            throw new IOException("Corrupt graph file adjacency offsets.");
+        }
+        return offsets;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (position + size > channel.size()) {
+            throw new IOException("Truncated graph file.");
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Graph file section too large.");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the number of node ids. Runtime O(1).
+     *
+     * @return the number of node ids
+     */
+    public int getNodeCapacity() {
+        return nodeCapacity;
+    }
+
+    /**
+     * Returns the number of edge ids. Runtime O(1).
+     *
+     * @return the number of edge ids
+     */
+    public int getEdgeCapacity() {
+        return tails.limit();
+    }
+
+    /**
+     * Returns the names of the value columns stored in the file. Runtime O(1).
+     *
+     * @return the names of the columns
+     */
+    public Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * Returns the values of an int column indexed by edge id. The buffer is a read-only view of the mapped file.
+     * Runtime O(1).
+     *
+     * @param name the name of the column
+     * @return the values of the column
+     * @throws IllegalArgumentException if there is no int column with the name
+     */
+    public IntBuffer getIntColumn(String name) {
+        return ((IntBuffer) column(name, IntBuffer.class)).duplicate();
+    }
+
+    /**
+     * Returns the values of a long column indexed by edge id. The buffer is a read-only view of the mapped file.
+     * Runtime O(1).
+     *
+     * @param name the name of the column
+     * @return the values of the column
+     * @throws IllegalArgumentException if there is no long column with the name
+     */
+    public LongBuffer getLongColumn(String name) {
+        return ((LongBuffer) column(name, LongBuffer.class)).duplicate();
+    }
+
+    /**
+     * Returns the values of a double column indexed by edge id. The buffer is a read-only view of the mapped file.
+     * Runtime O(1).
+     *
+     * @param name the name of the column
+     * @return the values of the column
+     * @throws IllegalArgumentException if there is no double column with the name
+     */
+    public DoubleBuffer getDoubleColumn(String name) {
+        return ((DoubleBuffer) column(name, DoubleBuffer.class)).duplicate();
+    }
+
+    private Buffer column(String name, Class<? extends Buffer> type) {
+        Buffer column = columns.get(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("No column " + name + " of type " + type.getSimpleName());
+        }
+        return column;
+    }
+
+    @Override
+    public IdentifiableCollection<Edge> edges() {
+        return new IdentifiableView<>(this::getEdge, edgeIds::get, 0, edgeIds.limit(), true);
+    }
+
+    @Override
+    public IdentifiableCollection<Node> nodes() {
+        return new IdentifiableView<>(this::getNode, nodeIds::get, 0, nodeIds.limit(), true);
+    }
+
+    @Override
+    public int edgeCount() {
+        return edgeIds.limit();
+    }
+
+    @Override
+    public int nodeCount() {
+        return nodeIds.limit();
+    }
+
+    /**
+     * Returns the incoming and outgoing edges of the specified node. Runtime O(degree(node)).
+     *
+     * @param node the node
+     * @return the incoming and outgoing edges of the node
+     */
+    @Override
+    public IdentifiableCollection<Edge> incidentEdges(Node node) {
+        ListSequence<Edge> incidentEdges = new ListSequence<>();
+        for (Edge edge : incomingEdges(node)) {
+            incidentEdges.add(edge);
+        }
+        for (Edge edge : outgoingEdges(node)) {
+            incidentEdges.add(edge);
+        }
+        return incidentEdges;
+    }
+
+    @Override
+    public IdentifiableCollection<Node> adjacentNodes(Node node) {
+        return new OppositeNodeCollection(node, incidentEdges(node));
+    }
+
+    @Override
+    public int degree(Node node) {
+        return inDegree(node) + outDegree(node);
+    }
+
+    @Override
+    public boolean contains(Edge edge) {
+        return getEdge(edge.id()) != null;
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        return getNode(node.id()) != null;
+    }
+
+    /**
+     * Returns the edge with the given id. A new edge object is created for each call. Runtime O(1).
+     *
+     * @param id the id of the edge
+     * @return the edge, or {@code null} if the graph does not contain an edge with the id
+     */
+    @Override
+    public Edge getEdge(int id) {
+        if (id < 0 || id >= tails.limit() || tails.get(id) < 0) {
+            return null;
+        }
+        return new Edge(id, new Node(tails.get(id)), new Node(heads.get(id)));
+    }
+
+    /**
+     * Returns an edge starting at {@code start} and ending at {@code end}. Runtime O(log(outDegree(start))).
+     *
+     * @param start the start node of the edge to be returned.
+     * @param end the end node of the edge to be returned.
+     * @return an edge starting at {@code start} and ending at {@code end}.
+     */
+    @Override
+    public Edge getEdge(Node start, Node end) {
+        int arc = outgoing.findArc(start.id(), end.id());
+        return arc < 0 ? null : getEdge(outgoing.edgeIds.get(arc));
+    }
+
+    /**
+     * Returns all edges starting at {@code start} and ending at {@code end}. Runtime O(log(outDegree(start))) plus the
+     * number of returned edges.
+     *
+     * @param start the start node of the edges to be returned.
+     * @param end the end node of the edges to be returned.
+     * @return all edges starting at {@code start} and ending at {@code end}.
+     */
+    @Override
+    public IdentifiableCollection<Edge> getEdges(Node start, Node end) {
+        ListSequence<Edge> result = new ListSequence<>();
+        int arc = outgoing.findArc(start.id(), end.id());
+        for (; arc >= 0 && arc < outgoing.end(start.id()) && outgoing.heads.get(arc) == end.id(); ++arc) {
+            result.add(getEdge(outgoing.edgeIds.get(arc)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node with the given id. A new node object is created for each call. Runtime O(1) if the node ids
+     * are consecutive, O(log n) otherwise.
+     *
+     * @param id the id of the node
+     * @return the node, or {@code null} if the graph does not contain a node with the id
+     */
+    @Override
+    public Node getNode(int id) {
+        if (id < 0 || id >= nodeCapacity) {
+            return null;
+        }
+        if (nodeIds.limit() < nodeCapacity && !containsNodeId(id)) {
+            return null;
+        }
+        return new Node(id);
+    }
+
+    private boolean containsNodeId(int id) {
+        int low = 0;
+        int high = nodeIds.limit();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (nodeIds.get(middle) < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < nodeIds.limit() && nodeIds.get(low) == id;
+    }
+
+    @Override
+    public IdentifiableCollection<Edge> incomingEdges(Node node) {
+        return adjacentEdges(incoming, node);
+    }
+
+    @Override
+    public IdentifiableCollection<Edge> outgoingEdges(Node node) {
+        return adjacentEdges(outgoing, node);
+    }
+
+    @Override
+    public IdentifiableCollection<Node> predecessorNodes(Node node) {
+        return adjacentNodes(incoming, node);
+    }
+
+    @Override
+    public IdentifiableCollection<Node> successorNodes(Node node) {
+        return adjacentNodes(outgoing, node);
+    }
+
+    @Override
+    public int inDegree(Node node) {
+        return incoming.end(node.id()) - incoming.begin(node.id());
+    }
+
+    @Override
+    public int outDegree(Node node) {
+        return outgoing.end(node.id()) - outgoing.begin(node.id());
+    }
+
+    private IdentifiableCollection<Edge> adjacentEdges(MappedAdjacency adjacency, Node node) {
+        return new IdentifiableView<>(this::getEdge, adjacency.edgeIds::get, adjacency.begin(node.id()),
+                adjacency.end(node.id()), false);
+    }
+
+    private IdentifiableCollection<Node> adjacentNodes(MappedAdjacency adjacency, Node node) {
+        return new IdentifiableView<>(Node::new, adjacency.heads::get, adjacency.begin(node.id()),
+                adjacency.end(node.id()), false);
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return nodes().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return DirectedGraph.stringRepresentation(this);
+    }
+
+    /**
+     * The arcs of all nodes in compressed sparse row layout, read from the mapped file.
+     */
+    private static class MappedAdjacency {
+
+        private final IntBuffer offsets;
+        private final IntBuffer heads;
+        private final IntBuffer edgeIds;
+
+        MappedAdjacency(IntBuffer offsets, IntBuffer heads, IntBuffer edgeIds) {
+            this.offsets = offsets;
+            this.heads = heads;
+            this.edgeIds = edgeIds;
+        }
+
+        int begin(int node) {
+            return offsets.get(node);
+        }
+
+        int end(int node) {
+            return offsets.get(node + 1);
+        }
+
+        /**
+         * Returns the position of the first arc from a node to another node, the arcs must be sorted by their heads.
+         */
+        int findArc(int node, int head) {
+            int low = begin(node);
+            int high = end(node);
+            int end = high;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (heads.get(middle) < head) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low < end && heads.get(low) == head ? low : -1;
+        }
+    }
+
+    /**
+     * Maps the consecutive sections of a graph file.
+     */
+    private static class Sections {
+
+        private final FileChannel channel;
+        private long position;
+
+        Sections(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        ByteBuffer bytes(int count) throws IOException {
+            ByteBuffer buffer = map(channel, position, count);
+            position += count;
+            return buffer;
+        }
+
+        IntBuffer ints(int count) throws IOException {
+            IntBuffer buffer = map(channel, position, (long) count * Integer.BYTES).asIntBuffer();
+            position += (long) count * Integer.BYTES;
+            return buffer;
+        }
+
+        LongBuffer longs(int count) throws IOException {
+            LongBuffer buffer = map(channel, position, (long) count * Long.BYTES).asLongBuffer();
+            position += (long) count * Long.BYTES;
+            return buffer;
+        }
+
+        DoubleBuffer doubles(int count) throws IOException {
+            DoubleBuffer buffer = map(channel, position, (long) count * Double.BYTES).asDoubleBuffer();
+            position += (long) count * Double.BYTES;
+            return buffer;
+        }
+
+        void align() {
+            position = (position + 7) & ~7L;
+        }
+    }
+
+    /**
+     * Writes the visible nodes and edges of a directed graph and columns of edge values to a graph file that can be
+     * opened by {@link MappedDirectedGraph#open(Path)}.
+     */
+    public static class Writer {
+
+        private final DirectedGraph graph;
+        private final List<String> names = new ArrayList<>();
+        private final List<Integer> types = new ArrayList<>();
+        private final List<Object> columns = new ArrayList<>();
+
+        /**
+         * Creates a writer for a directed graph.
+         *
+         * @param graph the graph
+         * @throws IllegalArgumentException if the graph is not directed
+         */
+        public Writer(DirectedGraph graph) {
+            if (!graph.isDirected()) {
+                throw new IllegalArgumentException("Graph is not directed.");
+            }
+            this.graph = graph;
+        }
+
+        /**
+         * Adds a column of int values of the edges, e.g. costs or capacities.
+         *
+         * @param name the name of the column
+         * @param values the values of the edges
+         * @throws IllegalArgumentException if there already is a column with the name
+         */
+        public void addIntColumn(String name, ToIntFunction<Edge> values) {
+            addColumn(name, INT_COLUMN, values);
+        }
+
+        /**
+         * Adds a column of long values of the edges.
+         *
+         * @param name the name of the column
+         * @param values the values of the edges
+         * @throws IllegalArgumentException if there already is a column with the name
+         */
+        public void addLongColumn(String name, ToLongFunction<Edge> values) {
+            addColumn(name, LONG_COLUMN, values);
+        }
+
+        /**
+         * Adds a column of double values of the edges.
+         *
+         * @param name the name of the column
+         * @param values the values of the edges
+         * @throws IllegalArgumentException if there already is a column with the name
+         */
+        public void addDoubleColumn(String name, ToDoubleFunction<Edge> values) {
+            addColumn(name, DOUBLE_COLUMN, values);
+        }
+
+        private void addColumn(String name, int type, Object values) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate column " + name);
+            }
+            names.add(name);
+            types.add(type);
+            columns.add(values);
+        }
+
+        /**
+         * Writes the graph and its columns to a file. An existing file is replaced. Runtime O(n + m log d) for the
+         * maximum out degree d.
+         *
+         * @param file the file
+         * @throws IOException if an I/O error occurs
+         */
+        public void write(Path file) throws IOException {
+            CompressedSparseRow outgoing = CompressedSparseRow.of(graph, false).sortedByHead();
+            CompressedSparseRow incoming = CompressedSparseRow.of(graph, true);
+            int[] nodeIds = new int[graph.nodeCount()];
+            int i = 0;
+            for (Node node : graph.nodes()) {
+                nodeIds[i++] = node.id();
+            }
+            Arrays.sort(nodeIds);
+            Edge[] edges = new Edge[outgoing.edgeCapacity()];
+            int[] edgeIds = new int[graph.edgeCount()];
+            int[] tails = new int[edges.length];
+            int[] heads = new int[edges.length];
+            Arrays.fill(tails, -1);
+            Arrays.fill(heads, -1);
+            i = 0;
+            for (Edge edge : graph.edges()) {
+                edges[edge.id()] = edge;
+                edgeIds[i++] = edge.id();
+                tails[edge.id()] = edge.start().id();
+                heads[edge.id()] = edge.end().id();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                Output out = new Output(channel);
+                out.putInt(MAGIC);
+                out.putInt(FORMAT_VERSION);
+                out.putInt(outgoing.nodeCapacity());
+                out.putInt(edges.length);
+                out.putInt(nodeIds.length);
+                out.putInt(edgeIds.length);
+                out.putInt(outgoing.arcCount());
+                out.putInt(columns.size());
+                out.putInts(nodeIds);
+                out.putInts(edgeIds);
+                out.putInts(tails);
+                out.putInts(heads);
+                writeAdjacency(out, outgoing);
+                writeAdjacency(out, incoming);
+                for (int c = 0; c < columns.size(); ++c) {
+                    writeColumn(out, names.get(c), types.get(c), columns.get(c), edges);
+                }
+                out.flush();
+            }
+        }
+
+        private static void writeAdjacency(Output out, CompressedSparseRow adjacency) throws IOException {
+            for (int v = 0; v <= adjacency.nodeCapacity(); ++v) {
+                out.putInt(v < adjacency.nodeCapacity() ? adjacency.begin(v) : adjacency.arcCount());
+            }
+            for (int arc = 0; arc < adjacency.arcCount(); ++arc) {
+                out.putInt(adjacency.head(arc));
+            }
+            for (int arc = 0; arc < adjacency.arcCount(); ++arc) {
+                out.putInt(adjacency.edgeId(arc));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static void writeColumn(Output out, String name, int type, Object values, Edge[] edges)
+                throws IOException {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            out.align();
+            out.putInt(type);
+            out.putInt(bytes.length);
+            out.putBytes(bytes);
+            out.align();
+            for (Edge edge : edges) {
+                if (type == INT_COLUMN) {
+                    out.putInt(edge == null ? 0 : ((ToIntFunction<Edge>) values).applyAsInt(edge));
+                } else if (type == LONG_COLUMN) {
+                    out.putLong(edge == null ? 0 : ((ToLongFunction<Edge>) values).applyAsLong(edge));
+                } else {
+                    out.putDouble(edge == null ? 0 : ((ToDoubleFunction<Edge>) values).applyAsDouble(edge));
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers little endian values that are written to a file channel.
+     */
+    private static class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+            position += Integer.BYTES;
+        }
+
+        void putInts(int[] values) throws IOException {
+            for (int value : values) {
+                putInt(value);
+            }
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRemaining(Long.BYTES);
+            buffer.putLong(value);
+            position += Long.BYTES;
+        }
+
+        void putDouble(double value) throws IOException {
+            ensureRemaining(Double.BYTES);
+            buffer.putDouble(value);
+            position += Double.BYTES;
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            for (byte value : values) {
+                ensureRemaining(1);
+                buffer.put(value);
+                position++;
+            }
+        }
+
+        void align() throws IOException {
+            while ((position & 7) != 0) {
+                putBytes(new byte[1]);
+            }
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            // cast for Java 8 runtimes, which lack the covariant ByteBuffer overloads
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ((Buffer) buffer).clear();
+        }
+    }
+}
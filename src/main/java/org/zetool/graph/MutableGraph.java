@@ -18,7 +18,7 @@ package org.zetool.graph;
 /**
  * Additional graph methods that are used to insert new edges and nodes to graphs.
  */
-public interface MutableGraph extends Graph {
+public interface MutableGraph extends ObservableGraph {
 
     /**
      * Creates a new directed edge between the specified start and end nodes and adds it to the graph (provided the
@@ -0,0 +1,58 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+/**
+ * A graph that reports changes of its nodes and edges to registered listeners. Several changes can be combined into
+ * a batch, the listeners are notified once when the outermost batch ends:
+ * <pre>
+ * graph.beginBatch();
+ * try {
+ *     // change the graph
+ * } finally {
+ *     graph.endBatch();
+ * }
+ * </pre>
+ * Hiding a node or an edge is reported as removal, showing it again as addition.
+ */
+public interface ObservableGraph extends Graph {
+
+    /**
+     * Registers a listener that is notified about subsequent changes.
+     *
+     * @param listener the listener
+     */
+    void addGraphChangeListener(GraphChangeListener listener);
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener
+     */
+    void removeGraphChangeListener(GraphChangeListener listener);
+
+    /**
+     * Starts a batch of changes. Batches may be nested, the changes are reported when the outermost batch ends.
+     */
+    void beginBatch();
+
+    /**
+     * Ends a batch of changes and notifies the listeners if this was the outermost batch and something has changed.
+     *
+     * @throws IllegalStateException if no batch has been started
+     */
+    void endBatch();
+}
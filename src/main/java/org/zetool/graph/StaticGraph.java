@@ -6,6 +6,7 @@ package org.zetool.graph;
 
 import org.zetool.container.collection.IdentifiableCollection;
 import org.zetool.container.collection.ArraySet;
+import org.zetool.container.collection.ListSequence;
 import java.util.Iterator;
 
 /**
@@ -46,7 +47,22 @@ public class StaticGraph implements Graph, DirectedGraph {
 
     @Override
     public IdentifiableCollection<Edge> getEdges(Node start, Node end) {
-        throw new UnsupportedOperationException("not implemented yet");
+        ListSequence<Edge> result = new ListSequence<>();
+        if (directed) {
+            for (Edge edge : outgoingEdges(start)) {
+                if (edge.end().equals(end)) {
+                    result.add(edge);
+                }
+            }
+        } else {
+            // loops are incident twice to their node
+            for (Edge edge : incidentEdges(start)) {
+                if (edge.opposite(start).equals(end) && !(edge.isLoop() && result.contains(edge))) {
+                    result.add(edge);
+                }
+            }
+        }
+        return result;
     }
 
     @Override
@@ -503,13 +519,13 @@ public class StaticGraph implements Graph, DirectedGraph {
     public Edge getEdge(Node start, Node end) {
         if (directed) {
             for (Edge edge : outgoingEdges(start)) {
-                if (edge.end() == end) {
+                if (edge.end().equals(end)) {
                     return edge;
                 }
             }
         } else {
             for (Edge edge : incidentEdges(start)) {
-                if (edge.start() == end || edge.end() == end) {
+                if (edge.opposite(start).equals(end)) {
                     return edge;
                 }
             }
@@ -60,6 +60,7 @@ public class BreadthFirstSearch extends AbstractAlgorithm<Graph, Void>
         GeneralBreadthFirstSearchIterator bfs = start == null ? new GeneralBreadthFirstSearchIterator(problem)
                 : new GeneralBreadthFirstSearchIterator(problem, start.id());
         predecessors = new IdentifiableObjectMapping<>(problem.nodeCount());
+        reachableNodes = null;
         distances = new IdentifiableIntegerMapping<>(problem.nodeCount());
         for (Node n : problem) {
             distances.set(n, Integer.MAX_VALUE);
@@ -68,7 +69,7 @@ public class BreadthFirstSearch extends AbstractAlgorithm<Graph, Void>
         for (EdgeNodePair n : Helper.in(bfs)) {
             predecessors.set(n.getNode(), n.getPred());
             if (n.getPred() != null) {
-                distances.set(n.getNode(), distances.get(predecessors.get(n.getNode()).start()) + 1);
+                distances.set(n.getNode(), distances.get(n.getPred().opposite(n.getNode())) + 1);
             } else {
                 distances.set(n.getNode(), 0);
             }
@@ -113,16 +114,26 @@ public class BreadthFirstSearch extends AbstractAlgorithm<Graph, Void>
         }
         if (reachableNodes == null) {
             reachableNodes = new HashSet<>();
-        }
-        for (Node n : getProblem()) {
-            if (distances.get(n) < Integer.MAX_VALUE) {
-                reachableNodes.add(n);
+            for (Node n : getProblem()) {
+                if (distances.get(n) < Integer.MAX_VALUE) {
+                    reachableNodes.add(n);
+                }
             }
         }
         return reachableNodes;
     }
 
+    /**
+     * Checks whether a node has been found by the run of the algorithm. See {@link CompactTraversal} for repeated
+     * reachability queries that do not allocate memory.
+     *
+     * @param node the node
+     * @return {@code true} if the node is reachable from the start node
+     */
     public boolean isReachable(Node node) {
-        return getReachableNodes().contains(node);
+        if (!this.isProblemSolved()) {
+            throw new IllegalStateException("Can only be called once the algorithm has run!");
+        }
+        return distances.get(node) < Integer.MAX_VALUE;
     }
 }
@@ -0,0 +1,394 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+import org.zetool.graph.Graph;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Breadth first search and depth first search working directly on node and edge ids. The graph is converted to
+ * adjacency arrays once, afterwards an arbitrary number of traversals can be run. The queue and stack are plain
+ * {@code int} arrays and the visited nodes are stored in a bit set, all of which are kept in a {@link Workspace} that
+ * is reused for the next traversal. Only the visited nodes are reset, thus a traversal only costs time for the part
+ * of the graph it actually reaches and does not allocate any memory.
+ *
+ * Directed graphs are traversed along outgoing edges (or along incoming edges, if the traversal is reversed) and
+ * undirected graphs along all incident edges. Events of the traversal are reported to an optional
+ * {@link TraversalVisitor}.
+ *
+ * The engine itself is immutable, so it can be shared by several threads that use their own workspace each.
+ */
+public class CompactTraversal {
+
+    private final CompressedSparseRow adjacency;
+    /** The workspace used by the convenience query methods. */
+    private final Workspace workspace;
+
+    /**
+     * Initializes the engine for forward traversals. Runtime O(n + m).
+     *
+     * @param graph the graph
+     */
+    public CompactTraversal(Graph graph) {
+        this(graph, false);
+    }
+
+    /**
+     * Initializes the engine. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param reverse whether directed graphs are traversed along incoming edges
+     */
+    public CompactTraversal(Graph graph, boolean reverse) {
+        this(CompressedSparseRow.of(graph, reverse));
+    }
+
+    /**
+     * Initializes the engine on existing adjacency arrays. Runtime O(n).
+     *
+     * @param adjacency the arcs that are traversed
+     */
+    public CompactTraversal(CompressedSparseRow adjacency) {
+        this.adjacency = adjacency;
+        this.workspace = createWorkspace();
+    }
+
+    /**
+     * Creates a new workspace that can be used for traversals on this engine. Runtime O(n).
+     *
+     * @return a new workspace
+     */
+    public final Workspace createWorkspace() {
+        return new Workspace(adjacency.nodeCapacity());
+    }
+
+    /**
+     * Returns the number of node ids, i.e. the size of the arrays in a workspace.
+     *
+     * @return the number of node ids
+     */
+    public int getNodeCapacity() {
+        return adjacency.nodeCapacity();
+    }
+
+    /**
+     * Returns the workspace used by the convenience query methods. It contains the result of the last traversal that
+     * was run by one of these methods.
+     *
+     * @return the default workspace
+     */
+    public Workspace getWorkspace() {
+        return workspace;
+    }
+
+    /**
+     * Checks whether {@code target} can be reached from {@code source} using the default workspace. The search stops
+     * as soon as the target is reached.
+     *
+     * @param source the id of the start node
+     * @param target the id of the target node
+     * @return whether a path from {@code source} to {@code target} exists
+     */
+    public boolean isReachable(int source, int target) {
+        return isReachable(workspace, source, target);
+    }
+
+    /**
+     * Checks whether {@code target} can be reached from {@code source}. The search stops as soon as the target is
+     * reached. Runtime O(n + m) in the worst case.
+     *
+     * @param workspace the workspace storing the visited nodes
+     * @param source the id of the start node
+     * @param target the id of the target node
+     * @return whether a path from {@code source} to {@code target} exists
+     */
+    public boolean isReachable(Workspace workspace, int source, int target) {
+        workspace.reset();
+        if (workspace.visit(source, -1, -1, 0, null) && source != target) {
+            scan(workspace, 0, target, null);
+        }
+        return workspace.isVisited(target);
+    }
+
+    /**
+     * Runs a breadth first search from a single node. The nodes are visited in order of their distance from the
+     * source. Runtime O(n + m) in the worst case.
+     *
+     * @param workspace the workspace storing the visited nodes
+     * @param source the id of the start node
+     * @param visitor receives the events of the traversal, may be {@code null}
+     * @return the number of visited nodes
+     */
+    public int breadthFirstSearch(Workspace workspace, int source, TraversalVisitor visitor) {
+        workspace.reset();
+        if (workspace.visit(source, -1, -1, 0, visitor)) {
+            scan(workspace, 0, -1, visitor);
+        }
+        return workspace.count;
+    }
+
+    /**
+     * Runs a breadth first search starting from several nodes at once. All sources have depth 0, duplicates are
+     * ignored. Runtime O(n + m) in the worst case.
+     *
+     * @param workspace the workspace storing the visited nodes
+     * @param sources the ids of the start nodes
+     * @param visitor receives the events of the traversal, may be {@code null}
+     * @return the number of visited nodes
+     */
+    public int breadthFirstSearch(Workspace workspace, int[] sources, TraversalVisitor visitor) {
+        workspace.reset();
+        for (int source : sources) {
+            if (!workspace.isVisited(source) && !workspace.visit(source, -1, -1, 0, visitor)) {
+                return workspace.count;
+            }
+        }
+        scan(workspace, 0, -1, visitor);
+        return workspace.count;
+    }
+
+    /**
+     * Processes the queue stored in the visit order of the workspace, starting at position {@code head}.
+     *
+     * @return {@code false} if the traversal has been stopped
+     */
+    private boolean scan(Workspace workspace, int head, int target, TraversalVisitor visitor) {
+        while (head < workspace.count) {
+            int v = workspace.order[head++];
+            int depth = workspace.depths[v] + 1;
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                int w = adjacency.head(arc);
+                if (workspace.isVisited(w)) {
+                    if (visitor != null) {
+                        visitor.nonTreeEdge(v, w, adjacency.edgeId(arc));
+                    }
+                } else if (!workspace.visit(w, v, adjacency.edgeId(arc), depth, visitor) || w == target) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs a depth first search from a single node. Runtime O(n + m) in the worst case.
+     *
+     * @param workspace the workspace storing the visited nodes
+     * @param source the id of the start node
+     * @param visitor receives the events of the traversal, may be {@code null}
+     * @return the number of visited nodes
+     */
+    public int depthFirstSearch(Workspace workspace, int source, TraversalVisitor visitor) {
+        workspace.reset();
+        search(workspace, source, visitor);
+        return workspace.count;
+    }
+
+    /**
+     * Runs depth first searches from several nodes one after another. Each search only visits nodes that have not
+     * been visited by a previous search, i.e. the result is a depth first search forest. Passing all nodes yields a
+     * traversal of the complete graph. Runtime O(n + m) in the worst case.
+     *
+     * @param workspace the workspace storing the visited nodes
+     * @param sources the ids of the start nodes
+     * @param visitor receives the events of the traversal, may be {@code null}
+     * @return the number of visited nodes
+     */
+    public int depthFirstSearch(Workspace workspace, int[] sources, TraversalVisitor visitor) {
+        workspace.reset();
+        for (int source : sources) {
+            if (!workspace.isVisited(source) && !search(workspace, source, visitor)) {
+                break;
+            }
+        }
+        return workspace.count;
+    }
+
+    /**
+     * Iterative depth first search. The position of the next arc to scan is stored for each node on the stack.
+     *
+     * @return {@code false} if the traversal has been stopped
+     */
+    private boolean search(Workspace workspace, int source, TraversalVisitor visitor) {
+        if (!workspace.visit(source, -1, -1, 0, visitor)) {
+            return false;
+        }
+        int[] stack = workspace.stack;
+        int[] nextArc = workspace.nextArc;
+        int top = 0;
+        stack[top++] = source;
+        nextArc[source] = adjacency.begin(source);
+        while (top > 0) {
+            int v = stack[top - 1];
+            int arc = nextArc[v];
+            if (arc < adjacency.end(v)) {
+                nextArc[v] = arc + 1;
+                int w = adjacency.head(arc);
+                if (workspace.isVisited(w)) {
+                    if (visitor != null) {
+                        visitor.nonTreeEdge(v, w, adjacency.edgeId(arc));
+                    }
+                    continue;
+                }
+                if (!workspace.visit(w, v, adjacency.edgeId(arc), top, visitor)) {
+                    return false;
+                }
+                nextArc[w] = adjacency.begin(w);
+                stack[top++] = w;
+            } else {
+                top--;
+                if (visitor != null) {
+                    visitor.finish(v);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The data of a single traversal. A workspace can be reused for any number of traversals on the engine that
+     * created it, but must not be used by several threads at the same time. The data of a node is only valid if it
+     * has been visited by the last traversal.
+     */
+    public static final class Workspace {
+
+        /** Bit set of the visited nodes. */
+        private final long[] visited;
+        /** The visited nodes in the order of their discovery, also used as queue by breadth first search. */
+        private final int[] order;
+        private final int[] stack;
+        private final int[] nextArc;
+        private final int[] predecessorNodes;
+        private final int[] predecessorEdges;
+        private final int[] depths;
+        /** The number of visited nodes. */
+        private int count;
+
+        private Workspace(int nodeCapacity) {
+            visited = new long[(nodeCapacity + 63) >>> 6];
+            order = new int[nodeCapacity];
+            stack = new int[nodeCapacity];
+            nextArc = new int[nodeCapacity];
+            predecessorNodes = new int[nodeCapacity];
+            predecessorEdges = new int[nodeCapacity];
+            depths = new int[nodeCapacity];
+        }
+
+        /**
+         * Unmarks the nodes visited by the previous traversal. Runtime O(number of visited nodes).
+         */
+        void reset() {
+            for (int i = 0; i < count; ++i) {
+                visited[order[i] >>> 6] = 0;
+            }
+            count = 0;
+        }
+
+        /**
+         * Marks a node as visited and reports it to the visitor.
+         *
+         * @return whether the traversal continues
+         */
+        boolean visit(int node, int predecessorNode, int predecessorEdge, int depth, TraversalVisitor visitor) {
+            visited[node >>> 6] |= 1L << node;
+            order[count++] = node;
+            predecessorNodes[node] = predecessorNode;
+            predecessorEdges[node] = predecessorEdge;
+            depths[node] = depth;
+            return visitor == null || visitor.discover(node, predecessorEdge, depth);
+        }
+
+        /**
+         * Checks whether a node has been visited by the last traversal.
+         *
+         * @param node the node id
+         * @return {@code true} if the node has been visited
+         */
+        public boolean isVisited(int node) {
+            return (visited[node >>> 6] & 1L << node) != 0;
+        }
+
+        /**
+         * Returns the number of nodes visited by the last traversal.
+         *
+         * @return the number of visited nodes
+         */
+        public int getVisitedCount() {
+            return count;
+        }
+
+        /**
+         * Returns a visited node by the position of its discovery.
+         *
+         * @param index the position, between 0 and {@link #getVisitedCount()} (exclusive)
+         * @return the id of the node that has been discovered at the given position
+         */
+        public int getVisitedNode(int index) {
+            if (index >= count) {
+                throw new IndexOutOfBoundsException("Only " + count + " nodes visited");
+            }
+            return order[index];
+        }
+
+        /**
+         * Returns the number of tree edges between the start node and a node. For breadth first search this is the
+         * unweighted distance.
+         *
+         * @param node the node id
+         * @return the depth of the node, or {@code Integer.MAX_VALUE} if it is not visited
+         */
+        public int getDepth(int node) {
+            return isVisited(node) ? depths[node] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Returns the id of the node from which a node has been reached.
+         *
+         * @param node the node id
+         * @return the id of the parent in the traversal tree, or -1 for start nodes and nodes that are not visited
+         */
+        public int getPredecessorNode(int node) {
+            return isVisited(node) ? predecessorNodes[node] : -1;
+        }
+
+        /**
+         * Returns the id of the edge via which a node has been reached.
+         *
+         * @param node the node id
+         * @return the id of the tree edge, or -1 for start nodes and nodes that are not visited
+         */
+        public int getPredecessorEdge(int node) {
+            return isVisited(node) ? predecessorEdges[node] : -1;
+        }
+
+        /**
+         * Returns the ids of the tree edges from a start node to the given node.
+         *
+         * @param node the node id
+         * @return the edge ids in order from the start node, or {@code null} if the node is not visited
+         */
+        public int[] getPathEdges(int node) {
+            if (!isVisited(node)) {
+                return null;
+            }
+            int[] path = new int[depths[node]];
+            for (int v = node, i = path.length - 1; i >= 0; v = predecessorNodes[v], --i) {
+                path[i] = predecessorEdges[v];
+            }
+            return path;
+        }
+    }
+}
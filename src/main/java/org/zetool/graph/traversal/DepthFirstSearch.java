@@ -7,10 +7,8 @@ import org.zetool.graph.Graph;
 import org.zetool.graph.Edge;
 import org.zetool.graph.Node;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import org.zetool.common.algorithm.AbstractAlgorithm;
 
 /**
@@ -39,8 +37,6 @@ public class DepthFirstSearch extends AbstractAlgorithm<Graph, Void> {
   public List<Edge> crossEdges;
   public List<Edge> forwardEdges;
   public List<Edge> treeEdges;
-  //private Map<Node,Integer> numbering;
-  private Map<Node, State> states;
 
 
   public void setStart( Node source ) {
@@ -102,7 +98,6 @@ public class DepthFirstSearch extends AbstractAlgorithm<Graph, Void> {
     forwardEdges = new ArrayList<>( graph.edgeCount() );
     treeEdges = new ArrayList<>( graph.edgeCount() );
     numbering = new IdentifiableIntegerMapping<>( graph.nodeCount() );
-    states = new HashMap<>( graph.nodeCount() );
     predecessors = new IdentifiableObjectMapping<>( graph.nodeCount() );
     currentNumber = 1;
   }
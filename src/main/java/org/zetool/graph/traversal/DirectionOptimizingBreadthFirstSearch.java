@@ -0,0 +1,348 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+import org.zetool.graph.util.ParallelFor;
+import org.zetool.graph.util.PredecessorMap;
+
+/**
+ * Parallel direction optimizing breadth first search due to Beamer, Asanović and Patterson. The search proceeds level
+ * by level. A top down step scans the arcs leaving the nodes of the current frontier, a bottom up step lets every
+ * unvisited node search its incoming arcs for a node in the frontier and stops at the first one found. Bottom up steps
+ * are much cheaper once the frontier contains a large part of the graph, which happens after few levels in graphs
+ * with low diameter.
+ *
+ * The search switches to bottom up when the arcs leaving the frontier times {@link #setAlpha(double) alpha} exceed
+ * the arcs leaving unvisited nodes while the frontier grows. It switches back to top down once the frontier shrinks and
+ * its size times {@link #setBeta(double) beta} is smaller than the number of nodes.
+ *
+ * Frontiers and visited nodes are bit sets, each step is processed in parallel on blocks of them. Undirected graphs
+ * are searched along all incident edges. The distances are the same as computed by {@link BreadthFirstSearch}, if a
+ * node can be reached via several nodes of the previous level the predecessor edge may depend on the scheduling.
+ */
+public class DirectionOptimizingBreadthFirstSearch extends AbstractAlgorithm<Graph, Void>
+        implements PredecessorMap<Edge, Node> {
+
+    /** The default factor for switching from top down to bottom up. */
+    public static final double DEFAULT_ALPHA = 14;
+    /** The default factor for switching from bottom up to top down. */
+    public static final double DEFAULT_BETA = 24;
+    /** The number of bit set words processed sequentially by one task. */
+    private static final int GRAIN = 16;
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private double alpha = DEFAULT_ALPHA;
+    private double beta = DEFAULT_BETA;
+    /** The start node for the search. If null, all nodes are iterated over. */
+    private Node start;
+
+    /** The distances indexed by node id. */
+    private int[] distances;
+    /** The predecessor edge ids indexed by node id. */
+    private int[] predecessorEdges;
+    /** The edges indexed by id. */
+    private Edge[] edges;
+    /** All nodes reachable by one run of the algorithm, computed on demand. */
+    private Set<Node> reachableNodes;
+    private int topDownSteps;
+    private int bottomUpSteps;
+
+    private CompressedSparseRow outgoing;
+    private CompressedSparseRow incoming;
+    private AtomicLongArray visited;
+    private AtomicLongArray frontier;
+    private AtomicLongArray next;
+
+    /**
+     * Defines the starting vertex of the search. If no start vertex is defined, searches are started from all
+     * vertices that have not been reached by a previous search, in the order of the nodes of the graph. As each
+     * search is parallel on the complete node range, this is only efficient for graphs with few components.
+     *
+     * @param source the start vertex, can be {@code null}
+     */
+    public void setStart(Node source) {
+        this.start = source;
+    }
+
+    /**
+     * Sets the pool that processes the steps. By default the common pool is used.
+     *
+     * @param pool the pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the factor for switching from top down to bottom up steps. A value of 0 disables bottom up steps, positive
+     * infinity uses bottom up steps from the start.
+     *
+     * @param alpha the non-negative factor
+     */
+    public void setAlpha(double alpha) {
+        if (!(alpha >= 0)) {
+            throw new IllegalArgumentException("Alpha must not be negative: " + alpha);
+        }
+        this.alpha = alpha;
+    }
+
+    /**
+     * Sets the factor for switching from bottom up back to top down steps. Positive infinity disables switching back.
+     *
+     * @param beta the non-negative factor
+     */
+    public void setBeta(double beta) {
+        if (!(beta >= 0)) {
+            throw new IllegalArgumentException("Beta must not be negative: " + beta);
+        }
+        this.beta = beta;
+    }
+
+    @Override
+    protected Void runAlgorithm(Graph problem) {
+        outgoing = CompressedSparseRow.of(problem);
+        incoming = CompressedSparseRow.of(problem, true);
+        int words = (outgoing.nodeCapacity() + 63) >>> 6;
+        distances = new int[outgoing.nodeCapacity()];
+        predecessorEdges = new int[outgoing.nodeCapacity()];
+        edges = new Edge[outgoing.edgeCapacity()];
+        visited = new AtomicLongArray(words);
+        frontier = new AtomicLongArray(words);
+        next = new AtomicLongArray(words);
+        reachableNodes = null;
+        topDownSteps = 0;
+        bottomUpSteps = 0;
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        Arrays.fill(predecessorEdges, -1);
+        for (Edge edge : problem.edges()) {
+            edges[edge.id()] = edge;
+        }
+
+        long unexplored = outgoing.arcCount();
+        if (start != null) {
+            search(start.id(), unexplored);
+        } else {
+            for (Node node : problem.nodes()) {
+                if (distances[node.id()] == Integer.MAX_VALUE) {
+                    unexplored = search(node.id(), unexplored);
+                }
+            }
+        }
+        outgoing = null;
+        incoming = null;
+        visited = null;
+        frontier = null;
+        next = null;
+        return null;
+    }
+
+    /**
+     * Runs a single search.
+     *
+     * @return the number of arcs leaving nodes that are still unvisited
+     */
+    private long search(int source, long unexplored) {
+        int nodeCapacity = outgoing.nodeCapacity();
+        int words = visited.length();
+        set(visited, source);
+        set(frontier, source);
+        distances[source] = 0;
+        int frontierSize = 1;
+        int previousSize = 0;
+        long frontierArcs = outgoing.degree(source);
+        unexplored -= frontierArcs;
+        boolean bottomUp = false;
+        for (int level = 1; frontierSize > 0; ++level) {
+            boolean growing = frontierSize > previousSize;
+            if (bottomUp) {
+                bottomUp = growing || frontierSize * beta >= nodeCapacity;
+            } else {
+                bottomUp = growing && frontierArcs * alpha > unexplored;
+            }
+            int depth = level;
+            if (bottomUp) {
+                ParallelFor.forEach(pool, 0, words, GRAIN, word -> bottomUpStep(word, depth));
+                bottomUpSteps++;
+            } else {
+                ParallelFor.forEach(pool, 0, words, GRAIN, word -> topDownStep(word, depth));
+                topDownSteps++;
+            }
+
+            previousSize = frontierSize;
+            frontierSize = 0;
+            frontierArcs = 0;
+            for (int word = 0; word < words; ++word) {
+                long bits = next.get(word);
+                frontier.set(word, bits);
+                next.set(word, 0);
+                frontierSize += Long.bitCount(bits);
+                for (; bits != 0; bits &= bits - 1) {
+                    frontierArcs += outgoing.degree(word << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+            unexplored -= frontierArcs;
+        }
+        return unexplored;
+    }
+
+    /**
+     * Scans the arcs leaving the frontier nodes in one word. Unvisited heads are claimed atomically, because they can
+     * be reached from frontier nodes of other words.
+     */
+    private void topDownStep(int word, int depth) {
+        for (long bits = frontier.get(word); bits != 0; bits &= bits - 1) {
+            int v = word << 6 | Long.numberOfTrailingZeros(bits);
+            for (int arc = outgoing.begin(v); arc < outgoing.end(v); ++arc) {
+                int w = outgoing.head(arc);
+                if (set(visited, w)) {
+                    distances[w] = depth;
+                    predecessorEdges[w] = outgoing.edgeId(arc);
+                    set(next, w);
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches a frontier node among the tails of the arcs entering the unvisited nodes of one word. Only the task
+     * processing a word writes to it, thus no atomic updates are necessary.
+     */
+    private void bottomUpStep(int word, int depth) {
+        long found = 0;
+        for (long bits = ~visited.get(word); bits != 0; bits &= bits - 1) {
+            int v = word << 6 | Long.numberOfTrailingZeros(bits);
+            if (v >= incoming.nodeCapacity()) {
+                break;
+            }
+            for (int arc = incoming.begin(v); arc < incoming.end(v); ++arc) {
+                if (isSet(frontier, incoming.head(arc))) {
+                    distances[v] = depth;
+                    predecessorEdges[v] = incoming.edgeId(arc);
+                    found |= 1L << v;
+                    break;
+                }
+            }
+        }
+        if (found != 0) {
+            visited.set(word, visited.get(word) | found);
+            next.set(word, found);
+        }
+    }
+
+    private static boolean isSet(AtomicLongArray bits, int index) {
+        return (bits.get(index >>> 6) & 1L << index) != 0;
+    }
+
+    /**
+     * Atomically sets a bit.
+     *
+     * @return {@code true} if the bit was not set before
+     */
+    private static boolean set(AtomicLongArray bits, int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long old = bits.get(word);
+        while ((old & mask) == 0) {
+            if (bits.compareAndSet(word, old, old | mask)) {
+                return true;
+            }
+            old = bits.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of edges on a shortest path from the start node.
+     *
+     * @param end the node
+     * @return the distance, or {@code Integer.MAX_VALUE} if the node is not reachable
+     */
+    public int getDistance(Node end) {
+        return distances[end.id()];
+    }
+
+    /**
+     * Returns the edge in the shortest path tree that is incoming to node {@code n}.
+     *
+     * @param n the node
+     * @return the predecessor arc on the shortest path, {@code null} for start nodes and unreachable nodes
+     */
+    @Override
+    public Edge getPredecessor(Node n) {
+        int edge = predecessorEdges[n.id()];
+        return edge < 0 ? null : edges[edge];
+    }
+
+    /**
+     * Returns a set containing all nodes found by the run of the algorithm.
+     *
+     * @return a set of reachable nodes
+     */
+    public Set<Node> getReachableNodes() {
+        if (!this.isProblemSolved()) {
+            throw new IllegalStateException("Can only be called once the algorithm has run!");
+        }
+        if (reachableNodes == null) {
+            reachableNodes = new HashSet<>();
+            for (Node n : getProblem()) {
+                if (distances[n.id()] < Integer.MAX_VALUE) {
+                    reachableNodes.add(n);
+                }
+            }
+        }
+        return reachableNodes;
+    }
+
+    public boolean isReachable(Node node) {
+        if (!this.isProblemSolved()) {
+            throw new IllegalStateException("Can only be called once the algorithm has run!");
+        }
+        return distances[node.id()] < Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of top down steps of the last run.
+     *
+     * @return the number of top down steps
+     */
+    public int getTopDownStepCount() {
+        return topDownSteps;
+    }
+
+    /**
+     * Returns the number of bottom up steps of the last run.
+     *
+     * @return the number of bottom up steps
+     */
+    public int getBottomUpStepCount() {
+        return bottomUpSteps;
+    }
+}
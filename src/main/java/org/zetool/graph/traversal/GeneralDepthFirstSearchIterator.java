@@ -5,10 +5,11 @@
 package org.zetool.graph.traversal;
 
 import org.zetool.graph.Graph;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.Queue;
-import java.util.Stack;
 
 
 /**
@@ -41,28 +42,30 @@ public class GeneralDepthFirstSearchIterator extends AbstractGraphSearchIterator
   }
 
   /**
-   * Utility class that takes a stack and makes its methods ({@link Stack#pop() }
-   * and {@link Stack#push(java.lang.Object) }) available for the {@link Queue}
+   * Utility class that takes a stack and makes its methods ({@link Deque#pop() }
+   * and {@link Deque#push(java.lang.Object) }) available for the {@link Queue}
    * interface, such that it can be used by the {@link AbstractGraphSearchIterator}.
-   * <p>The class maps {@link Stack#push(java.lang.Object) to {@link Queue#offer(java.lang.Object) }
-   * to insert elements into the datastructure and {@link Stack#pop() } to
-   * {@link Queue#poll() } to remove elements.</p>
+   * <p>The class maps {@link Deque#push(java.lang.Object) to {@link Queue#offer(java.lang.Object) }
+   * to insert elements into the datastructure and {@link Deque#pop() } to
+   * {@link Queue#poll() } to remove elements. The stack is an unsynchronized
+   * {@link ArrayDeque}.</p>
    * @param <E> 
    */
   private static class StackAsQueue<E> implements Queue<E> {
     /** The internal stack. */
-    private final Stack<E> stack;
+    private final Deque<E> stack;
     
     /**
      * Initializes a stack accessible via the queue interface.
      */
     StackAsQueue() {
-      stack = new Stack<>();
+      stack = new ArrayDeque<>();
     }
 
     @Override
     public boolean offer( E e ) {
-      return stack.push( e ) != null;
+      stack.push( e );
+      return true;
     }
 
     @Override
@@ -0,0 +1,121 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+import java.util.Arrays;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Topological sorting of a directed graph by Kahn's algorithm. Nodes without remaining incoming edges are removed
+ * from the graph one after another, which yields an order in which each edge leads from an earlier to a later node.
+ * The in-degrees and the queue are primitive arrays indexed by node id. Runtime O(n + m).
+ *
+ * The solution contains the ids of the nodes in topological order. If the graph contains a cycle, the nodes on a
+ * cycle and all nodes reachable from one cannot be ordered. The solution then only contains the remaining nodes, which
+ * are still ordered topologically, and {@link #isAcyclic()} returns {@code false}.
+ */
+public class TopologicalSort extends AbstractAlgorithm<DirectedGraph, int[]> {
+
+    /** The nodes that could not be ordered in the last run. */
+    private int[] cyclicNodes;
+
+    @Override
+    protected int[] runAlgorithm(DirectedGraph problem) {
+        if (!problem.isDirected()) {
+            throw new IllegalArgumentException("Graph is not directed.");
+        }
+        int[] nodes = new int[problem.nodeCount()];
+        int i = 0;
+        for (Node node : problem.nodes()) {
+            nodes[i++] = node.id();
+        }
+        CompressedSparseRow adjacency = CompressedSparseRow.of(problem);
+        int[] order = sort(adjacency, nodes);
+        boolean[] sorted = new boolean[adjacency.nodeCapacity()];
+        for (int v : order) {
+            sorted[v] = true;
+        }
+        cyclicNodes = new int[nodes.length - order.length];
+        i = 0;
+        for (int v : nodes) {
+            if (!sorted[v]) {
+                cyclicNodes[i++] = v;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Checks whether the graph of the last run is acyclic, i.e. the solution contains all nodes.
+     *
+     * @return {@code true} if the graph does not contain a directed cycle
+     */
+    public boolean isAcyclic() {
+        if (!this.isProblemSolved()) {
+            throw new IllegalStateException("Can only be called once the algorithm has run!");
+        }
+        return cyclicNodes.length == 0;
+    }
+
+    /**
+     * Returns the nodes of the last run that are not contained in the order. Each of them lies on a cycle or can be
+     * reached from a cycle.
+     *
+     * @return the ids of the nodes that could not be ordered
+     */
+    public int[] getCyclicNodes() {
+        if (!this.isProblemSolved()) {
+            throw new IllegalStateException("Can only be called once the algorithm has run!");
+        }
+        return cyclicNodes.clone();
+    }
+
+    /**
+     * Sorts the given nodes topologically with respect to the arcs between them. Nodes without incoming arcs are
+     * processed in the given order. Runtime O(n + m).
+     *
+     * @param adjacency the arcs of the graph
+     * @param nodes the ids of all nodes of the graph
+     * @return the node ids in topological order, shorter than {@code nodes} if the graph contains a cycle
+     */
+    public static int[] sort(CompressedSparseRow adjacency, int[] nodes) {
+        int[] inDegree = new int[adjacency.nodeCapacity()];
+        for (int v : nodes) {
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                inDegree[adjacency.head(arc)]++;
+            }
+        }
+        int[] order = new int[nodes.length];
+        int tail = 0;
+        for (int v : nodes) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; ++head) {
+            int v = order[head];
+            for (int arc = adjacency.begin(v); arc < adjacency.end(v); ++arc) {
+                if (--inDegree[adjacency.head(arc)] == 0) {
+                    order[tail++] = adjacency.head(arc);
+                }
+            }
+        }
+        return tail == order.length ? order : Arrays.copyOf(order, tail);
+    }
+}
@@ -0,0 +1,57 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+/**
+ * Callbacks of a {@link CompactTraversal}. Nodes and edges are passed by their ids, thus visiting a node does not
+ * create any objects. All methods have empty default implementations, so only the needed events have to be
+ * implemented.
+ */
+public interface TraversalVisitor {
+
+    /**
+     * Called when a node is reached for the first time. Returning {@code false} stops the whole traversal
+     * immediately.
+     *
+     * @param node the id of the reached node
+     * @param edge the id of the edge via which the node is reached, -1 for start nodes
+     * @param depth the number of tree edges between the start node and the node
+     * @return whether the traversal continues
+     */
+    default boolean discover(int node, int edge, int depth) {
+        return true;
+    }
+
+    /**
+     * Called for an arc whose head has already been reached before. For undirected graphs this includes the tree
+     * edge back to the parent.
+     *
+     * @param tail the id of the node the arc leaves
+     * @param head the id of the node the arc enters
+     * @param edge the id of the edge
+     */
+    default void nonTreeEdge(int tail, int head, int edge) {
+    }
+
+    /**
+     * Called by depth first search when all arcs leaving a node have been scanned, i.e. in post order. Not called
+     * for the nodes remaining on the stack if the traversal is stopped.
+     *
+     * @param node the id of the finished node
+     */
+    default void finish(int node) {
+    }
+}
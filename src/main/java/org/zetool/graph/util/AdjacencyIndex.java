@@ -0,0 +1,294 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import java.util.Arrays;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.GraphChangeListener;
+import org.zetool.graph.GraphChangeSet;
+import org.zetool.graph.Node;
+
+/**
+ * Finds the edges between two nodes in expected constant time, independent of the degree of the nodes. The edges are
+ * stored in an open addressing hash table with linear probing keyed on the pair of the start and end node ids. Parallel
+ * edges with the same key are chained by their edge ids. The key is ordered, thus for undirected graphs an edge is
+ * only found if it is queried with its start and end node in the same order.
+ *
+ * The index is kept consistent with a graph by registering it as {@link GraphChangeListener}, hidden edges are not
+ * contained. Edge ids should not be much larger than the number of edges.
+ */
+public final class AdjacencyIndex implements GraphChangeListener {
+
+    /** Marks an empty slot and the end of a chain. */
+    private static final int NONE = -1;
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /** The keys of the slots. */
+    private long[] keys;
+    /** The id of the first edge of each slot, {@link #NONE} if the slot is empty. */
+    private int[] firsts;
+    /** The number of occupied slots. */
+    private int keyCount;
+    /** The next edge with the same key, indexed by edge id. */
+    private int[] nexts = new int[0];
+    /** The indexed edges by id. */
+    private Edge[] edges = new Edge[0];
+    private int size;
+
+    public AdjacencyIndex() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty index with room for the given number of edges.
+     *
+     * @param expectedEdges the expected number of edges
+     */
+    public AdjacencyIndex(int expectedEdges) {
+        allocate(Math.max(MINIMUM_CAPACITY, Integer.highestOneBit(Math.max(1, 2 * expectedEdges - 1)) << 1));
+    }
+
+    /**
+     * Creates an index of the edges of a graph. Runtime O(m).
+     *
+     * @param graph the graph
+     * @return the index of the edges
+     */
+    public static AdjacencyIndex of(Graph graph) {
+        AdjacencyIndex index = new AdjacencyIndex(graph.edgeCount());
+        for (Edge edge : graph.edges()) {
+            index.add(edge);
+        }
+        return index;
+    }
+
+    /**
+     * Adds an edge to the index, if it is not already contained. Runtime O(1) expected, plus the number of parallel
+     * edges.
+     *
+     * @param edge the edge
+     */
+    public void add(Edge edge) {
+        int id = edge.id();
+        ensureEdgeCapacity(id + 1);
+        if (edges[id] != null) {
+            if (edges[id] == edge) {
+                return;
+            }
+            remove(edges[id]);
+        }
+        if (2 * (keyCount + 1) > keys.length) {
+            rehash(2 * keys.length);
+        }
+        edges[id] = edge;
+        nexts[id] = NONE;
+        size++;
+        long key = key(edge.start().id(), edge.end().id());
+        int slot = find(key);
+        if (firsts[slot] == NONE) {
+            keys[slot] = key;
+            firsts[slot] = id;
+            keyCount++;
+        } else {
+            int last = firsts[slot];
+            while (nexts[last] != NONE) {
+                last = nexts[last];
+            }
+            nexts[last] = id;
+        }
+    }
+
+    /**
+     * Removes an edge from the index, if an equal edge is contained. Runtime O(1) expected, plus the number of parallel
+     * edges.
+     *
+     * @param edge the edge
+     */
+    public void remove(Edge edge) {
+        if (!contains(edge)) {
+            return;
+        }
+        int id = edge.id();
+        Edge indexed = edges[id];
+        int slot = find(key(indexed.start().id(), indexed.end().id()));
+        if (firsts[slot] == id) {
+            firsts[slot] = nexts[id];
+            if (firsts[slot] == NONE) {
+                delete(slot);
+            }
+        } else {
+            int previous = firsts[slot];
+            while (nexts[previous] != id) {
+                previous = nexts[previous];
+            }
+            nexts[previous] = nexts[id];
+        }
+        edges[id] = null;
+        size--;
+    }
+
+    /**
+     * Checks whether an edge is contained in the index. Edges are compared by {@link Edge#equals(Object)}, thus an
+     * equal copy of an indexed edge is contained, too. Runtime O(1).
+     *
+     * @param edge the edge
+     * @return {@code true} if the edge is contained
+     */
+    public boolean contains(Edge edge) {
+        int id = edge.id();
+        return id >= 0 && id < edges.length && edges[id] != null && edges[id].equals(edge);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(MINIMUM_CAPACITY);
+        Arrays.fill(edges, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the id of the first edge from a node to another node. Together with {@link #nextEdgeId(int)} the edges
+     * can be iterated without allocation. Runtime O(1) expected.
+     *
+     * @param start the id of the start node
+     * @param end the id of the end node
+     * @return the id of the first edge, or -1 if there is no such edge
+     */
+    public int firstEdgeId(int start, int end) {
+        return firsts[find(key(start, end))];
+    }
+
+    /**
+     * Returns the id of the next edge with the same start and end node. Runtime O(1).
+     *
+     * @param edgeId the id of an indexed edge
+     * @return the id of the next edge, or -1 if there is no further edge
+     */
+    public int nextEdgeId(int edgeId) {
+        return nexts[edgeId];
+    }
+
+    /**
+     * Returns an edge from a node to another node. Runtime O(1) expected.
+     *
+     * @param start the start node
+     * @param end the end node
+     * @return the first indexed edge from {@code start} to {@code end}, or {@code null} if there is none
+     */
+    public Edge get(Node start, Node end) {
+        int id = firstEdgeId(start.id(), end.id());
+        return id == NONE ? null : edges[id];
+    }
+
+    /**
+     * Returns all edges from a node to another node in the order in which they have been added. Runtime O(1)
+     * expected, plus the number of returned edges.
+     *
+     * @param start the start node
+     * @param end the end node
+     * @return the edges from {@code start} to {@code end}
+     */
+    public ListSequence<Edge> getAll(Node start, Node end) {
+        ListSequence<Edge> result = new ListSequence<>();
+        for (int id = firstEdgeId(start.id(), end.id()); id != NONE; id = nexts[id]) {
+            result.add(edges[id]);
+        }
+        return result;
+    }
+
+    @Override
+    public void graphChanged(GraphChangeSet changes) {
+        for (Edge edge : changes.getRemovedEdges()) {
+            remove(edge);
+        }
+        for (Edge edge : changes.getAddedEdges()) {
+            add(edge);
+        }
+    }
+
+    private static long key(int start, int end) {
+        return (long) start << 32 | end & 0xffffffffL;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32 ^ hash) & (keys.length - 1);
+    }
+
+    /**
+     * Returns the slot containing the key, or the empty slot where it would be inserted.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key);
+        while (firsts[slot] != NONE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot and moves following entries of the probe sequence back, so that no tombstones are necessary.
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int current = (slot + 1) & mask; firsts[current] != NONE; current = (current + 1) & mask) {
+            int home = slot(keys[current]);
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                keys[hole] = keys[current];
+                firsts[hole] = firsts[current];
+                hole = current;
+            }
+        }
+        firsts[hole] = NONE;
+        keyCount--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        firsts = new int[capacity];
+        Arrays.fill(firsts, NONE);
+        keyCount = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldFirsts = firsts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldFirsts[i] != NONE) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                firsts[slot] = oldFirsts[i];
+                keyCount++;
+            }
+        }
+    }
+
+    private void ensureEdgeCapacity(int capacity) {
+        if (capacity > edges.length) {
+            int newCapacity = Math.max(capacity, 2 * edges.length);
+            edges = Arrays.copyOf(edges, newCapacity);
+            nexts = Arrays.copyOf(nexts, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.zetool.graph.CompactDirectedGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+
+/**
+ * Immutable adjacency arrays of a graph in compressed sparse row layout. The arcs leaving the node with id {@code v}
+ * are stored at the positions {@code begin(v)} (inclusive) to {@code end(v)} (exclusive) and consist of the id of the
+ * node at the other end of the arc and the id of the edge. Nodes and edges are only referred to by their ids, thus
+ * algorithms working on the arrays do not need to access any {@link Node} or {@link Edge} objects.
+ *
+ * The arrays are indexed by node id, thus node ids of the graph do not need to be successive but should not be much
+ * larger than the number of nodes.
+ */
+public final class CompressedSparseRow {
+
+    /** The number of arcs below which the arrays are created sequentially. */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /** The number of arcs or nodes processed sequentially by one task. */
+    private static final int GRAIN = 1 << 12;
+
+    /** The first arc position for each node id, the entry after the last node marks the end of the arcs. */
+    private final int[] offsets;
+    /** The node id at the other end of each arc. */
+    private final int[] heads;
+    /** The edge id of each arc. */
+    private final int[] edgeIds;
+    /** The number of edge ids, i.e. the largest edge id plus one. */
+    private final int edgeCapacity;
+    /** Whether the arcs of each node are sorted by their head. */
+    private final boolean sorted;
+
+    private CompressedSparseRow(int[] offsets, int[] heads, int[] edgeIds, int edgeCapacity, boolean sorted) {
+        this.offsets = offsets;
+        this.heads = heads;
+        this.edgeIds = edgeIds;
+        this.edgeCapacity = edgeCapacity;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Returns the arcs leaving the nodes of a graph. For directed graphs these are the outgoing edges, for undirected
+     * graphs each edge is contained in both directions. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @return the adjacency arrays of the graph
+     */
+    public static CompressedSparseRow of(Graph graph) {
+        return of(graph, false);
+    }
+
+    /**
+     * Returns the arcs leaving the nodes of a graph, or the arcs entering the nodes if {@code reverse} is set. The
+     * arrays are shared if the graph already is a {@link CompactDirectedGraph}. Undirected graphs contain each edge in
+     * both directions and are not affected by {@code reverse}. Runtime O(n + m).
+     *
+     * @param graph the graph
+     * @param reverse whether the incoming edges of directed graphs are stored
+     * @return the adjacency arrays of the graph
+     */
+    public static CompressedSparseRow of(Graph graph, boolean reverse) {
+        if (graph instanceof CompactDirectedGraph) {
+            CompactDirectedGraph compact = (CompactDirectedGraph) graph;
+            return reverse ? compact.incomingAdjacency() : compact.outgoingAdjacency();
+        }
+        int nodeCapacity = 0;
+        for (Node node : graph.nodes()) {
+            nodeCapacity = Math.max(nodeCapacity, node.id() + 1);
+        }
+        boolean directed = graph.isDirected();
+        int[] tails = new int[directed ? graph.edgeCount() : 2 * graph.edgeCount()];
+        int[] heads = new int[tails.length];
+        int[] ids = new int[tails.length];
+        int arcs = 0;
+        for (Edge edge : graph.edges()) {
+            int start = edge.start().id();
+            int end = edge.end().id();
+            if (directed && reverse) {
+                start = end;
+                end = edge.start().id();
+            }
+            tails[arcs] = start;
+            heads[arcs] = end;
+            ids[arcs++] = edge.id();
+            if (!directed && start != end) {
+                tails[arcs] = end;
+                heads[arcs] = start;
+                ids[arcs++] = edge.id();
+            }
+        }
+        return fromArcs(nodeCapacity, tails, heads, ids, arcs);
+    }
+
+    /**
+     * Creates the adjacency arrays for the given arcs, which are sorted by their tail using counting sort. The arc
+     * with index {@code i} leaves the node {@code tails[i]}, enters the node {@code heads[i]} and belongs to the edge
+     * {@code edgeIds[i]}. Runtime O(n + m).
+     *
+     * @param nodeCapacity the number of node ids, all node ids have to be smaller
+     * @param tails the node ids where the arcs leave
+     * @param heads the node ids where the arcs enter
+     * @param edgeIds the edge ids of the arcs
+     * @param arcCount the number of arcs, only the first {@code arcCount} entries of the arrays are used
+     * @return the adjacency arrays
+     * @throws IllegalArgumentException if a node id is negative or not smaller than {@code nodeCapacity}
+     */
+    public static CompressedSparseRow fromArcs(int nodeCapacity, int[] tails, int[] heads, int[] edgeIds,
+            int arcCount) {
+        int[] offsets = new int[nodeCapacity + 1];
+        int edgeCapacity = 0;
+        for (int i = 0; i < arcCount; ++i) {
+            checkNode(tails[i], nodeCapacity);
+            checkNode(heads[i], nodeCapacity);
+            offsets[tails[i] + 1]++;
+            edgeCapacity = Math.max(edgeCapacity, edgeIds[i] + 1);
+        }
+        for (int v = 0; v < nodeCapacity; ++v) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = new int[nodeCapacity];
+        System.arraycopy(offsets, 0, next, 0, nodeCapacity);
+        int[] sortedHeads = new int[arcCount];
+        int[] sortedIds = new int[arcCount];
+        for (int i = 0; i < arcCount; ++i) {
+            int position = next[tails[i]]++;
+            sortedHeads[position] = heads[i];
+            sortedIds[position] = edgeIds[i];
+        }
+        return new CompressedSparseRow(offsets, sortedHeads, sortedIds, edgeCapacity, false);
+    }
+
+    /**
+     * Returns adjacency arrays containing the same arcs, where the arcs leaving each node are sorted by the node at the
+     * other end. Arcs to the same node keep their order. The arrays of the offsets are shared. Runtime O(m log d) for
+     * the maximum degree d, O(1) if the arcs already are sorted.
+     *
+     * @return the adjacency arrays with sorted arcs
+     */
+    public CompressedSparseRow sortedByHead() {
+        if (sorted) {
+            return this;
+        }
+        int[] sortedHeads = new int[heads.length];
+        int[] sortedIds = new int[edgeIds.length];
+        long[] row = new long[0];
+        for (int v = 0; v < nodeCapacity(); ++v) {
+            int begin = offsets[v];
+            int degree = offsets[v + 1] - begin;
+            if (row.length < degree) {
+                row = new long[Math.max(degree, 2 * row.length)];
+            }
+            for (int i = 0; i < degree; ++i) {
+                row[i] = (long) heads[begin + i] << 32 | i;
+            }
+            Arrays.sort(row, 0, degree);
+            for (int i = 0; i < degree; ++i) {
+                int arc = begin + (int) row[i];
+                sortedHeads[begin + i] = heads[arc];
+                sortedIds[begin + i] = edgeIds[arc];
+            }
+        }
+        return new CompressedSparseRow(offsets, sortedHeads, sortedIds, edgeCapacity, true);
+    }
+
+    /**
+     * Creates the adjacency arrays for the given arcs in parallel. The arcs are counted and distributed to their tails
+     * concurrently, afterwards the arcs of each node are brought back into their original order, so the result is the
+     * same as for {@link #fromArcs(int, int[], int[], int[], int)}. Small inputs are processed sequentially. Runtime
+     * O(n + m log d) for the maximum degree d, divided by the number of threads.
+     *
+     * @param nodeCapacity the number of node ids, all node ids have to be smaller
+     * @param tails the node ids where the arcs leave
+     * @param heads the node ids where the arcs enter
+     * @param edgeIds the edge ids of the arcs
+     * @param arcCount the number of arcs, only the first {@code arcCount} entries of the arrays are used
+     * @param pool the pool running the tasks
+     * @return the adjacency arrays
+     * @throws IllegalArgumentException if a node id is negative or not smaller than {@code nodeCapacity}
+     */
+    public static CompressedSparseRow fromArcs(int nodeCapacity, int[] tails, int[] heads, int[] edgeIds,
+            int arcCount, ForkJoinPool pool) {
+        if (arcCount < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+            return fromArcs(nodeCapacity, tails, heads, edgeIds, arcCount);
+        }
+        int arcBlocks = (arcCount + GRAIN - 1) / GRAIN;
+        AtomicIntegerArray degrees = new AtomicIntegerArray(nodeCapacity);
+        AtomicInteger edgeCapacity = new AtomicInteger();
+        ParallelFor.forEach(pool, 0, arcBlocks, 1, block -> {
+            int maxId = -1;
+            for (int i = block * GRAIN; i < Math.min(arcCount, (block + 1) * GRAIN); ++i) {
+                checkNode(tails[i], nodeCapacity);
+                checkNode(heads[i], nodeCapacity);
+                degrees.incrementAndGet(tails[i]);
+                maxId = Math.max(maxId, edgeIds[i]);
+            }
+            edgeCapacity.accumulateAndGet(maxId + 1, Math::max);
+        });
+        int[] offsets = new int[nodeCapacity + 1];
+        for (int v = 0; v < nodeCapacity; ++v) {
+            offsets[v + 1] = offsets[v] + degrees.get(v);
+        }
+        AtomicIntegerArray next = new AtomicIntegerArray(offsets);
+        int[] order = new int[arcCount];
+        ParallelFor.forEach(pool, 0, arcBlocks, 1, block -> {
+            for (int i = block * GRAIN; i < Math.min(arcCount, (block + 1) * GRAIN); ++i) {
+                order[next.getAndIncrement(tails[i])] = i;
+            }
+        });
+        int[] sortedHeads = new int[arcCount];
+        int[] sortedIds = new int[arcCount];
+        ParallelFor.forEach(pool, 0, nodeCapacity, GRAIN, v -> {
+            Arrays.sort(order, offsets[v], offsets[v + 1]);
+            for (int position = offsets[v]; position < offsets[v + 1]; ++position) {
+                sortedHeads[position] = heads[order[position]];
+                sortedIds[position] = edgeIds[order[position]];
+            }
+        });
+        return new CompressedSparseRow(offsets, sortedHeads, sortedIds, edgeCapacity.get(), false);
+    }
+
+    private static void checkNode(int node, int nodeCapacity) {
+        if (node < 0 || node >= nodeCapacity) {
+            throw new IllegalArgumentException("Node id " + node + " out of range [0," + nodeCapacity + ")");
+        }
+    }
+
+    /**
+     * Returns the number of node ids, i.e. the largest node id plus one. Runtime O(1).
+     *
+     * @return the number of node ids
+     */
+    public int nodeCapacity() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the number of edge ids, i.e. the largest edge id plus one. Runtime O(1).
+     *
+     * @return the number of edge ids
+     */
+    public int edgeCapacity() {
+        return edgeCapacity;
+    }
+
+    /**
+     * Returns the total number of arcs. Runtime O(1).
+     *
+     * @return the total number of arcs
+     */
+    public int arcCount() {
+        return heads.length;
+    }
+
+    /**
+     * Returns the position of the first arc leaving a node. Runtime O(1).
+     *
+     * @param node the node id
+     * @return the position of the first arc leaving the node
+     */
+    public int begin(int node) {
+        return offsets[node];
+    }
+
+    /**
+     * Returns the position after the last arc leaving a node. Runtime O(1).
+     *
+     * @param node the node id
+     * @return the position after the last arc leaving the node
+     */
+    public int end(int node) {
+        return offsets[node + 1];
+    }
+
+    /**
+     * Returns the number of arcs leaving a node. Runtime O(1).
+     *
+     * @param node the node id
+     * @return the number of arcs leaving the node
+     */
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * Checks whether the arcs leaving each node are sorted by the node at the other end. Runtime O(1).
+     *
+     * @return {@code true} if the arcs are sorted
+     * @see #sortedByHead()
+     */
+    public boolean isSortedByHead() {
+        return sorted;
+    }
+
+    /**
+     * Returns the position of the first arc from a node to another node. If the arcs are sorted, arcs to the same node
+     * are stored consecutively. Runtime O(log(degree(node))) if the arcs are sorted, O(degree(node)) otherwise.
+     *
+     * @param node the node id where the arc leaves
+     * @param head the node id at the other end of the arc
+     * @return the position of the first such arc, or -1 if there is none
+     */
+    public int findArc(int node, int head) {
+        int low = offsets[node];
+        int high = offsets[node + 1];
+        if (!sorted) {
+            for (int arc = low; arc < high; ++arc) {
+                if (heads[arc] == head) {
+                    return arc;
+                }
+            }
+            return -1;
+        }
+        int end = high;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (heads[middle] < head) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < end && heads[low] == head ? low : -1;
+    }
+
+    /**
+     * Returns the id of the node at the other end of an arc. Runtime O(1).
+     *
+     * @param arc the arc position
+     * @return the node id at the other end of the arc
+     */
+    public int head(int arc) {
+        return heads[arc];
+    }
+
+    /**
+     * Returns the id of the edge belonging to an arc. Runtime O(1).
+     *
+     * @param arc the arc position
+     * @return the edge id of the arc
+     */
+    public int edgeId(int arc) {
+        return edgeIds[arc];
+    }
+}
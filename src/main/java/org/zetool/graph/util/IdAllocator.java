@@ -0,0 +1,198 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the used ids of nodes or edges and finds free ids. The used ids are stored in a bitmap, a second
+ * bitmap marks the words of the first one that are completely used. Searching a free id skips 64 used ids per word of
+ * the first and 4096 per word of the second bitmap, so even in a densely used range of ids a free one is found in
+ * practically constant time. The bitmaps grow automatically.
+ */
+public final class IdAllocator {
+
+    /** One bit per id, set if the id is used. */
+    private long[] used;
+    /** One bit per word of {@link #used}, set if all its ids are used. */
+    private long[] full;
+    private int size;
+
+    public IdAllocator() {
+        this(64);
+    }
+
+    /**
+     * Creates an allocator without used ids.
+     *
+     * @param capacity the number of ids for which memory is reserved initially
+     */
+    public IdAllocator(int capacity) {
+        used = new long[Math.max(1, (capacity + 63) >>> 6)];
+        full = new long[(used.length + 63) >>> 6];
+    }
+
+    /**
+     * Checks whether an id is used. Runtime O(1).
+     *
+     * @param id the id
+     * @return {@code true} if the id is used
+     */
+    public boolean isUsed(int id) {
+        int word = id >>> 6;
+        return word < used.length && (used[word] & 1L << id) != 0;
+    }
+
+    /**
+     * Marks an id as used. Runtime O(1), amortized if the bitmaps grow.
+     *
+     * @param id the id
+     * @throws IllegalArgumentException if the id is negative
+     */
+    public void use(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id: " + id);
+        }
+        int word = id >>> 6;
+        ensureWords(word + 1);
+        if ((used[word] & 1L << id) == 0) {
+            used[word] |= 1L << id;
+            size++;
+            if (used[word] == -1L) {
+                full[word >>> 6] |= 1L << word;
+            }
+        }
+    }
+
+    /**
+     * Marks an id as free. Runtime O(1).
+     *
+     * @param id the id
+     */
+    public void release(int id) {
+        int word = id >>> 6;
+        if (id >= 0 && word < used.length && (used[word] & 1L << id) != 0) {
+            used[word] &= ~(1L << id);
+            full[word >>> 6] &= ~(1L << word);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of used ids. Runtime O(1).
+     *
+     * @return the number of used ids
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the smallest free id in a range. Runtime O(1 + (to - from) / 4096).
+     *
+     * @param from the first id of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the smallest free id in the range, or -1 if all ids are used
+     */
+    public int nextFree(int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int word = from >>> 6;
+        if (word >= used.length) {
+            return from;
+        }
+        long free = ~used[word] & -1L << from;
+        while (free == 0) {
+            word = nextNonFullWord(word + 1);
+            if (word >= used.length) {
+                int id = Math.max(from, used.length << 6);
+                return id < to ? id : -1;
+            }
+            free = ~used[word];
+        }
+        int id = (word << 6) + Long.numberOfTrailingZeros(free);
+        return id < to ? id : -1;
+    }
+
+    /**
+     * Marks and returns a free id. The ids from {@code candidate} to {@code limit - 1} are searched first, then the
+     * ids from 0 on. Thus the ids below {@code limit} are reused cyclically, and only if they are all used, the
+     * smallest free id not below {@code limit} is returned. Runtime O(1 + limit / 4096).
+     *
+     * @param candidate the id at which the search starts
+     * @param limit the number of ids that should be used before larger ones
+     * @return the new id
+     */
+    public int allocate(int candidate, int limit) {
+        int id = candidate < limit ? nextFree(Math.max(0, candidate), limit) : -1;
+        if (id < 0) {
+            id = nextFree(0, limit);
+        }
+        if (id < 0) {
+            id = nextFree(limit, Integer.MAX_VALUE);
+        }
+        use(id);
+        return id;
+    }
+
+    /**
+     * Assigns consecutive new ids to the used ids, keeping their order, and marks the new ids as used. Runtime
+     * O(limit).
+     *
+     * @param limit the end of the range of ids that is compacted, all used ids have to be smaller
+     * @return the new id for each old id, -1 for free ids
+     */
+    public int[] compact(int limit) {
+        int[] map = new int[limit];
+        int next = 0;
+        for (int id = 0; id < limit; ++id) {
+            map[id] = isUsed(id) ? next++ : -1;
+        }
+        Arrays.fill(used, 0);
+        Arrays.fill(full, 0);
+        size = 0;
+        for (int id = 0; id < next; ++id) {
+            use(id);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the index of the first word not before {@code word} that contains a free id, or the number of words.
+     */
+    private int nextNonFullWord(int word) {
+        if (word >= used.length) {
+            return used.length;
+        }
+        int summary = word >>> 6;
+        long free = ~full[summary] & -1L << word;
+        while (free == 0) {
+            if (++summary >= full.length) {
+                return used.length;
+            }
+            free = ~full[summary];
+        }
+        return Math.min(used.length, (summary << 6) + Long.numberOfTrailingZeros(free));
+    }
+
+    private void ensureWords(int words) {
+        if (words > used.length) {
+            used = Arrays.copyOf(used, Math.max(words, 2 * used.length));
+            full = Arrays.copyOf(full, (used.length + 63) >>> 6);
+        }
+    }
+}
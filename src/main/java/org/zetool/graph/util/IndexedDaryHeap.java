@@ -0,0 +1,253 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed d-ary min heap for the integral items {@code 0, ..., capacity - 1} with {@code long} keys. The position
+ * of each item is stored, so keys can be decreased in O(log n). No objects are created by any operation, and the heap
+ * can be reused after {@link #clear()} in time proportional to its size.
+ */
+public final class IndexedDaryHeap {
+
+    /** The default number of children of each heap node. */
+    public static final int DEFAULT_ARITY = 4;
+
+    private final int arity;
+    /** The items in heap order. */
+    private final int[] items;
+    /** The keys in heap order. */
+    private final long[] keys;
+    /** The position of each item in the heap, or -1 if it is not contained. */
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Creates a 4-ary heap for the items {@code 0, ..., capacity - 1}.
+     *
+     * @param capacity the number of items
+     */
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Creates a heap for the items {@code 0, ..., capacity - 1} where each heap node has {@code arity} children.
+     *
+     * @param capacity the number of items
+     * @param arity the number of children, at least 2
+     */
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2.");
+        }
+        this.arity = arity;
+        items = new int[capacity];
+        keys = new long[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Returns the number of items that can be stored. Runtime O(1).
+     *
+     * @return the number of items that can be stored
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether an item is contained in the heap. Runtime O(1).
+     *
+     * @param item the item
+     * @return {@code true} if the item is contained in the heap
+     */
+    public boolean contains(int item) {
+        return positions[item] >= 0;
+    }
+
+    /**
+     * Returns the key of an item contained in the heap. Runtime O(1).
+     *
+     * @param item the item
+     * @return the key of the item
+     */
+    public long key(int item) {
+        return keys[positions[item]];
+    }
+
+    /**
+     * Inserts an item that is not yet contained in the heap. Runtime O(log n).
+     *
+     * @param item the item
+     * @param key the key of the item
+     */
+    public void insert(int item, long key) {
+        if (contains(item)) {
+            throw new IllegalStateException("Item " + item + " already contained.");
+        }
+        siftUp(size++, item, key);
+    }
+
+    /**
+     * Decreases the key of an item contained in the heap. Runtime O(log n).
+     *
+     * @param item the item
+     * @param key the new key, not larger than the current key
+     */
+    public void decreaseKey(int item, long key) {
+        siftUp(positions[item], item, key);
+    }
+
+    /**
+     * Inserts an item or decreases its key, if the new key is smaller. Runtime O(log n).
+     *
+     * @param item the item
+     * @param key the (new) key of the item
+     * @return {@code true} if the item was inserted or its key was decreased
+     */
+    public boolean insertOrDecrease(int item, long key) {
+        int position = positions[item];
+        if (position < 0) {
+            siftUp(size++, item, key);
+            return true;
+        } else if (key < keys[position]) {
+            siftUp(position, item, key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Changes the key of an item contained in the heap to an arbitrary value. Runtime O(d log n).
+     *
+     * @param item the item
+     * @param key the new key
+     */
+    public void changeKey(int item, long key) {
+        int position = positions[item];
+        if (key < keys[position]) {
+            siftUp(position, item, key);
+        } else {
+            siftDown(position, item, key);
+        }
+    }
+
+    /**
+     * Returns the item with minimal key without removing it. Runtime O(1).
+     *
+     * @return the item with minimal key
+     */
+    public int min() {
+        checkNotEmpty();
+        return items[0];
+    }
+
+    /**
+     * Returns the minimal key. Runtime O(1).
+     *
+     * @return the minimal key
+     */
+    public long minKey() {
+        checkNotEmpty();
+        return keys[0];
+    }
+
+    /**
+     * Removes the item with minimal key. Runtime O(d log n).
+     *
+     * @return the item with minimal key
+     */
+    public int extractMin() {
+        checkNotEmpty();
+        int min = items[0];
+        positions[min] = -1;
+        if (--size > 0) {
+            siftDown(0, items[size], keys[size]);
+        }
+        return min;
+    }
+
+    /**
+     * Removes all items. Runtime O(size).
+     */
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            positions[items[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty.");
+        }
+    }
+
+    private void siftUp(int position, int item, long key) {
+        while (position > 0) {
+            int parent = (position - 1) / arity;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, position);
+            position = parent;
+        }
+        place(position, item, key);
+    }
+
+    private void siftDown(int position, int item, long key) {
+        int child;
+        while ((child = position * arity + 1) < size) {
+            int last = Math.min(child + arity, size);
+            int best = child;
+            for (int i = child + 1; i < last; ++i) {
+                if (keys[i] < keys[best]) {
+                    best = i;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            move(best, position);
+            position = best;
+        }
+        place(position, item, key);
+    }
+
+    private void move(int from, int to) {
+        items[to] = items[from];
+        keys[to] = keys[from];
+        positions[items[to]] = to;
+    }
+
+    private void place(int position, int item, long key) {
+        items[position] = item;
+        keys[position] = key;
+        positions[item] = position;
+    }
+}
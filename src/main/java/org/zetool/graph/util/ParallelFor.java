@@ -0,0 +1,81 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel loops over integer ranges on a {@link ForkJoinPool}. A range is split recursively until the parts are not
+ * larger than a given grain size, the parts are processed sequentially. The loop returns when all indices have been
+ * processed, so all writes of the action are visible to the caller afterwards.
+ */
+public final class ParallelFor {
+
+    private ParallelFor() {
+    }
+
+    /**
+     * Applies an action to each index of a range.
+     *
+     * @param pool the pool running the action
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param grain the maximal number of indices processed sequentially by one task, at least 1
+     * @param action the action
+     */
+    public static void forEach(ForkJoinPool pool, int from, int to, int grain, IntConsumer action) {
+        if (grain < 1) {
+            throw new IllegalArgumentException("Grain size must be positive: " + grain);
+        }
+        if (to - from <= grain) {
+            for (int i = from; i < to; ++i) {
+                action.accept(i);
+            }
+        } else {
+            pool.invoke(new RangeAction(from, to, grain, action));
+        }
+    }
+
+    private static class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final transient IntConsumer action;
+
+        RangeAction(int from, int to, int grain, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; ++i) {
+                    action.accept(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeAction(from, middle, grain, action), new RangeAction(middle, to, grain, action));
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.components;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.zetool.graph.util.GraphUtil.generateDirected;
+import static org.zetool.graph.util.RandomGraphs.createRandomDirectedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.common.algorithm.AbstractAlgorithm;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.GraphTest;
+import org.zetool.graph.Node;
+import org.zetool.graph.traversal.CompactTraversal;
+
+/**
+ * Tests the strongly connected component algorithms against mutual reachability.
+ */
+@RunWith(Parameterized.class)
+public class StronglyConnectedComponentsTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private final String algorithm;
+
+    public StronglyConnectedComponentsTest(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    @Parameters(name = "{0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"tarjan"},
+            {"forward-backward"},
+            {"forward-backward sequential"}
+        });
+    }
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    private AbstractAlgorithm<DirectedGraph, StronglyConnectedComponents> create() {
+        switch (algorithm) {
+            case "tarjan":
+                return new TarjanStronglyConnectedComponents();
+            case "forward-backward":
+                ForwardBackwardStronglyConnectedComponents parallel = new ForwardBackwardStronglyConnectedComponents();
+                parallel.setSequentialThreshold(4);
+                parallel.setPool(POOL);
+                return parallel;
+            default:
+                return new ForwardBackwardStronglyConnectedComponents();
+        }
+    }
+
+    private StronglyConnectedComponents solve(DirectedGraph graph) {
+        AbstractAlgorithm<DirectedGraph, StronglyConnectedComponents> scc = create();
+        scc.setProblem(graph);
+        scc.run();
+        return scc.getSolution();
+    }
+
+    @Test
+    public void componentsAreMutuallyReachable() {
+        for (int seed = 0; seed < 5; ++seed) {
+            DirectedGraph graph = createRandomDirectedGraph(120, 150 + 20 * seed, seed);
+            StronglyConnectedComponents components = solve(graph);
+            CompactTraversal traversal = new CompactTraversal(graph);
+            for (Node first : graph.nodes()) {
+                for (Node second : graph.nodes()) {
+                    boolean mutual = traversal.isReachable(first.id(), second.id())
+                            && traversal.isReachable(second.id(), first.id());
+                    assertThat(components.isStronglyConnected(first, second), is(equalTo(mutual)));
+                }
+            }
+            assertTopological(graph, components);
+        }
+    }
+
+    @Test
+    public void dfsGraph() {
+        DirectedGraph graph = generateDirected(8, GraphTest.DFS_GRAPH);
+        StronglyConnectedComponents components = solve(graph);
+        CompactTraversal traversal = new CompactTraversal(graph);
+        int expected = 0;
+        for (Node node : graph.nodes()) {
+            boolean smallest = true;
+            for (Node other : graph.nodes()) {
+                if (other.id() < node.id() && traversal.isReachable(node.id(), other.id())
+                        && traversal.isReachable(other.id(), node.id())) {
+                    smallest = false;
+                }
+            }
+            expected += smallest ? 1 : 0;
+        }
+        assertThat(components.getComponentCount(), is(equalTo(expected)));
+        assertTopological(graph, components);
+    }
+
+    @Test
+    public void longCycleAndPath() {
+        int n = 200000;
+        int[][] edges = new int[2 * n - 1][];
+        for (int i = 0; i < n; ++i) {
+            edges[i] = new int[]{i, (i + 1) % n};
+        }
+        for (int i = 0; i < n - 1; ++i) {
+            edges[n + i] = new int[]{n + i, n + i + 1};
+        }
+        StronglyConnectedComponents components = solve(generateDirected(2 * n, edges));
+
+        assertThat(components.getComponentCount(), is(equalTo(n + 1)));
+        assertThat(components.getSize(components.getComponent(0)), is(equalTo(n)));
+        assertThat(components.getComponent(n) < components.getComponent(2 * n - 1), is(true));
+    }
+
+    @Test
+    public void condensation() {
+        DirectedGraph graph = createRandomDirectedGraph(100, 160, 42);
+        StronglyConnectedComponents components = solve(graph);
+        DirectedGraph condensation = components.getCondensation();
+
+        assertThat(condensation.nodeCount(), is(equalTo(components.getComponentCount())));
+        boolean[][] expected = new boolean[components.getComponentCount()][components.getComponentCount()];
+        int count = 0;
+        for (Edge edge : graph.edges()) {
+            int start = components.getComponent(edge.start());
+            int end = components.getComponent(edge.end());
+            if (start != end && !expected[start][end]) {
+                expected[start][end] = true;
+                count++;
+            }
+        }
+        assertThat(condensation.edgeCount(), is(equalTo(count)));
+        for (Edge edge : condensation.edges()) {
+            assertThat(expected[edge.start().id()][edge.end().id()], is(true));
+            assertThat(edge.start().id() < edge.end().id(), is(true));
+        }
+    }
+
+    private static void assertTopological(DirectedGraph graph, StronglyConnectedComponents components) {
+        for (Edge edge : graph.edges()) {
+            assertThat(components.getComponent(edge.start()) <= components.getComponent(edge.end()), is(true));
+        }
+        int total = 0;
+        for (int c = 0; c < components.getComponentCount(); ++c) {
+            assertThat(components.getSize(c) > 0, is(true));
+            total += components.getSize(c);
+        }
+        assertThat(total, is(equalTo(graph.nodeCount())));
+    }
+}
@@ -0,0 +1,204 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.MutableGraph;
+import org.zetool.graph.Node;
+
+/**
+ * Tests the all pairs shortest path algorithms against single source algorithms.
+ */
+@RunWith(Parameterized.class)
+public class APSPAlgoTest {
+
+    private final boolean directed;
+    private final int blockSize;
+
+    public APSPAlgoTest(boolean directed, int blockSize) {
+        this.directed = directed;
+        this.blockSize = blockSize;
+    }
+
+    @Parameters(name = "directed={0}, blockSize={1}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true, 1},
+            {true, 7},
+            {true, APSPAlgo.DEFAULT_BLOCK_SIZE},
+            {false, 7}
+        });
+    }
+
+    @Test
+    public void nonNegativeCostsMatchDijkstra() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 50, 150, 20, 15);
+        Graph graph = instance.getGraph();
+        APSPAlgo algorithm = create();
+        AllPairsShortestPaths floydWarshall = algorithm.floydWarshall(graph, instance.getCosts());
+        AllPairsShortestPaths johnson = algorithm.johnson(graph, instance.getCosts());
+
+        PrimitiveDijkstra dijkstra = new PrimitiveDijkstra(graph, instance.getCosts());
+        for (Node source : graph.nodes()) {
+            dijkstra.run(dijkstra.getWorkspace(), source.id(), -1);
+            for (Node target : graph.nodes()) {
+                long distance = dijkstra.getWorkspace().getDistance(target.id());
+                int expected = distance == PrimitiveDijkstra.UNREACHABLE ? AllPairsShortestPaths.UNREACHABLE
+                        : (int) distance;
+                assertThat(floydWarshall.getDistance(source.id(), target.id()), is(equalTo(expected)));
+                assertThat(johnson.getDistance(source.id(), target.id()), is(equalTo(expected)));
+            }
+        }
+        assertPaths(graph, instance.getCosts(), floydWarshall);
+        assertPaths(graph, instance.getCosts(), johnson);
+    }
+
+    @Test
+    public void negativeCostsMatchBellmanFord() {
+        if (!directed) {
+            return;
+        }
+        Random random = new Random(16);
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(40, 200);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(200);
+        for (int i = 0; i < 200; ++i) {
+            Node start = graph.getNode(random.nextInt(40));
+            Node end = graph.getNode(random.nextInt(40));
+            // edges to smaller ids are expensive enough, so every cycle has non-negative cost
+            int cost = end.id() > start.id() ? random.nextInt(21) - 10 : 400 + random.nextInt(10);
+            costs.set(graph.createAndSetEdge(start, end), cost);
+        }
+        APSPAlgo algorithm = create();
+        AllPairsShortestPaths floydWarshall = algorithm.floydWarshall(graph, costs);
+        AllPairsShortestPaths johnson = algorithm.johnson(graph, costs);
+
+        QueueBellmanFord bellmanFord = new QueueBellmanFord(graph, costs);
+        for (Node source : graph.nodes()) {
+            assertThat(bellmanFord.run(source.id()), is(true));
+            for (Node target : graph.nodes()) {
+                long distance = bellmanFord.getDistance(target.id());
+                int expected = distance == QueueBellmanFord.UNREACHABLE ? AllPairsShortestPaths.UNREACHABLE
+                        : (int) distance;
+                assertThat(floydWarshall.getDistance(source.id(), target.id()), is(equalTo(expected)));
+                assertThat(johnson.getDistance(source.id(), target.id()), is(equalTo(expected)));
+            }
+        }
+        assertPaths(graph, costs, floydWarshall);
+        assertPaths(graph, costs, johnson);
+    }
+
+    @Test
+    public void negativeCycle() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 3);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(3);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(1)), 2);
+        costs.set(graph.createAndSetEdge(graph.getNode(1), graph.getNode(2)), -3);
+        costs.set(graph.createAndSetEdge(graph.getNode(2), graph.getNode(1)), 1);
+        APSPAlgo algorithm = create();
+        try {
+            algorithm.floydWarshall(graph, costs);
+            throw new AssertionError("Negative cycle not detected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            algorithm.johnson(graph, costs);
+            throw new AssertionError("Negative cycle not detected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void longDetoursDoNotOverflow() {
+        MutableGraph graph = directed ? new DefaultDirectedGraph(3, 3) : new DefaultGraph(3, 3);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(3);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(1)), 2_000_000_000);
+        costs.set(graph.createAndSetEdge(graph.getNode(1), graph.getNode(2)), 2_000_000_000);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(2)), 5);
+        APSPAlgo withSuccessors = create();
+        APSPAlgo withoutSuccessors = create();
+        withoutSuccessors.setComputeSuccessors(false);
+        for (APSPAlgo algorithm : Arrays.asList(withSuccessors, withoutSuccessors)) {
+            AllPairsShortestPaths result = algorithm.floydWarshall(graph, costs);
+            assertThat(result.getDistance(0, 2), is(equalTo(5)));
+            assertThat(result.getDistance(0, 1), is(equalTo(2_000_000_000)));
+            assertThat(result.getDistance(1, 2), is(equalTo(2_000_000_000)));
+        }
+        assertThat(withSuccessors.johnson(graph, costs).getDistance(0, 2), is(equalTo(5)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void successorsAreOptional() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 5, 8, 3, 17);
+        AllPairsShortestPaths result = new APSPAlgo().floydWarshall(instance.getGraph(), instance.getCosts());
+        assertThat(result.hasSuccessors(), is(false));
+        result.getPathEdges(0, 1);
+    }
+
+    private APSPAlgo create() {
+        APSPAlgo algorithm = new APSPAlgo();
+        algorithm.setBlockSize(blockSize);
+        algorithm.setComputeSuccessors(true);
+        algorithm.setPool(new ForkJoinPool(3));
+        return algorithm;
+    }
+
+    /**
+     * Checks that the reconstructed paths are walks of the computed length.
+     */
+    private static void assertPaths(Graph graph, IdentifiableIntegerMapping<Edge> costs,
+            AllPairsShortestPaths result) {
+        for (Node source : graph.nodes()) {
+            for (Node target : graph.nodes()) {
+                int[] path = result.getPathEdges(source.id(), target.id());
+                int distance = result.getDistance(source.id(), target.id());
+                if (distance == AllPairsShortestPaths.UNREACHABLE) {
+                    assertThat(path, is(nullValue()));
+                    continue;
+                }
+                Node node = source;
+                int length = 0;
+                for (int edge : path) {
+                    Edge e = graph.getEdge(edge);
+                    if (graph.isDirected()) {
+                        assertThat(e.start(), is(equalTo(node)));
+                    }
+                    node = e.opposite(node);
+                    length += costs.get(e);
+                }
+                assertThat(node, is(equalTo(target)));
+                assertThat(length, is(equalTo(distance)));
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Random;
+import org.junit.Test;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.visualization.NodePositionMapping;
+import org.zetool.math.geom.NDimensional;
+
+/**
+ * Tests A* with the Euclidean and the landmark heuristic.
+ */
+public class AStarTest {
+
+    private static final int SIZE = 12;
+
+    @Test
+    public void euclideanHeuristicOnGrid() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(SIZE * SIZE, 4 * SIZE * SIZE);
+        NodePositionMapping<Point> positions = new NodePositionMapping<>(2, SIZE * SIZE);
+        IdentifiableIntegerMapping<Edge> costs = createGrid(graph, positions, 5);
+        EuclideanHeuristic heuristic = EuclideanHeuristic.of(graph, costs, positions);
+
+        Node source = graph.getNode(0);
+        IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, costs, source);
+        for (Node target : graph.nodes()) {
+            assertThat(heuristic.estimate(source, target), is(lessThanOrEqualTo((long) expected.getDistance(target))));
+            assertThat(solve(graph, costs, source, target, heuristic).getDistance(target),
+                    is(equalTo(expected.getDistance(target))));
+        }
+    }
+
+    @Test
+    public void euclideanHeuristicSettlesFewerNodes() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(SIZE * SIZE, 4 * SIZE * SIZE);
+        NodePositionMapping<Point> positions = new NodePositionMapping<>(2, SIZE * SIZE);
+        IdentifiableIntegerMapping<Edge> costs = createGrid(graph, positions, 0);
+        Node source = graph.getNode(SIZE * (SIZE / 2));
+        Node target = graph.getNode(SIZE * (SIZE / 2) + SIZE - 1);
+
+        AStar plain = new AStar(DistanceHeuristic.NONE);
+        plain.setProblem(new IntegralSingleSourceShortestPathProblem(graph, costs, source, target));
+        plain.run();
+        AStar directed = new AStar(EuclideanHeuristic.of(graph, costs, positions));
+        directed.setProblem(new IntegralSingleSourceShortestPathProblem(graph, costs, source, target));
+        directed.run();
+
+        assertThat(directed.getSolution().getDistance(target), is(equalTo(plain.getSolution().getDistance(target))));
+        assertThat(directed.getSettledNodeCount(), is(lessThan(plain.getSettledNodeCount())));
+    }
+
+    @Test
+    public void landmarkHeuristic() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(true, 50, 200, 20, 5);
+        Graph graph = instance.getGraph();
+        LandmarkHeuristic heuristic = new LandmarkHeuristic(graph, instance.getCosts(), 4);
+        assertThat(heuristic.getLandmarks().length, is(equalTo(4)));
+
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, instance.getCosts(), source);
+            for (Node target : graph.nodes()) {
+                if (expected.getDistance(target) == Integer.MAX_VALUE) {
+                    continue;
+                }
+                assertThat(heuristic.estimate(source, target),
+                        is(lessThanOrEqualTo((long) expected.getDistance(target))));
+                assertThat(solve(graph, instance.getCosts(), source, target, heuristic).getDistance(target),
+                        is(equalTo(expected.getDistance(target))));
+            }
+        }
+    }
+
+    @Test
+    public void explicitLandmarkIsExactTowardsLandmark() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(false, 30, 60, 10, 6);
+        Graph graph = instance.getGraph();
+        Node landmark = graph.getNode(7);
+        LandmarkHeuristic heuristic = new LandmarkHeuristic(graph, instance.getCosts(), landmark);
+
+        IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, instance.getCosts(), landmark);
+        for (Node node : graph.nodes()) {
+            assertThat(heuristic.estimate(node, landmark), is(equalTo((long) expected.getDistance(node))));
+        }
+    }
+
+    private static IntegralShortestPathSolution solve(Graph graph, IdentifiableIntegerMapping<Edge> costs, Node source,
+            Node target, DistanceHeuristic heuristic) {
+        AStar aStar = new AStar(heuristic);
+        aStar.setProblem(new IntegralSingleSourceShortestPathProblem(graph, costs, source, target));
+        aStar.run();
+        return aStar.getSolution();
+    }
+
+    /**
+     * Creates a grid with edges in both directions. The cost of each edge is 10 plus a random detour.
+     */
+    private static IdentifiableIntegerMapping<Edge> createGrid(DefaultDirectedGraph graph,
+            NodePositionMapping<Point> positions, int maxDetour) {
+        Random random = new Random(SIZE);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(graph.getEdgeCapacity());
+        for (int row = 0; row < SIZE; ++row) {
+            for (int column = 0; column < SIZE; ++column) {
+                Node node = graph.getNode(row * SIZE + column);
+                positions.set(node, new Point(10.0 * column, 10.0 * row));
+                if (column > 0) {
+                    Node left = graph.getNode(row * SIZE + column - 1);
+                    costs.set(graph.createAndSetEdge(node, left), 10 + random.nextInt(maxDetour + 1));
+                    costs.set(graph.createAndSetEdge(left, node), 10 + random.nextInt(maxDetour + 1));
+                }
+                if (row > 0) {
+                    Node up = graph.getNode((row - 1) * SIZE + column);
+                    costs.set(graph.createAndSetEdge(node, up), 10 + random.nextInt(maxDetour + 1));
+                    costs.set(graph.createAndSetEdge(up, node), 10 + random.nextInt(maxDetour + 1));
+                }
+            }
+        }
+        return costs;
+    }
+
+    private static class Point implements NDimensional<Double> {
+
+        private final double[] coordinates;
+
+        Point(double... coordinates) {
+            this.coordinates = coordinates;
+        }
+
+        @Override
+        public int getDimension() {
+            return coordinates.length;
+        }
+
+        @Override
+        public Double get(int i) {
+            return coordinates[i];
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.container.mapping.IdentifiableConstantMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.MutableGraph;
+import org.zetool.graph.Node;
+
+/**
+ * Tests the bidirectional Dijkstra against {@link Dijkstra}.
+ */
+@RunWith(Parameterized.class)
+public class BidirectionalDijkstraTest {
+
+    private final boolean directed;
+
+    public BidirectionalDijkstraTest(boolean directed) {
+        this.directed = directed;
+    }
+
+    @Parameters(name = "directed={0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true},
+            {false}
+        });
+    }
+
+    @Test
+    public void distancesMatchDijkstra() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 50, 150, 15, 4);
+        Graph graph = instance.getGraph();
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, instance.getCosts(), source);
+            for (Node target : graph.nodes()) {
+                IntegralShortestPathSolution solution = solve(graph, source, target, instance);
+                assertThat(solution.getDistance(target), is(equalTo(expected.getDistance(target))));
+                if (expected.getDistance(target) != Integer.MAX_VALUE) {
+                    assertThat(pathLength(solution, instance, source, target), is(equalTo(expected.getDistance(target))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sourceEqualsTarget() {
+        MutableGraph graph = createGraphInstance(2, 1);
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        IntegralSingleSourceShortestPathProblem problem = new IntegralSingleSourceShortestPathProblem(graph,
+                new IdentifiableConstantMapping<>(3), graph.getNode(1), graph.getNode(1));
+
+        IntegralShortestPathSolution solution = solve(graph, graph.getNode(1), graph.getNode(1), problem);
+
+        assertThat(solution.getDistance(graph.getNode(1)), is(equalTo(0)));
+        assertThat(solution.getPredecessor(graph.getNode(1)), is(equalTo(null)));
+    }
+
+    @Test
+    public void settlesFewerNodesOnLine() {
+        int n = 101;
+        MutableGraph graph = createGraphInstance(n, 2 * (n - 1));
+        for (int i = 1; i < n; ++i) {
+            graph.createAndSetEdge(graph.getNode(i - 1), graph.getNode(i));
+        }
+        // a long branch at the source that is not explored by the backward search
+        for (int i = 1; i < n; ++i) {
+            graph.createAndSetEdge(graph.getNode(0), graph.getNode(i));
+        }
+        IdentifiableConstantMapping<Edge> costs = new IdentifiableConstantMapping<>(1);
+        IntegralSingleSourceShortestPathProblem problem = new IntegralSingleSourceShortestPathProblem(graph, costs,
+                graph.getNode(50), graph.getNode(52));
+        BidirectionalDijkstra fixture = new BidirectionalDijkstra();
+        fixture.setProblem(problem);
+        fixture.run();
+
+        assertThat(fixture.getSolution().getDistance(graph.getNode(52)), is(equalTo(2)));
+        assertThat(fixture.getSettledNodeCount(), is(lessThan(n / 2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresTarget() {
+        MutableGraph graph = createGraphInstance(1, 0);
+        BidirectionalDijkstra fixture = new BidirectionalDijkstra();
+        fixture.setProblem(new IntegralSingleSourceShortestPathProblem(graph, new IdentifiableConstantMapping<>(1),
+                graph.getNode(0)));
+        fixture.runAlgorithm();
+    }
+
+    private static IntegralShortestPathSolution solve(Graph graph, Node source, Node target,
+            IntegralSingleSourceShortestPathProblem instance) {
+        BidirectionalDijkstra fixture = new BidirectionalDijkstra();
+        fixture.setProblem(new IntegralSingleSourceShortestPathProblem(graph, instance.getCosts(), source, target));
+        fixture.run();
+        return fixture.getSolution();
+    }
+
+    private static int pathLength(IntegralShortestPathSolution solution,
+            IntegralSingleSourceShortestPathProblem instance, Node source, Node target) {
+        int length = 0;
+        Node node = target;
+        while (!node.equals(source)) {
+            length += instance.getCosts().get(solution.getLastEdge(node));
+            node = solution.getPredecessor(node);
+        }
+        return length;
+    }
+
+    private MutableGraph createGraphInstance(int nodes, int edges) {
+        return directed ? new DefaultDirectedGraph(nodes, edges) : new DefaultGraph(nodes, edges);
+    }
+}
@@ -0,0 +1,166 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+
+/**
+ * Tests contraction hierarchies against {@link Dijkstra}.
+ */
+@RunWith(Parameterized.class)
+public class ContractionHierarchyTest {
+
+    private final boolean directed;
+
+    public ContractionHierarchyTest(boolean directed) {
+        this.directed = directed;
+    }
+
+    @Parameters(name = "directed={0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true},
+            {false}
+        });
+    }
+
+    @Test
+    public void distancesMatchDijkstra() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 60, 180, 15, 7);
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder().build(instance.getGraph(),
+                instance.getCosts());
+        assertMatchesDijkstra(instance, hierarchy);
+    }
+
+    @Test
+    public void abortedWitnessSearchesCreateAdditionalShortcuts() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 40, 120, 15, 8);
+        ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder();
+        ContractionHierarchy exact = builder.build(instance.getGraph(), instance.getCosts());
+        builder.setWitnessSettleLimit(1);
+        ContractionHierarchy limited = builder.build(instance.getGraph(), instance.getCosts());
+
+        assertThat(limited.getShortcutCount() >= exact.getShortcutCount(), is(true));
+        assertMatchesDijkstra(instance, limited);
+    }
+
+    @Test
+    public void pathsInDirectedGraphs() {
+        if (!directed) {
+            return;
+        }
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(true, 30, 90, 10, 9);
+        Graph graph = instance.getGraph();
+        ContractionHierarchyQuery query = new ContractionHierarchyQuery(
+                new ContractionHierarchyBuilder().build(graph, instance.getCosts()), graph);
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, instance.getCosts(), source);
+            for (Node target : graph.nodes()) {
+                Path path = query.shortestPath(source, target);
+                if (expected.getDistance(target) == Integer.MAX_VALUE) {
+                    assertThat(path, is(nullValue()));
+                    continue;
+                }
+                int length = 0;
+                Node node = source;
+                for (Edge edge : path) {
+                    assertThat(edge.start(), is(equalTo(node)));
+                    length += instance.getCosts().get(edge);
+                    node = edge.end();
+                }
+                assertThat(node, is(equalTo(target)));
+                assertThat(length, is(equalTo(expected.getDistance(target))));
+            }
+        }
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 30, 80, 10, 10);
+        ContractionHierarchy hierarchy = new ContractionHierarchyBuilder().build(instance.getGraph(),
+                instance.getCosts());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        hierarchy.write(out);
+        ContractionHierarchy read = ContractionHierarchy.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(read.getNodeCapacity(), is(equalTo(hierarchy.getNodeCapacity())));
+        assertThat(read.getArcCount(), is(equalTo(hierarchy.getArcCount())));
+        assertThat(read.getShortcutCount(), is(equalTo(hierarchy.getShortcutCount())));
+        for (Node node : instance.getGraph().nodes()) {
+            assertThat(read.getRank(node.id()), is(equalTo(hierarchy.getRank(node.id()))));
+        }
+        assertMatchesDijkstra(instance, read);
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsOtherData() throws IOException {
+        ContractionHierarchy.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}));
+    }
+
+    /**
+     * Checks the distances of all pairs and that the returned edges form a walk of that length.
+     */
+    private static void assertMatchesDijkstra(IntegralSingleSourceShortestPathProblem instance,
+            ContractionHierarchy hierarchy) {
+        Graph graph = instance.getGraph();
+        ContractionHierarchyQuery query = new ContractionHierarchyQuery(hierarchy, graph);
+        Edge[] edges = new Edge[graph.edgeCount()];
+        for (Edge edge : graph.edges()) {
+            edges[edge.id()] = edge;
+        }
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, instance.getCosts(), source);
+            for (Node target : graph.nodes()) {
+                long distance = query.distance(source.id(), target.id());
+                int[] path = query.shortestPathEdges(source.id(), target.id());
+                if (expected.getDistance(target) == Integer.MAX_VALUE) {
+                    assertThat(distance, is(equalTo(PrimitiveDijkstra.UNREACHABLE)));
+                    assertThat(path, is(nullValue()));
+                    continue;
+                }
+                assertThat(distance, is(equalTo((long) expected.getDistance(target))));
+                int length = 0;
+                Node node = source;
+                for (int edge : path) {
+                    node = edges[edge].opposite(node);
+                    length += instance.getCosts().get(edges[edge]);
+                }
+                assertThat(node, is(equalTo(target)));
+                assertThat(length, is(equalTo(expected.getDistance(target))));
+            }
+        }
+    }
+}
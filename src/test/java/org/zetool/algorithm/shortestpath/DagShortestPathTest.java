@@ -0,0 +1,147 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Random;
+import org.junit.Test;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Node;
+
+/**
+ * Tests shortest and longest paths in acyclic graphs against {@link MooreBellmanFord}.
+ */
+public class DagShortestPathTest {
+
+    private static final int NODES = 60;
+    private static final int EDGES = 300;
+
+    private final DefaultDirectedGraph graph = new DefaultDirectedGraph(NODES, EDGES);
+    private final IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(EDGES);
+    private final IdentifiableIntegerMapping<Edge> negatedCosts = new IdentifiableIntegerMapping<>(EDGES);
+
+    /**
+     * Creates an acyclic graph whose topological order differs from the order of the node ids.
+     */
+    public DagShortestPathTest() {
+        Random random = new Random(5);
+        int[] rank = new int[NODES];
+        for (int i = 0; i < NODES; ++i) {
+            int j = random.nextInt(i + 1);
+            rank[i] = rank[j];
+            rank[j] = i;
+        }
+        for (int i = 0; i < EDGES; ++i) {
+            int start = random.nextInt(NODES - 1);
+            int end = start + 1 + random.nextInt(NODES - 1 - start);
+            Edge edge = graph.createAndSetEdge(graph.getNode(rank[start]), graph.getNode(rank[end]));
+            costs.set(edge, random.nextInt(21) - 5);
+            negatedCosts.set(edge, -costs.get(edge));
+        }
+    }
+
+    @Test
+    public void shortestPathsMatchMooreBellmanFord() {
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution solution = solve(costs, source, null, false);
+            MooreBellmanFord expected = new MooreBellmanFord(graph, costs, source);
+            expected.run();
+            for (Node node : graph.nodes()) {
+                assertThat(solution.getDistance(node), is(equalTo(expected.getDistances().get(node))));
+                assertTree(solution, node, costs);
+            }
+        }
+    }
+
+    @Test
+    public void longestPathsMatchNegatedShortestPaths() {
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution solution = solve(costs, source, null, true);
+            MooreBellmanFord expected = new MooreBellmanFord(graph, negatedCosts, source);
+            expected.run();
+            for (Node node : graph.nodes()) {
+                int distance = expected.getDistances().get(node);
+                if (distance == Integer.MAX_VALUE) {
+                    assertThat(solution.getDistance(node), is(equalTo(Integer.MIN_VALUE)));
+                    assertThat(solution.getLastEdge(node), is(nullValue()));
+                } else {
+                    assertThat(solution.getDistance(node), is(equalTo(-distance)));
+                    assertTree(solution, node, costs);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void stopsAtTarget() {
+        Node source = graph.getNode(3);
+        IntegralShortestPathSolution complete = solve(costs, source, null, false);
+        for (Node target : graph.nodes()) {
+            IntegralShortestPathSolution solution = solve(costs, source, target, false);
+            assertThat(solution.getDistance(target), is(equalTo(complete.getDistance(target))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCycles() {
+        DefaultDirectedGraph cyclic = new DefaultDirectedGraph(3, 3);
+        IdentifiableIntegerMapping<Edge> cyclicCosts = new IdentifiableIntegerMapping<>(3);
+        cyclicCosts.set(cyclic.createAndSetEdge(cyclic.getNode(0), cyclic.getNode(1)), 1);
+        cyclicCosts.set(cyclic.createAndSetEdge(cyclic.getNode(1), cyclic.getNode(2)), 1);
+        cyclicCosts.set(cyclic.createAndSetEdge(cyclic.getNode(2), cyclic.getNode(1)), 1);
+        DagShortestPath algorithm = new DagShortestPath();
+        algorithm.setProblem(new IntegralSingleSourceShortestPathProblem(cyclic, cyclicCosts, cyclic.getNode(0)));
+        algorithm.run();
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void rejectsDistanceOverflow() {
+        DefaultDirectedGraph path = new DefaultDirectedGraph(3, 2);
+        IdentifiableIntegerMapping<Edge> pathCosts = new IdentifiableIntegerMapping<>(2);
+        pathCosts.set(path.createAndSetEdge(path.getNode(0), path.getNode(1)), Integer.MIN_VALUE + 1);
+        pathCosts.set(path.createAndSetEdge(path.getNode(1), path.getNode(2)), Integer.MIN_VALUE + 1);
+        DagShortestPath algorithm = new DagShortestPath();
+        algorithm.setProblem(new IntegralSingleSourceShortestPathProblem(path, pathCosts, path.getNode(0)));
+        algorithm.run();
+    }
+
+    private IntegralShortestPathSolution solve(IdentifiableIntegerMapping<Edge> costs, Node source, Node target,
+            boolean longest) {
+        DagShortestPath algorithm = new DagShortestPath();
+        algorithm.setLongest(longest);
+        algorithm.setProblem(new IntegralSingleSourceShortestPathProblem(graph, costs, source, target));
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+
+    /**
+     * Checks that the predecessor edge of a reached node is tight.
+     */
+    private static void assertTree(IntegralShortestPathSolution solution, Node node,
+            IdentifiableIntegerMapping<Edge> costs) {
+        Edge edge = solution.getLastEdge(node);
+        if (edge != null) {
+            assertThat(edge.end(), is(equalTo(node)));
+            assertThat(solution.getDistance(edge.start()) + costs.get(edge), is(equalTo(solution.getDistance(node))));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+
+/**
+ * Tests the delta-stepping algorithm against {@link Dijkstra} for different bucket widths.
+ */
+@RunWith(Parameterized.class)
+public class DeltaSteppingTest {
+
+    private final boolean directed;
+    private final int delta;
+
+    public DeltaSteppingTest(boolean directed, int delta) {
+        this.directed = directed;
+        this.delta = delta;
+    }
+
+    @Parameters(name = "directed={0}, delta={1}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true, 0},
+            {true, 1},
+            {true, 7},
+            {true, 1000},
+            {false, 0},
+            {false, 3}
+        });
+    }
+
+    @Test
+    public void distancesMatchDijkstra() {
+        IntegralSingleSourceShortestPathProblem problem
+                = ShortestPathTestInstances.createRandomInstance(directed, 3000, 12000, 50, 5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        DeltaStepping fixture = new DeltaStepping();
+        fixture.setDelta(delta);
+        fixture.setPool(pool);
+        fixture.setProblem(problem);
+        fixture.run();
+        pool.shutdown();
+
+        IntegralShortestPathSolution expected
+                = ShortestPathTestInstances.solve(problem.getGraph(), problem.getCosts(), problem.getSource());
+        assertSameDistances(problem, expected, fixture.getSolution());
+    }
+
+    @Test
+    public void stopsAtTarget() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 200, 600, 20, 6);
+        Graph graph = instance.getGraph();
+        IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, instance.getCosts(),
+                instance.getSource());
+        for (Node target : graph.nodes()) {
+            DeltaStepping fixture = new DeltaStepping();
+            fixture.setDelta(delta);
+            fixture.setProblem(new IntegralSingleSourceShortestPathProblem(graph, instance.getCosts(),
+                    instance.getSource(), target));
+            fixture.run();
+            assertThat(fixture.getSolution().getDistance(target), is(equalTo(expected.getDistance(target))));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeDelta() {
+        new DeltaStepping().setDelta(-1);
+    }
+
+    /**
+     * Checks the distances and that the predecessor edges form a shortest path tree.
+     */
+    private static void assertSameDistances(IntegralSingleSourceShortestPathProblem problem,
+            IntegralShortestPathSolution expected, IntegralShortestPathSolution solution) {
+        Graph graph = problem.getGraph();
+        for (Node node : graph.nodes()) {
+            int distance = solution.getDistance(node);
+            assertThat(distance, is(equalTo(expected.getDistance(node))));
+            if (distance == Integer.MAX_VALUE || node.equals(problem.getSource())) {
+                continue;
+            }
+            Edge edge = solution.getLastEdge(node);
+            Node predecessor = solution.getPredecessor(node);
+            assertThat(edge.opposite(node), is(equalTo(predecessor)));
+            assertThat(solution.getDistance(predecessor) + problem.getCosts().get(edge), is(equalTo(distance)));
+            int steps = 0;
+            for (Node v = node; !v.equals(problem.getSource()); v = solution.getPredecessor(v)) {
+                assertThat(++steps <= graph.nodeCount(), is(true));
+            }
+        }
+    }
+}
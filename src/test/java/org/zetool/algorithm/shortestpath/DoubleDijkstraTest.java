@@ -0,0 +1,117 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DynamicNetwork;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+
+/**
+ * Tests the shortest path engines for {@code double} and {@code long} costs.
+ */
+public class DoubleDijkstraTest {
+
+    @Test
+    public void halfCostsMatchIntegralDistances() {
+        for (boolean directed : new boolean[]{true, false}) {
+            IntegralSingleSourceShortestPathProblem problem
+                    = ShortestPathTestInstances.createRandomInstance(directed, 60, 200, 20, 18);
+            Graph graph = problem.getGraph();
+            DoubleDijkstra fixture = new DoubleDijkstra(graph, edge -> problem.getCosts().get(edge) / 2.0);
+            PrimitiveDijkstra expected = new PrimitiveDijkstra(graph, edge -> (long) problem.getCosts().get(edge));
+            for (Node source : graph.nodes()) {
+                fixture.run(fixture.getWorkspace(), source.id(), -1);
+                expected.run(expected.getWorkspace(), source.id(), -1);
+                for (Node node : graph.nodes()) {
+                    long distance = expected.getWorkspace().getDistance(node.id());
+                    double actual = fixture.getWorkspace().getDistance(node.id());
+                    if (distance == PrimitiveDijkstra.UNREACHABLE) {
+                        assertThat(actual, is(equalTo(DoubleDijkstra.UNREACHABLE)));
+                    } else {
+                        assertThat(actual, is(equalTo(distance / 2.0)));
+                        double length = 0;
+                        for (int edge : fixture.getPathEdges(fixture.getWorkspace(), node.id())) {
+                            length += problem.getCosts().get(graph.getEdge(edge)) / 2.0;
+                        }
+                        assertThat(length, is(equalTo(actual)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fractionalCosts() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(4, 5);
+        double[] costs = {0.4, 0.25, 0.1, 0.7, -0.0};
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(2));
+        graph.createAndSetEdge(graph.getNode(2), graph.getNode(1));
+        graph.createAndSetEdge(graph.getNode(1), graph.getNode(3));
+        graph.createAndSetEdge(graph.getNode(3), graph.getNode(2));
+        DoubleDijkstra fixture = new DoubleDijkstra(graph, edge -> costs[edge.id()]);
+
+        assertThat(fixture.distance(0, 1), is(equalTo(0.25 + 0.1)));
+        assertThat(fixture.distance(0, 3), is(equalTo(0.25 + 0.1 + 0.7)));
+        assertThat(fixture.getPath(fixture.getWorkspace(), 3).length(), is(equalTo(3)));
+        assertThat(fixture.distance(3, 0), is(equalTo(DoubleDijkstra.UNREACHABLE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNaN() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(2, 1);
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        new DoubleDijkstra(graph, edge -> Double.NaN);
+    }
+
+    @Test
+    public void rationalDijkstraSearchesIncomingEdges() {
+        DynamicNetwork network = new DynamicNetwork();
+        Node[] nodes = new Node[4];
+        for (int i = 0; i < nodes.length; ++i) {
+            nodes[i] = new Node(2 * i);
+            network.addNode(nodes[i]);
+        }
+        Map<Edge, Double> costs = new HashMap<>();
+        Edge[] edges = {new Edge(9, nodes[0], nodes[1]), new Edge(3, nodes[1], nodes[2]),
+            new Edge(5, nodes[0], nodes[2])};
+        double[] values = {1.5, 0.5, 2.5};
+        for (int i = 0; i < edges.length; ++i) {
+            network.addEdge(edges[i]);
+            costs.put(edges[i], values[i]);
+        }
+        RationalDijkstra fixture = new RationalDijkstra(network, costs, nodes[2]);
+        fixture.run();
+
+        assertThat(fixture.getDistance(nodes[2]), is(equalTo(0.0)));
+        assertThat(fixture.getDistance(nodes[1]), is(equalTo(0.5)));
+        assertThat(fixture.getDistance(nodes[0]), is(equalTo(2.0)));
+        assertThat(fixture.getDistance(nodes[3]), is(equalTo(Double.POSITIVE_INFINITY)));
+        assertThat(fixture.getLastEdge(nodes[0]), is(equalTo(edges[0])));
+        assertThat(fixture.getPredecessor(nodes[0]), is(equalTo(nodes[1])));
+        assertThat(fixture.getLastEdges().size(), is(equalTo(2)));
+        assertThat(fixture.getShortestPathGraph().edgeCount(), is(equalTo(2)));
+    }
+}
@@ -0,0 +1,245 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DynamicNetwork;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+
+/**
+ * Tests the repair of a {@link DynamicShortestPathTree} after random changes against recomputed distances.
+ */
+public class DynamicShortestPathTreeTest {
+
+    private static final int NODES = 40;
+    private static final int MAX_EDGES = 400;
+
+    private final Random random = new Random(8);
+    private final DynamicNetwork network = new DynamicNetwork();
+    private final IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(MAX_EDGES);
+    private final Node[] nodes = new Node[NODES];
+    private final List<Edge> edges = new ArrayList<>();
+    private final Set<Edge> removedTemporarily = new HashSet<>();
+    private int nextEdgeId;
+
+    public DynamicShortestPathTreeTest() {
+        for (int i = 0; i < NODES; ++i) {
+            nodes[i] = new Node(i);
+            network.addNode(nodes[i]);
+        }
+        for (int i = 0; i < 120; ++i) {
+            network.addEdge(createEdge());
+        }
+    }
+
+    private Edge createEdge() {
+        Edge edge = new Edge(nextEdgeId++, nodes[random.nextInt(NODES)], nodes[random.nextInt(NODES)]);
+        costs.set(edge, random.nextInt(20));
+        edges.add(edge);
+        return edge;
+    }
+
+    @Test
+    public void randomChanges() {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(network, costs, nodes[0]);
+        assertCorrect(tree);
+        for (int step = 0; step < 250; ++step) {
+            Edge edge = edges.get(random.nextInt(edges.size()));
+            switch (random.nextInt(5)) {
+                case 0:
+                    if (edges.size() < MAX_EDGES) {
+                        Edge added = createEdge();
+                        network.addEdge(added);
+                        tree.edgeAdded(added);
+                    }
+                    break;
+                case 1:
+                    if (network.contains(edge) && !removedTemporarily.contains(edge)) {
+                        network.removeEdge(edge);
+                        tree.edgeRemoved(edge);
+                    }
+                    break;
+                case 2:
+                    if (network.contains(edge) && removedTemporarily.add(edge)) {
+                        network.remove_edge_temp(edge);
+                        tree.edgeRemoved(edge);
+                    }
+                    break;
+                case 3:
+                    if (removedTemporarily.remove(edge)) {
+                        network.add_edge_temp(edge);
+                        tree.edgeAdded(edge);
+                    }
+                    break;
+                default:
+                    if (network.contains(edge)) {
+                        costs.set(edge, random.nextInt(20));
+                        tree.costChanged(edge);
+                    }
+            }
+            assertCorrect(tree);
+        }
+    }
+
+    @Test
+    public void batchedChangesAsListener() {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(network, costs, nodes[0]);
+        network.addGraphChangeListener(tree);
+        for (int batch = 0; batch < 40; ++batch) {
+            network.beginBatch();
+            for (int step = 0; step < 6; ++step) {
+                Edge edge = edges.get(random.nextInt(edges.size()));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        if (edges.size() < MAX_EDGES) {
+                            network.addEdge(createEdge());
+                        }
+                        break;
+                    case 1:
+                        if (network.contains(edge) && !removedTemporarily.contains(edge)) {
+                            network.removeEdge(edge);
+                        }
+                        break;
+                    case 2:
+                        if (network.contains(edge) && removedTemporarily.add(edge)) {
+                            network.remove_edge_temp(edge);
+                        }
+                        break;
+                    default:
+                        if (removedTemporarily.remove(edge)) {
+                            network.add_edge_temp(edge);
+                        }
+                }
+            }
+            network.endBatch();
+            assertCorrect(tree);
+        }
+    }
+
+    @Test
+    public void treeEdgeRemovalOnlyScansSubtree() {
+        DynamicNetwork path = new DynamicNetwork();
+        Node[] line = new Node[100];
+        for (int i = 0; i < line.length; ++i) {
+            line[i] = new Node(i);
+            path.addNode(line[i]);
+        }
+        IdentifiableIntegerMapping<Edge> lineCosts = new IdentifiableIntegerMapping<>(line.length);
+        Edge[] lineEdges = new Edge[line.length - 1];
+        for (int i = 0; i < lineEdges.length; ++i) {
+            lineEdges[i] = new Edge(i, line[i], line[i + 1]);
+            lineCosts.set(lineEdges[i], 1);
+            path.addEdge(lineEdges[i]);
+        }
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(path, lineCosts, line[0]);
+        assertThat(tree.getUpdateSize(), is(equalTo(line.length)));
+
+        path.removeEdge(lineEdges[89]);
+        tree.edgeRemoved(lineEdges[89]);
+
+        assertThat(tree.getUpdateSize(), is(equalTo(0)));
+        assertThat(tree.getDistance(line[89]), is(equalTo(89L)));
+        assertThat(tree.getDistance(line[90]), is(equalTo(DynamicShortestPathTree.UNREACHABLE)));
+        assertThat(tree.getPath(line[95]), is(nullValue()));
+
+        Edge shortcut = new Edge(lineEdges.length, line[50], line[95]);
+        lineCosts.set(shortcut, 3);
+        path.addEdge(shortcut);
+        tree.edgeAdded(shortcut);
+
+        assertThat(tree.getUpdateSize(), is(equalTo(5)));
+        assertThat(tree.getDistance(line[99]), is(equalTo(57L)));
+        assertThat(tree.getPath(line[99]).length(), is(equalTo(55)));
+    }
+
+    @Test
+    public void toleratesRemovedNodes() {
+        DynamicNetwork small = new DynamicNetwork();
+        Node[] three = {new Node(0), new Node(1), new Node(2)};
+        small.addNodes(Arrays.asList(three));
+        IdentifiableIntegerMapping<Edge> smallCosts = new IdentifiableIntegerMapping<>(2);
+        Edge edge = new Edge(0, three[0], three[1]);
+        smallCosts.set(edge, 5);
+        small.addEdge(edge);
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(small, smallCosts, three[0]);
+
+        small.removeAllNodes();
+        tree.edgeRemoved(edge);
+        Edge stale = new Edge(1, three[0], three[2]);
+        smallCosts.set(stale, 1);
+        tree.edgeAdded(stale);
+
+        assertThat(tree.getDistance(three[1]), is(equalTo(DynamicShortestPathTree.UNREACHABLE)));
+        assertThat(tree.getDistance(three[2]), is(equalTo(1L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeCosts() {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(network, costs, nodes[0]);
+        Edge edge = new Edge(nextEdgeId++, nodes[0], nodes[1]);
+        costs.set(edge, -1);
+        network.addEdge(edge);
+        tree.edgeAdded(edge);
+    }
+
+    /**
+     * Compares with distances computed by Bellman-Ford on the edges that are currently in the network.
+     */
+    private void assertCorrect(DynamicShortestPathTree tree) {
+        long[] expected = new long[NODES];
+        Arrays.fill(expected, DynamicShortestPathTree.UNREACHABLE);
+        expected[0] = 0;
+        for (int pass = 0; pass < NODES; ++pass) {
+            for (Edge edge : network.edges()) {
+                long start = expected[edge.start().id()];
+                if (!removedTemporarily.contains(edge) && start != DynamicShortestPathTree.UNREACHABLE
+                        && start + costs.get(edge) < expected[edge.end().id()]) {
+                    expected[edge.end().id()] = start + costs.get(edge);
+                }
+            }
+        }
+        for (Node node : nodes) {
+            assertThat(tree.getDistance(node), is(equalTo(expected[node.id()])));
+            Path path = tree.getPath(node);
+            if (path != null) {
+                long length = 0;
+                Node current = nodes[0];
+                for (Edge edge : path) {
+                    assertThat(edge.start(), is(equalTo(current)));
+                    assertThat(network.contains(edge) && !removedTemporarily.contains(edge), is(true));
+                    length += costs.get(edge);
+                    current = edge.end();
+                }
+                assertThat(current, is(equalTo(node)));
+                assertThat(length, is(equalTo(expected[node.id()])));
+            }
+        }
+    }
+}
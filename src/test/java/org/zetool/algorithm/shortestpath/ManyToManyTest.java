@@ -0,0 +1,96 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.graph.Graph;
+
+/**
+ * Tests the many-to-many distance table engines against single source queries.
+ */
+@RunWith(Parameterized.class)
+public class ManyToManyTest {
+
+    private final boolean directed;
+
+    public ManyToManyTest(boolean directed) {
+        this.directed = directed;
+    }
+
+    @Parameters(name = "directed={0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true},
+            {false}
+        });
+    }
+
+    @Test
+    public void tablesMatchSingleSourceQueries() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 150, 400, 20, 12);
+        Graph graph = instance.getGraph();
+        Random random = new Random(13);
+        int[] sources = random.ints(25, 0, graph.nodeCount()).toArray();
+        int[] targets = random.ints(30, 0, graph.nodeCount()).toArray();
+        targets[1] = targets[0];
+        ForkJoinPool pool = new ForkJoinPool(3);
+
+        ManyToManyDijkstra dijkstra = new ManyToManyDijkstra(graph, instance.getCosts());
+        dijkstra.setPool(pool);
+        ContractionHierarchyManyToMany buckets = new ContractionHierarchyManyToMany(
+                new ContractionHierarchyBuilder().build(graph, instance.getCosts()));
+        buckets.setPool(pool);
+        DistanceTable dijkstraTable = dijkstra.compute(sources, targets);
+        DistanceTable bucketTable = buckets.compute(sources, targets);
+        pool.shutdown();
+
+        PrimitiveDijkstra expected = new PrimitiveDijkstra(graph, instance.getCosts());
+        PrimitiveDijkstra.Workspace workspace = expected.createWorkspace();
+        for (int i = 0; i < sources.length; ++i) {
+            expected.run(workspace, sources[i], -1);
+            for (int j = 0; j < targets.length; ++j) {
+                long distance = workspace.getDistance(targets[j]);
+                assertThat(dijkstraTable.get(i, j), is(equalTo(distance)));
+                assertThat(bucketTable.get(i, j), is(equalTo(distance)));
+            }
+        }
+        assertThat(dijkstraTable.getSource(3), is(equalTo(sources[3])));
+        assertThat(bucketTable.toArray(), is(equalTo(dijkstraTable.toArray())));
+    }
+
+    @Test
+    public void emptyTargets() {
+        IntegralSingleSourceShortestPathProblem instance
+                = ShortestPathTestInstances.createRandomInstance(directed, 20, 40, 5, 14);
+        DistanceTable table = new ManyToManyDijkstra(instance.getGraph(), instance.getCosts())
+                .compute(new int[]{0, 1}, new int[0]);
+
+        assertThat(table.getSourceCount(), is(equalTo(2)));
+        assertThat(table.getTargetCount(), is(equalTo(0)));
+        assertThat(table.toArray().length, is(equalTo(0)));
+    }
+}
@@ -0,0 +1,158 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.container.mapping.IdentifiableConstantMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.MutableGraph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+
+/**
+ * Tests the primitive Dijkstra engine against {@link Dijkstra}.
+ */
+@RunWith(Parameterized.class)
+public class PrimitiveDijkstraTest {
+
+    private final boolean directed;
+
+    public PrimitiveDijkstraTest(boolean directed) {
+        this.directed = directed;
+    }
+
+    @Parameters(name = "directed={0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true},
+            {false}
+        });
+    }
+
+    @Test
+    public void distancesMatchDijkstra() {
+        IntegralSingleSourceShortestPathProblem problem
+                = ShortestPathTestInstances.createRandomInstance(directed, 60, 200, 20, 1);
+        Graph graph = problem.getGraph();
+        PrimitiveDijkstra fixture = new PrimitiveDijkstra(graph, problem.getCosts());
+        PrimitiveDijkstra.Workspace workspace = fixture.createWorkspace();
+
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, problem.getCosts(), source);
+            fixture.run(workspace, source.id(), -1);
+            for (Node node : graph.nodes()) {
+                long distance = workspace.getDistance(node.id());
+                int expectedDistance = expected.getDistance(node);
+                assertThat(distance, is(equalTo(expectedDistance == Integer.MAX_VALUE
+                        ? PrimitiveDijkstra.UNREACHABLE : (long) expectedDistance)));
+            }
+        }
+    }
+
+    @Test
+    public void pointToPointQueries() {
+        IntegralSingleSourceShortestPathProblem problem
+                = ShortestPathTestInstances.createRandomInstance(directed, 40, 120, 10, 2);
+        Graph graph = problem.getGraph();
+        PrimitiveDijkstra fixture = new PrimitiveDijkstra(graph, problem.getCosts());
+
+        for (Node source : graph.nodes()) {
+            IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, problem.getCosts(), source);
+            for (Node target : graph.nodes()) {
+                if (expected.getDistance(target) == Integer.MAX_VALUE) {
+                    assertThat(fixture.distance(source.id(), target.id()), is(equalTo(PrimitiveDijkstra.UNREACHABLE)));
+                    continue;
+                }
+                assertThat(fixture.distance(source.id(), target.id()), is(equalTo((long) expected.getDistance(target))));
+                if (!directed) {
+                    continue;
+                }
+                Path path = fixture.shortestPath(source, target);
+                int length = 0;
+                for (Edge edge : path) {
+                    length += problem.getCosts().get(edge);
+                }
+                assertThat(length, is(equalTo(expected.getDistance(target))));
+            }
+        }
+    }
+
+    @Test
+    public void targetStopsSearch() {
+        MutableGraph graph = createGraphInstance(4, 3);
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        graph.createAndSetEdge(graph.getNode(2), graph.getNode(3));
+        PrimitiveDijkstra fixture = new PrimitiveDijkstra(graph, new IdentifiableConstantMapping<>(1));
+        PrimitiveDijkstra.Workspace workspace = fixture.createWorkspace();
+
+        fixture.run(workspace, 0, 1);
+
+        assertThat(workspace.isSettled(1), is(true));
+        assertThat(workspace.isSettled(2), is(false));
+        assertThat(workspace.getSettledCount(), is(lessThan(graph.nodeCount())));
+
+        IntegralShortestPathSolution solution = fixture.getSolution(graph, workspace);
+        assertThat(solution.getDistance(graph.getNode(1)), is(equalTo(1)));
+        assertThat(solution.getDistance(graph.getNode(2)), is(equalTo(Integer.MAX_VALUE)));
+        assertThat(solution.getLastEdge(graph.getNode(2)), is(nullValue()));
+        assertThat(solution.getPredecessor(graph.getNode(2)), is(nullValue()));
+    }
+
+    @Test
+    public void solutionCompatible() {
+        IntegralSingleSourceShortestPathProblem problem
+                = ShortestPathTestInstances.createRandomInstance(directed, 30, 60, 10, 3);
+        Graph graph = problem.getGraph();
+        PrimitiveDijkstra fixture = new PrimitiveDijkstra(graph, problem.getCosts());
+        fixture.run(fixture.getWorkspace(), 0, -1);
+
+        IntegralShortestPathSolution solution = fixture.getSolution(graph, fixture.getWorkspace());
+        IntegralShortestPathSolution expected = ShortestPathTestInstances.solve(graph, problem.getCosts(),
+                graph.getNode(0));
+        for (Node node : graph.nodes()) {
+            assertThat(solution.getDistance(node), is(equalTo(expected.getDistance(node))));
+        }
+        assertThat(solution.getPredecessor(graph.getNode(0)), is(equalTo(null)));
+    }
+
+    @Test
+    public void reverseSearch() {
+        MutableGraph graph = createGraphInstance(2, 1);
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        PrimitiveDijkstra fixture = new PrimitiveDijkstra(graph, new IdentifiableConstantMapping<>(4), true);
+
+        assertThat(fixture.distance(1, 0), is(equalTo(4L)));
+        assertThat(fixture.distance(0, 1), is(equalTo(directed ? PrimitiveDijkstra.UNREACHABLE : 4L)));
+    }
+
+    private MutableGraph createGraphInstance(int nodes, int edges) {
+        return directed ? new DefaultDirectedGraph(nodes, edges) : new DefaultGraph(nodes, edges);
+    }
+}
@@ -0,0 +1,250 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+import org.zetool.graph.structure.Path;
+
+/**
+ * Tests the queue based Bellman-Ford algorithm with both negative cycle strategies.
+ */
+@RunWith(Parameterized.class)
+public class QueueBellmanFordTest {
+
+    private final boolean subtreeDisassembly;
+
+    public QueueBellmanFordTest(boolean subtreeDisassembly) {
+        this.subtreeDisassembly = subtreeDisassembly;
+    }
+
+    @Parameters(name = "subtreeDisassembly={0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true},
+            {false}
+        });
+    }
+
+    @Test
+    public void distancesMatchDijkstra() {
+        for (boolean directed : new boolean[]{true, false}) {
+            IntegralSingleSourceShortestPathProblem problem
+                    = ShortestPathTestInstances.createRandomInstance(directed, 60, 200, 20, 3);
+            Graph graph = problem.getGraph();
+            QueueBellmanFord fixture = create(graph, problem.getCosts());
+            for (Node source : graph.nodes()) {
+                IntegralShortestPathSolution expected
+                        = ShortestPathTestInstances.solve(graph, problem.getCosts(), source);
+                assertThat(fixture.run(source.id()), is(true));
+                for (Node node : graph.nodes()) {
+                    int expectedDistance = expected.getDistance(node);
+                    assertThat(fixture.getDistance(node.id()), is(equalTo(expectedDistance == Integer.MAX_VALUE
+                            ? QueueBellmanFord.UNREACHABLE : (long) expectedDistance)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void negativeCostsWithoutCycleMatchMooreBellmanFord() {
+        Random random = new Random(4);
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(50, 300);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(300);
+        for (int i = 0; i < 300; ++i) {
+            // edges from smaller to larger ids form an acyclic graph
+            int start = random.nextInt(49);
+            int end = start + 1 + random.nextInt(49 - start);
+            costs.set(graph.createAndSetEdge(graph.getNode(start), graph.getNode(end)), random.nextInt(21) - 10);
+        }
+        MooreBellmanFord expected = new MooreBellmanFord(graph, costs, graph.getNode(0));
+        expected.run();
+        QueueBellmanFord fixture = create(graph, costs);
+
+        assertThat(fixture.run(0), is(true));
+        assertThat(fixture.hasNegativeCycle(), is(false));
+        for (Node node : graph.nodes()) {
+            int distance = expected.getDistances().get(node);
+            if (distance == Integer.MAX_VALUE) {
+                assertThat(fixture.getDistance(node.id()), is(equalTo(QueueBellmanFord.UNREACHABLE)));
+            } else {
+                assertThat(fixture.getDistance(node.id()), is(equalTo((long) distance)));
+                assertThat(length(graph, costs, fixture.getPathEdges(node.id())), is(equalTo((long) distance)));
+            }
+        }
+    }
+
+    @Test
+    public void detectsNegativeCycle() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(5, 5);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(5);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(1)), 1);
+        costs.set(graph.createAndSetEdge(graph.getNode(1), graph.getNode(2)), 2);
+        costs.set(graph.createAndSetEdge(graph.getNode(2), graph.getNode(3)), -4);
+        costs.set(graph.createAndSetEdge(graph.getNode(3), graph.getNode(1)), 1);
+        costs.set(graph.createAndSetEdge(graph.getNode(3), graph.getNode(4)), 1);
+        QueueBellmanFord fixture = create(graph, costs);
+
+        assertThat(fixture.run(0), is(false));
+        assertThat(fixture.hasNegativeCycle(), is(true));
+        Path cycle = fixture.getNegativeCycle();
+        assertThat(cycle.length(), is(equalTo(3)));
+        assertThat(cycle.first().start(), is(equalTo(cycle.last().end())));
+        int length = 0;
+        for (Edge edge : cycle) {
+            length += costs.get(edge);
+        }
+        assertThat(length, is(equalTo(-1)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noDistancesForNegativeCycle() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(2, 2);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(2);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(1)), -1);
+        costs.set(graph.createAndSetEdge(graph.getNode(1), graph.getNode(0)), 0);
+        QueueBellmanFord fixture = create(graph, costs);
+        fixture.run(0);
+        fixture.getDistance(1);
+    }
+
+    @Test
+    public void unreachableCycleIsIgnored() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(4, 3);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(3);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(1)), 5);
+        costs.set(graph.createAndSetEdge(graph.getNode(2), graph.getNode(3)), -2);
+        costs.set(graph.createAndSetEdge(graph.getNode(3), graph.getNode(2)), 1);
+        QueueBellmanFord fixture = create(graph, costs);
+
+        assertThat(fixture.run(0), is(true));
+        assertThat(fixture.getDistance(1), is(equalTo(5L)));
+        assertThat(fixture.getDistance(2), is(equalTo(QueueBellmanFord.UNREACHABLE)));
+        assertThat(fixture.run(2), is(false));
+    }
+
+    @Test
+    public void potentialsFromAllNodes() {
+        IntegralSingleSourceShortestPathProblem problem
+                = ShortestPathTestInstances.createRandomInstance(true, 40, 120, 12, 21);
+        Graph graph = problem.getGraph();
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(graph.edgeCount());
+        for (Edge edge : graph.edges()) {
+            // edges to smaller ids are expensive, so there is no negative cycle
+            costs.set(edge, edge.end().id() > edge.start().id() ? problem.getCosts().get(edge) - 8 : 500);
+        }
+        int[] sources = new int[graph.nodeCount()];
+        for (int i = 0; i < sources.length; ++i) {
+            sources[i] = i;
+        }
+        QueueBellmanFord fixture = create(graph, costs);
+
+        assertThat(fixture.run(sources), is(true));
+        for (Edge edge : graph.edges()) {
+            long reducedCost = costs.get(edge) + fixture.getDistance(edge.start().id())
+                    - fixture.getDistance(edge.end().id());
+            assertThat(reducedCost >= 0, is(true));
+        }
+        for (int source : sources) {
+            assertThat(fixture.getDistance(source) <= 0, is(true));
+        }
+    }
+
+    @Test
+    public void negativeUndirectedEdgeIsCycle() {
+        DefaultGraph graph = new DefaultGraph(3, 2);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(2);
+        costs.set(graph.createAndSetEdge(graph.getNode(0), graph.getNode(1)), 2);
+        Edge negative = graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        costs.set(negative, -1);
+        QueueBellmanFord fixture = create(graph, costs);
+
+        assertThat(fixture.run(0), is(false));
+        assertThat(fixture.getNegativeCycleEdges(), is(equalTo(new int[]{negative.id(), negative.id()})));
+    }
+
+    @Test
+    public void randomNegativeCosts() {
+        for (long seed = 0; seed < 20; ++seed) {
+            IntegralSingleSourceShortestPathProblem problem
+                    = ShortestPathTestInstances.createRandomInstance(true, 40, 120, 12, seed);
+            Graph graph = problem.getGraph();
+            IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(graph.edgeCount());
+            for (Edge edge : graph.edges()) {
+                costs.set(edge, problem.getCosts().get(edge) - 2);
+            }
+            QueueBellmanFord fixture = create(graph, costs);
+            QueueBellmanFord other = new QueueBellmanFord(graph, costs);
+            other.setSubtreeDisassembly(!subtreeDisassembly);
+
+            boolean result = fixture.run(0);
+            assertThat(other.run(0), is(equalTo(result)));
+            if (result) {
+                assertOptimal(graph, costs, fixture);
+            } else {
+                int[] cycle = fixture.getNegativeCycleEdges();
+                assertThat(length(graph, costs, cycle), is(lessThan(0L)));
+                Path path = fixture.getNegativeCycle();
+                assertThat(path.first().start(), is(equalTo(path.last().end())));
+            }
+        }
+    }
+
+    private QueueBellmanFord create(Graph graph, IdentifiableIntegerMapping<Edge> costs) {
+        QueueBellmanFord fixture = new QueueBellmanFord(graph, costs);
+        fixture.setSubtreeDisassembly(subtreeDisassembly);
+        return fixture;
+    }
+
+    private static void assertOptimal(Graph graph, IdentifiableIntegerMapping<Edge> costs, QueueBellmanFord fixture) {
+        for (Edge edge : graph.edges()) {
+            long start = fixture.getDistance(edge.start().id());
+            if (start != QueueBellmanFord.UNREACHABLE) {
+                assertThat(fixture.getDistance(edge.end().id()), is(lessThanOrEqualTo(start + costs.get(edge))));
+            }
+        }
+        for (Node node : graph.nodes()) {
+            long distance = fixture.getDistance(node.id());
+            if (distance != QueueBellmanFord.UNREACHABLE) {
+                assertThat(length(graph, costs, fixture.getPathEdges(node.id())), is(equalTo(distance)));
+            }
+        }
+    }
+
+    private static long length(Graph graph, IdentifiableIntegerMapping<Edge> costs, int[] edges) {
+        long length = 0;
+        for (int edge : edges) {
+            length += costs.get(graph.getEdge(edge));
+        }
+        return length;
+    }
+}
@@ -0,0 +1,77 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.shortestpath;
+
+import java.util.Random;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.MutableGraph;
+import org.zetool.graph.Node;
+
+/**
+ * Random test instances for shortest path algorithms that are checked against {@link Dijkstra}.
+ */
+class ShortestPathTestInstances {
+
+    private ShortestPathTestInstances() {
+    }
+
+    /**
+     * Creates a random graph with a random spanning tree, in which each node is attached to a random node with a smaller
+     * id, and additional random edges.
+     *
+     * @param directed whether the graph is directed
+     * @param nodes the number of nodes
+     * @param edges the number of edges, at least {@code nodes - 1}
+     * @param maxCost the maximal edge cost
+     * @param seed the random seed
+     * @return the shortest path instance with source node 0
+     */
+    static IntegralSingleSourceShortestPathProblem createRandomInstance(boolean directed, int nodes, int edges,
+            int maxCost, long seed) {
+        Random random = new Random(seed);
+        MutableGraph graph = directed ? new DefaultDirectedGraph(nodes, edges) : new DefaultGraph(nodes, edges);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(edges);
+        for (int i = 1; i < nodes; ++i) {
+            Edge edge = graph.createAndSetEdge(graph.getNode(random.nextInt(i)), graph.getNode(i));
+            costs.set(edge, random.nextInt(maxCost + 1));
+        }
+        for (int i = nodes - 1; i < edges; ++i) {
+            Edge edge = graph.createAndSetEdge(graph.getNode(random.nextInt(nodes)),
+                    graph.getNode(random.nextInt(nodes)));
+            costs.set(edge, random.nextInt(maxCost + 1));
+        }
+        return new IntegralSingleSourceShortestPathProblem(graph, costs, graph.getNode(0));
+    }
+
+    /**
+     * Computes the shortest path distances from a source using {@link Dijkstra}.
+     *
+     * @param graph the graph
+     * @param costs the edge costs
+     * @param source the source node
+     * @return the shortest path solution
+     */
+    static IntegralShortestPathSolution solve(Graph graph, IdentifiableIntegerMapping<Edge> costs, Node source) {
+        Dijkstra dijkstra = new Dijkstra();
+        dijkstra.setProblem(new IntegralSingleSourceShortestPathProblem(graph, costs, source));
+        dijkstra.run();
+        return dijkstra.getSolution();
+    }
+}
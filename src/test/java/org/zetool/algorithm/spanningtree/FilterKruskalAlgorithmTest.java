@@ -0,0 +1,80 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.spanningtree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.zetool.algorithm.spanningtree.TestInstances.createComplexSingleComponentInstance;
+import static org.zetool.algorithm.spanningtree.TestInstances.createComplexTwoComponentInstance;
+import static org.zetool.algorithm.spanningtree.TestInstances.createRandomInstance;
+import static org.zetool.algorithm.spanningtree.TestInstances.cost;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.zetool.container.mapping.IdentifiableConstantMapping;
+
+/**
+ * Tests the Filter-Kruskal algorithm against {@link RadixKruskalAlgorithm}.
+ */
+public class FilterKruskalAlgorithmTest {
+
+    @Test
+    public void complexInstances() {
+        for (int threshold : new int[]{1, 2, 5, FilterKruskalAlgorithm.DEFAULT_THRESHOLD}) {
+            MinSpanningTreeProblem single = createComplexSingleComponentInstance();
+            assertThat(cost(single, solve(single, threshold, ForkJoinPool.commonPool())), is(equalTo(39L)));
+            MinSpanningTreeProblem two = createComplexTwoComponentInstance();
+            assertThat(cost(two, solve(two, threshold, ForkJoinPool.commonPool())), is(equalTo(50L)));
+        }
+    }
+
+    @Test
+    public void equalWeights() {
+        MinSpanningTreeProblem problem = createRandomInstance(100, 1000, 50000, new Random(3));
+        problem = new MinSpanningTreeProblem(problem.getGraph(), new IdentifiableConstantMapping<>(7));
+        UndirectedForest forest = solve(problem, 10, ForkJoinPool.commonPool());
+        assertThat(forest.getEdges().size(), is(equalTo(99)));
+    }
+
+    @Test
+    public void largeInstanceMatchesKruskal() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(5);
+        for (int round = 0; round < 3; ++round) {
+            MinSpanningTreeProblem problem = createRandomInstance(3000, 40000, 50000, random);
+            RadixKruskalAlgorithm kruskal = new RadixKruskalAlgorithm();
+            kruskal.setProblem(problem);
+            kruskal.run();
+
+            UndirectedForest forest = solve(problem, 100, pool);
+
+            assertThat(forest.getEdges().size(), is(equalTo(kruskal.getSolution().getEdges().size())));
+            assertThat(cost(problem, forest), is(equalTo(cost(problem, kruskal.getSolution()))));
+        }
+        pool.shutdown();
+    }
+
+    private static UndirectedForest solve(MinSpanningTreeProblem problem, int threshold, ForkJoinPool pool) {
+        FilterKruskalAlgorithm algorithm = new FilterKruskalAlgorithm();
+        algorithm.setThreshold(threshold);
+        algorithm.setPool(pool);
+        algorithm.setProblem(problem);
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+}
@@ -0,0 +1,125 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.spanningtree;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.zetool.algorithm.spanningtree.TestInstances.createComplexSingleComponentInstance;
+import static org.zetool.algorithm.spanningtree.TestInstances.createComplexTwoComponentInstance;
+import static org.zetool.algorithm.spanningtree.TestInstances.createDirectedCopy;
+import static org.zetool.algorithm.spanningtree.TestInstances.createRandomInstance;
+import static org.zetool.algorithm.spanningtree.TestInstances.cost;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import org.zetool.container.mapping.IdentifiableConstantMapping;
+import org.zetool.container.mapping.IdentifiableIntegerMapping;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.MutableGraph;
+
+/**
+ * Tests the radix sort based Kruskal algorithm.
+ */
+public class RadixKruskalAlgorithmTest {
+
+    @Test
+    public void singleNode() {
+        MutableGraph graph = new DefaultGraph(1, 0);
+        UndirectedForest solution = solve(new MinSpanningTreeProblem(graph, new IdentifiableConstantMapping<>(0)));
+        assertThat(solution.getEdges(), is(emptyIterable()));
+    }
+
+    @Test
+    public void parallelEdges() {
+        MutableGraph graph = new DefaultGraph(2, 2);
+        Edge expensiveEdge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        Edge cheapEdge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        IdentifiableIntegerMapping<Edge> weights = new IdentifiableIntegerMapping<>(2);
+        weights.set(cheapEdge, -1);
+        weights.set(expensiveEdge, 2);
+
+        UndirectedForest solution = solve(new MinSpanningTreeProblem(graph, weights));
+
+        assertThat(solution.getEdges(), contains(cheapEdge));
+    }
+
+    @Test
+    public void complexInstances() {
+        assertThat(solveCost(createComplexSingleComponentInstance()), is(equalTo(39L)));
+        assertThat(solveCost(createComplexTwoComponentInstance()), is(equalTo(38L + 12L)));
+        assertThat(solveCost(createDirectedCopy(createComplexSingleComponentInstance())), is(equalTo(39L)));
+    }
+
+    @Test
+    public void extremeWeights() {
+        MutableGraph graph = new DefaultGraph(3, 3);
+        Edge expensiveEdge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        Edge cheapEdge = graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        Edge zeroEdge = graph.createAndSetEdge(graph.getNode(2), graph.getNode(0));
+        IdentifiableIntegerMapping<Edge> weights = new IdentifiableIntegerMapping<>(3);
+        weights.set(expensiveEdge, Integer.MAX_VALUE);
+        weights.set(cheapEdge, -Integer.MAX_VALUE);
+        weights.set(zeroEdge, 0);
+
+        UndirectedForest solution = solve(new MinSpanningTreeProblem(graph, weights));
+
+        assertThat(solution.getEdges(), contains(cheapEdge, zeroEdge));
+    }
+
+    @Test
+    public void randomInstancesMatchKruskal() {
+        Random random = new Random(17);
+        for (int round = 0; round < 10; ++round) {
+            int nodes = 50 + random.nextInt(50);
+            int edgeCount = nodes + random.nextInt(4 * nodes);
+            MinSpanningTreeProblem problem = createRandomInstance(nodes, edgeCount, 1000, random);
+            KruskalAlgorithm kruskal = new KruskalAlgorithm();
+            kruskal.setProblem(problem);
+            kruskal.run();
+
+            UndirectedForest solution = solve(problem);
+
+            assertThat(solution.getEdges().size(), is(equalTo(kruskal.getSolution().getEdges().size())));
+            assertThat(cost(problem, solution), is(equalTo(cost(problem, kruskal.getSolution()))));
+        }
+    }
+
+    @Test
+    public void sortIsStable() {
+        int[] keys = {5, -3, 5, Integer.MIN_VALUE, 0, Integer.MAX_VALUE, -3};
+        int[] values = {0, 1, 2, 3, 4, 5, 6};
+        RadixKruskalAlgorithm.sort(keys, values, keys.length);
+        assertThat(Arrays.toString(keys),
+                is(equalTo(Arrays.toString(new int[]{Integer.MIN_VALUE, -3, -3, 0, 5, 5, Integer.MAX_VALUE}))));
+        assertThat(Arrays.toString(values), is(equalTo(Arrays.toString(new int[]{3, 1, 6, 4, 0, 2, 5}))));
+    }
+
+    private static UndirectedForest solve(MinSpanningTreeProblem problem) {
+        RadixKruskalAlgorithm algorithm = new RadixKruskalAlgorithm();
+        algorithm.setProblem(problem);
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+
+    private static long solveCost(MinSpanningTreeProblem problem) {
+        return cost(problem, solve(problem));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.zetool.algorithm.spanningtree;
 
+import java.util.Random;
 import org.zetool.container.mapping.IdentifiableIntegerMapping;
 import org.zetool.graph.DefaultDirectedGraph;
 import org.zetool.graph.DefaultGraph;
@@ -122,6 +123,41 @@ public class TestInstances {
         return new MinSpanningTreeProblem(graph, weights);
     }
 
+    /**
+     * Produces a random instance with uniformly distributed edges, which may contain loops and parallel edges.
+     *
+     * @param nodes the number of nodes
+     * @param edgeCount the number of edges
+     * @param maxWeight the maximal absolute value of the weights
+     * @param random the random number generator
+     * @return the minimum spanning tree test instance
+     */
+    static MinSpanningTreeProblem createRandomInstance(int nodes, int edgeCount, int maxWeight, Random random) {
+        MutableGraph graph = new DefaultGraph(nodes, edgeCount);
+        IdentifiableIntegerMapping<Edge> weights = new IdentifiableIntegerMapping<>(edgeCount);
+        for (int i = 0; i < edgeCount; ++i) {
+            Edge edge = graph.createAndSetEdge(graph.getNode(random.nextInt(nodes)),
+                    graph.getNode(random.nextInt(nodes)));
+            weights.set(edge, random.nextInt(2 * maxWeight + 1) - maxWeight);
+        }
+        return new MinSpanningTreeProblem(graph, weights);
+    }
+
+    /**
+     * Computes the total weight of a forest.
+     *
+     * @param problem the problem instance containing the weights
+     * @param forest the forest
+     * @return the sum of the weights of the forest edges
+     */
+    static long cost(MinSpanningTreeProblem problem, UndirectedForest forest) {
+        long cost = 0;
+        for (Edge edge : forest.getEdges()) {
+            cost += problem.getDistances().get(edge);
+        }
+        return cost;
+    }
+
     private static void setEdgeAndWeight(MutableGraph graph, Node a, Node b,
             IdentifiableIntegerMapping<Edge> weights, int weight) {
         Edge newEdge = graph.createAndSetEdge(a, b);
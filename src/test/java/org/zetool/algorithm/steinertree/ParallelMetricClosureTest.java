@@ -0,0 +1,50 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.steinertree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * Tests that the Steiner tree approximation yields the same connected tree independent of the number of threads.
+ */
+public class ParallelMetricClosureTest {
+
+    @Test
+    public void sameResultForDifferentPools() {
+        MinSteinerTreeProblem instance = SteinerTreeTestInstances.createRandomInstance(200, 600, 30, 11);
+
+        SteinerTree sequential = solve(instance, new ForkJoinPool(1));
+        SteinerTree parallel = solve(instance, new ForkJoinPool(4));
+
+        assertThat(parallel.getCost(), is(equalTo(sequential.getCost())));
+        assertThat(parallel.getEdges().size(), is(equalTo(sequential.getEdges().size())));
+        SteinerTreeTestInstances.assertIsTree(instance, parallel);
+    }
+
+    private static SteinerTree solve(MinSteinerTreeProblem instance, ForkJoinPool pool) {
+        SteinerTreeSpanningTreeApproximationAlgorithm algorithm = new SteinerTreeSpanningTreeApproximationAlgorithm();
+        algorithm.setPool(pool);
+        algorithm.setProblem(instance);
+        algorithm.run();
+        pool.shutdown();
+        return algorithm.getSolution();
+    }
+}
@@ -0,0 +1,71 @@
+/* zet evacuation tool copyright © 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.algorithm.steinertree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.iterableWithSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import org.zetool.container.collection.ListSequence;
+import org.zetool.container.mapping.IdentifiableConstantMapping;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.MutableGraph;
+
+/**
+ * Tests Mehlhorn's Steiner tree approximation.
+ */
+public class SteinerTreeMehlhornAlgorithmTest {
+
+    @Test
+    public void singlePath() {
+        MutableGraph graph = new DefaultGraph(4, 3);
+        IntStream.of(0, 1, 2).forEach(i -> graph.createAndSetEdge(graph.getNode(i), graph.getNode(i + 1)));
+        MinSteinerTreeProblem instance = new MinSteinerTreeProblem(graph, new IdentifiableConstantMapping<>(3),
+                new ListSequence<>(Arrays.asList(graph.getNode(1), graph.getNode(3))));
+
+        SteinerTree steinerTree = solve(instance);
+
+        assertThat(steinerTree.getEdges(), is(iterableWithSize(2)));
+        assertThat(steinerTree.getCost(), is(equalTo(6L)));
+    }
+
+    @Test
+    public void notWorseThanMetricClosure() {
+        for (long seed = 0; seed < 5; ++seed) {
+            MinSteinerTreeProblem instance = SteinerTreeTestInstances.createRandomInstance(150, 400, 25, seed);
+            SteinerTreeSpanningTreeApproximationAlgorithm closure = new SteinerTreeSpanningTreeApproximationAlgorithm();
+            closure.setProblem(instance);
+            closure.run();
+
+            SteinerTree steinerTree = solve(instance);
+
+            assertThat(steinerTree.getCost(), is(lessThanOrEqualTo(closure.getSolution().getCost())));
+            SteinerTreeTestInstances.assertIsTree(instance, steinerTree);
+        }
+    }
+
+    private static SteinerTree solve(MinSteinerTreeProblem instance) {
+        SteinerTreeMehlhornAlgorithm algorithm = new SteinerTreeMehlhornAlgorithm();
+        algorithm.setProblem(instance);
+        algorithm.run();
+        return algorithm.getSolution();
+    }
+}
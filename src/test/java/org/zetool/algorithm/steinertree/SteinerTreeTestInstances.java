@@ -15,6 +15,14 @@
  */
 package org.zetool.algorithm.steinertree;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 import org.zetool.container.collection.IdentifiableCollection;
 import org.zetool.container.collection.ListSequence;
 import org.zetool.container.mapping.IdentifiableIntegerMapping;
@@ -57,4 +65,63 @@ public class SteinerTreeTestInstances {
 
         return new MinSteinerTreeProblem(graph, distances, terminals);
     }
+
+    /**
+     * Creates a connected random graph with random costs and terminals.
+     */
+    public static MinSteinerTreeProblem createRandomInstance(int nodes, int edges, int terminals, long seed) {
+        Random random = new Random(seed);
+        MutableGraph graph = new DefaultGraph(nodes, edges);
+        IdentifiableIntegerMapping<Edge> costs = new IdentifiableIntegerMapping<>(edges);
+        for (int i = 1; i < nodes; ++i) {
+            costs.set(graph.createAndSetEdge(graph.getNode(random.nextInt(i)), graph.getNode(i)),
+                    1 + random.nextInt(20));
+        }
+        for (int i = nodes - 1; i < edges; ++i) {
+            int start = random.nextInt(nodes);
+            int end = random.nextInt(nodes);
+            if (start != end) {
+                costs.set(graph.createAndSetEdge(graph.getNode(start), graph.getNode(end)), 1 + random.nextInt(20));
+            }
+        }
+        IdentifiableCollection<Node> terminalNodes = new ListSequence<>();
+        for (int i = 0; i < terminals; ++i) {
+            terminalNodes.add(graph.getNode(i * (nodes / terminals)));
+        }
+        return new MinSteinerTreeProblem(graph, costs, terminalNodes);
+    }
+
+    /**
+     * Checks that the edges of a Steiner tree are distinct, contain no cycle and connect all terminals, and that the
+     * cost of the tree is the sum of its edge weights.
+     *
+     * @param instance the problem instance
+     * @param tree the solution
+     */
+    public static void assertIsTree(MinSteinerTreeProblem instance, SteinerTree tree) {
+        int[] component = new int[instance.getGraph().nodeCount()];
+        Arrays.setAll(component, i -> i);
+        Set<Edge> edges = new HashSet<>();
+        long cost = 0;
+        for (Edge edge : tree.getEdges()) {
+            assertThat(edges.add(edge), is(true));
+            int start = find(component, edge.start().id());
+            int end = find(component, edge.end().id());
+            assertThat(start == end, is(false));
+            component[start] = end;
+            cost += instance.getWeights().get(edge);
+        }
+        int root = find(component, instance.getTerminals().first().id());
+        for (Node terminal : instance.getTerminals()) {
+            assertThat(find(component, terminal.id()), is(equalTo(root)));
+        }
+        assertThat(tree.getCost(), is(equalTo(cost)));
+    }
+
+    private static int find(int[] component, int v) {
+        while (component[v] != v) {
+            v = component[v];
+        }
+        return v;
+    }
 }
@@ -0,0 +1,156 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.zetool.container.mapping.Identifiable;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Tests the compressed sparse row graph.
+ */
+public class CompactDirectedGraphTest {
+
+    private static DefaultDirectedGraph getExampleGraph() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(4, 5);
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(2));
+        graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        graph.createAndSetEdge(graph.getNode(2), graph.getNode(3));
+        graph.createAndSetEdge(graph.getNode(3), graph.getNode(0));
+        return graph;
+    }
+
+    @Test
+    public void copiesStructure() {
+        DefaultDirectedGraph original = getExampleGraph();
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(original);
+
+        assertThat(fixture.nodeCount(), is(equalTo(4)));
+        assertThat(fixture.edgeCount(), is(equalTo(5)));
+        for (Node node : original) {
+            assertThat(fixture.getNode(node.id()), is(sameInstance(node)));
+            assertThat(fixture.outDegree(node), is(equalTo(original.outDegree(node))));
+            assertThat(fixture.inDegree(node), is(equalTo(original.inDegree(node))));
+            assertThat(ids(fixture.outgoingEdges(node)), is(equalTo(ids(original.outgoingEdges(node)))));
+            assertThat(ids(fixture.incomingEdges(node)), is(equalTo(ids(original.incomingEdges(node)))));
+        }
+        for (Edge edge : original.edges()) {
+            assertThat(fixture.contains(edge), is(true));
+            assertThat(fixture.getEdge(edge.id()), is(sameInstance(edge)));
+        }
+    }
+
+    @Test
+    public void adjacentNodes() {
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(getExampleGraph());
+        Node node = fixture.getNode(2);
+
+        assertThat(ids(fixture.successorNodes(node)), is(equalTo(Arrays.asList(3))));
+        assertThat(ids(fixture.predecessorNodes(node)), is(equalTo(Arrays.asList(0, 1))));
+        assertThat(fixture.outgoingEdges(node).get(0).end(), is(equalTo(fixture.getNode(3))));
+    }
+
+    @Test
+    public void edgeLookup() {
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(getExampleGraph());
+
+        assertThat(fixture.getEdge(fixture.getNode(1), fixture.getNode(2)).id(), is(equalTo(2)));
+        assertThat(fixture.getEdge(fixture.getNode(2), fixture.getNode(1)), is(nullValue()));
+        assertThat(fixture.getEdges(fixture.getNode(3), fixture.getNode(0)).size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void edgeLookupAtHighDegree() {
+        DefaultDirectedGraph original = new DefaultDirectedGraph(50, 120);
+        for (int i = 49; i > 0; --i) {
+            original.createAndSetEdge(original.getNode(0), original.getNode(i));
+        }
+        for (int i = 1; i < 50; i += 2) {
+            original.createAndSetEdge(original.getNode(0), original.getNode(i));
+        }
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(original);
+
+        for (Node node : original) {
+            assertThat(ids(fixture.getEdges(fixture.getNode(0), node)),
+                    is(equalTo(ids(original.getEdges(original.getNode(0), node)))));
+            Edge expected = original.getEdge(original.getNode(0), node);
+            Edge edge = fixture.getEdge(fixture.getNode(0), node);
+            assertThat(edge, is(expected == null ? nullValue() : sameInstance(expected)));
+        }
+        assertThat(fixture.getEdges(fixture.getNode(0), fixture.getNode(3)).size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void hiddenEdgesAreSkipped() {
+        DefaultDirectedGraph original = getExampleGraph();
+        original.setHidden(original.getEdge(1), true);
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(original);
+
+        assertThat(fixture.edgeCount(), is(equalTo(4)));
+        assertThat(fixture.outDegree(fixture.getNode(0)), is(equalTo(1)));
+        assertThat(fixture.getEdge(1), is(nullValue()));
+    }
+
+    @Test
+    public void nonConsecutiveIds() {
+        DynamicNetwork original = new DynamicNetwork();
+        Node a = new Node(3);
+        Node b = new Node(7);
+        original.addNode(a);
+        original.addNode(b);
+        original.addEdge(new Edge(5, a, b));
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(original);
+
+        assertThat(fixture.nodeCount(), is(equalTo(2)));
+        assertThat(ids(fixture.nodes()), is(equalTo(Arrays.asList(3, 7))));
+        assertThat(fixture.getNode(0), is(nullValue()));
+        assertThat(fixture.outgoingEdges(a).first().id(), is(equalTo(5)));
+        assertThat(fixture.inDegree(b), is(equalTo(1)));
+    }
+
+    @Test
+    public void sharesAdjacencyArrays() {
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(getExampleGraph());
+
+        assertThat(CompressedSparseRow.of(fixture), is(sameInstance(fixture.outgoingAdjacency())));
+        assertThat(CompressedSparseRow.of(fixture, true), is(sameInstance(fixture.incomingAdjacency())));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        CompactDirectedGraph fixture = CompactDirectedGraph.of(getExampleGraph());
+        fixture.edges().add(new Edge(5, fixture.getNode(0), fixture.getNode(3)));
+    }
+
+    /**
+     * Returns the ids of the elements in iteration order, shared with the tests of the other graph implementations.
+     */
+    static List<Integer> ids(Iterable<? extends Identifiable> elements) {
+        List<Integer> result = new ArrayList<>();
+        elements.forEach(element -> result.add(element.id()));
+        return result;
+    }
+}
@@ -51,4 +51,56 @@ public class DefaultDirectedGraphTest {
         assertThat(edgeManuallySet.id(), is(equalTo(2)));
         assertThat(edgeStartAgain.id(), is(equalTo(1)));
     }
+
+    @Test
+    public void removedEdgeIdsAreReused() {
+        DefaultDirectedGraph fixture = new DefaultDirectedGraph(3, 4);
+        Edge[] created = new Edge[4];
+        for (int i = 0; i < created.length; ++i) {
+            created[i] = fixture.createAndSetEdge(fixture.getNode(i % 3), fixture.getNode((i + 1) % 3));
+        }
+        fixture.removeEdge(created[1]);
+        fixture.setHidden(created[2], true);
+
+        assertThat(fixture.edgeCount(), is(equalTo(2)));
+        assertThat(fixture.outDegree(fixture.getNode(1)), is(equalTo(0)));
+        Edge reused = fixture.createAndSetEdge(fixture.getNode(2), fixture.getNode(0));
+        assertThat(reused.id(), is(equalTo(1)));
+        assertThat(fixture.getEdgeCapacity(), is(equalTo(4)));
+    }
+
+    @Test
+    public void capacityGrowsWhenFull() {
+        DefaultDirectedGraph fixture = new DefaultDirectedGraph(2, 2);
+        for (int i = 0; i < 5; ++i) {
+            assertThat(fixture.createAndSetEdge(fixture.getNode(0), fixture.getNode(1)).id(), is(equalTo(i)));
+        }
+        assertThat(fixture.edgeCount(), is(equalTo(5)));
+        assertThat(fixture.outDegree(fixture.getNode(0)), is(equalTo(5)));
+    }
+
+    @Test
+    public void compactEdgeIds() {
+        DefaultDirectedGraph fixture = new DefaultDirectedGraph(3, 5);
+        Edge[] created = new Edge[5];
+        for (int i = 0; i < created.length; ++i) {
+            created[i] = fixture.createAndSetEdge(fixture.getNode(i % 3), fixture.getNode((i + 2) % 3));
+        }
+        fixture.removeEdge(created[0]);
+        fixture.removeEdge(created[3]);
+        fixture.setHidden(created[4], true);
+
+        int[] newIds = fixture.compactEdgeIds();
+
+        assertThat(newIds, is(equalTo(new int[]{-1, 0, 1, -1, 2})));
+        assertThat(fixture.edgeCount(), is(equalTo(2)));
+        assertThat(fixture.allNumberOfEdges(), is(equalTo(3)));
+        for (int i : new int[]{1, 2}) {
+            Edge edge = fixture.getEdge(newIds[i]);
+            assertThat(edge.start(), is(equalTo(created[i].start())));
+            assertThat(edge.end(), is(equalTo(created[i].end())));
+        }
+        assertThat(fixture.isHidden(fixture.allEdges().last()), is(true));
+        assertThat(fixture.createAndSetEdge(fixture.getNode(0), fixture.getNode(1)).id(), is(equalTo(3)));
+    }
 }
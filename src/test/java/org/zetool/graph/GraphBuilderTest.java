@@ -0,0 +1,122 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Tests that the graphs created by the {@link GraphBuilder} contain the given edges in the given order.
+ */
+public class GraphBuilderTest {
+
+    private static final int[] STARTS = {0, 0, 1, 2, 3, 2};
+    private static final int[] ENDS = {1, 2, 2, 3, 0, 3};
+
+    private static GraphBuilder getExampleBuilder() {
+        GraphBuilder builder = new GraphBuilder(5);
+        builder.addEdges(STARTS, ENDS);
+        return builder;
+    }
+
+    @Test
+    public void directedGraphs() {
+        GraphBuilder builder = getExampleBuilder();
+        assertEdges(builder.buildDirected());
+        assertEdges(builder.buildCompact());
+        assertEdges(builder.buildStatic(true));
+        assertThat(builder.buildCompact().outDegree(builder.buildCompact().getNode(2)), is(equalTo(2)));
+        assertThat(builder.buildDirected().inDegree(builder.buildDirected().getNode(3)), is(equalTo(2)));
+    }
+
+    @Test
+    public void undirectedGraph() {
+        DefaultGraph graph = getExampleBuilder().buildUndirected();
+        assertEdges(graph);
+        assertThat(graph.degree(graph.getNode(2)), is(equalTo(4)));
+        assertThat(graph.degree(graph.getNode(4)), is(equalTo(0)));
+    }
+
+    @Test
+    public void edgesFromStream() {
+        GraphBuilder builder = new GraphBuilder(5);
+        assertThat(builder.addEdge(STARTS[0], ENDS[0]), is(equalTo(0)));
+        builder.addEdges(Stream.of(new int[]{0, 2}, new int[]{1, 2}, new int[]{2, 3}, new int[]{3, 0},
+                new int[]{2, 3}));
+        assertThat(builder.getEdgeCount(), is(equalTo(6)));
+        assertEdges(builder.buildDirected());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidNodes() {
+        new GraphBuilder(3).addEdges(new int[]{0, 1}, new int[]{2, 3});
+    }
+
+    @Test
+    public void parallelAdjacencyMatchesSequential() {
+        Random random = new Random(3);
+        int nodes = 2000;
+        int edges = 200000;
+        GraphBuilder builder = new GraphBuilder(nodes, edges);
+        for (int i = 0; i < edges; ++i) {
+            builder.addEdge(random.nextInt(random.nextBoolean() ? 10 : nodes), random.nextInt(nodes));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        builder.setPool(pool);
+        CompactDirectedGraph graph = builder.buildCompact();
+        pool.shutdown();
+        ForkJoinPool single = new ForkJoinPool(1);
+        builder.setPool(single);
+
+        for (boolean reverse : new boolean[]{false, true}) {
+            CompressedSparseRow parallel = CompressedSparseRow.of(graph, reverse);
+            CompressedSparseRow sequential = builder.buildAdjacency(reverse);
+            assertThat(parallel.edgeCapacity(), is(equalTo(edges)));
+            for (int v = 0; v < nodes; ++v) {
+                assertThat(parallel.begin(v), is(equalTo(sequential.begin(v))));
+                assertThat(parallel.end(v), is(equalTo(sequential.end(v))));
+            }
+            for (int arc = 0; arc < edges; ++arc) {
+                assertThat(parallel.head(arc), is(equalTo(sequential.head(arc))));
+                assertThat(parallel.edgeId(arc), is(equalTo(sequential.edgeId(arc))));
+            }
+        }
+        single.shutdown();
+    }
+
+    private static void assertEdges(Graph graph) {
+        assertThat(graph.nodeCount(), is(equalTo(5)));
+        assertThat(graph.edgeCount(), is(equalTo(STARTS.length)));
+        List<Integer> ids = new ArrayList<>();
+        for (Edge edge : graph.edges()) {
+            ids.add(edge.id());
+            assertThat(edge.start().id(), is(equalTo(STARTS[edge.id()])));
+            assertThat(edge.end().id(), is(equalTo(ENDS[edge.id()])));
+            assertThat(graph.getEdge(edge.id()), is(equalTo(edge)));
+        }
+        assertThat(ids, is(equalTo(Arrays.asList(0, 1, 2, 3, 4, 5))));
+    }
+}
@@ -0,0 +1,218 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests the notifications of {@link ObservableGraph} implementations.
+ */
+public class GraphChangeListenerTest {
+
+    private final List<GraphChangeSet> changes = new ArrayList<>();
+    private final GraphChangeListener listener = changes::add;
+
+    @Test
+    public void singleChangesAreReportedImmediately() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 3);
+        graph.addGraphChangeListener(listener);
+        Edge edge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getAddedEdges(), is(equalTo(Collections.singletonList(edge))));
+        assertThat(changes.get(0).getRemovedEdges().isEmpty(), is(true));
+    }
+
+    @Test
+    public void batchIsReportedOnce() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 3);
+        graph.addGraphChangeListener(listener);
+        graph.beginBatch();
+        Edge first = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.beginBatch();
+        Edge second = graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        graph.endBatch();
+        assertThat(changes.isEmpty(), is(true));
+        graph.endBatch();
+
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getAddedEdges(), is(equalTo(Arrays.asList(first, second))));
+    }
+
+    @Test
+    public void hidingIsReportedAsRemoval() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 3);
+        Edge first = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        Edge second = graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        Node node = graph.getNode(1);
+        graph.addGraphChangeListener(listener);
+
+        graph.setHidden(node, true);
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getRemovedEdges(), is(equalTo(Arrays.asList(first, second))));
+        assertThat(changes.get(0).getRemovedNodes(), is(equalTo(Collections.singletonList(node))));
+
+        graph.setHidden(node, true);
+        assertThat(changes.size(), is(equalTo(1)));
+
+        graph.setHidden(node, false);
+        graph.showAllEdges();
+        assertThat(changes.size(), is(equalTo(3)));
+        assertThat(changes.get(1).getAddedNodes(), is(equalTo(Collections.singletonList(node))));
+        assertThat(changes.get(2).getAddedEdges(), is(equalTo(Arrays.asList(first, second))));
+    }
+
+    @Test
+    public void oppositeChangesCancelInBatch() {
+        DefaultGraph graph = new DefaultGraph(3, 3);
+        Edge edge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.addGraphChangeListener(listener);
+
+        graph.beginBatch();
+        graph.setHidden(edge, true);
+        graph.setHidden(edge, false);
+        graph.endBatch();
+        assertThat(changes.isEmpty(), is(true));
+
+        graph.removeGraphChangeListener(listener);
+        graph.setHidden(edge, true);
+        assertThat(changes.isEmpty(), is(true));
+    }
+
+    @Test
+    public void replacedEdgeWithSameIdDoesNotCancel() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(4, 3);
+        Edge old = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.addGraphChangeListener(listener);
+
+        graph.beginBatch();
+        graph.removeEdge(old);
+        Edge replacement = new Edge(old.id(), graph.getNode(2), graph.getNode(3));
+        graph.setEdge(replacement);
+        graph.endBatch();
+
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getRemovedEdges().size(), is(equalTo(1)));
+        assertThat(changes.get(0).getRemovedEdges().get(0), is(sameInstance(old)));
+        assertThat(changes.get(0).getAddedEdges().size(), is(equalTo(1)));
+        assertThat(changes.get(0).getAddedEdges().get(0), is(sameInstance(replacement)));
+    }
+
+    @Test
+    public void dynamicNetworkReplacedEdgeWithSameIdDoesNotCancel() {
+        DynamicNetwork network = new DynamicNetwork();
+        Node[] nodes = {new Node(0), new Node(1), new Node(2), new Node(3)};
+        network.addNodes(Arrays.asList(nodes));
+        Edge old = new Edge(5, nodes[0], nodes[1]);
+        network.addEdge(old);
+        network.addGraphChangeListener(listener);
+
+        network.beginBatch();
+        network.removeEdge(old);
+        Edge replacement = new Edge(old.id(), nodes[2], nodes[3]);
+        network.addEdge(replacement);
+        network.endBatch();
+
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getRemovedEdges().get(0), is(sameInstance(old)));
+        assertThat(changes.get(0).getAddedEdges().get(0), is(sameInstance(replacement)));
+    }
+
+    @Test
+    public void dynamicNetworkReportsNodeRemovalWithEdges() {
+        DynamicNetwork network = new DynamicNetwork();
+        Node[] nodes = {new Node(0), new Node(1), new Node(2)};
+        network.addNodes(Arrays.asList(nodes));
+        Edge first = new Edge(0, nodes[0], nodes[1]);
+        Edge second = new Edge(1, nodes[1], nodes[2]);
+        network.addEdges(Arrays.asList(first, second));
+        network.addGraphChangeListener(listener);
+
+        network.removeNode(nodes[1]);
+        assertThat(changes.size(), is(equalTo(1)));
+        assertThat(changes.get(0).getRemovedNodes(), is(equalTo(Collections.singletonList(nodes[1]))));
+        assertThat(changes.get(0).getRemovedEdges().size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void dynamicNetworkReportsTemporaryRemoval() {
+        DynamicNetwork network = new DynamicNetwork();
+        Node[] nodes = {new Node(0), new Node(1)};
+        network.addNodes(Arrays.asList(nodes));
+        Edge edge = new Edge(0, nodes[0], nodes[1]);
+        network.addEdge(edge);
+        network.addGraphChangeListener(listener);
+
+        network.remove_edge_temp(edge);
+        network.remove_edge_temp(edge);
+        network.recover_temp_removed_edges();
+
+        assertThat(changes.size(), is(equalTo(2)));
+        assertThat(changes.get(0).getRemovedEdges(), is(equalTo(Collections.singletonList(edge))));
+        assertThat(changes.get(1).getAddedEdges(), is(equalTo(Collections.singletonList(edge))));
+    }
+
+    @Test
+    public void temporaryRemovalsAreCountedWithListeners() {
+        DynamicNetwork network = new DynamicNetwork();
+        Node[] nodes = {new Node(0), new Node(1)};
+        network.addNodes(Arrays.asList(nodes));
+        Edge edge = new Edge(0, nodes[0], nodes[1]);
+        network.addEdge(edge);
+        network.addGraphChangeListener(listener);
+
+        network.remove_edge_temp(edge);
+        network.remove_edge_temp(edge);
+        network.add_edge_temp(edge);
+        assertThat(network.temp_removed_edges.contains(edge), is(true));
+        assertThat(changes.size(), is(equalTo(1)));
+
+        network.add_edge_temp(edge);
+        assertThat(network.temp_removed_edges.contains(edge), is(false));
+        assertThat(changes.size(), is(equalTo(2)));
+        assertThat(changes.get(1).getAddedEdges(), is(equalTo(Collections.singletonList(edge))));
+    }
+
+    @Test
+    public void dynamicNetworkIgnoresRemovalOfMissingElements() {
+        DynamicNetwork network = new DynamicNetwork();
+        Node[] nodes = {new Node(0), new Node(1)};
+        network.addNodes(Arrays.asList(nodes));
+        Edge edge = new Edge(0, nodes[0], nodes[1]);
+        network.addEdge(edge);
+        network.removeEdge(edge);
+        network.removeNode(nodes[1]);
+        network.addGraphChangeListener(listener);
+
+        network.removeEdge(edge);
+        network.removeNode(nodes[1]);
+        assertThat(changes.isEmpty(), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void endWithoutBeginFails() {
+        new DynamicNetwork().endBatch();
+    }
+}
@@ -0,0 +1,202 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.zetool.graph.CompactDirectedGraphTest.ids;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests writing graphs to files and serving them from the mapped files.
+ */
+public class MappedDirectedGraphTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static DefaultDirectedGraph getExampleGraph() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(5, 7);
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(2));
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        graph.createAndSetEdge(graph.getNode(2), graph.getNode(3));
+        graph.createAndSetEdge(graph.getNode(3), graph.getNode(0));
+        graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        return graph;
+    }
+
+    private MappedDirectedGraph writeAndOpen(MappedDirectedGraph.Writer writer) throws IOException {
+        Path file = folder.newFile().toPath();
+        writer.write(file);
+        return MappedDirectedGraph.open(file);
+    }
+
+    @Test
+    public void writeAndOpen() throws IOException {
+        DefaultDirectedGraph original = getExampleGraph();
+        MappedDirectedGraph fixture = writeAndOpen(new MappedDirectedGraph.Writer(original));
+
+        assertThat(fixture.nodeCount(), is(equalTo(original.nodeCount())));
+        assertThat(fixture.edgeCount(), is(equalTo(original.edgeCount())));
+        assertThat(ids(fixture.nodes()), is(equalTo(ids(original.nodes()))));
+        for (Node node : original) {
+            assertThat(fixture.getNode(node.id()), is(equalTo(node)));
+            assertThat(fixture.outDegree(node), is(equalTo(original.outDegree(node))));
+            assertThat(ids(fixture.incomingEdges(node)), is(equalTo(ids(original.incomingEdges(node)))));
+            assertThat(sorted(ids(fixture.outgoingEdges(node))),
+                    is(equalTo(sorted(ids(original.outgoingEdges(node))))));
+            List<Integer> ends = new ArrayList<>();
+            original.outgoingEdges(node).forEach(edge -> ends.add(edge.end().id()));
+            assertThat(sorted(ids(fixture.successorNodes(node))), is(equalTo(sorted(ends))));
+        }
+        for (Edge edge : original.edges()) {
+            Edge mapped = fixture.getEdge(edge.id());
+            assertThat(fixture.contains(edge), is(true));
+            assertThat(mapped.start(), is(equalTo(edge.start())));
+            assertThat(mapped.end(), is(equalTo(edge.end())));
+        }
+        assertThat(fixture.getEdge(original.edgeCount()), is(nullValue()));
+        assertThat(fixture.getNode(original.nodeCount()), is(nullValue()));
+    }
+
+    @Test
+    public void hiddenElementsAreNotWritten() throws IOException {
+        DefaultDirectedGraph original = getExampleGraph();
+        original.setHidden(original.getEdge(3), true);
+        original.setHidden(original.getNode(4), true);
+        MappedDirectedGraph fixture = writeAndOpen(new MappedDirectedGraph.Writer(original));
+
+        assertThat(fixture.nodeCount(), is(equalTo(4)));
+        assertThat(fixture.edgeCount(), is(equalTo(5)));
+        assertThat(fixture.getNode(4), is(nullValue()));
+        assertThat(fixture.getEdge(3), is(nullValue()));
+        assertThat(fixture.outDegree(fixture.getNode(2)), is(equalTo(0)));
+    }
+
+    @Test
+    public void edgeLookup() throws IOException {
+        MappedDirectedGraph fixture = writeAndOpen(new MappedDirectedGraph.Writer(getExampleGraph()));
+        Node start = fixture.getNode(0);
+
+        assertThat(fixture.getEdge(start, fixture.getNode(2)).id(), is(equalTo(0)));
+        assertThat(fixture.getEdge(fixture.getNode(2), fixture.getNode(1)), is(nullValue()));
+        assertThat(sorted(ids(fixture.getEdges(start, fixture.getNode(1)))), is(equalTo(Arrays.asList(1, 5))));
+        assertThat(fixture.getEdges(start, fixture.getNode(3)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void columns() throws IOException {
+        DefaultDirectedGraph original = getExampleGraph();
+        original.setHidden(original.getEdge(3), true);
+        MappedDirectedGraph.Writer writer = new MappedDirectedGraph.Writer(original);
+        writer.addIntColumn("cost", edge -> 10 * edge.id());
+        writer.addLongColumn("capacity", edge -> Long.MAX_VALUE - edge.id());
+        writer.addDoubleColumn("length", edge -> edge.id() / 2.0);
+        MappedDirectedGraph fixture = writeAndOpen(writer);
+
+        assertThat(new ArrayList<>(fixture.getColumnNames()),
+                is(equalTo(Arrays.asList("cost", "capacity", "length"))));
+        for (Edge edge : fixture.edges()) {
+            assertThat(fixture.getIntColumn("cost").get(edge.id()), is(equalTo(10 * edge.id())));
+            assertThat(fixture.getLongColumn("capacity").get(edge.id()), is(equalTo(Long.MAX_VALUE - edge.id())));
+            assertThat(fixture.getDoubleColumn("length").get(edge.id()), is(equalTo(edge.id() / 2.0)));
+        }
+        assertThat(fixture.getIntColumn("cost").get(3), is(equalTo(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void columnTypeIsChecked() throws IOException {
+        MappedDirectedGraph.Writer writer = new MappedDirectedGraph.Writer(getExampleGraph());
+        writer.addIntColumn("cost", Edge::id);
+        writeAndOpen(writer).getDoubleColumn("cost");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void collectionsAreReadOnly() throws IOException {
+        MappedDirectedGraph fixture = writeAndOpen(new MappedDirectedGraph.Writer(getExampleGraph()));
+        fixture.edges().add(new Edge(7, fixture.getNode(0), fixture.getNode(1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void openRejectsOtherData() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[64]);
+        MappedDirectedGraph.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openRejectsTruncatedFiles() throws IOException {
+        Path file = folder.newFile().toPath();
+        new MappedDirectedGraph.Writer(getExampleGraph()).write(file);
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length / 2));
+        MappedDirectedGraph.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openRejectsCorruptColumnNameLength() throws IOException {
+        Path file = folder.newFile().toPath();
+        MappedDirectedGraph.Writer writer = new MappedDirectedGraph.Writer(getExampleGraph());
+        writer.addIntColumn("cost", Edge::id);
+        writer.write(file);
+        byte[] data = Files.readAllBytes(file);
+        int name = indexOf(data, "cost".getBytes(StandardCharsets.UTF_8));
+        Arrays.fill(data, name - Integer.BYTES, name, (byte) -1);
+        Files.write(file, data);
+        MappedDirectedGraph.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void openRejectsCorruptOffsets() throws IOException {
+        Path file = folder.newFile().toPath();
+        new MappedDirectedGraph.Writer(getExampleGraph()).write(file);
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer header = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int arcCountPosition = 6 * Integer.BYTES;
+        header.putInt(arcCountPosition, header.getInt(arcCountPosition) - 1);
+        Files.write(file, data);
+        MappedDirectedGraph.open(file);
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= data.length; ++i) {
+            if (Arrays.equals(Arrays.copyOfRange(data, i, i + pattern.length), pattern)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Pattern not found");
+    }
+
+    private static List<Integer> sorted(List<Integer> ids) {
+        ids.sort(null);
+        return ids;
+    }
+}
@@ -0,0 +1,69 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.zetool.graph.CompactDirectedGraphTest.ids;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Tests the edge lookup of {@link StaticGraph}.
+ */
+public class StaticGraphTest {
+
+    private static StaticGraph createGraph(boolean directed) {
+        StaticGraph graph = new StaticGraph(directed, 3, 4);
+        for (int i = 0; i < 3; ++i) {
+            graph.setNode(new Node(i));
+        }
+        graph.createEdge(graph.getNode(0), graph.getNode(0), 0);
+        graph.createEdge(graph.getNode(0), graph.getNode(1), 1);
+        graph.createEdge(graph.getNode(1), graph.getNode(0), 2);
+        graph.createEdge(graph.getNode(1), graph.getNode(2), 3);
+        for (int i = 0; i < 4; ++i) {
+            graph.changeVisibility(graph.getEdge(i), true);
+        }
+        return graph;
+    }
+
+    @Test
+    public void undirectedLoopsOnlyMatchTheirNode() {
+        StaticGraph graph = createGraph(false);
+        Node node = new Node(0);
+
+        assertThat(ids(graph.getEdges(node, node)), is(equalTo(Arrays.asList(0))));
+        assertThat(ids(graph.getEdges(graph.getNode(0), graph.getNode(1))), is(equalTo(Arrays.asList(1, 2))));
+        assertThat(ids(graph.getEdges(graph.getNode(1), graph.getNode(0))), is(equalTo(Arrays.asList(1, 2))));
+        assertThat(graph.getEdges(graph.getNode(0), graph.getNode(2)).isEmpty(), is(true));
+        assertThat(graph.getEdge(graph.getNode(2), new Node(1)).id(), is(equalTo(3)));
+        assertThat(graph.getEdge(graph.getNode(2), graph.getNode(2)), is(nullValue()));
+    }
+
+    @Test
+    public void directedLookupUsesEquality() {
+        StaticGraph graph = createGraph(true);
+
+        assertThat(ids(graph.getEdges(graph.getNode(0), new Node(0))), is(equalTo(Arrays.asList(0))));
+        assertThat(ids(graph.getEdges(graph.getNode(0), new Node(1))), is(equalTo(Arrays.asList(1))));
+        assertThat(graph.getEdge(graph.getNode(1), new Node(2)).id(), is(equalTo(3)));
+        assertThat(graph.getEdge(graph.getNode(2), graph.getNode(1)), is(nullValue()));
+    }
+}
@@ -0,0 +1,193 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.zetool.graph.util.GraphUtil.generateDirected;
+import static org.zetool.graph.util.GraphUtil.generateUndirected;
+import static org.zetool.graph.util.RandomGraphs.createRandomGraph;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.GraphTest;
+import org.zetool.graph.Node;
+import org.zetool.graph.util.CompressedSparseRow;
+
+/**
+ * Tests the traversals of {@link CompactTraversal} against {@link BreadthFirstSearch}.
+ */
+@RunWith(Parameterized.class)
+public class CompactTraversalTest {
+
+    private final boolean directed;
+
+    public CompactTraversalTest(boolean directed) {
+        this.directed = directed;
+    }
+
+    @Parameters(name = "directed={0}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {true},
+            {false}
+        });
+    }
+
+    @Test
+    public void breadthFirstSearchDepthsMatch() {
+        Graph graph = createRandomGraph(50, 90, 3, directed);
+        CompactTraversal traversal = new CompactTraversal(graph);
+        CompactTraversal.Workspace workspace = traversal.createWorkspace();
+        for (Node source : graph.nodes()) {
+            BreadthFirstSearch bfs = new BreadthFirstSearch();
+            bfs.setProblem(graph);
+            bfs.setStart(source);
+            bfs.run();
+
+            int count = traversal.breadthFirstSearch(workspace, source.id(), null);
+            assertThat(count, is(equalTo(bfs.getReachableNodes().size())));
+            for (Node node : graph.nodes()) {
+                assertThat(workspace.getDepth(node.id()), is(equalTo(bfs.getDistance(node))));
+                assertThat(workspace.isVisited(node.id()), is(equalTo(bfs.isReachable(node))));
+                assertThat(traversal.isReachable(source.id(), node.id()), is(equalTo(bfs.isReachable(node))));
+                if (workspace.isVisited(node.id())) {
+                    assertPath(graph, source, node, workspace.getPathEdges(node.id()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void depthFirstSearchFinishesDescendantsFirst() {
+        Graph graph = createRandomGraph(40, 70, 4, directed);
+        CompactTraversal traversal = new CompactTraversal(graph);
+        CompactTraversal.Workspace workspace = traversal.createWorkspace();
+        int[] all = new int[graph.nodeCount()];
+        for (int i = 0; i < all.length; ++i) {
+            all[i] = i;
+        }
+        int[] discovered = new int[all.length];
+        int[] finished = new int[all.length];
+        int[] time = new int[1];
+        int count = traversal.depthFirstSearch(workspace, all, new TraversalVisitor() {
+            @Override
+            public boolean discover(int node, int edge, int depth) {
+                discovered[node] = ++time[0];
+                return true;
+            }
+
+            @Override
+            public void finish(int node) {
+                finished[node] = ++time[0];
+            }
+        });
+
+        assertThat(count, is(equalTo(all.length)));
+        for (int v : all) {
+            int parent = workspace.getPredecessorNode(v);
+            if (parent >= 0) {
+                assertThat(discovered[parent] < discovered[v], is(true));
+                assertThat(finished[v] < finished[parent], is(true));
+                assertThat(workspace.getDepth(v), is(equalTo(workspace.getDepth(parent) + 1)));
+            } else {
+                assertThat(workspace.getDepth(v), is(equalTo(0)));
+            }
+        }
+    }
+
+    @Test
+    public void treeEdgesOfDepthFirstSearch() {
+        Graph graph = directed ? generateDirected(8, GraphTest.DFS_GRAPH) : generateUndirected(8, GraphTest.DFS_GRAPH);
+        CompactTraversal traversal = new CompactTraversal(graph);
+        int[] treeEdges = new int[1];
+        int[] nonTreeEdges = new int[1];
+        traversal.depthFirstSearch(traversal.getWorkspace(), 0, new TraversalVisitor() {
+            @Override
+            public boolean discover(int node, int edge, int depth) {
+                if (edge >= 0) {
+                    treeEdges[0]++;
+                }
+                return true;
+            }
+
+            @Override
+            public void nonTreeEdge(int tail, int head, int edge) {
+                nonTreeEdges[0]++;
+            }
+        });
+
+        assertThat(treeEdges[0], is(equalTo(7)));
+        int arcs = CompressedSparseRow.of(graph).arcCount();
+        assertThat(nonTreeEdges[0], is(equalTo(arcs - 7)));
+    }
+
+    @Test
+    public void visitorStopsTraversal() {
+        Graph graph = createRandomGraph(30, 60, 5, directed);
+        CompactTraversal traversal = new CompactTraversal(graph);
+        int limit = 5;
+        TraversalVisitor stopping = new TraversalVisitor() {
+            private int visited;
+
+            @Override
+            public boolean discover(int node, int edge, int depth) {
+                return ++visited < limit;
+            }
+        };
+        int reachable = traversal.breadthFirstSearch(traversal.getWorkspace(), 0, null);
+        int count = traversal.breadthFirstSearch(traversal.getWorkspace(), 0, stopping);
+
+        assertThat(count, is(equalTo(Math.min(limit, reachable))));
+    }
+
+    @Test
+    public void multipleSources() {
+        Graph graph = createRandomGraph(40, 50, 6, directed);
+        CompactTraversal traversal = new CompactTraversal(graph);
+        CompactTraversal.Workspace workspace = traversal.createWorkspace();
+        int[] sources = {3, 17, 3, 25};
+        traversal.breadthFirstSearch(workspace, sources, null);
+        int[] depths = new int[graph.nodeCount()];
+        Arrays.fill(depths, Integer.MAX_VALUE);
+        CompactTraversal.Workspace single = traversal.createWorkspace();
+        for (int source : sources) {
+            traversal.breadthFirstSearch(single, source, null);
+            for (int v = 0; v < depths.length; ++v) {
+                depths[v] = Math.min(depths[v], single.getDepth(v));
+            }
+        }
+        for (int v = 0; v < depths.length; ++v) {
+            assertThat(workspace.getDepth(v), is(equalTo(depths[v])));
+        }
+    }
+
+    private static void assertPath(Graph graph, Node source, Node target, int[] path) {
+        Node node = source;
+        for (int edge : path) {
+            Edge e = graph.getEdge(edge);
+            assertThat(e.isIncidentTo(node), is(true));
+            node = e.opposite(node);
+        }
+        assertThat(node, is(equalTo(target)));
+    }
+}
@@ -0,0 +1,143 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.zetool.graph.util.RandomGraphs.createRandomGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Graph;
+import org.zetool.graph.Node;
+
+/**
+ * Tests the direction optimizing breadth first search against {@link BreadthFirstSearch} with different switching
+ * strategies.
+ */
+@RunWith(Parameterized.class)
+public class DirectionOptimizingBreadthFirstSearchTest {
+
+    private final boolean directed;
+    private final double alpha;
+    private final double beta;
+
+    public DirectionOptimizingBreadthFirstSearchTest(String name, boolean directed, double alpha, double beta) {
+        this.directed = directed;
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    @Parameters(name = "{0}, directed={1}")
+    public static Iterable<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+            {"default", true, DirectionOptimizingBreadthFirstSearch.DEFAULT_ALPHA,
+                DirectionOptimizingBreadthFirstSearch.DEFAULT_BETA},
+            {"default", false, DirectionOptimizingBreadthFirstSearch.DEFAULT_ALPHA,
+                DirectionOptimizingBreadthFirstSearch.DEFAULT_BETA},
+            {"top down", true, 0, DirectionOptimizingBreadthFirstSearch.DEFAULT_BETA},
+            {"bottom up", true, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY},
+            {"bottom up", false, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY}
+        });
+    }
+
+    @Test
+    public void distancesMatchBreadthFirstSearch() {
+        Graph graph = createRandomGraph(300, 900, 12, directed);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int source = 0; source < graph.nodeCount(); source += 37) {
+            Node start = graph.getNode(source);
+            BreadthFirstSearch bfs = new BreadthFirstSearch();
+            bfs.setProblem(graph);
+            bfs.setStart(start);
+            bfs.run();
+
+            DirectionOptimizingBreadthFirstSearch search = create(graph, pool);
+            search.setStart(start);
+            search.run();
+
+            assertThat(search.getReachableNodes(), is(equalTo(bfs.getReachableNodes())));
+            assertTree(graph, bfs, search);
+            assertThat(search.getPredecessor(start), is(nullValue()));
+            if (alpha == 0) {
+                assertThat(search.getBottomUpStepCount(), is(equalTo(0)));
+            } else if (Double.isInfinite(alpha)) {
+                assertThat(search.getTopDownStepCount(), is(equalTo(0)));
+            }
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void allComponents() {
+        Graph graph = createRandomGraph(200, 150, 13, directed);
+        BreadthFirstSearch bfs = new BreadthFirstSearch();
+        bfs.setProblem(graph);
+        bfs.run();
+
+        DirectionOptimizingBreadthFirstSearch search = create(graph, ForkJoinPool.commonPool());
+        search.run();
+
+        assertTree(graph, bfs, search);
+    }
+
+    @Test
+    public void lowDiameterGraphUsesBottomUp() {
+        if (alpha != DirectionOptimizingBreadthFirstSearch.DEFAULT_ALPHA) {
+            return;
+        }
+        Graph graph = createRandomGraph(5000, 80000, 14, directed);
+        DirectionOptimizingBreadthFirstSearch search = create(graph, ForkJoinPool.commonPool());
+        search.setStart(graph.getNode(0));
+        search.run();
+
+        assertThat(search.getBottomUpStepCount() > 0, is(true));
+        assertThat(search.getTopDownStepCount() > 0, is(true));
+    }
+
+    private DirectionOptimizingBreadthFirstSearch create(Graph graph, ForkJoinPool pool) {
+        DirectionOptimizingBreadthFirstSearch search = new DirectionOptimizingBreadthFirstSearch();
+        search.setProblem(graph);
+        search.setPool(pool);
+        search.setAlpha(alpha);
+        search.setBeta(beta);
+        return search;
+    }
+
+    /**
+     * Checks that distances are equal and each predecessor edge comes from a node of the previous level.
+     */
+    private static void assertTree(Graph graph, BreadthFirstSearch bfs, DirectionOptimizingBreadthFirstSearch search) {
+        for (Node node : graph.nodes()) {
+            assertThat(search.getDistance(node), is(equalTo(bfs.getDistance(node))));
+            Edge edge = search.getPredecessor(node);
+            if (edge != null) {
+                Node predecessor = graph.isDirected() ? edge.start() : edge.opposite(node);
+                assertThat(edge.isIncidentTo(node), is(true));
+                assertThat(search.getDistance(predecessor) + 1, is(equalTo(search.getDistance(node))));
+            } else if (search.isReachable(node)) {
+                assertThat(search.getDistance(node), is(equalTo(0)));
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.traversal;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.zetool.graph.util.GraphUtil.generateDirected;
+
+import java.util.Random;
+import org.junit.Test;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Edge;
+
+/**
+ * Tests topological sorting of acyclic and cyclic graphs.
+ */
+public class TopologicalSortTest {
+
+    @Test
+    public void edgesLeadForward() {
+        Random random = new Random(6);
+        int nodes = 100;
+        int[] rank = new int[nodes];
+        for (int i = 0; i < nodes; ++i) {
+            int j = random.nextInt(i + 1);
+            rank[i] = rank[j];
+            rank[j] = i;
+        }
+        int[][] edges = new int[400][];
+        for (int i = 0; i < edges.length; ++i) {
+            int start = random.nextInt(nodes - 1);
+            edges[i] = new int[]{rank[start], rank[start + 1 + random.nextInt(nodes - 1 - start)]};
+        }
+        DirectedGraph graph = generateDirected(nodes, edges);
+
+        TopologicalSort sort = new TopologicalSort();
+        sort.setProblem(graph);
+        sort.run();
+
+        assertThat(sort.isAcyclic(), is(true));
+        int[] order = sort.getSolution();
+        assertThat(order.length, is(equalTo(nodes)));
+        int[] position = new int[nodes];
+        for (int i = 0; i < order.length; ++i) {
+            position[order[i]] = i;
+        }
+        for (Edge edge : graph.edges()) {
+            assertThat(position[edge.start().id()] < position[edge.end().id()], is(true));
+        }
+    }
+
+    @Test
+    public void detectsCycle() {
+        DirectedGraph graph = generateDirected(5, new int[][]{{0, 1}, {1, 2}, {2, 1}, {2, 3}, {4, 0}});
+
+        TopologicalSort sort = new TopologicalSort();
+        sort.setProblem(graph);
+        sort.run();
+
+        assertThat(sort.isAcyclic(), is(false));
+        assertThat(sort.getSolution(), is(equalTo(new int[]{4, 0})));
+        assertThat(sort.getCyclicNodes(), is(equalTo(new int[]{1, 2, 3})));
+    }
+
+    @Test
+    public void selfLoopIsCycle() {
+        TopologicalSort sort = new TopologicalSort();
+        sort.setProblem(generateDirected(2, new int[][]{{0, 1}, {1, 1}}));
+        sort.run();
+
+        assertThat(sort.isAcyclic(), is(false));
+        assertThat(sort.getCyclicNodes(), is(equalTo(new int[]{1})));
+    }
+}
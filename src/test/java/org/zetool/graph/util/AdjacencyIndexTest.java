@@ -0,0 +1,181 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.zetool.graph.DefaultDirectedGraph;
+import org.zetool.graph.DefaultGraph;
+import org.zetool.graph.Edge;
+import org.zetool.graph.Node;
+
+/**
+ * Tests the hash index of edges against linear search.
+ */
+public class AdjacencyIndexTest {
+
+    @Test
+    public void randomAddAndRemove() {
+        Random random = new Random(5);
+        Node[] nodes = new Node[30];
+        for (int i = 0; i < nodes.length; ++i) {
+            nodes[i] = new Node(i);
+        }
+        AdjacencyIndex index = new AdjacencyIndex();
+        List<Edge> contained = new ArrayList<>();
+        for (int step = 0; step < 3000; ++step) {
+            if (contained.isEmpty() || random.nextInt(3) > 0) {
+                Edge edge = new Edge(step, nodes[random.nextInt(nodes.length)], nodes[random.nextInt(6)]);
+                index.add(edge);
+                contained.add(edge);
+            } else {
+                index.remove(contained.remove(random.nextInt(contained.size())));
+            }
+        }
+        assertThat(index.size(), is(equalTo(contained.size())));
+        for (Node start : nodes) {
+            for (Node end : nodes) {
+                List<Edge> expected = new ArrayList<>();
+                for (Edge edge : contained) {
+                    if (edge.start() == start && edge.end() == end) {
+                        expected.add(edge);
+                    }
+                }
+                assertThat(new ArrayList<>(index.getAll(start, end)), is(equalTo(expected)));
+                assertThat(index.get(start, end), is(expected.isEmpty() ? nullValue() : sameInstance(expected.get(0))));
+            }
+        }
+    }
+
+    @Test
+    public void indexedGraphFollowsChanges() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(4, 6);
+        Edge first = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.setAdjacencyIndexed(true);
+        Edge parallel = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        Edge other = graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+
+        assertThat(graph.getEdges(graph.getNode(0), graph.getNode(1)).size(), is(equalTo(2)));
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(2)), is(sameInstance(other)));
+        assertThat(graph.getEdge(graph.getNode(2), graph.getNode(1)), is(nullValue()));
+
+        graph.setHidden(first, true);
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(1)), is(sameInstance(parallel)));
+        Node node = graph.getNode(1);
+        graph.setHidden(node, true);
+        assertThat(graph.getEdge(graph.getNode(0), node), is(nullValue()));
+        assertThat(graph.getEdge(node, graph.getNode(2)), is(nullValue()));
+
+        graph.setHidden(node, false);
+        graph.showAllEdges();
+        assertThat(graph.getEdges(graph.getNode(0), node).size(), is(equalTo(2)));
+        assertThat(graph.getEdge(node, graph.getNode(2)), is(sameInstance(other)));
+
+        graph.setAdjacencyIndexed(false);
+        assertThat(graph.isAdjacencyIndexed(), is(false));
+        assertThat(graph.getEdge(node, graph.getNode(2)), is(sameInstance(other)));
+    }
+
+    @Test
+    public void indexedGraphFollowsCompaction() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 5);
+        graph.setAdjacencyIndexed(true);
+        Edge[] created = new Edge[5];
+        for (int i = 0; i < created.length; ++i) {
+            created[i] = graph.createAndSetEdge(graph.getNode(i % 3), graph.getNode((i + 2) % 3));
+        }
+        graph.removeEdge(created[0]);
+        graph.removeEdge(created[3]);
+        graph.setHidden(created[4], true);
+
+        graph.compactEdgeIds();
+
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(0)), is(sameInstance(graph.getEdge(0))));
+        assertThat(graph.getEdge(graph.getNode(2), graph.getNode(1)), is(sameInstance(graph.getEdge(1))));
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(2)), is(nullValue()));
+
+        graph.removeEdge(graph.getEdge(0));
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(0)), is(nullValue()));
+        graph.setHidden(graph.allEdges().last(), false);
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(0)).id(), is(equalTo(2)));
+    }
+
+    @Test
+    public void indexedUndirectedGraphFollowsCompaction() {
+        DefaultGraph graph = new DefaultGraph(3, 3);
+        graph.setAdjacencyIndexed(true);
+        Edge removed = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.createAndSetEdge(graph.getNode(1), graph.getNode(2));
+        graph.removeEdge(removed);
+
+        graph.compactEdgeIds();
+
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(2)), is(sameInstance(graph.getEdge(0))));
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(1)), is(nullValue()));
+        graph.removeEdge(graph.getEdge(0));
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(2)), is(nullValue()));
+    }
+
+    @Test
+    public void indexedGraphFollowsReusedIdInBatch() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 1);
+        Edge old = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.setAdjacencyIndexed(true);
+
+        graph.beginBatch();
+        graph.removeEdge(old);
+        Edge reused = graph.createAndSetEdge(graph.getNode(2), graph.getNode(1));
+        graph.endBatch();
+
+        assertThat(reused.id(), is(equalTo(old.id())));
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(1)), is(nullValue()));
+        assertThat(graph.getEdge(graph.getNode(2), graph.getNode(1)), is(sameInstance(reused)));
+        graph.removeEdge(reused);
+        assertThat(graph.getEdge(graph.getNode(2), graph.getNode(1)), is(nullValue()));
+    }
+
+    @Test
+    public void hidingThroughCopyRemovesEdge() {
+        DefaultDirectedGraph graph = new DefaultDirectedGraph(3, 2);
+        Edge edge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.setAdjacencyIndexed(true);
+
+        graph.setHidden(new Edge(edge.id(), edge.start(), edge.end()), true);
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(1)), is(nullValue()));
+
+        graph.setHidden(edge, false);
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(1)), is(sameInstance(edge)));
+    }
+
+    @Test
+    public void undirectedLookupIsOrdered() {
+        DefaultGraph graph = new DefaultGraph(3, 2);
+        Edge edge = graph.createAndSetEdge(graph.getNode(0), graph.getNode(1));
+        graph.setAdjacencyIndexed(true);
+
+        assertThat(graph.getEdge(graph.getNode(0), graph.getNode(1)), is(sameInstance(edge)));
+        assertThat(graph.getEdge(graph.getNode(1), graph.getNode(0)), is(nullValue()));
+        assertThat(graph.existsEdge(graph.getNode(0), graph.getNode(1)), is(true));
+    }
+}
@@ -0,0 +1,79 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests the id allocator against a {@link BitSet}.
+ */
+public class IdAllocatorTest {
+
+    @Test
+    public void randomUseAndRelease() {
+        Random random = new Random(2);
+        IdAllocator allocator = new IdAllocator(10);
+        BitSet expected = new BitSet();
+        for (int step = 0; step < 20000; ++step) {
+            int id = random.nextInt(random.nextBoolean() ? 100 : 10000);
+            if (random.nextInt(3) > 0) {
+                allocator.use(id);
+                expected.set(id);
+            } else {
+                allocator.release(id);
+                expected.clear(id);
+            }
+            int from = random.nextInt(10000);
+            int to = from + random.nextInt(5000);
+            int free = expected.nextClearBit(from);
+            assertThat(allocator.nextFree(from, to), is(equalTo(free < to ? free : -1)));
+        }
+        assertThat(allocator.size(), is(equalTo(expected.cardinality())));
+    }
+
+    @Test
+    public void allocateWrapsAround() {
+        IdAllocator allocator = new IdAllocator();
+        for (int i = 0; i < 200; ++i) {
+            assertThat(allocator.allocate(i, 200), is(equalTo(i)));
+        }
+        allocator.release(5);
+        allocator.release(150);
+        assertThat(allocator.allocate(100, 200), is(equalTo(150)));
+        assertThat(allocator.allocate(160, 200), is(equalTo(5)));
+        assertThat(allocator.allocate(160, 200), is(equalTo(200)));
+        assertThat(allocator.size(), is(equalTo(201)));
+    }
+
+    @Test
+    public void compact() {
+        IdAllocator allocator = new IdAllocator();
+        allocator.use(1);
+        allocator.use(4);
+        allocator.use(5);
+
+        assertThat(allocator.compact(6), is(equalTo(new int[]{-1, 0, -1, -1, 1, 2})));
+        assertThat(allocator.isUsed(2), is(true));
+        assertThat(allocator.isUsed(4), is(false));
+        assertThat(allocator.nextFree(0, 10), is(equalTo(3)));
+    }
+}
@@ -0,0 +1,68 @@
+/* zet evacuation tool copyright (c) 2007-20 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zetool.graph.util;
+
+import static org.zetool.graph.util.GraphUtil.generateDirected;
+import static org.zetool.graph.util.GraphUtil.generateUndirected;
+
+import java.util.Random;
+import org.zetool.graph.DirectedGraph;
+import org.zetool.graph.Graph;
+
+/**
+ * Random graphs for tests, created by {@link GraphUtil#generateDirected(int, int[][])} and
+ * {@link GraphUtil#generateUndirected(int, int[][])}.
+ */
+public class RandomGraphs {
+
+    private RandomGraphs() {
+    }
+
+    /**
+     * Creates a graph with uniformly random edges, which may contain loops and parallel edges.
+     *
+     * @param nodes the number of nodes
+     * @param edges the number of edges
+     * @param seed the random seed
+     * @param directed whether the graph is directed
+     * @return the random graph
+     */
+    public static Graph createRandomGraph(int nodes, int edges, long seed, boolean directed) {
+        int[][] pairs = randomPairs(nodes, edges, seed);
+        return directed ? generateDirected(nodes, pairs) : generateUndirected(nodes, pairs);
+    }
+
+    /**
+     * Creates a directed graph with uniformly random edges, which may contain loops and parallel edges.
+     *
+     * @param nodes the number of nodes
+     * @param edges the number of edges
+     * @param seed the random seed
+     * @return the random graph
+     */
+    public static DirectedGraph createRandomDirectedGraph(int nodes, int edges, long seed) {
+        return generateDirected(nodes, randomPairs(nodes, edges, seed));
+    }
+
+    private static int[][] randomPairs(int nodes, int edges, long seed) {
+        Random random = new Random(seed);
+        int[][] pairs = new int[edges][];
+        for (int i = 0; i < edges; ++i) {
+            pairs[i] = new int[]{random.nextInt(nodes), random.nextInt(nodes)};
+        }
+        return pairs;
+    }
+}